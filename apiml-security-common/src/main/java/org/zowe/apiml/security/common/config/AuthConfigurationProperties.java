@@ -53,6 +53,8 @@ public class AuthConfigurationProperties {
     private String gatewayEvictAccessTokensAndRules = "/gateway/auth/access-token/evict";
     private String zaasEvictAccessTokensAndRules = "/zaas/api/v1/auth/access-token/evict";
 
+    private String zaasEvictUserMapping = "/zaas/api/v1/auth/user-mapping/evict";
+
     private String gatewayRefreshEndpoint = "/gateway/api/v1/auth/refresh";
     private String zaasRefreshEndpoint = "/zaas/api/v1/auth/refresh";
 
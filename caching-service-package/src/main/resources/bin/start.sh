@@ -28,6 +28,10 @@
 # - ZWE_configs_heap_max
 # - ZWE_configs_heap_init
 # - ZWE_configs_storage_evictionStrategy
+# - ZWE_configs_storage_expiry_tickMillis
+# - ZWE_configs_storage_file_compaction_minRecords
+# - ZWE_configs_storage_file_path
+# - ZWE_configs_storage_file_sync
 # - ZWE_configs_storage_mode
 # - ZWE_configs_storage_size
 # - ZWE_configs_storage_vsam_name
@@ -100,6 +104,11 @@ if [ -z "${ZWE_configs_storage_infinispan_persistence_indexLocation}" ]; then
     ZWE_configs_storage_infinispan_persistence_indexLocation="${ZWE_zowe_workspaceDirectory}/caching-service/index"
   fi
 fi
+if [ -z "${ZWE_configs_storage_file_path}" ]; then
+  if [ -n "${ZWE_zowe_workspaceDirectory}" ]; then
+    ZWE_configs_storage_file_path="${ZWE_zowe_workspaceDirectory}/caching-service/caching-service.log"
+  fi
+fi
 if [ -z "${ZWE_configs_storage_infinispan_initialHosts}" ]; then
   ZWE_configs_storage_infinispan_initialHosts="${ZWE_haInstance_hostname:-localhost}[${ZWE_configs_storage_infinispan_jgroups_port:-7098}]"
 fi
@@ -255,8 +264,12 @@ _BPX_JOBNAME=${ZWE_zowe_job_prefix}${CACHING_CODE} ${JAVA_BIN_DIR}java \
   -Dserver.ssl.enabled-protocols=${server_enabled_protocols} \
   -Dcaching.storage.evictionStrategy=${ZWE_configs_storage_evictionStrategy:-reject} \
   -Dcaching.storage.size=${ZWE_configs_storage_size:-10000} \
+  -Dcaching.storage.expiry.tickMillis=${ZWE_configs_storage_expiry_tickMillis:-1000} \
   -Dcaching.storage.mode=${ZWE_configs_storage_mode:-inMemory} \
   -Dcaching.storage.vsam.name=${VSAM_FILE_NAME} \
+  -Dcaching.storage.file.path=${ZWE_configs_storage_file_path:-data/caching-service.log} \
+  -Dcaching.storage.file.sync=${ZWE_configs_storage_file_sync:-true} \
+  -Dcaching.storage.file.compaction.minRecords=${ZWE_configs_storage_file_compaction_minRecords:-10000} \
   -Djgroups.bind.address=${ZWE_configs_storage_infinispan_jgroups_host:-${ZWE_haInstance_hostname:-localhost}} \
   -Djgroups.bind.port=${ZWE_configs_storage_infinispan_jgroups_port:-7098} \
   -Djgroups.keyExchange.port=${ZWE_configs_storage_infinispan_jgroups_keyExchange_port:-7118} \
@@ -0,0 +1,145 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.EntityTag;
+import org.zowe.apiml.caching.service.Storage;
+import org.zowe.apiml.caching.service.StorageException;
+import org.zowe.apiml.message.core.MessageService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * Non-blocking variant of the most frequent operations of {@link CachingController}. The request thread is released
+ * while the storage processes the operation, and the response is written when the storage completes it. A burst of
+ * requests waiting for a remote storage (Redis, Infinispan) therefore does not exhaust the pool of request threads.
+ * <p>
+ * The storages which do not support asynchronous processing complete the operation in the request thread.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/async")
+public class CachingAsyncController {
+    private final Storage storage;
+    private final MessageService messageService;
+
+    @GetMapping(value = "/cache/{key}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Retrieves a specific value in the cache without blocking",
+        description = "Value returned is for the provided {key}. The header ETag contains the tag of the value for the conditional update.")
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<Object>> getValue(@PathVariable String key, HttpServletRequest request) {
+        return process(request, serviceId -> storage.readAsync(serviceId, key), HttpStatus.OK, true)
+            .thenApply(response -> CachingController.withEntityTag(response, response.getBody() instanceof KeyValue keyValue ? keyValue : null));
+    }
+
+    @PostMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create a new key in the cache without blocking",
+        description = "A new key-value pair will be added to the cache")
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<Object>> createKey(@RequestBody KeyValue keyValue, HttpServletRequest request) {
+        return process(request, serviceId -> {
+            CachingController.checkForInvalidPayload(keyValue);
+            return storage.createAsync(serviceId, keyValue);
+        }, HttpStatus.CREATED, false);
+    }
+
+    @PutMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Update key in the cache without blocking",
+        description = "Value at the key in the provided key-value pair will be updated to the provided value. " +
+            "If the header If-Match is provided, the value is updated only if it was not changed since it was read with this entity tag.")
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<Object>> update(@RequestBody KeyValue keyValue,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                            HttpServletRequest request) {
+        String expectedTag = EntityTag.parse(ifMatch);
+        return process(request, serviceId -> {
+            CachingController.checkForInvalidPayload(keyValue);
+            return storage.updateAsync(serviceId, keyValue, expectedTag);
+        }, HttpStatus.NO_CONTENT, false)
+            .thenApply(response -> CachingController.withEntityTag(response, keyValue));
+    }
+
+    @DeleteMapping(value = "/cache/{key}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Delete key from the cache without blocking",
+        description = "Will delete key-value pair for the provided {key}")
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<Object>> delete(@PathVariable String key, HttpServletRequest request) {
+        return process(request, serviceId -> storage.deleteAsync(serviceId, key), HttpStatus.NO_CONTENT, true);
+    }
+
+    @PostMapping(value = "/cache-list/{mapKey}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Add a new item in the cache map without blocking",
+        description = "A new key-value pair will be added to the specific cache map with given map key.")
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<Object>> storeMapItem(@PathVariable String mapKey, @RequestBody KeyValue keyValue, HttpServletRequest request) {
+        return process(request, serviceId -> {
+            CachingController.checkForInvalidPayload(keyValue);
+            return storage.storeMapItemAsync(serviceId, mapKey, keyValue);
+        }, HttpStatus.CREATED, false);
+    }
+
+    @GetMapping(value = "/cache-list", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Retrieves all the maps in the cache without blocking",
+        description = "Values returned for the calling service")
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<Object>> getAllMaps(HttpServletRequest request) {
+        return process(request, storage::getAllMapsAsync, HttpStatus.OK, true);
+    }
+
+    /**
+     * Authenticate the user, start the storage operation and map its result or failure to the response.
+     */
+    private CompletableFuture<ResponseEntity<Object>> process(HttpServletRequest request, Function<String, CompletionStage<?>> operation,
+                                                              HttpStatus successStatus, boolean withBody) {
+        Optional<String> serviceId = CachingController.getServiceId(request);
+        if (serviceId.isEmpty()) {
+            return CompletableFuture.completedFuture(CachingController.getUnauthorizedResponse(messageService));
+        }
+
+        // the URL has to be read in the request thread, the request object could be recycled before the completion
+        StringBuffer requestURL = request.getRequestURL();
+        CompletionStage<?> stage;
+        try {
+            stage = operation.apply(serviceId.get());
+        } catch (RuntimeException exception) {
+            stage = CompletableFuture.failedFuture(exception);
+        }
+
+        return stage.<ResponseEntity<Object>>handle((result, throwable) -> {
+            if (throwable == null) {
+                return new ResponseEntity<>(withBody ? result : null, successStatus);
+            }
+
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (cause instanceof StorageException storageException) {
+                return CachingController.exceptionToResponse(messageService, storageException);
+            }
+            return CachingController.handleInternalError(messageService, cause, requestURL);
+        }).toCompletableFuture();
+    }
+
+}
@@ -14,11 +14,13 @@ import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.EntityTag;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
@@ -27,6 +29,8 @@ import org.zowe.apiml.message.core.MessageService;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -48,10 +52,10 @@ public class CachingController {
                 try {
                     return new ResponseEntity<>(storage.readForService(s), HttpStatus.OK);
                 } catch (Exception exception) {
-                    return handleInternalError(exception, request.getRequestURL());
+                    return handleInternalError(messageService, exception, request.getRequestURL());
                 }
             }
-        ).orElseGet(this::getUnauthorizedResponse);
+        ).orElseGet(() -> getUnauthorizedResponse(messageService));
     }
 
     @DeleteMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -65,13 +69,13 @@ public class CachingController {
                     storage.deleteForService(s);
                     return new ResponseEntity<>(HttpStatus.OK);
                 } catch (Exception exception) {
-                    return handleInternalError(exception, request.getRequestURL());
+                    return handleInternalError(messageService, exception, request.getRequestURL());
                 }
             }
-        ).orElseGet(this::getUnauthorizedResponse);
+        ).orElseGet(() -> getUnauthorizedResponse(messageService));
     }
 
-    private ResponseEntity<Object> getUnauthorizedResponse() {
+    static ResponseEntity<Object> getUnauthorizedResponse(MessageService messageService) {
         Messages missingCert = Messages.MISSING_CERTIFICATE;
         Message message = messageService.createMessage(missingCert.getKey(), "parameter");
         return new ResponseEntity<>(message.mapToView(), missingCert.getStatus());
@@ -82,8 +86,9 @@ public class CachingController {
         description = "Value returned is for the provided {key}")
     @ResponseBody
     public ResponseEntity<Object> getValue(@PathVariable String key, HttpServletRequest request) {
-        return keyRequest(storage::read,
+        ResponseEntity<Object> response = keyRequest(storage::read,
             key, request, HttpStatus.OK);
+        return withEntityTag(response, response.getBody() instanceof KeyValue keyValue ? keyValue : null);
     }
 
     @DeleteMapping(value = "/cache/{key}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -104,6 +109,39 @@ public class CachingController {
             keyValue, request, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/cache-batch/read", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Retrieves multiple values in the cache",
+        description = "Values returned for the provided keys, the keys which are not in the cache are omitted")
+    @ResponseBody
+    public ResponseEntity<Object> getValues(@RequestBody(required = false) List<String> keys, HttpServletRequest request) {
+        return batchRequest(s -> storage.readBatch(s, keys == null ? Collections.emptyList() : keys),
+            request, HttpStatus.OK);
+    }
+
+    @PutMapping(value = "/cache-batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Store multiple keys in the cache",
+        description = "All provided key-value pairs will be stored, the existing values are replaced")
+    @ResponseBody
+    public ResponseEntity<Object> storeValues(@RequestBody(required = false) List<KeyValue> keyValues, HttpServletRequest request) {
+        return batchRequest(s -> {
+            if (keyValues == null) {
+                throw invalidPayloadException(null, "No KeyValue provided in the payload");
+            }
+            keyValues.forEach(CachingController::checkForInvalidPayload);
+            storage.storeBatch(s, keyValues);
+            return null;
+        }, request, HttpStatus.NO_CONTENT);
+    }
+
+    @PostMapping(value = "/cache-batch/delete", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Delete multiple keys from the cache",
+        description = "Will delete key-value pairs for the provided keys and return the deleted ones")
+    @ResponseBody
+    public ResponseEntity<Object> deleteValues(@RequestBody(required = false) List<String> keys, HttpServletRequest request) {
+        return batchRequest(s -> storage.deleteBatch(s, keys == null ? Collections.emptyList() : keys),
+            request, HttpStatus.OK);
+    }
+
     @PostMapping(value = "/cache-list/{mapKey}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Add a new item in the cache map",
         description = "A new key-value pair will be added to the specific cache map with given map key.")
@@ -127,7 +165,41 @@ public class CachingController {
                     return handleIncompatibleStorageMethod(exception, request.getRequestURL());
                 }
             }
-        ).orElseGet(this::getUnauthorizedResponse);
+        ).orElseGet(() -> getUnauthorizedResponse(messageService));
+    }
+
+    @PostMapping(value = "/cache-list/{mapKey}/lookup", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Retrieves the requested items in the cache map",
+        description = "Values returned for the calling service and specific cache map, only for the keys provided in the payload which exist in the map.")
+    @ResponseBody
+    public ResponseEntity<Object> lookupMapItems(@PathVariable String mapKey, @RequestBody(required = false) List<String> keys, HttpServletRequest request) {
+        return getServiceId(request).<ResponseEntity<Object>>map(
+            s -> {
+                log.debug("Lookup items for serviceId: {}", s);
+                try {
+                    return new ResponseEntity<>(storage.getMapItems(s, mapKey, keys == null ? Collections.emptyList() : keys), HttpStatus.OK);
+                } catch (Exception exception) {
+                    return handleIncompatibleStorageMethod(exception, request.getRequestURL());
+                }
+            }
+        ).orElseGet(() -> getUnauthorizedResponse(messageService));
+    }
+
+    @GetMapping(value = "/cache-list/{mapKey}/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Retrieves the items in the cache map changed since the given version",
+        description = "Items of the calling service and specific cache map with the current version of the map. If the changes are not known, all items are returned with the flag full.")
+    @ResponseBody
+    public ResponseEntity<Object> getMapChanges(@PathVariable String mapKey, @RequestParam(defaultValue = "0") long since, HttpServletRequest request) {
+        return getServiceId(request).<ResponseEntity<Object>>map(
+            s -> {
+                log.debug("Get changes since version {} for serviceId: {}", since, s);
+                try {
+                    return new ResponseEntity<>(storage.getMapChanges(s, mapKey, since), HttpStatus.OK);
+                } catch (Exception exception) {
+                    return handleIncompatibleStorageMethod(exception, request.getRequestURL());
+                }
+            }
+        ).orElseGet(() -> getUnauthorizedResponse(messageService));
     }
 
     @GetMapping(value = "/cache-list", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -144,7 +216,7 @@ public class CachingController {
                     return handleIncompatibleStorageMethod(exception, request.getRequestURL());
                 }
             }
-        ).orElseGet(this::getUnauthorizedResponse);
+        ).orElseGet(() -> getUnauthorizedResponse(messageService));
     }
 
     @DeleteMapping(value = "/cache-list/evict/rules/{mapKey}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -159,10 +231,10 @@ public class CachingController {
                     storage.removeNonRelevantRules(s, mapKey);
                     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
                 } catch (Exception exception) {
-                    return handleInternalError(exception, request.getRequestURL());
+                    return handleInternalError(messageService, exception, request.getRequestURL());
                 }
             }
-        ).orElseGet(this::getUnauthorizedResponse);
+        ).orElseGet(() -> getUnauthorizedResponse(messageService));
     }
 
     @DeleteMapping(value = "/cache-list/evict/tokens/{mapKey}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -177,23 +249,41 @@ public class CachingController {
                     storage.removeNonRelevantTokens(s, mapKey);
                     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
                 } catch (Exception exception) {
-                    return handleInternalError(exception, request.getRequestURL());
+                    return handleInternalError(messageService, exception, request.getRequestURL());
                 }
             }
-        ).orElseGet(this::getUnauthorizedResponse);
+        ).orElseGet(() -> getUnauthorizedResponse(messageService));
     }
 
     @PutMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Update key in the cache",
-        description = "Value at the key in the provided key-value pair will be updated to the provided value")
+        description = "Value at the key in the provided key-value pair will be updated to the provided value. " +
+            "If the header If-Match is provided, the value is updated only if it was not changed since it was read with this entity tag.")
     @ResponseBody
-    public ResponseEntity<Object> update(@RequestBody KeyValue keyValue, HttpServletRequest request) {
-        return keyValueRequest(storage::update,
+    public ResponseEntity<Object> update(@RequestBody KeyValue keyValue,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                         HttpServletRequest request) {
+        String expectedTag = EntityTag.parse(ifMatch);
+        ResponseEntity<Object> response = keyValueRequest((serviceId, toUpdate) -> expectedTag == null ?
+                storage.update(serviceId, toUpdate) : storage.update(serviceId, toUpdate, expectedTag),
             keyValue, request, HttpStatus.NO_CONTENT);
+        return withEntityTag(response, keyValue);
     }
 
+    /**
+     * Add the header ETag with the tag of the stored value to a successful response.
+     */
+    static ResponseEntity<Object> withEntityTag(ResponseEntity<Object> response, KeyValue storedValue) {
+        if ((storedValue == null) || !response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+            .eTag(EntityTag.of(storedValue))
+            .body(response.getBody());
+    }
 
-    private ResponseEntity<Object> exceptionToResponse(StorageException exception) {
+
+    static ResponseEntity<Object> exceptionToResponse(MessageService messageService, StorageException exception) {
         Message message = messageService.createMessage(exception.getKey(), (Object[]) exception.getParameters());
         return new ResponseEntity<>(message.mapToView(), exception.getStatus());
     }
@@ -207,7 +297,7 @@ public class CachingController {
     private ResponseEntity<Object> keyRequest(KeyOperation keyOperation, String key, HttpServletRequest request, HttpStatus successStatus) {
         Optional<String> serviceId = getServiceId(request);
         if (!serviceId.isPresent()) {
-            return getUnauthorizedResponse();
+            return getUnauthorizedResponse(messageService);
         }
         try {
             if (key == null) {
@@ -218,9 +308,9 @@ public class CachingController {
 
             return new ResponseEntity<>(pair, successStatus);
         } catch (StorageException exception) {
-            return exceptionToResponse(exception);
+            return exceptionToResponse(messageService, exception);
         } catch (Exception exception) {
-            return handleInternalError(exception, request.getRequestURL());
+            return handleInternalError(messageService, exception, request.getRequestURL());
         }
     }
 
@@ -234,7 +324,7 @@ public class CachingController {
                                                    HttpServletRequest request, HttpStatus successStatus) {
         Optional<String> serviceId = getServiceId(request);
         if (!serviceId.isPresent()) {
-            return getUnauthorizedResponse();
+            return getUnauthorizedResponse(messageService);
         }
 
         try {
@@ -244,9 +334,31 @@ public class CachingController {
 
             return new ResponseEntity<>(successStatus);
         } catch (StorageException exception) {
-            return exceptionToResponse(exception);
+            return exceptionToResponse(messageService, exception);
+        } catch (Exception exception) {
+            return handleInternalError(messageService, exception, request.getRequestURL());
+        }
+    }
+
+    /**
+     * Authenticate the user.
+     * Do the storage operation with multiple keys passed in as Lambda
+     * Properly handle and package Exceptions.
+     */
+    private ResponseEntity<Object> batchRequest(BatchOperation operation, HttpServletRequest request, HttpStatus successStatus) {
+        Optional<String> serviceId = getServiceId(request);
+        if (serviceId.isEmpty()) {
+            return getUnauthorizedResponse(messageService);
+        }
+
+        try {
+            Object result = operation.storageRequest(serviceId.get());
+
+            return new ResponseEntity<>(result, successStatus);
+        } catch (StorageException exception) {
+            return exceptionToResponse(messageService, exception);
         } catch (Exception exception) {
-            return handleInternalError(exception, request.getRequestURL());
+            return handleInternalError(messageService, exception, request.getRequestURL());
         }
     }
 
@@ -254,7 +366,7 @@ public class CachingController {
                                                       HttpServletRequest request, HttpStatus successStatus) {
         Optional<String> serviceId = getServiceId(request);
         if (serviceId.isEmpty()) {
-            return getUnauthorizedResponse();
+            return getUnauthorizedResponse(messageService);
         }
 
         try {
@@ -265,13 +377,13 @@ public class CachingController {
 
             return new ResponseEntity<>(successStatus);
         } catch (StorageException exception) {
-            return exceptionToResponse(exception);
+            return exceptionToResponse(messageService, exception);
         } catch (Exception exception) {
-            return handleInternalError(exception, request.getRequestURL());
+            return handleInternalError(messageService, exception, request.getRequestURL());
         }
     }
 
-    private Optional<String> getServiceId(HttpServletRequest request) {
+    static Optional<String> getServiceId(HttpServletRequest request) {
         Optional<String> certificateServiceId = getHeader(request, "X-Certificate-DistinguishedName");
         Optional<String> specificServiceId = getHeader(request, "X-CS-Service-ID");
 
@@ -284,7 +396,7 @@ public class CachingController {
         }
     }
 
-    private Optional<String> getHeader(HttpServletRequest request, String headerName) {
+    private static Optional<String> getHeader(HttpServletRequest request, String headerName) {
         String serviceId = request.getHeader(headerName);
         if (StringUtils.isEmpty(serviceId)) {
             return Optional.empty();
@@ -293,7 +405,7 @@ public class CachingController {
         }
     }
 
-    private ResponseEntity<Object> handleInternalError(Exception exception, StringBuffer requestURL) {
+    static ResponseEntity<Object> handleInternalError(MessageService messageService, Throwable exception, StringBuffer requestURL) {
         Messages internalServerError = Messages.INTERNAL_SERVER_ERROR;
         Message message = messageService.createMessage(internalServerError.getKey(), requestURL, exception.getMessage(), exception.toString());
         return new ResponseEntity<>(message.mapToView(), internalServerError.getStatus());
@@ -309,12 +421,12 @@ public class CachingController {
         throw new StorageException(Messages.KEY_NOT_PROVIDED.getKey(), Messages.KEY_NOT_PROVIDED.getStatus());
     }
 
-    private StorageException invalidPayloadException(String keyValue, String message) {
+    private static StorageException invalidPayloadException(String keyValue, String message) {
         return new StorageException(Messages.INVALID_PAYLOAD.getKey(), Messages.INVALID_PAYLOAD.getStatus(),
             keyValue, message);
     }
 
-    private void checkForInvalidPayload(KeyValue keyValue) {
+    static void checkForInvalidPayload(KeyValue keyValue) {
         if (keyValue == null) {
             throw invalidPayloadException(null, "No KeyValue provided in the payload");
         }
@@ -339,6 +451,11 @@ public class CachingController {
         KeyValue storageRequest(String serviceId, KeyValue keyValue) throws StorageException;
     }
 
+    @FunctionalInterface
+    interface BatchOperation {
+        Object storageRequest(String serviceId);
+    }
+
     @FunctionalInterface
     interface MapKeyValueOperation {
         KeyValue storageRequest(String serviceId, String mapKey, KeyValue keyValue);
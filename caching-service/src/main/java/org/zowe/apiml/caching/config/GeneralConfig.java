@@ -31,6 +31,11 @@ public class GeneralConfig implements WebMvcConfigurer {
     private String evictionStrategy;
     @Value("${caching.storage.size:100}")
     private int maxDataSize;
+    /**
+     * Period of the sweeper removing the expired entries in the storages without a native expiration.
+     */
+    @Value("${caching.storage.expiry.tickMillis:1000}")
+    private long expiryTickMillis = 1000;
 
     @Override
     public void configurePathMatch(PathMatchConfigurer configurer) {
@@ -10,6 +10,7 @@
 
 package org.zowe.apiml.caching.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -67,7 +68,10 @@ public class SpringSecurityConfig {
             .sessionManagement(management -> management.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
         if (verifyCertificates || !nonStrictVerifyCerts) {
-            http.authorizeHttpRequests(requests -> requests.anyRequest().authenticated())
+            http.authorizeHttpRequests(requests -> requests
+                    // the response of an asynchronous request is written in a dispatch of the already authorized request
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                    .anyRequest().authenticated())
                 .x509(x509 -> x509.userDetailsService(x509UserDetailsService()));
             if (isAttlsEnabled) {
                 http.addFilterBefore(new AttlsFilter(), X509AuthenticationFilter.class);
@@ -25,10 +25,17 @@ import java.util.Date;
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 @Data
 public class KeyValue implements Serializable {
+    // the value computed for the class without ttl, so the entries persisted by the older versions can be read
+    private static final long serialVersionUID = 4205606503604452468L;
+
     private final String key;
     private final String value;
     private String serviceId;
     private final String created;
+    /**
+     * Time to live in seconds counted from the creation time, null (or not positive) if the entry does not expire.
+     */
+    private Long ttl;
 
     public KeyValue(String key, String value) {
         this.key = key;
@@ -37,6 +44,24 @@ public class KeyValue implements Serializable {
         this.created = currentTime();
     }
 
+    /**
+     * @return time in milliseconds when the entry expires, {@link Long#MAX_VALUE} if it does not expire
+     */
+    public long expiresAt() {
+        if ((ttl == null) || (ttl <= 0)) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(created) + ttl * 1000;
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    public boolean isExpiredAt(long timeMillis) {
+        return expiresAt() <= timeMillis;
+    }
+
     private static String currentTime() {
         return String.valueOf(new Date().getTime());
     }
@@ -0,0 +1,31 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Changes of a cache map since a version known by the client. If the changes cannot be computed (the client's version
+ * is too old or unknown), the response contains all items and the flag full is set. The client then replaces its copy
+ * of the map instead of merging the items.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapChanges {
+    private long version;
+    private boolean full;
+    private Map<String, String> items;
+}
@@ -0,0 +1,102 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.model;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Monotonic version of a cache map. Each stored item gets the next version number, so the items changed since any
+ * version can be found. When items are removed from the map, the history is compacted: all versions up to the current
+ * one are forgotten and clients with an older version have to load the whole map.
+ * <p>
+ * The first version is derived from the time of creation, so a client does not confuse versions of a map which was
+ * dropped and created again.
+ */
+@Getter
+public class MapVersion implements Serializable {
+
+    private long version;
+    private long baseVersion;
+    private final HashMap<String, Long> itemVersions = new HashMap<>();
+
+    public MapVersion() {
+        this(System.currentTimeMillis());
+    }
+
+    public MapVersion(long initialVersion) {
+        this.version = initialVersion;
+        this.baseVersion = initialVersion;
+    }
+
+    /**
+     * Mark the item as changed.
+     *
+     * @param key key of the stored item
+     * @return the new version of the map
+     */
+    public long changed(String key) {
+        itemVersions.put(key, ++version);
+        return version;
+    }
+
+    /**
+     * Mark items as removed. The history is dropped, any client with an older version will get the whole map.
+     *
+     * @param remaining keys of the items which remain in the map
+     * @return the new version of the map
+     */
+    public long compacted(Iterable<String> remaining) {
+        baseVersion = ++version;
+        HashMap<String, Long> retained = new HashMap<>();
+        remaining.forEach(key -> retained.put(key, baseVersion));
+        itemVersions.clear();
+        itemVersions.putAll(retained);
+        return version;
+    }
+
+    /**
+     * Compute changes of the map since the version known by the client. The version has to be read before the items,
+     * so any item missing in the response has a higher version than the returned one.
+     *
+     * @param since  version known by the client
+     * @param items  current items of the map
+     * @return changed items, or all items if the history since the version is not available
+     */
+    public MapChanges changesSince(long since, Map<String, String> items) {
+        if ((since < baseVersion) || (since > version)) {
+            return new MapChanges(version, true, new HashMap<>(items));
+        }
+
+        Map<String, String> changed = new HashMap<>();
+        itemVersions.forEach((key, itemVersion) -> {
+            String value = items.get(key);
+            if ((itemVersion > since) && (value != null)) {
+                changed.put(key, value);
+            }
+        });
+        return new MapChanges(version, false, changed);
+    }
+
+    /**
+     * Create a copy to be modified, an instance stored in a replicated cache must not be changed in place.
+     */
+    public MapVersion copy() {
+        MapVersion copy = new MapVersion(baseVersion);
+        copy.version = version;
+        copy.itemVersions.putAll(itemVersions);
+        return copy;
+    }
+
+}
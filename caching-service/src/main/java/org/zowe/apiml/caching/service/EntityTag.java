@@ -0,0 +1,74 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.experimental.UtilityClass;
+import org.apache.commons.lang3.StringUtils;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Entity tags of the stored values used for the conditional update (compare-and-set). The tag is the SHA-1 hash of the
+ * value serialized to JSON, the same form as the value is stored in Redis, so a Lua script in Redis can compute the
+ * same tag by redis.sha1hex.
+ */
+@UtilityClass
+public class EntityTag {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * @param keyValue stored value
+     * @return hash of the value, it is not quoted
+     */
+    public String of(KeyValue keyValue) {
+        try {
+            return of(MAPPER.writeValueAsString(keyValue));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the value of key " + keyValue.getKey(), e);
+        }
+    }
+
+    /**
+     * @param serializedValue value serialized to JSON
+     * @return hash of the value, it is not quoted
+     */
+    public String of(String serializedValue) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1"); // NOSONAR the hash is not used for security
+            return HexFormat.of().formatHex(md.digest(serializedValue.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read the tag from the header If-Match.
+     *
+     * @param ifMatch value of the header, it could be quoted and weak
+     * @return the tag, or null if there is no condition (no header or the value *)
+     */
+    public String parse(String ifMatch) {
+        String tag = StringUtils.trimToNull(ifMatch);
+        if ((tag == null) || "*".equals(tag)) {
+            return null;
+        }
+        tag = StringUtils.removeStart(tag, "W/");
+        return StringUtils.unwrap(tag, '"');
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timer wheel used by the storages without a native expiration to remove the expired entries. Each entry is
+ * put to the slot of the tick when it expires, so a tick processes only the entries of a single slot and the storage is
+ * never scanned as a whole. The entries which expire in a later round of the wheel stay in the slot.
+ * <p>
+ * The wheel is ticking in a single daemon thread, it is started with the first scheduled entry. The expired keys are
+ * passed to the consumer at once, the storage is supposed to verify the entry is still expired before it is removed.
+ *
+ * @param <K> type of the key of the entries
+ */
+@Slf4j
+public class ExpiryWheel<K> implements AutoCloseable {
+
+    static final int DEFAULT_SLOTS = 512;
+
+    private final long tickMillis;
+    private final Queue<Timeout<K>>[] slots;
+    private final Map<K, Long> deadlines = new ConcurrentHashMap<>();
+    private final Consumer<Collection<K>> onExpired;
+    private final LongSupplier clock;
+    private final boolean automatic;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile long nextTick;
+    private volatile ScheduledExecutorService executor;
+
+    public ExpiryWheel(long tickMillis, Consumer<Collection<K>> onExpired) {
+        this(tickMillis, DEFAULT_SLOTS, onExpired, System::currentTimeMillis, true);
+    }
+
+    /**
+     * The wheel is not ticking automatically, the ticks are made by calling {@link #advance()}.
+     */
+    ExpiryWheel(long tickMillis, int slotCount, Consumer<Collection<K>> onExpired, LongSupplier clock) {
+        this(tickMillis, slotCount, onExpired, clock, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ExpiryWheel(long tickMillis, int slotCount, Consumer<Collection<K>> onExpired, LongSupplier clock, boolean automatic) {
+        if (tickMillis <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("The tick and the count of slots must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.onExpired = onExpired;
+        this.clock = clock;
+        this.automatic = automatic;
+        this.slots = new Queue[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Schedule the removal of the entry, the previous deadline of the same key is replaced.
+     *
+     * @param key      key of the entry
+     * @param deadline time in milliseconds when the entry expires
+     */
+    public void schedule(K key, long deadline) {
+        deadlines.put(key, deadline);
+        // the tick which was already processed would be visited in the next round only
+        long tick = Math.max(deadline / tickMillis, nextTick);
+        slots[(int) (tick % slots.length)].add(new Timeout<>(key, deadline));
+        start();
+    }
+
+    /**
+     * Cancel the scheduled removal of the entry (the entry was deleted or updated without expiration).
+     */
+    public void cancel(K key) {
+        if (!deadlines.isEmpty()) {
+            deadlines.remove(key);
+        }
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Process all ticks until the current time.
+     *
+     * @return keys of the expired entries, they are not scheduled anymore
+     */
+    public synchronized List<K> advance() {
+        long now = clock.getAsLong();
+        long currentTick = now / tickMillis;
+        // all slots are processed at most once, the older ticks share the same slots
+        long fromTick = Math.max(nextTick, currentTick - slots.length + 1);
+
+        List<K> expired = new ArrayList<>();
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            Queue<Timeout<K>> slot = slots[(int) (tick % slots.length)];
+            for (int remaining = slot.size(); remaining > 0; remaining--) {
+                Timeout<K> timeout = slot.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (!timeout.deadline.equals(deadlines.get(timeout.key))) {
+                    // the entry was rescheduled or cancelled meanwhile
+                    continue;
+                }
+                if (timeout.deadline > now) {
+                    // the entry expires in a later round
+                    slot.add(timeout);
+                } else if (deadlines.remove(timeout.key, timeout.deadline)) {
+                    expired.add(timeout.key);
+                }
+            }
+        }
+        nextTick = currentTick + 1;
+        return expired;
+    }
+
+    void tick() {
+        try {
+            List<K> expired = advance();
+            if (!expired.isEmpty()) {
+                log.debug("Removing {} expired entries", expired.size());
+                onExpired.accept(expired);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Removing of expired entries failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void start() {
+        if (automatic && started.compareAndSet(false, true)) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "caching-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Timeout<K>(K key, Long deadline) {
+    }
+
+}
@@ -11,8 +11,13 @@
 package org.zowe.apiml.caching.service;
 
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
 /**
  * Every supported storage backend needs to have an implementation of the Storage.
@@ -45,6 +50,26 @@ public interface Storage {
      */
     Map<String, String> getAllMapItems(String serviceId, String mapKey) throws StorageException;
 
+    /**
+     * Return the items of the specific map stored under the given keys. Keys which are not in the map are omitted.
+     *
+     * @param serviceId Id of the service to load the key/value pairs
+     * @param mapKey key of the specific map to look into
+     * @param keys keys of the items to return
+     * @return Map with the found key/value pairs, empty if there is none existing.
+     */
+    Map<String, String> getMapItems(String serviceId, String mapKey, Collection<String> keys) throws StorageException;
+
+    /**
+     * Return the items of the specific map changed since the given version of the map.
+     *
+     * @param serviceId Id of the service to load the key/value pairs
+     * @param mapKey key of the specific map
+     * @param sinceVersion the last version of the map known by the caller
+     * @return The current version with the changed items, or with all the items if the changes are not known
+     */
+    MapChanges getMapChanges(String serviceId, String mapKey, long sinceVersion) throws StorageException;
+
     /**
      * Return all the items in all the maps for specific service
      *
@@ -62,6 +87,32 @@ public interface Storage {
      */
     KeyValue read(String serviceId, String key);
 
+    /**
+     * Returns the key/value pairs of the provided keys. Keys which are not in the storage are omitted.
+     *
+     * @param serviceId Id of the service to read values for
+     * @param keys      keys to lookup
+     * @return Map with the found key/value pairs, empty if there is none existing.
+     */
+    Map<String, KeyValue> readBatch(String serviceId, Collection<String> keys);
+
+    /**
+     * Store all the key/value pairs. The existing values are replaced, the missing ones are created.
+     *
+     * @param serviceId Id of the service to store the values for
+     * @param toStore   KeyValue pairs to be stored
+     */
+    void storeBatch(String serviceId, Collection<KeyValue> toStore);
+
+    /**
+     * Delete the key/value pairs of the provided keys if they exist within the context of the service.
+     *
+     * @param serviceId Id of the service to delete the values for.
+     * @param toDelete  Keys to delete from the storage.
+     * @return Map with the deleted key/value pairs, empty if there is none existing.
+     */
+    Map<String, KeyValue> deleteBatch(String serviceId, Collection<String> toDelete);
+
     /**
      * Replaces the value for the given key with the new value. If there is no existing key/value pair null is returned.
      *
@@ -71,6 +122,24 @@ public interface Storage {
      */
     KeyValue update(String serviceId, KeyValue toUpdate);
 
+    /**
+     * Replaces the value for the given key only if the current value matches the entity tag (see {@link EntityTag}).
+     * The check and the replacement are made atomically. The storage which does not support the conditional update
+     * accepts just the unconditional one.
+     *
+     * @param serviceId   Id of the service to store the value for.
+     * @param toUpdate    Value to store instead of the original one.
+     * @param expectedTag Entity tag of the original value, null means to update the value unconditionally.
+     * @return Updated key/value pair.
+     * @throws StorageException with {@link Messages#VALUE_CHANGED} if the current value does not match the tag
+     */
+    default KeyValue update(String serviceId, KeyValue toUpdate, String expectedTag) {
+        if (expectedTag != null) {
+            throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+        }
+        return update(serviceId, toUpdate);
+    }
+
     /**
      * Delete the key/value pair if it exists within the context of the service. If there is none existing null
      * is returned.
@@ -96,6 +165,96 @@ public interface Storage {
      */
     void deleteForService(String serviceId);
 
+    /**
+     * Asynchronous variant of {@link #create(String, KeyValue)}. The storage which cannot process the request
+     * without blocking does it in the calling thread.
+     *
+     * @param serviceId Id of the service to store the value for
+     * @param toCreate  KeyValue pair to be created.
+     * @return Stage completed with the stored KeyValue pair, or exceptionally with {@link StorageException}
+     */
+    default CompletionStage<KeyValue> createAsync(String serviceId, KeyValue toCreate) {
+        return completed(() -> create(serviceId, toCreate));
+    }
+
+    /**
+     * Asynchronous variant of {@link #read(String, String)}.
+     *
+     * @param serviceId Id of the service to read value for
+     * @param key       key to lookup
+     * @return Stage completed with the KeyValue, or exceptionally with {@link StorageException}
+     */
+    default CompletionStage<KeyValue> readAsync(String serviceId, String key) {
+        return completed(() -> read(serviceId, key));
+    }
+
+    /**
+     * Asynchronous variant of {@link #update(String, KeyValue)}.
+     *
+     * @param serviceId Id of the service to store the value for.
+     * @param toUpdate  Value to store instead of the original one.
+     * @return Stage completed with the updated KeyValue, or exceptionally with {@link StorageException}
+     */
+    default CompletionStage<KeyValue> updateAsync(String serviceId, KeyValue toUpdate) {
+        return completed(() -> update(serviceId, toUpdate));
+    }
+
+    /**
+     * Asynchronous variant of {@link #update(String, KeyValue, String)}.
+     *
+     * @param serviceId   Id of the service to store the value for.
+     * @param toUpdate    Value to store instead of the original one.
+     * @param expectedTag Entity tag of the original value, null means to update the value unconditionally.
+     * @return Stage completed with the updated KeyValue, or exceptionally with {@link StorageException}
+     */
+    default CompletionStage<KeyValue> updateAsync(String serviceId, KeyValue toUpdate, String expectedTag) {
+        if (expectedTag == null) {
+            return updateAsync(serviceId, toUpdate);
+        }
+        return completed(() -> update(serviceId, toUpdate, expectedTag));
+    }
+
+    /**
+     * Asynchronous variant of {@link #delete(String, String)}.
+     *
+     * @param serviceId Id of the service to delete the value for.
+     * @param toDelete  Key to delete from the storage.
+     * @return Stage completed with the deleted KeyValue, or exceptionally with {@link StorageException}
+     */
+    default CompletionStage<KeyValue> deleteAsync(String serviceId, String toDelete) {
+        return completed(() -> delete(serviceId, toDelete));
+    }
+
+    /**
+     * Asynchronous variant of {@link #storeMapItem(String, String, KeyValue)}.
+     *
+     * @param serviceId Id of the service to store the value for
+     * @param mapKey key of the specific map underneath the key-value pair should be stored
+     * @param toCreate  KeyValue pair to be created.
+     * @return Stage completed when the item is stored, or exceptionally with {@link StorageException}
+     */
+    default CompletionStage<KeyValue> storeMapItemAsync(String serviceId, String mapKey, KeyValue toCreate) {
+        return completed(() -> storeMapItem(serviceId, mapKey, toCreate));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getAllMaps(String)}.
+     *
+     * @param serviceId Id of the service to load all key/value pairs
+     * @return Stage completed with all the maps, or exceptionally with {@link StorageException}
+     */
+    default CompletionStage<Map<String, Map<String, String>>> getAllMapsAsync(String serviceId) {
+        return completed(() -> getAllMaps(serviceId));
+    }
+
+    private static <T> CompletionStage<T> completed(Supplier<T> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Delete a key/value pair from the rules map
      * @param serviceId the id of the service to identify the correct map
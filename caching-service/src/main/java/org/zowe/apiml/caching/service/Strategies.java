@@ -17,7 +17,8 @@ import lombok.Getter;
 @Getter
 public enum Strategies {
     REJECT("reject"),
-    REMOVE_OLDEST("removeOldest");
+    REMOVE_OLDEST("removeOldest"),
+    LEAST_RECENTLY_USED("leastRecentlyUsed");
 
     private final String key;
 }
@@ -0,0 +1,482 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.file;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
+import org.zowe.apiml.caching.model.MapVersion;
+import org.zowe.apiml.caching.service.EntityTag;
+import org.zowe.apiml.caching.service.Messages;
+import org.zowe.apiml.caching.service.Storage;
+import org.zowe.apiml.caching.service.StorageException;
+import org.zowe.apiml.caching.service.file.StorageLog.Entry;
+import org.zowe.apiml.caching.service.file.StorageLog.Operation;
+import org.zowe.apiml.caching.service.file.config.FileConfig;
+import org.zowe.apiml.caching.service.inmemory.InMemoryStorage;
+import org.zowe.apiml.caching.service.inmemory.config.InMemoryConfig;
+import org.zowe.apiml.message.log.ApimlLogger;
+import org.zowe.apiml.models.AccessTokenContainer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Storage persisted into a local file. All records are held in the memory, the reads are served by
+ * {@link InMemoryStorage}. Each change is appended to the {@link StorageLog} first and applied in the memory only
+ * once it is written, so a reader never gets a record which could be lost. The log is replayed when the storage is
+ * created.
+ * <p>
+ * The records evicted by the {@link InMemoryStorage} are logged as deleted. The removals by the expiration are not
+ * logged, the expired records are skipped by the replay.
+ */
+@Slf4j
+public class FileStorage implements Storage {
+
+    private static final String STORAGE_TYPE = "file";
+    private static final int MAX_PAYLOAD_SIZE = StorageLog.MAX_RECORD_SIZE / 2;
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final FileConfig config;
+    private final ApimlLogger apimlLog;
+    private final StorageLog storageLog;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final Map<String, Map<String, KeyValue>> entries = new ConcurrentHashMap<>();
+    private final InMemoryStorage entryStorage;
+    private final Map<String, Map<String, Map<String, String>>> maps = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, MapVersion>> versions = new ConcurrentHashMap<>();
+
+    // count of records in the log when the live records are counted again, see compactIfNeeded
+    private long nextCompactionCheck;
+
+    public FileStorage(FileConfig fileConfig, InMemoryConfig inMemoryConfig, ApimlLogger apimlLog) {
+        this.config = fileConfig;
+        this.apimlLog = apimlLog;
+
+        Path path = Path.of(fileConfig.getPath());
+        try {
+            storageLog = new StorageLog(path, fileConfig.isSync());
+            long records = storageLog.replay(this::apply);
+            long now = System.currentTimeMillis();
+            entries.values().forEach(serviceEntries -> serviceEntries.values().removeIf(keyValue -> keyValue.isExpiredAt(now)));
+            log.info("Loaded {} records from {}, {} of them are valid", records, path, liveRecords());
+        } catch (IOException e) {
+            apimlLog.log("org.zowe.apiml.cache.errorInitializingStorage", STORAGE_TYPE, path, e);
+            throw new UncheckedIOException("Cannot load the storage from " + path, e);
+        }
+
+        entryStorage = new InMemoryStorage(inMemoryConfig, entries, apimlLog);
+        entryStorage.setEvictionListener(this::evicted);
+        compactIfNeeded();
+    }
+
+    /**
+     * Log the removal of the evicted record. The eviction is caused by a created record, so the lock of the change is
+     * already held.
+     */
+    private void evicted(String serviceId, String key) {
+        try {
+            append(List.of(Entry.of(Operation.DELETE, serviceId, key)));
+        } catch (UncheckedIOException e) {
+            // the failure is already reported, the record is removed from the memory anyway and could be loaded again
+            // after a restart
+            log.debug("The eviction of record {}|{} was not logged", serviceId, key, e);
+        }
+    }
+
+    /**
+     * Apply the record read from the log.
+     */
+    private void apply(Entry entry) {
+        String serviceId = entry.field(0);
+        switch (entry.operation()) {
+            case PUT -> {
+                KeyValue keyValue = new KeyValue(entry.field(1), entry.field(2), entry.field(3));
+                keyValue.setServiceId(serviceId);
+                keyValue.setTtl(entry.field(4) == null ? null : Long.valueOf(entry.field(4)));
+                entries.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>()).put(keyValue.getKey(), keyValue);
+            }
+            case DELETE -> entries.computeIfPresent(serviceId, (k, serviceEntries) -> {
+                serviceEntries.remove(entry.field(1));
+                return serviceEntries.isEmpty() ? null : serviceEntries;
+            });
+            case DELETE_SERVICE -> entries.remove(serviceId);
+            case MAP_PUT -> map(serviceId, entry.field(1)).put(entry.field(2), entry.field(3));
+            case MAP_REMOVE -> map(serviceId, entry.field(1)).remove(entry.field(2));
+        }
+    }
+
+    private static Entry put(String serviceId, KeyValue keyValue) {
+        return Entry.of(Operation.PUT, serviceId, keyValue.getKey(), keyValue.getValue(), keyValue.getCreated(),
+            keyValue.getTtl() == null ? null : String.valueOf(keyValue.getTtl()));
+    }
+
+    @Override
+    public KeyValue create(String serviceId, KeyValue toCreate) {
+        checkSize(toCreate);
+        toCreate.setServiceId(serviceId);
+        return write(() -> {
+            KeyValue existing = current(serviceId, toCreate.getKey());
+            if ((existing != null) && !existing.isExpiredAt(System.currentTimeMillis())) {
+                throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey());
+            }
+            append(List.of(put(serviceId, toCreate)));
+            // the eviction strategy can still reject the record
+            return applyLogged(() -> entryStorage.create(serviceId, toCreate), serviceId, List.of(toCreate.getKey()));
+        });
+    }
+
+    @Override
+    public KeyValue read(String serviceId, String key) {
+        return entryStorage.read(serviceId, key);
+    }
+
+    @Override
+    public Map<String, KeyValue> readBatch(String serviceId, Collection<String> keys) {
+        return entryStorage.readBatch(serviceId, keys);
+    }
+
+    @Override
+    public void storeBatch(String serviceId, Collection<KeyValue> toStore) {
+        toStore.forEach(this::checkSize);
+        toStore.forEach(keyValue -> keyValue.setServiceId(serviceId));
+        write(() -> {
+            append(toStore.stream().map(keyValue -> put(serviceId, keyValue)).toList());
+            return applyLogged(() -> {
+                entryStorage.storeBatch(serviceId, toStore);
+                return null;
+            }, serviceId, toStore.stream().map(KeyValue::getKey).toList());
+        });
+    }
+
+    @Override
+    public Map<String, KeyValue> deleteBatch(String serviceId, Collection<String> toDelete) {
+        return write(() -> {
+            append(toDelete.stream()
+                .filter(key -> current(serviceId, key) != null)
+                .map(key -> Entry.of(Operation.DELETE, serviceId, key))
+                .toList());
+            return entryStorage.deleteBatch(serviceId, toDelete);
+        });
+    }
+
+    @Override
+    public KeyValue update(String serviceId, KeyValue toUpdate) {
+        return update(serviceId, toUpdate, null);
+    }
+
+    @Override
+    public KeyValue update(String serviceId, KeyValue toUpdate, String expectedTag) {
+        checkSize(toUpdate);
+        toUpdate.setServiceId(serviceId);
+        return write(() -> {
+            KeyValue existing = current(serviceId, toUpdate.getKey());
+            if ((existing == null) || existing.isExpiredAt(System.currentTimeMillis())) {
+                throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
+            }
+            if ((expectedTag != null) && !expectedTag.equals(EntityTag.of(existing))) {
+                throw new StorageException(Messages.VALUE_CHANGED.getKey(), Messages.VALUE_CHANGED.getStatus(), toUpdate.getKey(), serviceId);
+            }
+            append(List.of(put(serviceId, toUpdate)));
+            // the record could expire meanwhile
+            return applyLogged(() -> entryStorage.update(serviceId, toUpdate, expectedTag), serviceId, List.of(toUpdate.getKey()));
+        });
+    }
+
+    @Override
+    public KeyValue delete(String serviceId, String toDelete) {
+        return write(() -> {
+            if (current(serviceId, toDelete) == null) {
+                throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toDelete, serviceId);
+            }
+            append(List.of(Entry.of(Operation.DELETE, serviceId, toDelete)));
+            return applyLogged(() -> entryStorage.delete(serviceId, toDelete), serviceId, List.of(toDelete));
+        });
+    }
+
+    @Override
+    public Map<String, KeyValue> readForService(String serviceId) {
+        return entryStorage.readForService(serviceId);
+    }
+
+    @Override
+    public void deleteForService(String serviceId) {
+        write(() -> {
+            append(List.of(Entry.of(Operation.DELETE_SERVICE, serviceId)));
+            entryStorage.deleteForService(serviceId);
+            return null;
+        });
+    }
+
+    @Override
+    public KeyValue storeMapItem(String serviceId, String mapKey, KeyValue toCreate) {
+        log.info("Storing the item into the map {} of service {}: {}|{}", mapKey, serviceId, toCreate.getKey(), toCreate.getValue());
+        checkSize(toCreate);
+        return write(() -> {
+            append(List.of(Entry.of(Operation.MAP_PUT, serviceId, mapKey, toCreate.getKey(), toCreate.getValue())));
+            map(serviceId, mapKey).put(toCreate.getKey(), toCreate.getValue());
+            // the version is increased after the item is stored, a reader never gets the version without the item
+            MapVersion mapVersion = version(serviceId, mapKey);
+            synchronized (mapVersion) {
+                mapVersion.changed(toCreate.getKey());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, String> getAllMapItems(String serviceId, String mapKey) {
+        log.info("Reading all records from the map {} of service {}", mapKey, serviceId);
+        Map<String, String> map = existingMap(serviceId, mapKey);
+        return map == null ? null : new HashMap<>(map);
+    }
+
+    @Override
+    public Map<String, String> getMapItems(String serviceId, String mapKey, Collection<String> keys) {
+        log.info("Reading {} records from the map {} of service {}", keys.size(), mapKey, serviceId);
+        Map<String, String> map = existingMap(serviceId, mapKey);
+        Map<String, String> result = new HashMap<>();
+        if (map != null) {
+            keys.forEach(key -> {
+                String value = map.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public MapChanges getMapChanges(String serviceId, String mapKey, long sinceVersion) {
+        log.info("Reading changes in the map {} of service {} since version {}", mapKey, serviceId, sinceVersion);
+        // the versions are not persisted, the clients get the whole maps after a restart
+        MapVersion mapVersion = version(serviceId, mapKey);
+        Map<String, String> map = existingMap(serviceId, mapKey);
+        synchronized (mapVersion) {
+            return mapVersion.changesSince(sinceVersion, map == null ? Map.of() : map);
+        }
+    }
+
+    @Override
+    public Map<String, Map<String, String>> getAllMaps(String serviceId) {
+        log.info("Reading all maps of service {}", serviceId);
+        Map<String, Map<String, String>> result = new HashMap<>();
+        Map<String, Map<String, String>> serviceMaps = maps.get(serviceId);
+        if (serviceMaps != null) {
+            serviceMaps.forEach((mapKey, map) -> result.put(mapKey, new HashMap<>(map)));
+        }
+        return result;
+    }
+
+    @Override
+    public void removeNonRelevantTokens(String serviceId, String mapKey) {
+        LocalDateTime now = LocalDateTime.now();
+        removeMapItems(serviceId, mapKey, value -> {
+            try {
+                AccessTokenContainer container = objectMapper.readValue(value, AccessTokenContainer.class);
+                return container.getExpiresAt().isBefore(now);
+            } catch (JsonProcessingException e) {
+                log.error("Not able to parse invalidToken json value.", e);
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public void removeNonRelevantRules(String serviceId, String mapKey) {
+        long timestamp = System.currentTimeMillis();
+        removeMapItems(serviceId, mapKey, value -> TimeUnit.MILLISECONDS.toDays(timestamp - Long.parseLong(value)) > 90);
+    }
+
+    private void removeMapItems(String serviceId, String mapKey, Predicate<String> toRemove) {
+        write(() -> {
+            Map<String, String> map = existingMap(serviceId, mapKey);
+            if ((map == null) || map.isEmpty()) {
+                return null;
+            }
+
+            List<String> removed = map.entrySet().stream()
+                .filter(item -> toRemove.test(item.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+            append(removed.stream().map(key -> Entry.of(Operation.MAP_REMOVE, serviceId, mapKey, key)).toList());
+            removed.forEach(map::remove);
+            MapVersion mapVersion = version(serviceId, mapKey);
+            synchronized (mapVersion) {
+                mapVersion.compacted(map.keySet());
+            }
+            return null;
+        });
+    }
+
+    private Map<String, String> map(String serviceId, String mapKey) {
+        return maps.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>()).computeIfAbsent(mapKey, k -> new ConcurrentHashMap<>());
+    }
+
+    private Map<String, String> existingMap(String serviceId, String mapKey) {
+        Map<String, Map<String, String>> serviceMaps = maps.get(serviceId);
+        return serviceMaps == null ? null : serviceMaps.get(mapKey);
+    }
+
+    /**
+     * @return record in the memory, including an expired one not removed by the sweeper yet
+     */
+    private KeyValue current(String serviceId, String key) {
+        Map<String, KeyValue> serviceEntries = entries.get(serviceId);
+        return serviceEntries == null ? null : serviceEntries.get(key);
+    }
+
+    private MapVersion version(String serviceId, String mapKey) {
+        return versions.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>()).computeIfAbsent(mapKey, k -> new MapVersion());
+    }
+
+    /**
+     * The record has to fit into the log, the size is checked before the change is applied in the memory.
+     */
+    private void checkSize(KeyValue keyValue) {
+        long length = (long) length(keyValue.getKey()) + length(keyValue.getValue());
+        // a character takes up to three bytes in UTF-8, the rest is left for the other fields
+        if (length * 3 > MAX_PAYLOAD_SIZE) {
+            throw new StorageException(Messages.PAYLOAD_TOO_LARGE.getKey(), Messages.PAYLOAD_TOO_LARGE.getStatus(), keyValue.getKey());
+        }
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Run the change while holding the lock, so the records are applied in the memory in the same order as appended.
+     */
+    private <T> T write(Supplier<T> change) {
+        writeLock.lock();
+        try {
+            T result = change.get();
+            compactIfNeeded();
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Apply the change which is already logged. The change was validated before, but if it still fails, the actual
+     * state of the records is logged, so the replay ends in the same state as the memory.
+     */
+    private <T> T applyLogged(Supplier<T> change, String serviceId, Collection<String> keys) {
+        try {
+            return change.get();
+        } catch (RuntimeException e) {
+            try {
+                append(keys.stream().map(key -> {
+                    KeyValue keyValue = current(serviceId, key);
+                    return keyValue == null ? Entry.of(Operation.DELETE, serviceId, key) : put(serviceId, keyValue);
+                }).toList());
+            } catch (UncheckedIOException ioe) {
+                e.addSuppressed(ioe);
+            }
+            throw e;
+        }
+    }
+
+    private void append(List<Entry> toAppend) {
+        try {
+            storageLog.append(toAppend);
+        } catch (IOException e) {
+            apimlLog.log("org.zowe.apiml.cache.errorQueryingStorage", STORAGE_TYPE, "Writing into the log failed: " + e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long liveRecords() {
+        long count = 0;
+        for (Map<String, KeyValue> serviceEntries : entries.values()) {
+            count += serviceEntries.size();
+        }
+        for (Map<String, Map<String, String>> serviceMaps : maps.values()) {
+            for (Map<String, String> map : serviceMaps.values()) {
+                count += map.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replace the log by the snapshot if most of its records are outdated.
+     * <p>
+     * The live records are not counted on each change. A logged change adds one record to the log and removes at most
+     * one live record, so the log cannot reach twice the live records sooner than after a third of the difference is
+     * appended. The records removed by the expiration are not logged, so the live records are counted again at least
+     * once per the minimal count of records for the compaction.
+     */
+    private void compactIfNeeded() {
+        long records = storageLog.records();
+        if ((records < config.getCompactionMinRecords()) || (records < nextCompactionCheck)) {
+            return;
+        }
+
+        long live = liveRecords();
+        if (records <= 2 * live) {
+            long distance = Math.max(1, (2 * live - records) / 3);
+            nextCompactionCheck = records + Math.min(distance, config.getCompactionMinRecords());
+            return;
+        }
+
+        List<Entry> snapshot = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        entries.forEach((serviceId, serviceEntries) -> serviceEntries.values().forEach(keyValue -> {
+            if (!keyValue.isExpiredAt(now)) {
+                snapshot.add(put(serviceId, keyValue));
+            }
+        }));
+        maps.forEach((serviceId, serviceMaps) -> serviceMaps.forEach((mapKey, map) ->
+            map.forEach((key, value) -> snapshot.add(Entry.of(Operation.MAP_PUT, serviceId, mapKey, key, value)))
+        ));
+
+        try {
+            storageLog.compact(snapshot);
+            nextCompactionCheck = 0;
+        } catch (IOException e) {
+            // the previous log is still valid, the compaction is tried again with the next change
+            apimlLog.log("org.zowe.apiml.cache.errorQueryingStorage", STORAGE_TYPE, "Compaction of the log failed: " + e);
+        }
+    }
+
+    public void close() {
+        writeLock.lock();
+        try {
+            entryStorage.close();
+            storageLog.close();
+        } catch (IOException e) {
+            apimlLog.log("org.zowe.apiml.cache.errorQueryingStorage", STORAGE_TYPE, "Closing the log failed: " + e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.file;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the changes of {@link FileStorage}. Each record starts with the length and the CRC32 checksum of
+ * its payload, so a record torn by a crash is detected during the recovery and the log is truncated before it. The log
+ * is read through memory-mapped windows, so the recovery does not copy the file into buffers.
+ * <p>
+ * When the log contains too many outdated records, it is replaced by a snapshot of the current state (compaction). The
+ * snapshot is written into a temporary file which is moved over the log atomically.
+ * <p>
+ * The instance is not thread safe, the writes have to be serialized by the caller.
+ */
+@Slf4j
+class StorageLog implements Closeable {
+
+    /**
+     * Length and checksum of the payload.
+     */
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    static final int MAX_WINDOW_SIZE = 64 * 1024 * 1024;
+    static final int MAX_RECORD_SIZE = MAX_WINDOW_SIZE - HEADER_SIZE;
+
+    enum Operation {
+        PUT, DELETE, DELETE_SERVICE, MAP_PUT, MAP_REMOVE
+    }
+
+    /**
+     * Single change of the storage, the meaning of the fields depends on the operation.
+     */
+    record Entry(Operation operation, List<String> fields) {
+
+        static Entry of(Operation operation, String... fields) {
+            return new Entry(operation, Arrays.asList(fields));
+        }
+
+        String field(int index) {
+            return fields.get(index);
+        }
+
+    }
+
+    private final Path path;
+    private final boolean sync;
+
+    private FileChannel channel;
+    private long records;
+
+    StorageLog(Path path, boolean sync) throws IOException {
+        this.path = path;
+        this.sync = sync;
+
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        channel = open(path);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return count of records in the log, including the outdated ones
+     */
+    long records() {
+        return records;
+    }
+
+    /**
+     * Read all records of the log. The reading stops at the first incomplete or corrupted record, the log is truncated
+     * there, so the next records are appended after the last valid one.
+     *
+     * @param consumer called for each valid record in the order of writing
+     * @return count of the valid records
+     */
+    long replay(Consumer<Entry> consumer) throws IOException {
+        records = 0;
+        long size = channel.size();
+        long offset = 0;
+        while (offset < size) {
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(size - offset, MAX_WINDOW_SIZE));
+            int consumed = readRecords(window, consumer);
+            if (consumed == 0) {
+                // the record does not fit even into an empty window, or it is not valid
+                break;
+            }
+            offset += consumed;
+        }
+
+        if (offset < size) {
+            log.warn("Dropping {} bytes of an incomplete record at the end of the log {}", size - offset, path);
+            channel.truncate(offset);
+        }
+        channel.position(offset);
+        return records;
+    }
+
+    /**
+     * @return count of bytes of the valid records read from the window
+     */
+    private int readRecords(ByteBuffer window, Consumer<Entry> consumer) {
+        while (window.remaining() >= HEADER_SIZE) {
+            int start = window.position();
+            int length = window.getInt();
+            int checksum = window.getInt();
+            if ((length < 0) || (length > window.remaining())) {
+                window.position(start);
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            window.get(payload);
+            Entry entry = checksum(payload) == checksum ? decode(payload) : null;
+            if (entry == null) {
+                window.position(start);
+                break;
+            }
+
+            consumer.accept(entry);
+            records++;
+        }
+        return window.position();
+    }
+
+    /**
+     * Append the records to the end of the log. If the sync is enabled, the records are on the disk once the method
+     * returns.
+     */
+    void append(Collection<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        List<ByteBuffer> buffers = entries.stream().map(entry -> ByteBuffer.wrap(encode(entry))).toList();
+        long start = channel.position();
+        try {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // do not leave a partial record, the records appended later would be dropped by the recovery
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+        records += entries.size();
+    }
+
+    void append(Entry entry) throws IOException {
+        append(List.of(entry));
+    }
+
+    /**
+     * Replace the log by the snapshot of the current state. The log is consistent even if the process crashes
+     * meanwhile, it contains either all the previous records or just the snapshot.
+     */
+    void compact(Collection<Entry> snapshot) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             BufferedOutputStream output = new BufferedOutputStream(file)) {
+            for (Entry entry : snapshot) {
+                output.write(encode(entry));
+            }
+            output.flush();
+            file.getFD().sync();
+        }
+
+        channel.close();
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            channel = open(path);
+            channel.position(channel.size());
+        }
+        log.debug("The log {} compacted from {} to {} records", path, records, snapshot.size());
+        records = snapshot.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static byte[] encode(Entry entry) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(payload)) {
+            output.writeByte(entry.operation().ordinal());
+            output.writeByte(entry.fields().size());
+            for (String field : entry.fields()) {
+                if (field == null) {
+                    output.writeInt(-1);
+                } else {
+                    byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] bytes = payload.toByteArray();
+        if (bytes.length > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("The record is too large: " + bytes.length + " bytes");
+        }
+        return ByteBuffer.allocate(HEADER_SIZE + bytes.length)
+            .putInt(bytes.length)
+            .putInt(checksum(bytes))
+            .put(bytes)
+            .array();
+    }
+
+    /**
+     * @return decoded record, or null if the payload is not valid
+     */
+    static Entry decode(byte[] payload) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int operation = input.readUnsignedByte();
+            if (operation >= Operation.values().length) {
+                return null;
+            }
+
+            String[] fields = new String[input.readUnsignedByte()];
+            for (int i = 0; i < fields.length; i++) {
+                int length = input.readInt();
+                if (length > input.available()) {
+                    return null;
+                }
+                if (length >= 0) {
+                    byte[] bytes = new byte[length];
+                    input.readFully(bytes);
+                    fields[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+            return Entry.of(Operation.values()[operation], fields);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+}
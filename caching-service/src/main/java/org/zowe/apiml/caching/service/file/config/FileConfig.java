@@ -0,0 +1,43 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.file.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.zowe.apiml.caching.config.GeneralConfig;
+
+/**
+ * Configuration of the storage persisted into a local file.
+ */
+@Configuration
+@Data
+@ToString
+@RequiredArgsConstructor
+public class FileConfig {
+    private final GeneralConfig generalConfig;
+
+    @Value("${caching.storage.file.path:data/caching-service.log}")
+    private String path;
+    /**
+     * Force each change to the disk before the request is completed. Otherwise, the latest changes survive a crash of
+     * the service, but not a crash of the system.
+     */
+    @Value("${caching.storage.file.sync:true}")
+    private boolean sync = true;
+    /**
+     * The log is compacted once it has at least this count of records and more than half of them are outdated.
+     */
+    @Value("${caching.storage.file.compaction.minRecords:10000}")
+    private int compactionMinRecords = 10000;
+}
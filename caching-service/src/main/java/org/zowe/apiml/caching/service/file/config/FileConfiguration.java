@@ -0,0 +1,34 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.file.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zowe.apiml.caching.service.Storage;
+import org.zowe.apiml.caching.service.file.FileStorage;
+import org.zowe.apiml.caching.service.inmemory.config.InMemoryConfig;
+import org.zowe.apiml.message.core.MessageService;
+import org.zowe.apiml.message.log.ApimlLogger;
+
+@Configuration
+@RequiredArgsConstructor
+public class FileConfiguration {
+    private final FileConfig fileConfig;
+    private final InMemoryConfig inMemoryConfig;
+
+    @ConditionalOnProperty(name = "caching.storage.mode", havingValue = "file")
+    @Bean
+    public Storage file(MessageService messageService) {
+        return new FileStorage(fileConfig, inMemoryConfig, ApimlLogger.of(FileStorage.class, messageService));
+    }
+}
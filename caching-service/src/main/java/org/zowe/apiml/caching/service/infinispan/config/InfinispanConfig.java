@@ -105,6 +105,9 @@ public class InfinispanConfig {
         cacheManager.administration()
             .withFlags(CacheContainerAdmin.AdminFlag.VOLATILE)
             .getOrCreateCache("zoweInvalidatedTokenCache", builder.build());
+        cacheManager.administration()
+            .withFlags(CacheContainerAdmin.AdminFlag.VOLATILE)
+            .getOrCreateCache("zoweInvalidatedTokenVersionCache", builder.build());
         return cacheManager;
     }
 
@@ -118,7 +121,8 @@ public class InfinispanConfig {
 
     @Bean
     public Storage storage(DefaultCacheManager cacheManager, ClusteredLock clusteredLock) {
-        return new InfinispanStorage(cacheManager.getCache("zoweCache"), cacheManager.getCache("zoweInvalidatedTokenCache"), clusteredLock);
+        return new InfinispanStorage(cacheManager.getCache("zoweCache"), cacheManager.getCache("zoweInvalidatedTokenCache"),
+            cacheManager.getCache("zoweInvalidatedTokenVersionCache"), clusteredLock);
     }
 
 }
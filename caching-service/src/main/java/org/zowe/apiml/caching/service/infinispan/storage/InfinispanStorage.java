@@ -14,16 +14,24 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
+import org.infinispan.Cache;
+import org.infinispan.commons.api.BasicCache;
 import org.infinispan.lock.api.ClusteredLock;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
+import org.zowe.apiml.caching.model.MapVersion;
+import org.zowe.apiml.caching.service.EntityTag;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.models.AccessTokenContainer;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
@@ -33,13 +41,27 @@ public class InfinispanStorage implements Storage {
 
     private final ConcurrentMap<String, KeyValue> cache;
     private final ConcurrentMap<String, Map<String, String>> tokenCache;
+    private final ConcurrentMap<String, MapVersion> versionCache;
     private final ClusteredLock lock;
+    private final ServiceKeyIndex serviceIndex = new ServiceKeyIndex();
+    private final boolean indexedByListener;
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    public InfinispanStorage(ConcurrentMap<String, KeyValue> cache, ConcurrentMap<String, Map<String, String>> tokenCache, ClusteredLock lock) {
+    public InfinispanStorage(ConcurrentMap<String, KeyValue> cache, ConcurrentMap<String, Map<String, String>> tokenCache,
+                             ConcurrentMap<String, MapVersion> versionCache, ClusteredLock lock) {
         this.cache = cache;
         this.tokenCache = tokenCache;
+        this.versionCache = versionCache;
         this.lock = lock;
+
+        if (cache instanceof Cache<String, KeyValue> infinispanCache) {
+            // the listener gets also changes made by other nodes and the expired entries
+            infinispanCache.addListener(new ServiceKeyIndex.CacheListener(serviceIndex));
+            indexedByListener = true;
+        } else {
+            cache.values().forEach(serviceIndex::added);
+            indexedByListener = false;
+        }
     }
 
     static {
@@ -51,17 +73,30 @@ public class InfinispanStorage implements Storage {
         toCreate.setServiceId(serviceId);
         log.info("Writing record: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
 
-        KeyValue serviceCache = cache.putIfAbsent(serviceId + toCreate.getKey(), toCreate);
+        KeyValue serviceCache = expires(toCreate) && (cache instanceof BasicCache<String, KeyValue> basicCache) ?
+            basicCache.putIfAbsent(serviceId + toCreate.getKey(), toCreate, lifespan(toCreate), TimeUnit.MILLISECONDS) :
+            cache.putIfAbsent(serviceId + toCreate.getKey(), toCreate);
 
         if (serviceCache != null) {
             throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey());
         }
+        indexAdded(toCreate);
         return null;
     }
 
     @Override
     public KeyValue storeMapItem(String serviceId, String mapKey, KeyValue toCreate) {
-        CompletableFuture<Boolean> complete = lock.tryLock(4, TimeUnit.SECONDS).whenComplete((r, ex) -> {
+        completeJoin(storeMapItemLocked(serviceId, mapKey, toCreate));
+        return null;
+    }
+
+    @Override
+    public CompletionStage<KeyValue> storeMapItemAsync(String serviceId, String mapKey, KeyValue toCreate) {
+        return storeMapItemLocked(serviceId, mapKey, toCreate).thenApply(r -> null);
+    }
+
+    private CompletableFuture<Boolean> storeMapItemLocked(String serviceId, String mapKey, KeyValue toCreate) {
+        return lock.tryLock(4, TimeUnit.SECONDS).whenComplete((r, ex) -> {
             if (Boolean.TRUE.equals(r)) {
                 try {
                     String cacheKey = serviceId + mapKey;
@@ -72,13 +107,15 @@ public class InfinispanStorage implements Storage {
                     }
                     tokenCacheItem.put(toCreate.getKey(), toCreate.getValue());
                     tokenCache.put(cacheKey, tokenCacheItem);
+                    // the version is increased after the item is stored, a reader never gets the version without the item
+                    MapVersion mapVersion = copyVersion(cacheKey);
+                    mapVersion.changed(toCreate.getKey());
+                    versionCache.put(cacheKey, mapVersion);
                 } finally {
                     lock.unlock();
                 }
             }
         });
-        completeJoin(complete);
-        return null;
     }
 
     @Override
@@ -87,6 +124,39 @@ public class InfinispanStorage implements Storage {
         return tokenCache.get(serviceId + mapKey);
     }
 
+    @Override
+    public Map<String, String> getMapItems(String serviceId, String mapKey, Collection<String> keys) {
+        log.info("Reading {} records from token cache for service {} under the {} key.", keys.size(), serviceId, mapKey);
+        Map<String, String> map = tokenCache.get(serviceId + mapKey);
+        Map<String, String> result = new HashMap<>();
+        if (map != null) {
+            keys.forEach(key -> {
+                String value = map.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public MapChanges getMapChanges(String serviceId, String mapKey, long sinceVersion) {
+        log.info("Reading changes in token cache for service {} under the {} key since version {}.", serviceId, mapKey, sinceVersion);
+        String cacheKey = serviceId + mapKey;
+        // the version has to be read first, the items are never older than the version
+        MapVersion mapVersion = versionCache.get(cacheKey);
+        Map<String, String> map = tokenCache.get(cacheKey);
+        if (map == null) {
+            map = Collections.emptyMap();
+        }
+        if (mapVersion == null) {
+            // the map was not changed since the versioning was introduced, the whole map is returned
+            return new MapChanges(0, true, new HashMap<>(map));
+        }
+        return mapVersion.changesSince(sinceVersion, map);
+    }
+
     @Override
     public Map<String, Map<String, String>> getAllMaps(String serviceId) {
         log.info("Reading all records from token cache for service {} ", serviceId);
@@ -107,11 +177,66 @@ public class InfinispanStorage implements Storage {
         }
     }
 
+    @Override
+    public Map<String, KeyValue> readBatch(String serviceId, Collection<String> keys) {
+        log.info("Reading {} records for service {}", keys.size(), serviceId);
+        Set<String> cacheKeys = keys.stream().map(key -> serviceId + key).collect(Collectors.toSet());
+        Map<String, KeyValue> found;
+        if (cache instanceof Cache<String, KeyValue> infinispanCache) {
+            // a single bulk operation instead of a remote call for each key
+            found = infinispanCache.getAdvancedCache().getAll(cacheKeys);
+        } else {
+            found = new HashMap<>();
+            cacheKeys.forEach(cacheKey -> {
+                KeyValue keyValue = cache.get(cacheKey);
+                if (keyValue != null) {
+                    found.put(cacheKey, keyValue);
+                }
+            });
+        }
+        return found.values().stream().collect(Collectors.toMap(KeyValue::getKey, keyValue -> keyValue, (a, b) -> b));
+    }
+
+    @Override
+    public void storeBatch(String serviceId, Collection<KeyValue> toStore) {
+        log.info("Storing {} records for service {}", toStore.size(), serviceId);
+        Map<String, KeyValue> entries = new HashMap<>();
+        toStore.forEach(keyValue -> {
+            keyValue.setServiceId(serviceId);
+            indexAdded(keyValue);
+            if (expires(keyValue) && (cache instanceof BasicCache<String, KeyValue> basicCache)) {
+                // each entry has its own lifespan
+                basicCache.put(serviceId + keyValue.getKey(), keyValue, lifespan(keyValue), TimeUnit.MILLISECONDS);
+            } else {
+                entries.put(serviceId + keyValue.getKey(), keyValue);
+            }
+        });
+        cache.putAll(entries);
+    }
+
+    @Override
+    public Map<String, KeyValue> deleteBatch(String serviceId, Collection<String> toDelete) {
+        log.info("Removing {} records for service {}", toDelete.size(), serviceId);
+        Map<String, KeyValue> result = new HashMap<>();
+        toDelete.forEach(key -> {
+            KeyValue entry = cache.remove(serviceId + key);
+            if (entry != null) {
+                indexRemoved(entry);
+                result.put(key, entry);
+            }
+        });
+        return result;
+    }
+
     @Override
     public KeyValue update(String serviceId, KeyValue toUpdate) {
         toUpdate.setServiceId(serviceId);
         log.info("Updating record for service {} under key {}", serviceId, toUpdate);
-        KeyValue serviceCache = cache.put(serviceId + toUpdate.getKey(), toUpdate);
+        KeyValue serviceCache = expires(toUpdate) && (cache instanceof BasicCache<String, KeyValue> basicCache) ?
+            basicCache.put(serviceId + toUpdate.getKey(), toUpdate, lifespan(toUpdate), TimeUnit.MILLISECONDS) :
+            cache.put(serviceId + toUpdate.getKey(), toUpdate);
+        // the entry is stored even if it did not exist before
+        indexAdded(toUpdate);
         if (serviceCache == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
         }
@@ -119,22 +244,129 @@ public class InfinispanStorage implements Storage {
 
     }
 
+    @Override
+    public KeyValue update(String serviceId, KeyValue toUpdate, String expectedTag) {
+        if (expectedTag == null) {
+            return update(serviceId, toUpdate);
+        }
+
+        toUpdate.setServiceId(serviceId);
+        log.info("Updating record for service {} under key {} if it matches the tag {}", serviceId, toUpdate, expectedTag);
+        String key = serviceId + toUpdate.getKey();
+        KeyValue current = cache.get(key);
+        if (current == null) {
+            throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
+        }
+        // replace verifies the value was not changed between the check of the tag and the update
+        boolean replaced = expectedTag.equals(EntityTag.of(current)) && (expires(toUpdate) && (cache instanceof BasicCache<String, KeyValue> basicCache) ?
+            basicCache.replace(key, current, toUpdate, lifespan(toUpdate), TimeUnit.MILLISECONDS) :
+            cache.replace(key, current, toUpdate));
+        if (!replaced) {
+            throw new StorageException(Messages.VALUE_CHANGED.getKey(), Messages.VALUE_CHANGED.getStatus(), toUpdate.getKey(), serviceId);
+        }
+        return toUpdate;
+    }
+
     @Override
     public KeyValue delete(String serviceId, String toDelete) {
         log.info("Removing record for service {} under key {}", serviceId, toDelete);
         KeyValue entry = cache.remove(serviceId + toDelete);
         if (entry != null) {
+            indexRemoved(entry);
             return entry;
         } else {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toDelete, serviceId);
         }
     }
 
+    @Override
+    public CompletionStage<KeyValue> createAsync(String serviceId, KeyValue toCreate) {
+        if (!(cache instanceof Cache<String, KeyValue> infinispanCache)) {
+            return Storage.super.createAsync(serviceId, toCreate);
+        }
+
+        toCreate.setServiceId(serviceId);
+        log.info("Writing record: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
+        CompletableFuture<KeyValue> stored = expires(toCreate) ?
+            infinispanCache.putIfAbsentAsync(serviceId + toCreate.getKey(), toCreate, lifespan(toCreate), TimeUnit.MILLISECONDS) :
+            infinispanCache.putIfAbsentAsync(serviceId + toCreate.getKey(), toCreate);
+        return stored.thenApply(serviceCache -> {
+            if (serviceCache != null) {
+                throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public CompletionStage<KeyValue> readAsync(String serviceId, String key) {
+        if (!(cache instanceof Cache<String, KeyValue> infinispanCache)) {
+            return Storage.super.readAsync(serviceId, key);
+        }
+
+        log.info("Reading record for service {} under key {}", serviceId, key);
+        return infinispanCache.getAsync(serviceId + key).thenApply(serviceCache -> {
+            if (serviceCache == null) {
+                throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
+            }
+            return serviceCache;
+        });
+    }
+
+    @Override
+    public CompletionStage<KeyValue> updateAsync(String serviceId, KeyValue toUpdate) {
+        if (!(cache instanceof Cache<String, KeyValue> infinispanCache)) {
+            return Storage.super.updateAsync(serviceId, toUpdate);
+        }
+
+        toUpdate.setServiceId(serviceId);
+        log.info("Updating record for service {} under key {}", serviceId, toUpdate);
+        CompletableFuture<KeyValue> stored = expires(toUpdate) ?
+            infinispanCache.putAsync(serviceId + toUpdate.getKey(), toUpdate, lifespan(toUpdate), TimeUnit.MILLISECONDS) :
+            infinispanCache.putAsync(serviceId + toUpdate.getKey(), toUpdate);
+        return stored.thenApply(serviceCache -> {
+            if (serviceCache == null) {
+                throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
+            }
+            return toUpdate;
+        });
+    }
+
+    @Override
+    public CompletionStage<KeyValue> deleteAsync(String serviceId, String toDelete) {
+        if (!(cache instanceof Cache<String, KeyValue> infinispanCache)) {
+            return Storage.super.deleteAsync(serviceId, toDelete);
+        }
+
+        log.info("Removing record for service {} under key {}", serviceId, toDelete);
+        return infinispanCache.removeAsync(serviceId + toDelete).thenApply(entry -> {
+            if (entry == null) {
+                throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toDelete, serviceId);
+            }
+            return entry;
+        });
+    }
+
     @Override
     public Map<String, KeyValue> readForService(String serviceId) {
         log.info("Reading all records for service {} ", serviceId);
+        Set<String> cacheKeys = serviceIndex.keys(serviceId).stream().map(key -> serviceId + key).collect(Collectors.toSet());
+        Map<String, KeyValue> found;
+        if (cache instanceof Cache<String, KeyValue> infinispanCache) {
+            found = infinispanCache.getAdvancedCache().getAll(cacheKeys);
+        } else {
+            found = new HashMap<>();
+            cacheKeys.forEach(cacheKey -> {
+                KeyValue keyValue = cache.get(cacheKey);
+                if (keyValue != null) {
+                    found.put(cacheKey, keyValue);
+                }
+            });
+        }
+
+        // the index is just a hint, the cache key could also belong to another service with a similar name
         Map<String, KeyValue> result = new HashMap<>();
-        cache.forEach((key, value) -> {
+        found.values().forEach(value -> {
             if (serviceId.equals(value.getServiceId())) {
                 result.put(value.getKey(), value);
             }
@@ -145,13 +377,27 @@ public class InfinispanStorage implements Storage {
     @Override
     public void deleteForService(String serviceId) {
         log.info("Removing all records for service {} ", serviceId);
-        cache.forEach((key, value) -> {
-            if (value.getServiceId().equals(serviceId)) {
-                cache.remove(key);
+        serviceIndex.removeService(serviceId).forEach(key -> {
+            String cacheKey = serviceId + key;
+            KeyValue value = cache.get(cacheKey);
+            if ((value != null) && serviceId.equals(value.getServiceId())) {
+                cache.remove(cacheKey);
             }
         });
     }
 
+    private void indexAdded(KeyValue keyValue) {
+        if (!indexedByListener) {
+            serviceIndex.added(keyValue);
+        }
+    }
+
+    private void indexRemoved(KeyValue keyValue) {
+        if (!indexedByListener) {
+            serviceIndex.removed(keyValue);
+        }
+    }
+
     @Override
     public void removeNonRelevantTokens(String serviceId, String mapKey) {
         CompletableFuture<Boolean> complete = lock.tryLock(4, TimeUnit.SECONDS).whenComplete((r, ex) -> {
@@ -179,6 +425,7 @@ public class InfinispanStorage implements Storage {
                 }
             }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
             tokenCache.put(serviceId + mapKey, result);
+            compactVersion(serviceId + mapKey, result);
         }
     }
 
@@ -196,6 +443,7 @@ public class InfinispanStorage implements Storage {
                             return deltaToDays <= 90;
                         }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
                         tokenCache.put(serviceId + mapKey, result);
+                        compactVersion(serviceId + mapKey, result);
                     }
                 } finally {
                     lock.unlock();
@@ -205,6 +453,28 @@ public class InfinispanStorage implements Storage {
         completeJoin(complete);
     }
 
+    private MapVersion copyVersion(String cacheKey) {
+        MapVersion stored = versionCache.get(cacheKey);
+        return stored == null ? new MapVersion() : stored.copy();
+    }
+
+    private void compactVersion(String cacheKey, Map<String, String> remaining) {
+        MapVersion mapVersion = copyVersion(cacheKey);
+        mapVersion.compacted(remaining.keySet());
+        versionCache.put(cacheKey, mapVersion);
+    }
+
+    private static boolean expires(KeyValue keyValue) {
+        return keyValue.expiresAt() != Long.MAX_VALUE;
+    }
+
+    /**
+     * The entry expires after its time to live counted from its creation, the rest of the time is the lifespan.
+     */
+    private static long lifespan(KeyValue keyValue) {
+        return Math.max(1, keyValue.expiresAt() - System.currentTimeMillis());
+    }
+
     private void completeJoin(CompletableFuture<Boolean> complete) {
         try {
             complete.join();
@@ -0,0 +1,111 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.infinispan.storage;
+
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryExpired;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryExpiredEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local index of the keys stored in the cache for each service, so the operations with all records of a service do not
+ * iterate over the whole cache. The cache is replicated, so each node gets the events about all entries, including
+ * the ones written by another node or expired. The index is just a hint, the storage has to verify the entries.
+ */
+public class ServiceKeyIndex {
+
+    private final Map<String, Set<String>> keys = new ConcurrentHashMap<>();
+
+    public void added(KeyValue keyValue) {
+        if (keyValue != null) {
+            added(keyValue.getServiceId(), keyValue.getKey());
+        }
+    }
+
+    public void added(String serviceId, String key) {
+        keys.compute(serviceId, (k, serviceKeys) -> {
+            Set<String> output = serviceKeys == null ? ConcurrentHashMap.newKeySet() : serviceKeys;
+            output.add(key);
+            return output;
+        });
+    }
+
+    public void removed(KeyValue keyValue) {
+        if (keyValue != null) {
+            removed(keyValue.getServiceId(), keyValue.getKey());
+        }
+    }
+
+    public void removed(String serviceId, String key) {
+        keys.computeIfPresent(serviceId, (k, serviceKeys) -> {
+            serviceKeys.remove(key);
+            return serviceKeys.isEmpty() ? null : serviceKeys;
+        });
+    }
+
+    /**
+     * @return copy of the keys of the service
+     */
+    public Set<String> keys(String serviceId) {
+        Set<String> serviceKeys = keys.get(serviceId);
+        return serviceKeys == null ? Collections.emptySet() : new HashSet<>(serviceKeys);
+    }
+
+    /**
+     * Remove all keys of the service from the index.
+     *
+     * @return the removed keys
+     */
+    public Set<String> removeService(String serviceId) {
+        Set<String> serviceKeys = keys.remove(serviceId);
+        return serviceKeys == null ? Collections.emptySet() : serviceKeys;
+    }
+
+    /**
+     * Listener updating the index by the changes of the cache. The current state is delivered during the registration.
+     */
+    @Listener(includeCurrentState = true, observation = Listener.Observation.POST)
+    public static class CacheListener {
+
+        private final ServiceKeyIndex index;
+
+        public CacheListener(ServiceKeyIndex index) {
+            this.index = index;
+        }
+
+        @CacheEntryCreated
+        public void created(CacheEntryCreatedEvent<String, KeyValue> event) {
+            index.added(event.getValue());
+        }
+
+        @CacheEntryRemoved
+        public void removed(CacheEntryRemovedEvent<String, KeyValue> event) {
+            index.removed(event.getOldValue());
+        }
+
+        @CacheEntryExpired
+        public void expired(CacheEntryExpiredEvent<String, KeyValue> event) {
+            index.removed(event.getValue());
+        }
+
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Bookkeeping of the {@link InMemoryStorage}. It counts all stored entries, so the size of the storage is known without
+ * iterating over all services. If the eviction strategy needs it, it also keeps the entries sorted (by the creation
+ * time or by the last access), so the entry to evict is found in O(log n).
+ */
+@Slf4j
+public class InMemoryIndex {
+
+    public enum Ordering {
+        /**
+         * Entries are just counted.
+         */
+        NONE,
+        /**
+         * Entries are sorted by the value {@link KeyValue#getCreated()}.
+         */
+        CREATION,
+        /**
+         * Entries are sorted by the last read, create or update.
+         */
+        ACCESS
+    }
+
+    private final Ordering ordering;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<EntryKey, Node> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Node> order = new ConcurrentSkipListSet<>(
+        Comparator.comparingLong(Node::rank).thenComparingLong(Node::sequence)
+    );
+    private volatile BiConsumer<String, String> evictionListener = (serviceId, key) -> { };
+
+    public InMemoryIndex(Ordering ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * Create an index of entries already stored in the storage.
+     */
+    public static InMemoryIndex of(Map<String, Map<String, KeyValue>> storage, Ordering ordering) {
+        InMemoryIndex index = new InMemoryIndex(ordering);
+        storage.forEach((serviceId, serviceStorage) ->
+            serviceStorage.values().forEach(keyValue -> index.added(serviceId, keyValue))
+        );
+        return index;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @param evictionListener called with the service id and the key of each entry removed by {@link #evictFirst(Map)}
+     */
+    public void setEvictionListener(BiConsumer<String, String> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    public void added(String serviceId, KeyValue keyValue) {
+        size.incrementAndGet();
+        track(serviceId, keyValue);
+    }
+
+    public void updated(String serviceId, KeyValue keyValue) {
+        track(serviceId, keyValue);
+    }
+
+    public void accessed(String serviceId, String key) {
+        if (ordering == Ordering.ACCESS) {
+            EntryKey entryKey = new EntryKey(serviceId, key);
+            if (nodes.containsKey(entryKey)) {
+                rank(entryKey, sequence.incrementAndGet());
+            }
+        }
+    }
+
+    public void removed(String serviceId, String key) {
+        size.decrementAndGet();
+        untrack(new EntryKey(serviceId, key));
+    }
+
+    /**
+     * Remove the first entry in the order (the oldest or the least recently used one) from the storage.
+     *
+     * @param storage storage with the entries
+     * @return true if an entry was removed
+     */
+    public boolean evictFirst(Map<String, Map<String, KeyValue>> storage) {
+        Node node;
+        while ((node = order.pollFirst()) != null) {
+            EntryKey entryKey = node.entryKey();
+            if (!nodes.remove(entryKey, node)) {
+                // the entry was changed meanwhile
+                continue;
+            }
+
+            Map<String, KeyValue> serviceStorage = storage.get(entryKey.serviceId());
+            if ((serviceStorage != null) && (serviceStorage.remove(entryKey.key()) != null)) {
+                log.debug("Evicted record: {}|{}", entryKey.serviceId(), entryKey.key());
+                size.decrementAndGet();
+                evictionListener.accept(entryKey.serviceId(), entryKey.key());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void track(String serviceId, KeyValue keyValue) {
+        switch (ordering) {
+            case CREATION -> rank(new EntryKey(serviceId, keyValue.getKey()), parseCreated(keyValue));
+            case ACCESS -> rank(new EntryKey(serviceId, keyValue.getKey()), sequence.incrementAndGet());
+            default -> {
+                // the order is not required
+            }
+        }
+    }
+
+    private void rank(EntryKey entryKey, long rank) {
+        Node node = new Node(entryKey, rank, sequence.incrementAndGet());
+        Node previous = nodes.put(entryKey, node);
+        if (previous != null) {
+            order.remove(previous);
+        }
+        order.add(node);
+    }
+
+    private void untrack(EntryKey entryKey) {
+        Node previous = nodes.remove(entryKey);
+        if (previous != null) {
+            order.remove(previous);
+        }
+    }
+
+    private static long parseCreated(KeyValue keyValue) {
+        try {
+            return Long.parseLong(keyValue.getCreated());
+        } catch (NumberFormatException e) {
+            log.debug("Invalid creation time of record {}: {}", keyValue.getKey(), keyValue.getCreated());
+            return 0;
+        }
+    }
+
+    record EntryKey(String serviceId, String key) {
+    }
+
+    private record Node(EntryKey entryKey, long rank, long sequence) {
+    }
+
+}
@@ -12,52 +12,84 @@ package org.zowe.apiml.caching.service.inmemory;
 
 import lombok.extern.slf4j.Slf4j;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.*;
 import org.zowe.apiml.caching.service.inmemory.config.InMemoryConfig;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.message.log.ApimlLogger;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 @Slf4j
 public class InMemoryStorage implements Storage {
     private Map<String, Map<String, KeyValue>> storage;
     private EvictionStrategy strategy = new DefaultEvictionStrategy();
     private InMemoryConfig config;
+    private InMemoryIndex index;
+    private final ExpiryWheel<InMemoryIndex.EntryKey> expiry;
 
     public InMemoryStorage(InMemoryConfig inMemoryConfig, MessageService messageService) {
         this(inMemoryConfig, new ConcurrentHashMap<>(), ApimlLogger.of(RejectStrategy.class, messageService));
     }
 
-    protected InMemoryStorage(InMemoryConfig inMemoryConfig, Map<String, Map<String, KeyValue>> storage, ApimlLogger apimlLogger) {
+    /**
+     * Create the storage with preloaded records, the expiration of the loaded records is scheduled.
+     */
+    public InMemoryStorage(InMemoryConfig inMemoryConfig, Map<String, Map<String, KeyValue>> storage, ApimlLogger apimlLogger) {
         this.storage = storage;
         this.config = inMemoryConfig;
+        this.expiry = new ExpiryWheel<>(inMemoryConfig.getGeneralConfig().getExpiryTickMillis(), this::removeExpired);
 
         String evictionStrategy = inMemoryConfig.getGeneralConfig().getEvictionStrategy();
-        if (evictionStrategy.equals(Strategies.REJECT.getKey())) {
-            strategy = new RejectStrategy(apimlLogger);
-        } else if (evictionStrategy.equals(Strategies.REMOVE_OLDEST.getKey())) {
-            strategy = new RemoveOldestStrategy(storage);
+        if (evictionStrategy.equals(Strategies.REMOVE_OLDEST.getKey())) {
+            index = InMemoryIndex.of(storage, InMemoryIndex.Ordering.CREATION);
+            strategy = new RemoveOldestStrategy(storage, index);
+        } else if (evictionStrategy.equals(Strategies.LEAST_RECENTLY_USED.getKey())) {
+            index = InMemoryIndex.of(storage, InMemoryIndex.Ordering.ACCESS);
+            strategy = new LeastRecentlyUsedStrategy(storage, index);
+        } else {
+            index = InMemoryIndex.of(storage, InMemoryIndex.Ordering.NONE);
+            if (evictionStrategy.equals(Strategies.REJECT.getKey())) {
+                strategy = new RejectStrategy(apimlLogger);
+            }
         }
+
+        storage.forEach((serviceId, serviceStorage) -> serviceStorage.values().forEach(keyValue -> scheduleExpiry(serviceId, keyValue)));
     }
 
     @Override
     public KeyValue create(String serviceId, KeyValue toCreate) {
         log.info("Writing record: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
 
-        storage.computeIfAbsent(serviceId, k -> new HashMap<>());
-        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
-        if (serviceStorage.containsKey(toCreate.getKey())) {
-            throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey());
+        String key = toCreate.getKey();
+        Map<String, KeyValue> serviceStorage = storage.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>());
+        KeyValue existing = serviceStorage.get(key);
+        if ((existing != null) && existing.isExpiredAt(System.currentTimeMillis()) && serviceStorage.remove(key, existing)) {
+            // the expired record was not removed by the sweeper yet
+            index.removed(serviceId, key);
+        }
+        if (serviceStorage.containsKey(key)) {
+            throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), key);
         }
 
         if (aboveThreshold()) {
-            strategy.evict(toCreate.getKey());
+            strategy.evict(key);
+        }
+
+        if (serviceStorage.putIfAbsent(key, toCreate) != null) {
+            throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), key);
         }
+        index.added(serviceId, toCreate);
+        scheduleExpiry(serviceId, toCreate);
 
-        serviceStorage.put(toCreate.getKey(), toCreate);
+        // all records of the service were deleted meanwhile, this one is deleted with them
+        if ((storage.get(serviceId) != serviceStorage) && serviceStorage.remove(key, toCreate)) {
+            index.removed(serviceId, key);
+        }
 
         return toCreate;
     }
@@ -72,6 +104,16 @@ public class InMemoryStorage implements Storage {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
     }
 
+    @Override
+    public Map<String, String> getMapItems(String serviceId, String mapKey, Collection<String> keys) throws StorageException {
+        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    }
+
+    @Override
+    public MapChanges getMapChanges(String serviceId, String mapKey, long sinceVersion) throws StorageException {
+        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    }
+
     @Override
     public Map<String, Map<String, String>> getAllMaps(String serviceId) throws StorageException {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
@@ -82,25 +124,42 @@ public class InMemoryStorage implements Storage {
         log.info("Reading Record: {}|{}|{}", serviceId, key, "-");
 
         Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
-        if (serviceSpecificStorage == null || !serviceSpecificStorage.containsKey(key)) {
+        KeyValue keyValue = serviceSpecificStorage == null ? null : serviceSpecificStorage.get(key);
+        if ((keyValue == null) || keyValue.isExpiredAt(System.currentTimeMillis())) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
         }
 
-        return serviceSpecificStorage.get(key);
+        index.accessed(serviceId, key);
+        return keyValue;
     }
 
     @Override
     public KeyValue update(String serviceId, KeyValue toUpdate) {
+        return update(serviceId, toUpdate, null);
+    }
+
+    @Override
+    public KeyValue update(String serviceId, KeyValue toUpdate, String expectedTag) {
         log.info("Updating Record: {}|{}|{}", serviceId, toUpdate.getKey(), toUpdate.getValue());
 
         String key = toUpdate.getKey();
-        if (isKeyNotInCache(serviceId, key)) {
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        long now = System.currentTimeMillis();
+        if (serviceStorage == null || serviceStorage.computeIfPresent(key, (k, v) -> {
+            if (v.isExpiredAt(now)) {
+                // the expired record was not removed by the sweeper yet, it is missing as for the read
+                throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
+            }
+            if ((expectedTag != null) && !expectedTag.equals(EntityTag.of(v))) {
+                throw new StorageException(Messages.VALUE_CHANGED.getKey(), Messages.VALUE_CHANGED.getStatus(), key, serviceId);
+            }
+            return toUpdate;
+        }) == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
         }
 
-        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
-
-        serviceStorage.put(key, toUpdate);
+        index.updated(serviceId, toUpdate);
+        scheduleExpiry(serviceId, toUpdate);
         return toUpdate;
     }
 
@@ -108,22 +167,113 @@ public class InMemoryStorage implements Storage {
     public KeyValue delete(String serviceId, String key) {
         log.info("Deleting Record: {}|{}|{}", serviceId, key, "-");
 
-        if (isKeyNotInCache(serviceId, key)) {
+        Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
+        KeyValue removed = serviceSpecificStorage == null ? null : serviceSpecificStorage.remove(key);
+        if (removed == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
         }
 
-        Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
-        return serviceSpecificStorage.remove(key);
+        index.removed(serviceId, key);
+        expiry.cancel(new InMemoryIndex.EntryKey(serviceId, key));
+        return removed;
+    }
+
+    @Override
+    public Map<String, KeyValue> readBatch(String serviceId, Collection<String> keys) {
+        log.info("Reading {} records: {}", keys.size(), serviceId);
+
+        Map<String, KeyValue> result = new HashMap<>();
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        if (serviceStorage != null) {
+            long now = System.currentTimeMillis();
+            keys.forEach(key -> {
+                KeyValue keyValue = serviceStorage.get(key);
+                if ((keyValue != null) && !keyValue.isExpiredAt(now)) {
+                    index.accessed(serviceId, key);
+                    result.put(key, keyValue);
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public void storeBatch(String serviceId, Collection<KeyValue> toStore) {
+        log.info("Storing {} records: {}", toStore.size(), serviceId);
+
+        toStore.forEach(keyValue -> store(serviceId, keyValue));
+    }
+
+    private void store(String serviceId, KeyValue toStore) {
+        while (true) {
+            Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+            if ((serviceStorage != null) && (serviceStorage.computeIfPresent(toStore.getKey(), (k, v) -> toStore) != null)) {
+                index.updated(serviceId, toStore);
+                scheduleExpiry(serviceId, toStore);
+                return;
+            }
+
+            try {
+                create(serviceId, toStore);
+                return;
+            } catch (StorageException e) {
+                // the record was created concurrently, try to update it again
+                if (!Messages.DUPLICATE_KEY.getKey().equals(e.getKey())) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, KeyValue> deleteBatch(String serviceId, Collection<String> toDelete) {
+        log.info("Deleting {} records: {}", toDelete.size(), serviceId);
+
+        Map<String, KeyValue> result = new HashMap<>();
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        if (serviceStorage != null) {
+            toDelete.forEach(key -> {
+                KeyValue removed = serviceStorage.remove(key);
+                if (removed != null) {
+                    index.removed(serviceId, key);
+                    expiry.cancel(new InMemoryIndex.EntryKey(serviceId, key));
+                    result.put(key, removed);
+                }
+            });
+        }
+        return result;
     }
 
     @Override
     public Map<String, KeyValue> readForService(String serviceId) {
-        return storage.get(serviceId);
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        if ((serviceStorage == null) || (expiry.size() == 0)) {
+            return serviceStorage;
+        }
+
+        // the expired records could be still there until the next tick of the sweeper
+        long now = System.currentTimeMillis();
+        Map<String, KeyValue> result = new HashMap<>();
+        serviceStorage.forEach((key, keyValue) -> {
+            if (!keyValue.isExpiredAt(now)) {
+                result.put(key, keyValue);
+            }
+        });
+        return result;
     }
 
     @Override
     public void deleteForService(String serviceId) {
-        storage.remove(serviceId);
+        Map<String, KeyValue> removed = storage.remove(serviceId);
+        if (removed != null) {
+            // records are removed one by one to count just the records which are not removed by a concurrent call
+            removed.keySet().forEach(key -> {
+                if (removed.remove(key) != null) {
+                    index.removed(serviceId, key);
+                    expiry.cancel(new InMemoryIndex.EntryKey(serviceId, key));
+                }
+            });
+        }
     }
 
     @Override
@@ -136,16 +286,55 @@ public class InMemoryStorage implements Storage {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
     }
 
-    private boolean isKeyNotInCache(String serviceId, String keyToTest) {
-        Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
-        return serviceSpecificStorage == null || serviceSpecificStorage.get(keyToTest) == null;
+    private void scheduleExpiry(String serviceId, KeyValue keyValue) {
+        InMemoryIndex.EntryKey entryKey = new InMemoryIndex.EntryKey(serviceId, keyValue.getKey());
+        long expiresAt = keyValue.expiresAt();
+        if (expiresAt == Long.MAX_VALUE) {
+            expiry.cancel(entryKey);
+        } else {
+            expiry.schedule(entryKey, expiresAt);
+        }
     }
 
-    private boolean aboveThreshold() {
-        int currentSize = 0;
-        for (Map.Entry<String, Map<String, KeyValue>> serviceStorage: storage.entrySet()) {
-            currentSize += serviceStorage.getValue().size();
+    /**
+     * Remove the entries reported by the sweeper. The entry is removed only if it is still expired, it could be
+     * replaced meanwhile.
+     */
+    void removeExpired(Collection<InMemoryIndex.EntryKey> entryKeys) {
+        long now = System.currentTimeMillis();
+        for (InMemoryIndex.EntryKey entryKey : entryKeys) {
+            Map<String, KeyValue> serviceStorage = storage.get(entryKey.serviceId());
+            KeyValue keyValue = serviceStorage == null ? null : serviceStorage.get(entryKey.key());
+            if ((keyValue != null) && keyValue.isExpiredAt(now) && serviceStorage.remove(entryKey.key(), keyValue)) {
+                log.debug("Expired record: {}|{}", entryKey.serviceId(), entryKey.key());
+                index.removed(entryKey.serviceId(), entryKey.key());
+            }
         }
+    }
+
+    /**
+     * Remove the expired entries at once, without waiting for the sweeper.
+     */
+    void sweep() {
+        removeExpired(expiry.advance());
+    }
+
+    /**
+     * Set the listener of the records removed by the eviction strategy. The listener is called by the thread which
+     * creates the record causing the eviction.
+     *
+     * @param evictionListener called with the service id and the key of the evicted record
+     */
+    public void setEvictionListener(BiConsumer<String, String> evictionListener) {
+        index.setEvictionListener(evictionListener);
+    }
+
+    public void close() {
+        expiry.close();
+    }
+
+    private boolean aboveThreshold() {
+        int currentSize = index.size();
 
         log.info("Current Size {}.", currentSize);
 
@@ -0,0 +1,32 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+import lombok.RequiredArgsConstructor;
+import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.EvictionStrategy;
+
+import java.util.Map;
+
+/**
+ * Evicts the entry which was not read, created or updated for the longest time. The entries are sorted by the
+ * {@link InMemoryIndex}.
+ */
+@RequiredArgsConstructor
+public class LeastRecentlyUsedStrategy implements EvictionStrategy {
+    private final Map<String, Map<String, KeyValue>> storage;
+    private final InMemoryIndex index;
+
+    @Override
+    public void evict(String key) {
+        index.evictFirst(storage);
+    }
+}
@@ -11,43 +11,25 @@
 package org.zowe.apiml.caching.service.inmemory;
 
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.zowe.apiml.caching.model.KeyValue;
 import org.zowe.apiml.caching.service.EvictionStrategy;
 
 import java.util.Map;
 
+/**
+ * Evicts the entry with the oldest creation time. The entries are sorted by the {@link InMemoryIndex}.
+ */
 @RequiredArgsConstructor
-@Slf4j
 public class RemoveOldestStrategy implements EvictionStrategy {
     private final Map<String, Map<String, KeyValue>> storage;
+    private final InMemoryIndex index;
+
+    public RemoveOldestStrategy(Map<String, Map<String, KeyValue>> storage) {
+        this(storage, InMemoryIndex.of(storage, InMemoryIndex.Ordering.CREATION));
+    }
 
     @Override
     public void evict(String key) {
-        KeyValue oldest = null;
-        Map<String, KeyValue> mapStoringOldest = null;
-        for (Map.Entry<String, Map<String, KeyValue>> serviceStorage: storage.entrySet()) {
-            Map<String, KeyValue> services = serviceStorage.getValue();
-            for (Map.Entry<String, KeyValue> specificValue: services.entrySet()) {
-                KeyValue current = specificValue.getValue();
-                if (oldest == null) {
-                    oldest = current;
-                    mapStoringOldest = services;
-                    continue;
-                }
-
-                long oldestCreated = Long.parseLong(oldest.getCreated());
-                long currentCreated = Long.parseLong(current.getCreated());
-
-                if (oldestCreated > currentCreated) {
-                    oldest = current;
-                    mapStoringOldest = services;
-                }
-            }
-        }
-
-        if (oldest != null) {
-            mapStoringOldest.remove(oldest.getKey());
-        }
+        index.evictFirst(storage);
     }
 }
@@ -14,11 +14,11 @@ import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.RedisFuture;
 import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.codec.StringCodec;
 import io.lettuce.core.masterreplica.MasterReplica;
 import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
-import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -31,13 +31,18 @@ import org.zowe.apiml.message.log.ApimlLogger;
 
 import jakarta.annotation.PreDestroy;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
 /**
  * Class used to connect to and operate on a Redis instance or cluster.
  * Contains the CRUD operations enacted on Redis with serialized read and write.
+ * <p>
+ * The time to live of an entry is set by the expiration of its hash field (HPEXPIRE), which requires Redis 7.4 or
+ * later. The support is detected when the operator connects, see {@link #isExpirationSupported()}.
  */
-@AllArgsConstructor
 @NoArgsConstructor
 @Slf4j
 @Component
@@ -46,6 +51,55 @@ public class RedisOperator {
     private RedisClient redisClient;
     private StatefulRedisMasterReplicaConnection<String, String> redisConnection;
     private RedisAsyncCommands<String, String> redis;
+    private boolean expirationSupported = true;
+
+    /**
+     * Creates the field only if it does not exist yet and sets its time to live if it is not empty, so the entry
+     * never exists without its expiration.
+     * KEYS[1] is the service ID, ARGV are the key, the value and the time to live in milliseconds.
+     */
+    static final String CREATE_SCRIPT = """
+        if redis.call('HSETNX', KEYS[1], ARGV[1], ARGV[2]) == 0 then return 0 end
+        if ARGV[3] ~= '' then redis.call('HPEXPIRE', KEYS[1], ARGV[3], 'FIELDS', 1, ARGV[1]) end
+        return 1
+        """;
+
+    /**
+     * Stores the fields and sets the time to live of those with a non-empty one.
+     * KEYS[1] is the service ID, ARGV are triplets of the key, the value and the time to live in milliseconds.
+     */
+    static final String STORE_SCRIPT = """
+        for i = 1, #ARGV, 3 do
+            redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+            if ARGV[i + 2] ~= '' then redis.call('HPEXPIRE', KEYS[1], ARGV[i + 2], 'FIELDS', 1, ARGV[i]) end
+        end
+        return 1
+        """;
+
+    /**
+     * Replaces the field only if it exists and (if the tag is not empty) its SHA-1 hash matches the tag. The time to
+     * live of the field is set if it is not empty (HSET removes the previous one).
+     * KEYS[1] is the service ID, ARGV are the key, the new value, the expected tag and the time to live in milliseconds.
+     */
+    static final String UPDATE_SCRIPT = """
+        local current = redis.call('HGET', KEYS[1], ARGV[1])
+        if not current then return 0 end
+        if ARGV[3] ~= '' and redis.sha1hex(current) ~= ARGV[3] then return -1 end
+        redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+        if ARGV[4] ~= '' then redis.call('HPEXPIRE', KEYS[1], ARGV[4], 'FIELDS', 1, ARGV[1]) end
+        return 1
+        """;
+
+    public enum UpdateResult {
+        UPDATED, NOT_FOUND, VALUE_CHANGED;
+
+        static UpdateResult of(Long scriptResult) {
+            if (scriptResult == null || scriptResult == 0) {
+                return NOT_FOUND;
+            }
+            return scriptResult > 0 ? UPDATED : VALUE_CHANGED;
+        }
+    }
 
     public RedisOperator(RedisClient redisClient, RedisURI redisUri, ApimlLogger apimlLog) {
         try {
@@ -53,12 +107,48 @@ public class RedisOperator {
             redisConnection = MasterReplica.connect(this.redisClient, StringCodec.UTF8, redisUri);
             redis = redisConnection.async();
             log.info("Connected to Redis {}", redisUri);
+            expirationSupported = detectExpirationSupport();
         } catch (Exception e) {
             apimlLog.log("org.zowe.apiml.cache.errorInitializingStorage", "redis", e.getCause().getMessage(), e);
             System.exit(1);
         }
     }
 
+    RedisOperator(RedisClient redisClient, StatefulRedisMasterReplicaConnection<String, String> redisConnection, RedisAsyncCommands<String, String> redis) {
+        this.redisClient = redisClient;
+        this.redisConnection = redisConnection;
+        this.redis = redis;
+    }
+
+    /**
+     * The command HPEXPIRE is available since Redis 7.4. COMMAND INFO returns nil for an unknown command.
+     */
+    boolean detectExpirationSupport() {
+        boolean supported;
+        try {
+            List<Object> commands = redis.commandInfo("HPEXPIRE").get();
+            supported = (commands != null) && !commands.isEmpty() && (commands.get(0) != null);
+        } catch (ExecutionException e) {
+            log.debug("The commands supported by Redis could not be read", e);
+            supported = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            supported = false;
+        }
+
+        if (!supported) {
+            log.warn("Redis does not support the expiration of hash fields (HPEXPIRE, Redis 7.4 or later), the entries with a time to live are rejected");
+        }
+        return supported;
+    }
+
+    /**
+     * @return true if Redis can expire the entries, otherwise the entries with a time to live cannot be stored
+     */
+    public boolean isExpirationSupported() {
+        return expirationSupported;
+    }
+
     @PreDestroy
     public void closeConnection() {
         if (redisConnection != null) {
@@ -80,6 +170,9 @@ public class RedisOperator {
         KeyValue toAdd = entryToAdd.getEntry();
 
         try {
+            if (expires(toAdd)) {
+                return eval(CREATE_SCRIPT, entryToAdd.getServiceId(), toAdd.getKey(), entryToAdd.getEntryAsString(), expiration(toAdd)).get().equals(1L);
+            }
             RedisFuture<Boolean> result = redis.hsetnx(entryToAdd.getServiceId(), toAdd.getKey(), entryToAdd.getEntryAsString());
             return result.get();
         } catch (ExecutionException e) {
@@ -100,26 +193,31 @@ public class RedisOperator {
      * @return true if the key exists for a service ID and the value was updated, otherwise false.
      */
     public boolean update(RedisEntry entryToUpdate) throws RedisOutOfMemoryException {
-        String serviceId = entryToUpdate.getServiceId();
-        KeyValue toUpdate = entryToUpdate.getEntry();
+        return update(entryToUpdate, null) == UpdateResult.UPDATED;
+    }
 
+    /**
+     * Updates a given entry in Redis if the current value matches the entity tag. The check and the update are made by
+     * a script, so they are atomic and need a single round trip.
+     *
+     * @param entryToUpdate RedisEntry containing the service ID and key to update, with the new value.
+     * @param expectedTag   entity tag of the current value, null to update the entry unconditionally
+     * @return result of the update
+     */
+    public UpdateResult update(RedisEntry entryToUpdate, String expectedTag) throws RedisOutOfMemoryException {
         try {
-            boolean exists = redis.hexists(serviceId, toUpdate.getKey()).get();
-            if (!exists) {
-                return false;
-            }
-
-            boolean result = redis.hset(serviceId, toUpdate.getKey(), entryToUpdate.getEntryAsString()).get();
-            return !result; // hset returns false if field already exists and value was updated
+            RedisFuture<Long> result = eval(UPDATE_SCRIPT, entryToUpdate.getServiceId(), entryToUpdate.getEntry().getKey(),
+                entryToUpdate.getEntryAsString(), expectedTag == null ? "" : expectedTag, expiration(entryToUpdate.getEntry()));
+            return UpdateResult.of(result.get());
         } catch (ExecutionException e) {
             handleWriteOperationExecutionException(e);
         } catch (InterruptedException e) {
             handleInterruptedException(e);
         } catch (RedisEntryException e) {
-            return false;
+            return UpdateResult.NOT_FOUND;
         }
 
-        return false;
+        return UpdateResult.NOT_FOUND;
     }
 
     /**
@@ -160,6 +258,111 @@ public class RedisOperator {
         return Collections.emptyList();
     }
 
+    /**
+     * Retrieve entries for a given service with the corresponding keys in a single round trip.
+     *
+     * @return List of RedisEntry instances of the existing keys. If there are no entries an empty List is returned.
+     */
+    public List<RedisEntry> get(String serviceId, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        try {
+            return collectEntries(serviceId, redis.hmget(serviceId, keys.toArray(new String[0])).get());
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (ExecutionException e) {
+            throw new RetryableRedisException(e);
+        }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Creates or replaces the given entries of a service in a single round trip.
+     *
+     * @param serviceId      service ID for which to store the entries
+     * @param entriesToStore entries with the keys and values
+     */
+    public void set(String serviceId, List<RedisEntry> entriesToStore) throws RedisOutOfMemoryException {
+        if (entriesToStore.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (entriesToStore.stream().anyMatch(entry -> expires(entry.getEntry()))) {
+                // the values and their expirations are set atomically by a script
+                List<String> args = new ArrayList<>();
+                for (RedisEntry entry : entriesToStore) {
+                    args.add(entry.getEntry().getKey());
+                    args.add(entry.getEntryAsString());
+                    args.add(expiration(entry.getEntry()));
+                }
+                eval(STORE_SCRIPT, serviceId, args.toArray(new String[0])).get();
+                return;
+            }
+
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (RedisEntry entry : entriesToStore) {
+                fields.put(entry.getEntry().getKey(), entry.getEntryAsString());
+            }
+            redis.hset(serviceId, fields).get();
+        } catch (ExecutionException e) {
+            handleWriteOperationExecutionException(e);
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (RedisEntryException e) {
+            log.warn("Error storing entries for {}. Error: {}", serviceId, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the entries with the given keys for a given service. The entries are read and deleted in a single
+     * pipelined round trip.
+     *
+     * @return List of the deleted entries.
+     */
+    public List<RedisEntry> delete(String serviceId, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        try {
+            String[] fields = keys.toArray(new String[0]);
+            // both commands are sent before the first response is awaited
+            RedisFuture<List<io.lettuce.core.KeyValue<String, String>>> existing = redis.hmget(serviceId, fields);
+            RedisFuture<Long> deleted = redis.hdel(serviceId, fields);
+            List<RedisEntry> result = collectEntries(serviceId, existing.get());
+            deleted.get();
+            return result;
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (ExecutionException e) {
+            throw new RetryableRedisException(e);
+        }
+
+        return Collections.emptyList();
+    }
+
+    private List<RedisEntry> collectEntries(String serviceId, List<io.lettuce.core.KeyValue<String, String>> redisEntries) {
+        List<RedisEntry> entries = new ArrayList<>();
+
+        for (io.lettuce.core.KeyValue<String, String> entry : redisEntries) {
+            if (!entry.hasValue()) {
+                continue;
+            }
+
+            try {
+                entries.add(new RedisEntry(serviceId, entry.getValue()));
+            } catch (RedisEntryException e) {
+                log.warn("Error retrieving entry: {}|{}. Error: {}", serviceId, entry.getKey(), e.getMessage());
+            }
+        }
+
+        return entries;
+    }
+
     private List<RedisEntry> collectEntries(String serviceId, Map<String, String> redisEntries) {
         List<RedisEntry> entries = new ArrayList<>();
 
@@ -210,6 +413,113 @@ public class RedisOperator {
         return false;
     }
 
+    /**
+     * Creates a given entry in Redis without blocking the calling thread.
+     *
+     * @return true if the key does not exist for the service ID and the entry was created, otherwise false.
+     */
+    public CompletionStage<Boolean> createAsync(RedisEntry entryToAdd) {
+        try {
+            KeyValue toAdd = entryToAdd.getEntry();
+            CompletionStage<Boolean> created = expires(toAdd) ?
+                eval(CREATE_SCRIPT, entryToAdd.getServiceId(), toAdd.getKey(), entryToAdd.getEntryAsString(), expiration(toAdd))
+                    .thenApply(result -> result == 1L) :
+                redis.hsetnx(entryToAdd.getServiceId(), toAdd.getKey(), entryToAdd.getEntryAsString());
+            return created.exceptionallyCompose(RedisOperator::writeOperationFailure);
+        } catch (RedisEntryException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    /**
+     * Updates a given entry in Redis without blocking the calling thread.
+     *
+     * @return true if the key exists for a service ID and the value was updated, otherwise false.
+     */
+    public CompletionStage<Boolean> updateAsync(RedisEntry entryToUpdate) {
+        return updateAsync(entryToUpdate, null).thenApply(result -> result == UpdateResult.UPDATED);
+    }
+
+    /**
+     * Updates a given entry in Redis if the current value matches the entity tag, without blocking the calling thread.
+     *
+     * @param entryToUpdate RedisEntry containing the service ID and key to update, with the new value.
+     * @param expectedTag   entity tag of the current value, null to update the entry unconditionally
+     * @return result of the update
+     */
+    public CompletionStage<UpdateResult> updateAsync(RedisEntry entryToUpdate, String expectedTag) {
+        String value;
+        try {
+            value = entryToUpdate.getEntryAsString();
+        } catch (RedisEntryException e) {
+            return CompletableFuture.completedFuture(UpdateResult.NOT_FOUND);
+        }
+
+        return eval(UPDATE_SCRIPT, entryToUpdate.getServiceId(), entryToUpdate.getEntry().getKey(), value,
+                expectedTag == null ? "" : expectedTag, expiration(entryToUpdate.getEntry()))
+            .thenApply(UpdateResult::of)
+            .exceptionallyCompose(RedisOperator::writeOperationFailure);
+    }
+
+    /**
+     * Retrieve an entry for a given service with the corresponding key without blocking the calling thread.
+     *
+     * @return RedisEntry instance if the service ID and key exist, otherwise null.
+     */
+    public CompletionStage<RedisEntry> getAsync(String serviceId, String key) {
+        return redis.hget(serviceId, key)
+            .thenApply(result -> {
+                if (result == null) {
+                    return null;
+                }
+                try {
+                    return new RedisEntry(serviceId, result);
+                } catch (RedisEntryException e) {
+                    log.warn("Error retrieving entry: {}|{}. Error: {}", serviceId, key, e.getMessage());
+                    return null;
+                }
+            })
+            .exceptionallyCompose(e -> CompletableFuture.failedFuture(new RetryableRedisException(e)));
+    }
+
+    /**
+     * Deletes the entry with the given key for a given service without blocking the calling thread.
+     *
+     * @return true if the entry was deleted, otherwise false.
+     */
+    public CompletionStage<Boolean> deleteAsync(String serviceId, String toDelete) {
+        return redis.hdel(serviceId, toDelete)
+            .thenApply(recordsDeleted -> recordsDeleted >= 1)
+            .exceptionallyCompose(e -> CompletableFuture.failedFuture(new RetryableRedisException(e)));
+    }
+
+    private static boolean expires(KeyValue keyValue) {
+        return keyValue.expiresAt() != Long.MAX_VALUE;
+    }
+
+    /**
+     * The entry expires after its time to live counted from its creation, the rest of the time is set to Redis.
+     */
+    private static long remainingMillis(KeyValue keyValue) {
+        return Math.max(1, keyValue.expiresAt() - System.currentTimeMillis());
+    }
+
+    private static String expiration(KeyValue keyValue) {
+        return expires(keyValue) ? String.valueOf(remainingMillis(keyValue)) : "";
+    }
+
+    private RedisFuture<Long> eval(String script, String serviceId, String... args) {
+        return redis.eval(script, ScriptOutputType.INTEGER, new String[] {serviceId}, args);
+    }
+
+    private static <T> CompletionStage<T> writeOperationFailure(Throwable e) {
+        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+        if (cause instanceof RedisCommandExecutionException && cause.getMessage().contains("maxmemory")) {
+            return CompletableFuture.failedFuture(new RedisOutOfMemoryException(cause));
+        }
+        return CompletableFuture.failedFuture(new RetryableRedisException(e));
+    }
+
     private void handleWriteOperationExecutionException(ExecutionException e) throws RedisOutOfMemoryException {
         Throwable cause = e.getCause();
         if (cause instanceof RedisCommandExecutionException && cause.getMessage().contains("maxmemory")) {
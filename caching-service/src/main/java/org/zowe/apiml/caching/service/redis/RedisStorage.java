@@ -13,15 +13,20 @@ package org.zowe.apiml.caching.service.redis;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.retry.annotation.Retryable;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisOutOfMemoryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RetryableRedisException;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Class handles requests from controller and orchestrates operations on the low level RedisOperator class.
@@ -30,6 +35,9 @@ import java.util.Map;
  * configured memory, or there is not enough memory available and a no eviction policy is used, an error message is returned to the user.
  * If another entry will be evicted to make space for a create or update operation, no warning is logged and the eviction
  * is left to Redis.
+ * <p>
+ * The time to live of the entries requires Redis 7.4 or later. With an older version the entries with a time to live
+ * are rejected.
  */
 @Slf4j
 public class RedisStorage implements Storage {
@@ -46,6 +54,7 @@ public class RedisStorage implements Storage {
     public KeyValue create(String serviceId, KeyValue toCreate) {
         log.info("Creating entry: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
 
+        checkExpirationSupported(toCreate);
         RedisEntry entryToCreate = new RedisEntry(serviceId, toCreate);
         try {
             boolean result = redis.create(entryToCreate);
@@ -69,6 +78,16 @@ public class RedisStorage implements Storage {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
     }
 
+    @Override
+    public Map<String, String> getMapItems(String serviceId, String mapKey, Collection<String> keys) throws StorageException {
+        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    }
+
+    @Override
+    public MapChanges getMapChanges(String serviceId, String mapKey, long sinceVersion) throws StorageException {
+        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    }
+
     @Override
     public Map<String, Map<String, String>> getAllMaps(String serviceId) throws StorageException {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
@@ -89,13 +108,23 @@ public class RedisStorage implements Storage {
     @Override
     @Retryable(value = RetryableRedisException.class)
     public KeyValue update(String serviceId, KeyValue toUpdate) {
+        return update(serviceId, toUpdate, null);
+    }
+
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public KeyValue update(String serviceId, KeyValue toUpdate, String expectedTag) {
         log.info("Updating entry: {}|{}|{}", serviceId, toUpdate.getKey(), toUpdate.getValue());
 
+        checkExpirationSupported(toUpdate);
         RedisEntry entryToUpdate = new RedisEntry(serviceId, toUpdate);
         try {
-            boolean result = redis.update(entryToUpdate);
+            RedisOperator.UpdateResult result = redis.update(entryToUpdate, expectedTag);
 
-            if (!result) {
+            if (result == RedisOperator.UpdateResult.VALUE_CHANGED) {
+                throw new StorageException(Messages.VALUE_CHANGED.getKey(), Messages.VALUE_CHANGED.getStatus(), toUpdate.getKey(), serviceId);
+            }
+            if (result != RedisOperator.UpdateResult.UPDATED) {
                 throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
             }
         } catch (RedisOutOfMemoryException e) {
@@ -118,6 +147,43 @@ public class RedisStorage implements Storage {
         return entryToDelete.getEntry();
     }
 
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public Map<String, KeyValue> readBatch(String serviceId, Collection<String> keys) {
+        log.info("Reading {} entries: {}", keys.size(), serviceId);
+
+        return toMap(redis.get(serviceId, keys));
+    }
+
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public void storeBatch(String serviceId, Collection<KeyValue> toStore) {
+        log.info("Storing {} entries: {}", toStore.size(), serviceId);
+
+        toStore.forEach(this::checkExpirationSupported);
+        try {
+            redis.set(serviceId, toStore.stream().map(keyValue -> new RedisEntry(serviceId, keyValue)).toList());
+        } catch (RedisOutOfMemoryException e) {
+            throw new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus());
+        }
+    }
+
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public Map<String, KeyValue> deleteBatch(String serviceId, Collection<String> toDelete) {
+        log.info("Deleting {} entries: {}", toDelete.size(), serviceId);
+
+        return toMap(redis.delete(serviceId, toDelete));
+    }
+
+    private Map<String, KeyValue> toMap(List<RedisEntry> redisResult) {
+        Map<String, KeyValue> result = new HashMap<>();
+        for (RedisEntry redisEntry : redisResult) {
+            result.put(redisEntry.getEntry().getKey(), redisEntry.getEntry());
+        }
+        return result;
+    }
+
     @Override
     @Retryable(value = RetryableRedisException.class)
     public Map<String, KeyValue> readForService(String serviceId) {
@@ -143,6 +209,110 @@ public class RedisStorage implements Storage {
         }
     }
 
+    @Override
+    public CompletionStage<KeyValue> createAsync(String serviceId, KeyValue toCreate) {
+        log.info("Creating entry: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
+
+        try {
+            checkExpirationSupported(toCreate);
+        } catch (StorageException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return redis.createAsync(new RedisEntry(serviceId, toCreate))
+            .exceptionallyCompose(RedisStorage::writeFailure)
+            .thenApply(result -> {
+                if (!Boolean.TRUE.equals(result)) {
+                    throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey(), serviceId);
+                }
+                return toCreate;
+            });
+    }
+
+    @Override
+    public CompletionStage<KeyValue> readAsync(String serviceId, String key) {
+        log.info("Reading entry: {}|{}", serviceId, key);
+
+        return redis.getAsync(serviceId, key)
+            .thenApply(result -> {
+                if (result == null) {
+                    throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
+                }
+                return result.getEntry();
+            });
+    }
+
+    @Override
+    public CompletionStage<KeyValue> updateAsync(String serviceId, KeyValue toUpdate) {
+        log.info("Updating entry: {}|{}|{}", serviceId, toUpdate.getKey(), toUpdate.getValue());
+
+        try {
+            checkExpirationSupported(toUpdate);
+        } catch (StorageException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return redis.updateAsync(new RedisEntry(serviceId, toUpdate))
+            .exceptionallyCompose(RedisStorage::writeFailure)
+            .thenApply(result -> {
+                if (!Boolean.TRUE.equals(result)) {
+                    throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
+                }
+                return toUpdate;
+            });
+    }
+
+    @Override
+    public CompletionStage<KeyValue> updateAsync(String serviceId, KeyValue toUpdate, String expectedTag) {
+        if (expectedTag == null) {
+            return updateAsync(serviceId, toUpdate);
+        }
+        log.info("Updating entry: {}|{}|{}", serviceId, toUpdate.getKey(), toUpdate.getValue());
+
+        try {
+            checkExpirationSupported(toUpdate);
+        } catch (StorageException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return redis.updateAsync(new RedisEntry(serviceId, toUpdate), expectedTag)
+            .exceptionallyCompose(RedisStorage::writeFailure)
+            .thenApply(result -> {
+                if (result == RedisOperator.UpdateResult.VALUE_CHANGED) {
+                    throw new StorageException(Messages.VALUE_CHANGED.getKey(), Messages.VALUE_CHANGED.getStatus(), toUpdate.getKey(), serviceId);
+                }
+                if (result != RedisOperator.UpdateResult.UPDATED) {
+                    throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
+                }
+                return toUpdate;
+            });
+    }
+
+    @Override
+    public CompletionStage<KeyValue> deleteAsync(String serviceId, String toDelete) {
+        log.info("Deleting entry: {}|{}", serviceId, toDelete);
+
+        return redis.getAsync(serviceId, toDelete)
+            .thenCompose(entryToDelete -> redis.deleteAsync(serviceId, toDelete)
+                .thenApply(result -> {
+                    if (!Boolean.TRUE.equals(result) || (entryToDelete == null)) {
+                        throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toDelete, serviceId);
+                    }
+                    return entryToDelete.getEntry();
+                }));
+    }
+
+    private void checkExpirationSupported(KeyValue keyValue) {
+        if ((keyValue.expiresAt() != Long.MAX_VALUE) && !redis.isExpirationSupported()) {
+            throw new StorageException(Messages.EXPIRATION_NOT_SUPPORTED.getKey(), Messages.EXPIRATION_NOT_SUPPORTED.getStatus(), keyValue.getKey());
+        }
+    }
+
+    private static <T> CompletionStage<T> writeFailure(Throwable e) {
+        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+        if (cause instanceof RedisOutOfMemoryException) {
+            return CompletableFuture.failedFuture(new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus()));
+        }
+        return CompletableFuture.failedFuture(cause);
+    }
+
     @Override
     public void removeNonRelevantTokens(String serviceId, String mapKey) {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
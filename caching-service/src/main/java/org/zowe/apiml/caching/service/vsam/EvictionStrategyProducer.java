@@ -11,6 +11,7 @@
 package org.zowe.apiml.caching.service.vsam;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.zowe.apiml.caching.config.GeneralConfig;
 import org.zowe.apiml.caching.service.EvictionStrategy;
@@ -20,6 +21,7 @@ import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.message.log.ApimlLogger;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class EvictionStrategyProducer {
@@ -28,8 +30,9 @@ public class EvictionStrategyProducer {
     private final MessageService messageService;
 
     private RejectStrategy rejectStrategy;
+    private boolean unsupportedStrategyReported;
 
-    EvictionStrategy evictionStrategy(VsamFile vsamFile) {
+    EvictionStrategy evictionStrategy(VsamFile vsamFile, VsamRecordIndex index) {
         if (generalConfig.getEvictionStrategy().equals(Strategies.REJECT.getKey())) {
             if (rejectStrategy == null) {
                 rejectStrategy = new RejectStrategy(ApimlLogger.of(RejectStrategy.class, messageService));
@@ -37,7 +40,13 @@ public class EvictionStrategyProducer {
 
             return rejectStrategy;
         } else {
-            return new RemoveOldestStrategy(vsamConfig, vsamFile);
+            if (generalConfig.getEvictionStrategy().equals(Strategies.LEAST_RECENTLY_USED.getKey()) && !unsupportedStrategyReported) {
+                // VSAM does not track the reads of the records
+                log.warn("The eviction strategy {} is not supported by the VSAM storage, the strategy {} is used instead",
+                    Strategies.LEAST_RECENTLY_USED.getKey(), Strategies.REMOVE_OLDEST.getKey());
+                unsupportedStrategyReported = true;
+            }
+            return new RemoveOldestStrategy(vsamConfig, vsamFile, index);
         }
     }
 }
@@ -12,15 +12,17 @@ package org.zowe.apiml.caching.service.vsam;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.model.KeyValue;
 import org.zowe.apiml.caching.service.EvictionStrategy;
+import org.zowe.apiml.caching.service.vsam.VsamStorage.EntryKey;
 import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
-import org.zowe.apiml.zfile.ZFileConstants;
-import org.zowe.apiml.zfile.ZFileException;
 
-import java.io.UnsupportedEncodingException;
 import java.util.Optional;
 
-
+/**
+ * Removes the record with the lowest creation time. The record is found in the {@link VsamRecordIndex}, only the
+ * removal accesses the file.
+ */
 @RequiredArgsConstructor
 @Slf4j
 public class RemoveOldestStrategy implements EvictionStrategy {
@@ -28,49 +30,22 @@ public class RemoveOldestStrategy implements EvictionStrategy {
 
     private final VsamFile file;
 
+    private final VsamRecordIndex index;
+
     @Override
     public void evict(String key) {
-        removeOldestRecord();
-    }
-
-    private void removeOldestRecord() {
-        VsamRecord oldest = null;
-        try {
-            byte[] ignoreKey = " ".getBytes(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
-            byte[] recBuf = new byte[vsamConfig.getRecordLength()];
-            Optional<byte[]> readRecord;
-            int overflowProtection = 10000;
-            file.getZfile().locate(ignoreKey, ZFileConstants.LOCATE_KEY_FIRST);
-            while ((readRecord = file.readBytes(recBuf)).isPresent()) {
-                VsamRecord current = new VsamRecord(vsamConfig, readRecord.get());
-                if (oldest == null) {
-                    oldest = current;
-                }
-                long oldestCreated = Long.parseLong(oldest.getKeyValue().getCreated());
-                long currentCreated = Long.parseLong(current.getKeyValue().getCreated());
-
-                if (oldestCreated > currentCreated) {
-                    oldest = current;
-                }
-                overflowProtection--;
-                if (overflowProtection <= 0) {
-                    log.info("Maximum number of records retrieved, stopping the retrieval");
-                    break;
-                }
-            }
-        } catch (ZFileException | VsamRecordException | UnsupportedEncodingException e) {
-            log.info(e.toString());
-        }
-        checkAndRemoveRecord(oldest);
-    }
-
-    private void checkAndRemoveRecord(VsamRecord oldest) {
-        if (oldest != null) {
-            log.info("Removing the oldest record {}", oldest.getKeyValue().getKey());
-            Optional<VsamRecord> returned = file.delete(oldest);
-            if (returned.isPresent()) {
+        Optional<EntryKey> oldest;
+        while ((oldest = index.oldest()).isPresent()) {
+            EntryKey entryKey = oldest.get();
+            index.removed(entryKey.serviceId(), entryKey.key());
+
+            log.info("Removing the oldest record {}", entryKey.key());
+            VsamRecord vsamRec = new VsamRecord(vsamConfig, entryKey.serviceId(), new KeyValue(entryKey.key(), "", entryKey.serviceId()));
+            if (file.delete(vsamRec).isPresent()) {
                 log.info("The oldest record has been successfully removed!");
+                return;
             }
+            // the record does not exist anymore, the next oldest one is removed instead
         }
         log.info("It was not possible to delete the record.");
     }
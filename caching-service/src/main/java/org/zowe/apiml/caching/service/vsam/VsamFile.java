@@ -21,8 +21,10 @@ import org.zowe.apiml.zfile.ZFileException;
 import java.io.Closeable;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -30,6 +32,9 @@ import java.util.regex.Pattern;
  * This class is intended for serialized access to VSAM file.
  * Concurrency is to be handled by retrying.
  * Creates a proxy of com.ibm.jzos.ZFileException and provides high level methods for CRUD operations
+ * <p>
+ * The records are read into a single buffer owned by the instance, so the instance must not be used by more threads
+ * at once.
  */
 
 @Slf4j
@@ -39,6 +44,7 @@ public class VsamFile implements Closeable {
     private final ZFile zfile;
     private final VsamConfig vsamConfig;
     private final ZFileProducer zFileProducer;
+    private final byte[] recordBuffer;
 
     private final ApimlLogger apimlLog;
 
@@ -78,6 +84,7 @@ public class VsamFile implements Closeable {
         }
 
         this.zFileProducer = zFileProducer;
+        this.recordBuffer = new byte[vsamConfig.getRecordLength()];
 
         try {
             this.zfile = openZfile();
@@ -111,18 +118,18 @@ public class VsamFile implements Closeable {
     }
 
     public Optional<VsamRecord> create(VsamRecord vsamRec) {
-        log.info("Attempting to create record: {}", vsamRec);
+        log.debug("Attempting to create record: {}", vsamRec);
 
         return recordOperation(vsamRec, new RecordHandler() {
             @Override
             public Optional<VsamRecord> handleRecordFound() {
-                log.info("The record already exists and will not be created. Use update instead.");
+                log.debug("The record already exists and will not be created. Use update instead.");
                 return Optional.empty();
             }
 
             @Override
             public Optional<VsamRecord> handleNoRecordFound() throws VsamRecordException, ZFileException {
-                log.info("Writing Record: {}", vsamRec);
+                log.debug("Writing Record: {}", vsamRec);
                 zfile.write(vsamRec.getBytes());
                 return Optional.of(vsamRec);
             }
@@ -130,50 +137,47 @@ public class VsamFile implements Closeable {
     }
 
     public Optional<VsamRecord> read(VsamRecord vsamRec) {
-        log.info("Attempting to read record: {}", vsamRec);
+        log.debug("Attempting to read record: {}", vsamRec);
 
         return recordOperation(vsamRec, () -> {
-            byte[] recBuf = readRecord();
-            log.trace("RecBuf: {}", recBuf); //NOSONAR
-            log.info("ConvertedStringValue: {}", new String(recBuf, vsamConfig.getEncoding()));
-            VsamRecord returned = new VsamRecord(vsamConfig, recBuf);
-            log.info("VsamRecord read: {}", returned);
+            VsamRecord returned = new VsamRecord(vsamConfig, readRecord());
+            log.debug("VsamRecord read: {}", returned);
             return Optional.of(returned);
         });
     }
 
     public Optional<VsamRecord> update(VsamRecord vsamRec) {
-        log.info("Attempting to update record: {}", vsamRec);
+        log.debug("Attempting to update record: {}", vsamRec);
 
         return recordOperation(vsamRec, () -> {
-            byte[] recBuf = readRecord();
-            log.trace("Read found record: {}", new String(recBuf, ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE));
-            log.info("Will update record: {}", vsamRec);
+            //has to be read before update
+            readRecord();
             int nUpdated = zfile.update(vsamRec.getBytes());
-            log.info("ZFile.update return value: {}", nUpdated);
+            log.debug("ZFile.update return value: {}", nUpdated);
             return Optional.of(vsamRec);
         });
     }
 
     public Optional<VsamRecord> delete(VsamRecord vsamRec) {
-        log.info("Attempting to delete record: {}", vsamRec);
+        log.debug("Attempting to delete record: {}", vsamRec);
 
         return recordOperation(vsamRec, () -> {
             //has to be read before delete
-            byte[] recBuf = readRecord();
-            VsamRecord returned = new VsamRecord(vsamConfig, recBuf);
+            VsamRecord returned = new VsamRecord(vsamConfig, readRecord());
             zfile.delrec();
-            log.info("Deleted vsam record: {}", returned);
+            log.debug("Deleted vsam record: {}", returned);
             return Optional.of(returned);
         });
     }
 
+    /**
+     * Read the current record into the shared buffer, the content is valid until the next read.
+     */
     private byte[] readRecord() throws ZFileException {
-        byte[] recBuf = new byte[vsamConfig.getRecordLength()];
-        if (vsamConfig.getRecordLength() != zfile.read(recBuf)) {
+        if (vsamConfig.getRecordLength() != zfile.read(recordBuffer)) {
             log.warn("Configured VSAM record length is different that the actual data read from {}", zfile.getActualFilename());
         }
-        return recBuf;
+        return recordBuffer;
     }
 
     private Optional<VsamRecord> recordOperation(VsamRecord vsamRec, RecordHandler recordHandler) {
@@ -204,19 +208,14 @@ public class VsamFile implements Closeable {
     public List<VsamRecord> readForService(String serviceId) {
         List<VsamRecord> returned = new ArrayList<>();
 
-        serviceWideOperation(serviceId, (zfile, vsamRec) -> {
-            log.debug("Retrieve the record");
-            returned.add(vsamRec);
-        });
+        serviceWideOperation(serviceId, (zfile, recordData) -> returned.add(new VsamRecord(vsamConfig, recordData)));
 
         return returned;
     }
 
     public void deleteForService(String serviceId) {
-        serviceWideOperation(serviceId, (zfile, vsamRec) -> {
-            log.debug("Delete the record");
-            zfile.delrec();
-        });
+        // the records are not decoded at all
+        serviceWideOperation(serviceId, (zfile, recordData) -> zfile.delrec());
     }
 
     private void serviceWideOperation(String serviceId, ServiceWideOperation operation) {
@@ -227,51 +226,26 @@ public class VsamFile implements Closeable {
         VsamKey key = new VsamKey(vsamConfig);
 
         try {
-            byte[] recBuf = new byte[vsamConfig.getRecordLength()];
-
-            String keyGe = key.getKeySidOnly(serviceId);
-            log.info("Attempt to find key in KEY_GE mode: {}", keyGe);
+            // the keys are compared in the raw bytes, only the records of the service are decoded
+            byte[] servicePrefix = key.getKeySidOnly(serviceId).trim().getBytes(vsamConfig.getEncoding());
+            byte[] recordPrefix = key.getKeyPrefix(serviceId).getBytes(vsamConfig.getEncoding());
 
             boolean found = zfile.locate(key.getKeyBytesSidOnly(serviceId), ZFileConstants.LOCATE_KEY_GE);
+            log.debug(RECORD_FOUND_MESSAGE, found);
 
-            log.info(RECORD_FOUND_MESSAGE, found);
-
-            int overflowProtection = 10000;
-
-            while (found) {
-                int nread = zfile.read(recBuf);
-                log.trace("RecBuf: {}", recBuf); //NOSONAR
-                log.info("nread: {}", nread);
-
-                String convertedStringValue = new String(recBuf, ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
-
-                VsamRecord vsamRec = new VsamRecord(vsamConfig, recBuf);
-                log.info("Read record: {}", vsamRec);
-
-                if (nread < 0) {
-                    log.info("nread is < 0, stopping the retrieval");
-                    found = false;
-                    continue;    //NOSONAR
-                }
-
-                log.trace("convertedStringValue: >{}<", convertedStringValue);
-                log.trace("keyGe: >{}<", keyGe);
-                if (!convertedStringValue.trim().startsWith(keyGe.trim())) {
-                    log.info("read record does not start with serviceId's keyGe, stopping the retrieval");
-                    found = false;
-                    continue;   //NOSONAR
-                } else {
-                    log.info("read record starts with serviceId's keyGe, retrieving this record");
+            int processed = 0;
+            while (found && (zfile.read(recordBuffer) >= 0)) {
+                if (!startsWith(recordBuffer, servicePrefix)) {
+                    // the records are sorted by the key, there is no other record of the service
+                    break;
                 }
-
-                operation.resolveValidRecord(zfile, vsamRec);
-
-                overflowProtection--;
-                if (overflowProtection <= 0) {
-                    log.info("Maximum number of records retrieved, stopping the retrieval");
-                    break;  //NOSONAR
+                // a service with a longer hash code (e.g. 1234 for 123) is skipped
+                if (startsWith(recordBuffer, recordPrefix)) {
+                    operation.resolveValidRecord(zfile, recordBuffer);
+                    processed++;
                 }
             }
+            log.debug("Processed {} records of the service {}", processed, serviceId);
         } catch (UnsupportedEncodingException e) {
             log.info(UNSUPPORTED_ENCODING_MESSAGE, ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
         } catch (ZFileException e) {
@@ -281,6 +255,10 @@ public class VsamFile implements Closeable {
         }
     }
 
+    private static boolean startsWith(byte[] recordData, byte[] prefix) {
+        return (recordData.length >= prefix.length) && Arrays.equals(recordData, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
     public Optional<byte[]> readBytes(byte[] arrayToStoreIn) throws ZFileException {
         if (getZfile().read(arrayToStoreIn) == -1) {
             return Optional.empty();
@@ -289,29 +267,26 @@ public class VsamFile implements Closeable {
         return Optional.of(arrayToStoreIn);
     }
 
-    public Integer countAllRecords() {
-        int recordsCounter = 0;
-
+    /**
+     * Read all records of the file, the records which cannot be decoded are skipped.
+     */
+    public void forEachRecord(Consumer<VsamRecord> consumer) {
         try {
-            byte[] recBuf = new byte[vsamConfig.getRecordLength()];
-
-            int overflowProtection = 10000;
-            while (zfile.read(recBuf) != -1) {
-
-                log.trace("RecBuf: {}", recBuf); //NOSONAR
-
-                recordsCounter += 1;
-
-                overflowProtection--;
-                if (overflowProtection <= 0) {
-                    log.info("Maximum number of records retrieved, stopping the retrieval");
-                    break;
+            // the handle is reused, the position has to be reset
+            zfile.locate(" ".getBytes(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE), ZFileConstants.LOCATE_KEY_FIRST);
+
+            while (zfile.read(recordBuffer) != -1) {
+                try {
+                    consumer.accept(new VsamRecord(vsamConfig, recordBuffer));
+                } catch (VsamRecordException e) {
+                    log.debug(VSAM_RECORD_ERROR_MESSAGE, e.toString());
                 }
             }
         } catch (ZFileException e) {
             log.info(e.toString());
+        } catch (UnsupportedEncodingException e) {
+            log.info(UNSUPPORTED_ENCODING_MESSAGE, ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
         }
-        return recordsCounter;
     }
 
     @SuppressWarnings({"squid:S1130", "squid:S1192"})
@@ -331,6 +306,6 @@ public class VsamFile implements Closeable {
 
     @FunctionalInterface
     private interface ServiceWideOperation {
-        void resolveValidRecord(ZFile zFile, VsamRecord vsamRec) throws ZFileException;
+        void resolveValidRecord(ZFile zFile, byte[] recordData) throws ZFileException, VsamRecordException;
     }
 }
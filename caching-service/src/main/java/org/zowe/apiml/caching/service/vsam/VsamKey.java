@@ -46,7 +46,14 @@ public class VsamKey {
     }
 
     public String getKey(String serviceId, String key) {
-        return StringUtils.rightPad(serviceId.hashCode() + ":" + key.hashCode(), keyLength);
+        return StringUtils.rightPad(getKeyPrefix(serviceId) + key.hashCode(), keyLength);
+    }
+
+    /**
+     * @return the beginning of the keys of all records of the service
+     */
+    public String getKeyPrefix(String serviceId) {
+        return serviceId.hashCode() + ":";
     }
 
     public String getKey(String serviceId, KeyValue keyValue) {
@@ -39,7 +39,7 @@ public class VsamRecord {
     private VsamKey key;
     private KeyValue keyValue;
 
-    private ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
     private static final String UNSUPPORTED_ENCODING_MESSAGE = "Unsupported encoding: ";
 
@@ -55,8 +55,10 @@ public class VsamRecord {
         this.key = new VsamKey(config);
 
         try {
-            String recordString = new String(recordData, config.getEncoding());
-            this.keyValue = mapper.readValue(recordString.substring(config.getKeyLength()).trim(), KeyValue.class);
+            // only the value after the key is decoded
+            int keyLength = Math.min(config.getKeyLength(), recordData.length);
+            String recordString = new String(recordData, keyLength, recordData.length - keyLength, config.getEncoding());
+            this.keyValue = MAPPER.readValue(recordString.trim(), KeyValue.class);
             this.serviceId = keyValue.getServiceId();
         } catch (UnsupportedEncodingException e) {
             throw new VsamRecordException(UNSUPPORTED_ENCODING_MESSAGE + config.getEncoding(), e);
@@ -68,7 +70,7 @@ public class VsamRecord {
 
     public byte[] getBytes() throws VsamRecordException {
         try {
-            byte[] bytes = StringUtils.rightPad(key.getKey(serviceId, keyValue.getKey()) + mapper.writeValueAsString(keyValue), config.getRecordLength())
+            byte[] bytes = StringUtils.rightPad(key.getKey(serviceId, keyValue.getKey()) + MAPPER.writeValueAsString(keyValue), config.getRecordLength())
                 .getBytes(config.getEncoding());
             if (bytes.length > config.getRecordLength()) {
                 throw new StorageException(Messages.PAYLOAD_TOO_LARGE.getKey(), Messages.PAYLOAD_TOO_LARGE.getStatus(), keyValue.getKey());
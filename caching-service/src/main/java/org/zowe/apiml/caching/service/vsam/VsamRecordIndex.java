@@ -0,0 +1,103 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.vsam.VsamStorage.EntryKey;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Bookkeeping of the records stored in the VSAM file. It counts the records and keeps them sorted by the creation
+ * time, so neither the size of the storage nor the oldest record requires reading the whole file. The index is built
+ * by a single scan when the file is opened, then it is updated by the operations of {@link VsamStorage}.
+ * <p>
+ * The instance is not thread safe, it is used only while the file is locked.
+ */
+@Slf4j
+class VsamRecordIndex {
+
+    private final Map<EntryKey, Node> nodes = new HashMap<>();
+    private final TreeSet<Node> order = new TreeSet<>(
+        Comparator.comparingLong(Node::created)
+            .thenComparing(node -> node.entryKey().serviceId())
+            .thenComparing(node -> node.entryKey().key())
+    );
+
+    /**
+     * Replace the content of the index by all records of the file.
+     */
+    void rebuild(VsamFile file) {
+        nodes.clear();
+        order.clear();
+        file.forEachRecord(vsamRecord -> stored(vsamRecord.getServiceId(), vsamRecord.getKeyValue()));
+        log.debug("Index of the VSAM file built with {} records", size());
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Add a created record, or update the creation time of an existing one.
+     */
+    void stored(String serviceId, KeyValue keyValue) {
+        EntryKey entryKey = new EntryKey(serviceId, keyValue.getKey());
+        Node node = new Node(entryKey, parseCreated(keyValue));
+        Node previous = nodes.put(entryKey, node);
+        if (previous != null) {
+            order.remove(previous);
+        }
+        order.add(node);
+    }
+
+    void removed(String serviceId, String key) {
+        Node previous = nodes.remove(new EntryKey(serviceId, key));
+        if (previous != null) {
+            order.remove(previous);
+        }
+    }
+
+    void removedService(String serviceId) {
+        nodes.values().removeIf(node -> {
+            if (serviceId.equals(node.entryKey().serviceId())) {
+                order.remove(node);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * @return the record with the lowest creation time
+     */
+    Optional<EntryKey> oldest() {
+        return order.isEmpty() ? Optional.empty() : Optional.of(order.first().entryKey());
+    }
+
+    private static long parseCreated(KeyValue keyValue) {
+        try {
+            return Long.parseLong(keyValue.getCreated());
+        } catch (NumberFormatException e) {
+            log.debug("Invalid creation time of record {}: {}", keyValue.getKey(), keyValue.getCreated());
+            return 0;
+        }
+    }
+
+    private record Node(EntryKey entryKey, long created) {
+    }
+
+}
@@ -13,20 +13,32 @@ package org.zowe.apiml.caching.service.vsam;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.retry.annotation.Retryable;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.EvictionStrategy;
+import org.zowe.apiml.caching.service.ExpiryWheel;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
 import org.zowe.apiml.message.log.ApimlLogger;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * Class handles requests from controller and orchestrates operations on the low level VSAM File class
+ * <p>
+ * The VSAM file is opened once and the handle is shared by all operations. The access to the handle is serialized,
+ * because ZFile is not thread safe. If an operation fails, the handle is closed and a new one is opened by the next
+ * (retried) operation.
+ * <p>
+ * The records are counted and sorted by the creation time in {@link VsamRecordIndex}. The index is built by a single
+ * scan each time the file is opened, so the size check and the eviction of the oldest record do not read the file.
  */
 @Slf4j
 public class VsamStorage implements Storage {
@@ -35,6 +47,11 @@ public class VsamStorage implements Storage {
     private EvictionStrategyProducer evictionStrategyProducer;
     private VsamFileProducer producer = new VsamFileProducer();
     private ApimlLogger apimlLog;
+    private ExpiryWheel<EntryKey> expiry;
+
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private VsamFile openFile;
+    private final VsamRecordIndex index = new VsamRecordIndex();
 
     public VsamStorage(VsamConfig vsamConfig, VsamInitializer vsamInitializer, ApimlLogger apimlLog, EvictionStrategyProducer evictionStrategyProducer) {
         log.info("Using VSAM storage for the cached data");
@@ -50,6 +67,7 @@ public class VsamStorage implements Storage {
 
         this.vsamConfig = vsamConfig;
         this.evictionStrategyProducer = evictionStrategyProducer;
+        this.expiry = new ExpiryWheel<>(vsamConfig.getGeneralConfig().getExpiryTickMillis(), this::removeExpired);
 
         log.info("Using Vsam configuration: {}", vsamConfig);
         vsamInitializer.storageWarmup(vsamConfig, apimlLog);
@@ -62,36 +80,33 @@ public class VsamStorage implements Storage {
     }
 
     private EvictionStrategy provideStrategy(VsamFile file) {
-        return evictionStrategyProducer.evictionStrategy(file);
+        return evictionStrategyProducer.evictionStrategy(file, index);
     }
 
     @Override
     @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
     public KeyValue create(String serviceId, KeyValue toCreate) {
         log.info("Writing record: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
-        KeyValue result = null;
-
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
+        KeyValue result = withFile(file -> {
             toCreate.setServiceId(serviceId);
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, toCreate);
-            int currentSize = file.countAllRecords();
-            log.info("Current Size {}.", currentSize);
+            log.debug("Current Size {}.", index.size());
 
-            if (aboveThreshold(currentSize)) {
+            if (aboveThreshold(index.size())) {
                 EvictionStrategy strategy = provideStrategy(file);
                 log.info("Evicting record using the {} strategy", vsamConfig.getGeneralConfig().getEvictionStrategy());
                 strategy.evict(toCreate.getKey());
             }
             Optional<VsamRecord> returned = file.create(vsamRec);
-            if (returned.isPresent()) {
-                result = returned.get().getKeyValue();
-            }
-        }
+            returned.ifPresent(created -> index.stored(serviceId, toCreate));
+            return returned.map(VsamRecord::getKeyValue).orElse(null);
+        });
 
         if (result == null) {
             throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey(), serviceId);
         }
 
+        scheduleExpiry(serviceId, toCreate);
         return result;
     }
 
@@ -105,6 +120,16 @@ public class VsamStorage implements Storage {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
     }
 
+    @Override
+    public Map<String, String> getMapItems(String serviceId, String mapKey, Collection<String> keys) throws StorageException {
+        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    }
+
+    @Override
+    public MapChanges getMapChanges(String serviceId, String mapKey, long sinceVersion) throws StorageException {
+        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    }
+
     @Override
     public Map<String, Map<String, String>> getAllMaps(String serviceId) throws StorageException {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
@@ -118,17 +143,15 @@ public class VsamStorage implements Storage {
     @Retryable(value = {RetryableVsamException.class})
     public KeyValue read(String serviceId, String key) {
         log.info("Reading Record: {}|{}|{}", serviceId, key, "-");
-        KeyValue result = null;
-
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.READ, apimlLog)) {
-
+        KeyValue result = withFile(file -> {
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId));
 
             Optional<VsamRecord> returned = file.read(vsamRec);
-            if (returned.isPresent()) {
-                result = returned.get().getKeyValue();
+            if (returned.isPresent() && !returned.get().getKeyValue().isExpiredAt(System.currentTimeMillis())) {
+                return returned.get().getKeyValue();
             }
-        }
+            return null;
+        });
 
         if (result == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
@@ -137,26 +160,88 @@ public class VsamStorage implements Storage {
         return result;
     }
 
+    @Override
+    @Retryable(value = {RetryableVsamException.class})
+    public Map<String, KeyValue> readBatch(String serviceId, Collection<String> keys) {
+        log.info("Reading {} Records: {}|{}|{}", keys.size(), serviceId, "-", "-");
+        Map<String, KeyValue> result = new HashMap<>();
+
+        // the records are read by the key one by one
+        long now = System.currentTimeMillis();
+        return withFile(file -> {
+            for (String key : keys) {
+                VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId));
+                file.read(vsamRec)
+                    .filter(returned -> !returned.getKeyValue().isExpiredAt(now))
+                    .ifPresent(returned -> result.put(key, returned.getKeyValue()));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
+    public void storeBatch(String serviceId, Collection<KeyValue> toStore) {
+        log.info("Storing {} Records: {}|{}|{}", toStore.size(), serviceId, "-", "-");
+
+        withFile(file -> {
+            for (KeyValue keyValue : toStore) {
+                keyValue.setServiceId(serviceId);
+                VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, keyValue);
+                if (file.update(vsamRec).isPresent()) {
+                    index.stored(serviceId, keyValue);
+                    scheduleExpiry(serviceId, keyValue);
+                    continue;
+                }
+
+                if (aboveThreshold(index.size())) {
+                    log.info("Evicting record using the {} strategy", vsamConfig.getGeneralConfig().getEvictionStrategy());
+                    provideStrategy(file).evict(keyValue.getKey());
+                }
+                if (file.create(vsamRec).isPresent()) {
+                    index.stored(serviceId, keyValue);
+                    scheduleExpiry(serviceId, keyValue);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
+    public Map<String, KeyValue> deleteBatch(String serviceId, Collection<String> toDelete) {
+        log.info("Deleting {} Records: {}|{}|{}", toDelete.size(), serviceId, "-", "-");
+        Map<String, KeyValue> result = new HashMap<>();
+
+        return withFile(file -> {
+            for (String key : toDelete) {
+                VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId));
+                file.delete(vsamRec).ifPresent(returned -> result.put(key, returned.getKeyValue()));
+                index.removed(serviceId, key);
+                expiry.cancel(new EntryKey(serviceId, key));
+            }
+            return result;
+        });
+    }
+
     @Override
     @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
     public KeyValue update(String serviceId, KeyValue toUpdate) {
         log.info("Updating Record: {}|{}|{}", serviceId, toUpdate.getKey(), toUpdate.getValue());
-        KeyValue result = null;
-
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
+        KeyValue result = withFile(file -> {
             toUpdate.setServiceId(serviceId);
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, toUpdate);
 
             Optional<VsamRecord> returned = file.update(vsamRec);
-            if (returned.isPresent()) {
-                result = returned.get().getKeyValue();
-            }
-        }
+            returned.ifPresent(updated -> index.stored(serviceId, toUpdate));
+            return returned.map(VsamRecord::getKeyValue).orElse(null);
+        });
 
         if (result == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
         }
 
+        scheduleExpiry(serviceId, toUpdate);
         return result;
     }
 
@@ -165,22 +250,18 @@ public class VsamStorage implements Storage {
     public KeyValue delete(String serviceId, String toDelete) {
 
         log.info("Deleting Record: {}|{}|{}", serviceId, toDelete, "-");
-        KeyValue result = null;
-
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
-
+        KeyValue result = withFile(file -> {
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(toDelete, "", serviceId));
 
-            Optional<VsamRecord> returned = file.delete(vsamRec);
-            if (returned.isPresent()) {
-                result = returned.get().getKeyValue();
-            }
-        }
+            index.removed(serviceId, toDelete);
+            return file.delete(vsamRec).map(VsamRecord::getKeyValue).orElse(null);
+        });
 
         if (result == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toDelete, serviceId);
         }
 
+        expiry.cancel(new EntryKey(serviceId, toDelete));
         return result;
     }
 
@@ -189,13 +270,12 @@ public class VsamStorage implements Storage {
 
         log.info("Reading All Records: {}|{}|{}", serviceId, "-", "-");
         Map<String, KeyValue> result = new HashMap<>();
-        List<VsamRecord> returned;
-
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.READ, apimlLog)) {
-            returned = file.readForService(serviceId);
-        }
+        List<VsamRecord> returned = withFile(file -> file.readForService(serviceId));
 
-        returned.forEach(vsamRecord -> result.put(vsamRecord.getKeyValue().getKey(), vsamRecord.getKeyValue()));
+        long now = System.currentTimeMillis();
+        returned.stream()
+            .filter(vsamRecord -> !vsamRecord.getKeyValue().isExpiredAt(now))
+            .forEach(vsamRecord -> result.put(vsamRecord.getKeyValue().getKey(), vsamRecord.getKeyValue()));
 
         return result;
     }
@@ -203,9 +283,82 @@ public class VsamStorage implements Storage {
     @Override
     public void deleteForService(String serviceId) {
         log.info("Deleting All Records: {}|{}|{}", serviceId, "-", "-");
+        // the scheduled expirations are not cancelled, the removal of a missing record is skipped
 
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
+        withFile(file -> {
             file.deleteForService(serviceId);
+            index.removedService(serviceId);
+            return null;
+        });
+    }
+
+    private void scheduleExpiry(String serviceId, KeyValue keyValue) {
+        EntryKey entryKey = new EntryKey(serviceId, keyValue.getKey());
+        long expiresAt = keyValue.expiresAt();
+        if (expiresAt == Long.MAX_VALUE) {
+            expiry.cancel(entryKey);
+        } else {
+            expiry.schedule(entryKey, expiresAt);
+        }
+    }
+
+    /**
+     * Remove the records reported by the sweeper. The file is opened once for all of them, and each record is removed
+     * only if it is still expired.
+     */
+    void removeExpired(Collection<EntryKey> entryKeys) {
+        long now = System.currentTimeMillis();
+        withFile(file -> {
+            for (EntryKey entryKey : entryKeys) {
+                VsamRecord vsamRec = new VsamRecord(vsamConfig, entryKey.serviceId(), new KeyValue(entryKey.key(), "", entryKey.serviceId()));
+                Optional<VsamRecord> returned = file.read(vsamRec);
+                if (returned.isPresent() && returned.get().getKeyValue().isExpiredAt(now)) {
+                    log.debug("Expired record: {}|{}", entryKey.serviceId(), entryKey.key());
+                    file.delete(vsamRec);
+                    index.removed(entryKey.serviceId(), entryKey.key());
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Run the operation with the shared handle of the VSAM file, the handle is opened if necessary.
+     */
+    private <T> T withFile(Function<VsamFile, T> operation) {
+        fileLock.lock();
+        try {
+            if (openFile == null) {
+                openFile = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog);
+                index.rebuild(openFile);
+            }
+            return operation.apply(openFile);
+        } catch (StorageException e) {
+            // a business error, the handle is still valid
+            throw e;
+        } catch (RuntimeException e) {
+            // the state of the handle is unknown, the next attempt opens a new one
+            closeFile();
+            throw e;
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    private void closeFile() {
+        if (openFile != null) {
+            openFile.close();
+            openFile = null;
+        }
+    }
+
+    public void close() {
+        expiry.close();
+        fileLock.lock();
+        try {
+            closeFile();
+        } finally {
+            fileLock.unlock();
         }
     }
 
@@ -218,4 +371,8 @@ public class VsamStorage implements Storage {
     public void removeNonRelevantRules(String serviceId, String mapKey) {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
     }
+
+    record EntryKey(String serviceId, String key) {
+    }
+
 }
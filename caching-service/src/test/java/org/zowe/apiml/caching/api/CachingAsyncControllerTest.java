@@ -0,0 +1,174 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.EntityTag;
+import org.zowe.apiml.caching.service.Messages;
+import org.zowe.apiml.caching.service.Storage;
+import org.zowe.apiml.caching.service.StorageException;
+import org.zowe.apiml.message.core.MessageService;
+import org.zowe.apiml.message.yaml.YamlMessageService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CachingAsyncControllerTest {
+    private static final String SERVICE_ID = "test-service";
+    private static final String KEY = "key";
+    private static final String MAP_KEY = "map-key";
+
+    private static final KeyValue KEY_VALUE = new KeyValue(KEY, "value");
+
+    private HttpServletRequest mockRequest;
+    private Storage mockStorage;
+    private final MessageService messageService = new YamlMessageService("/caching-log-messages.yml");
+    private CachingAsyncController underTest;
+
+    @BeforeEach
+    void setUp() {
+        mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(SERVICE_ID);
+        mockStorage = mock(Storage.class);
+        underTest = new CachingAsyncController(mockStorage, messageService);
+    }
+
+    @Nested
+    class WhenStorageCompletes {
+        @Test
+        void givenExistingKey_thenReturnValue() {
+            when(mockStorage.readAsync(SERVICE_ID, KEY)).thenReturn(CompletableFuture.completedFuture(KEY_VALUE));
+
+            ResponseEntity<Object> response = underTest.getValue(KEY, mockRequest).join();
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(KEY_VALUE));
+            assertThat(response.getHeaders().getETag(), is("\"" + EntityTag.of(KEY_VALUE) + "\""));
+        }
+
+        @Test
+        void givenMatchingTag_thenUpdateConditionallyWithNewTag() {
+            String tag = EntityTag.of(KEY_VALUE);
+            when(mockStorage.updateAsync(SERVICE_ID, KEY_VALUE, tag)).thenReturn(CompletableFuture.completedFuture(KEY_VALUE));
+
+            ResponseEntity<Object> response = underTest.update(KEY_VALUE, "\"" + tag + "\"", mockRequest).join();
+            assertThat(response.getStatusCode(), is(HttpStatus.NO_CONTENT));
+            assertThat(response.getHeaders().getETag(), is("\"" + tag + "\""));
+        }
+
+        @Test
+        void givenValidPayload_thenCreateWithoutBody() {
+            when(mockStorage.createAsync(SERVICE_ID, KEY_VALUE)).thenReturn(CompletableFuture.completedFuture(KEY_VALUE));
+
+            ResponseEntity<Object> response = underTest.createKey(KEY_VALUE, mockRequest).join();
+            assertThat(response.getStatusCode(), is(HttpStatus.CREATED));
+            assertThat(response.getBody(), is(nullValue()));
+        }
+
+        @Test
+        void givenMaps_thenReturnThem() {
+            Map<String, Map<String, String>> maps = Collections.singletonMap(MAP_KEY, Collections.singletonMap(KEY, "value"));
+            when(mockStorage.getAllMapsAsync(SERVICE_ID)).thenReturn(CompletableFuture.completedFuture(maps));
+
+            ResponseEntity<Object> response = underTest.getAllMaps(mockRequest).join();
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(maps));
+        }
+    }
+
+    @Nested
+    class WhenStorageFails {
+        @Test
+        void givenStorageException_thenReturnItsStatus() {
+            when(mockStorage.readAsync(SERVICE_ID, KEY)).thenReturn(CompletableFuture.failedFuture(
+                new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), KEY, SERVICE_ID)));
+
+            ResponseEntity<Object> response = underTest.getValue(KEY, mockRequest).join();
+            assertThat(response.getStatusCode(), is(HttpStatus.NOT_FOUND));
+            assertThat(response.getHeaders().getETag(), is(nullValue()));
+        }
+
+        @Test
+        void givenChangedValue_thenReturnPreconditionFailed() {
+            when(mockStorage.updateAsync(SERVICE_ID, KEY_VALUE, "tag")).thenReturn(CompletableFuture.failedFuture(
+                new StorageException(Messages.VALUE_CHANGED.getKey(), Messages.VALUE_CHANGED.getStatus(), KEY, SERVICE_ID)));
+
+            ResponseEntity<Object> response = underTest.update(KEY_VALUE, "W/\"tag\"", mockRequest).join();
+            assertThat(response.getStatusCode(), is(HttpStatus.PRECONDITION_FAILED));
+        }
+
+        @Test
+        void givenUnexpectedException_thenReturnInternalError() {
+            when(mockStorage.deleteAsync(SERVICE_ID, KEY)).thenReturn(CompletableFuture.failedFuture(new RuntimeException("error")));
+
+            ResponseEntity<Object> response = underTest.delete(KEY, mockRequest).join();
+            assertThat(response.getStatusCode(), is(HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+
+        @Test
+        void givenInvalidPayload_thenReturnBadRequest() {
+            KeyValue keyValue = new KeyValue(KEY, null);
+            ResponseEntity<Object> response = underTest.update(keyValue, null, mockRequest).join();
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+            // the same message as of the blocking endpoint
+            assertThat(response.getBody(), is(messageService.createMessage("org.zowe.apiml.cache.invalidPayload",
+                keyValue, "No value provided in the payload").mapToView()));
+            verify(mockStorage, never()).updateAsync(any(), any(), any());
+        }
+
+        @Test
+        void givenNoCertificateInformation_thenReturnUnauthorized() {
+            when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(null);
+
+            ResponseEntity<Object> response = underTest.storeMapItem(MAP_KEY, KEY_VALUE, mockRequest).join();
+            assertThat(response.getStatusCode(), is(HttpStatus.UNAUTHORIZED));
+        }
+    }
+
+    @Nested
+    class WhenStorageIsSlow {
+        @Test
+        void givenMoreRequestsThanThreads_thenNoneBlocksTheCaller() {
+            // more pending requests than the default number of Tomcat threads (200), all accepted by a single thread
+            int requests = 1000;
+            List<CompletableFuture<KeyValue>> pending = new ArrayList<>();
+            when(mockStorage.readAsync(SERVICE_ID, KEY)).thenAnswer(invocation -> {
+                CompletableFuture<KeyValue> future = new CompletableFuture<>();
+                pending.add(future);
+                return future;
+            });
+
+            List<CompletableFuture<ResponseEntity<Object>>> responses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                responses.add(underTest.getValue(KEY, mockRequest));
+            }
+            assertThat(responses.stream().noneMatch(CompletableFuture::isDone), is(true));
+
+            pending.forEach(future -> future.complete(KEY_VALUE));
+            responses.forEach(response -> assertThat(response.join().getStatusCode(), is(HttpStatus.OK)));
+        }
+    }
+
+}
@@ -19,6 +19,8 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
+import org.zowe.apiml.caching.service.EntityTag;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
@@ -114,6 +116,14 @@ class CachingControllerTest {
             assertThat(body.getValue(), is(VALUE));
         }
 
+        @Test
+        void givenStorageReturnsValidValue_thenReturnEntityTag() {
+            when(mockStorage.read(SERVICE_ID, KEY)).thenReturn(KEY_VALUE);
+
+            ResponseEntity<?> response = underTest.getValue(KEY, mockRequest);
+            assertThat(response.getHeaders().getETag(), is("\"" + EntityTag.of(KEY_VALUE) + "\""));
+        }
+
 
         @Test
         void givenNoKey_thenResponseBadRequest() {
@@ -180,7 +190,7 @@ class CachingControllerTest {
         void givenStorageWithKey_thenResponseNoContent() {
             when(mockStorage.update(SERVICE_ID, KEY_VALUE)).thenReturn(KEY_VALUE);
 
-            ResponseEntity<?> response = underTest.update(KEY_VALUE, mockRequest);
+            ResponseEntity<?> response = underTest.update(KEY_VALUE, null, mockRequest);
             assertThat(response.getStatusCode(), is(HttpStatus.NO_CONTENT));
             assertThat(response.getBody(), is(nullValue()));
         }
@@ -190,10 +200,39 @@ class CachingControllerTest {
             when(mockStorage.update(SERVICE_ID, KEY_VALUE)).thenThrow(new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), KEY, SERVICE_ID));
             ApiMessageView expectedBody = messageService.createMessage("org.zowe.apiml.cache.keyNotInCache", KEY, SERVICE_ID).mapToView();
 
-            ResponseEntity<?> response = underTest.update(KEY_VALUE, mockRequest);
+            ResponseEntity<?> response = underTest.update(KEY_VALUE, null, mockRequest);
             assertThat(response.getStatusCode(), is(HttpStatus.NOT_FOUND));
             assertThat(response.getBody(), is(expectedBody));
         }
+
+        @Test
+        void givenMatchingTag_thenResponseNoContentWithNewTag() {
+            String tag = EntityTag.of(KEY_VALUE);
+            when(mockStorage.update(SERVICE_ID, KEY_VALUE, tag)).thenReturn(KEY_VALUE);
+
+            ResponseEntity<?> response = underTest.update(KEY_VALUE, "\"" + tag + "\"", mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.NO_CONTENT));
+            assertThat(response.getHeaders().getETag(), is("\"" + tag + "\""));
+        }
+
+        @Test
+        void givenChangedValue_thenResponsePreconditionFailed() {
+            when(mockStorage.update(SERVICE_ID, KEY_VALUE, "tag")).thenThrow(new StorageException(Messages.VALUE_CHANGED.getKey(), Messages.VALUE_CHANGED.getStatus(), KEY, SERVICE_ID));
+            ApiMessageView expectedBody = messageService.createMessage("org.zowe.apiml.cache.valueChanged", KEY, SERVICE_ID).mapToView();
+
+            ResponseEntity<?> response = underTest.update(KEY_VALUE, "W/\"tag\"", mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.PRECONDITION_FAILED));
+            assertThat(response.getBody(), is(expectedBody));
+        }
+
+        @Test
+        void givenAnyTag_thenUpdateUnconditionally() {
+            when(mockStorage.update(SERVICE_ID, KEY_VALUE)).thenReturn(KEY_VALUE);
+
+            ResponseEntity<?> response = underTest.update(KEY_VALUE, "*", mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.NO_CONTENT));
+            verify(mockStorage, never()).update(any(), any(), any());
+        }
     }
 
     @Nested
@@ -395,6 +434,137 @@ class CachingControllerTest {
         }
     }
 
+    @Nested
+    class WhenProcessingBatch {
+        @Test
+        void givenKeys_thenReturnFoundValues() {
+            Map<String, KeyValue> expected = Collections.singletonMap(KEY, KEY_VALUE);
+            when(mockStorage.readBatch(SERVICE_ID, Arrays.asList(KEY, "unknown"))).thenReturn(expected);
+
+            ResponseEntity<?> response = underTest.getValues(Arrays.asList(KEY, "unknown"), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(expected));
+        }
+
+        @Test
+        void givenValidValues_thenStoreThem() {
+            List<KeyValue> keyValues = Arrays.asList(KEY_VALUE, new KeyValue("key2", VALUE));
+
+            ResponseEntity<?> response = underTest.storeValues(keyValues, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.NO_CONTENT));
+            verify(mockStorage).storeBatch(SERVICE_ID, keyValues);
+        }
+
+        @Test
+        void givenInvalidValue_thenResponseBadRequest() {
+            List<KeyValue> keyValues = Arrays.asList(KEY_VALUE, new KeyValue(null, VALUE));
+
+            ResponseEntity<?> response = underTest.storeValues(keyValues, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+            verify(mockStorage, never()).storeBatch(any(), any());
+        }
+
+        @Test
+        void givenNoValues_thenResponseBadRequest() {
+            ResponseEntity<?> response = underTest.storeValues(null, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        }
+
+        @Test
+        void givenKeys_thenReturnDeletedValues() {
+            Map<String, KeyValue> expected = Collections.singletonMap(KEY, KEY_VALUE);
+            when(mockStorage.deleteBatch(SERVICE_ID, Collections.singletonList(KEY))).thenReturn(expected);
+
+            ResponseEntity<?> response = underTest.deleteValues(Collections.singletonList(KEY), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(expected));
+        }
+
+        @Test
+        void givenNoCertificateInformation_thenReturnUnauthorized() {
+            when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(null);
+
+            ResponseEntity<?> response = underTest.getValues(Collections.singletonList(KEY), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.UNAUTHORIZED));
+        }
+
+        @Test
+        void givenErrorInStorage_thenResponseInternalError() {
+            when(mockStorage.readBatch(any(), any())).thenThrow(new RuntimeException("error"));
+
+            ResponseEntity<?> response = underTest.getValues(Collections.singletonList(KEY), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    @Nested
+    class WhenLookupInvalidatedTokens {
+        @Test
+        void givenCorrectRequest_thenReturnFoundItems() throws StorageException {
+            Map<String, String> expectedMap = Collections.singletonMap(KEY, VALUE);
+            when(mockStorage.getMapItems(SERVICE_ID, MAP_KEY, Arrays.asList(KEY, "unknown"))).thenReturn(expectedMap);
+
+            ResponseEntity<?> response = underTest.lookupMapItems(MAP_KEY, Arrays.asList(KEY, "unknown"), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(expectedMap));
+        }
+
+        @Test
+        void givenNoKeys_thenLookupEmptyList() throws StorageException {
+            when(mockStorage.getMapItems(SERVICE_ID, MAP_KEY, Collections.emptyList())).thenReturn(Collections.emptyMap());
+
+            ResponseEntity<?> response = underTest.lookupMapItems(MAP_KEY, null, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(Collections.emptyMap()));
+        }
+
+        @Test
+        void givenNoCertificateInformation_thenReturnUnauthorized() {
+            when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(null);
+
+            ResponseEntity<?> response = underTest.lookupMapItems(MAP_KEY, Collections.singletonList(KEY), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.UNAUTHORIZED));
+        }
+
+        @Test
+        void givenIncompatibleStorage_thenResponseBadRequest() throws StorageException {
+            when(mockStorage.getMapItems(any(), any(), any())).thenThrow(
+                new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus()));
+
+            ResponseEntity<?> response = underTest.lookupMapItems(MAP_KEY, Collections.singletonList(KEY), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        }
+    }
+
+    @Nested
+    class WhenRetrieveChangesOfInvalidatedTokens {
+        @Test
+        void givenCorrectRequest_thenReturnChanges() throws StorageException {
+            MapChanges changes = new MapChanges(11, false, Collections.singletonMap(KEY, VALUE));
+            when(mockStorage.getMapChanges(SERVICE_ID, MAP_KEY, 10)).thenReturn(changes);
+
+            ResponseEntity<?> response = underTest.getMapChanges(MAP_KEY, 10, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(changes));
+        }
+
+        @Test
+        void givenNoCertificateInformation_thenReturnUnauthorized() {
+            when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(null);
+
+            ResponseEntity<?> response = underTest.getMapChanges(MAP_KEY, 0, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.UNAUTHORIZED));
+        }
+
+        @Test
+        void givenErrorReadingStorage_thenResponseBadRequest() throws StorageException {
+            when(mockStorage.getMapChanges(any(), any(), anyLong())).thenThrow(new RuntimeException("error"));
+
+            ResponseEntity<?> response = underTest.getMapChanges(MAP_KEY, 0, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        }
+    }
+
     @Nested
     class WhenEvictRecord {
         @Test
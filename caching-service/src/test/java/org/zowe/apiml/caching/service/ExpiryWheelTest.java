@@ -0,0 +1,117 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiryWheelTest {
+
+    private static final long TICK = 100;
+    private static final int SLOTS = 8;
+
+    private AtomicLong time;
+    private List<String> expired;
+    private ExpiryWheel<String> underTest;
+
+    @BeforeEach
+    void setUp() {
+        time = new AtomicLong(10_000);
+        expired = new ArrayList<>();
+        underTest = new ExpiryWheel<>(TICK, SLOTS, this::onExpired, time::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+    }
+
+    private synchronized void onExpired(Collection<String> keys) {
+        expired.addAll(keys);
+    }
+
+    @Nested
+    class GivenScheduledEntries {
+
+        @Test
+        void whenDeadlinePasses_thenEntryIsExpired() {
+            underTest.schedule("a", 10_250);
+            underTest.schedule("b", 10_550);
+
+            time.set(10_300);
+            assertEquals(List.of("a"), underTest.advance());
+            time.set(10_600);
+            assertEquals(List.of("b"), underTest.advance());
+            assertEquals(0, underTest.size());
+        }
+
+        @Test
+        void whenDeadlineIsInLaterRound_thenEntryIsKept() {
+            // the same slot, but one round of the wheel later
+            underTest.schedule("a", 10_000 + TICK * SLOTS + 50);
+
+            time.set(10_100);
+            assertTrue(underTest.advance().isEmpty());
+            time.set(10_000 + TICK * SLOTS + 100);
+            assertEquals(List.of("a"), underTest.advance());
+        }
+
+        @Test
+        void whenDeadlineAlreadyPassed_thenEntryIsExpiredInNextTick() {
+            underTest.advance();
+            underTest.schedule("a", 5_000);
+
+            time.set(10_100);
+            assertEquals(List.of("a"), underTest.advance());
+        }
+
+        @Test
+        void whenEntryIsCancelled_thenItIsNotExpired() {
+            underTest.schedule("a", 10_250);
+            underTest.cancel("a");
+
+            time.set(10_300);
+            assertTrue(underTest.advance().isEmpty());
+        }
+
+        @Test
+        void whenEntryIsRescheduled_thenOnlyNewDeadlineIsUsed() {
+            underTest.schedule("a", 10_250);
+            underTest.schedule("a", 10_450);
+
+            time.set(10_300);
+            assertTrue(underTest.advance().isEmpty());
+            time.set(10_500);
+            assertEquals(List.of("a"), underTest.advance());
+        }
+
+        @Test
+        void whenTicking_thenExpiredKeysArePassedToConsumer() {
+            underTest.schedule("a", 10_050);
+
+            time.set(10_100);
+            underTest.tick();
+            assertEquals(List.of("a"), expired);
+        }
+
+    }
+
+}
@@ -0,0 +1,384 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.file;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zowe.apiml.caching.config.GeneralConfig;
+import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
+import org.zowe.apiml.caching.service.Messages;
+import org.zowe.apiml.caching.service.StorageException;
+import org.zowe.apiml.caching.service.Strategies;
+import org.zowe.apiml.caching.service.file.config.FileConfig;
+import org.zowe.apiml.caching.service.inmemory.config.InMemoryConfig;
+import org.zowe.apiml.message.log.ApimlLogger;
+import org.zowe.apiml.models.AccessTokenContainer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStorageTest {
+
+    private static final String SERVICE_ID = "acme";
+    private static final String MAP_KEY = "invalidTokens";
+
+    @TempDir
+    Path directory;
+
+    private Path path;
+    private FileConfig fileConfig;
+    private InMemoryConfig inMemoryConfig;
+    private FileStorage underTest;
+
+    @BeforeEach
+    void setUp() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setEvictionStrategy(Strategies.REJECT.getKey());
+        generalConfig.setMaxDataSize(1000);
+        inMemoryConfig = new InMemoryConfig(generalConfig);
+
+        path = directory.resolve("data").resolve("caching-service.log");
+        fileConfig = new FileConfig(generalConfig);
+        fileConfig.setPath(path.toString());
+        fileConfig.setSync(true);
+        fileConfig.setCompactionMinRecords(10_000);
+
+        underTest = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+    }
+
+    private FileStorage open() {
+        return new FileStorage(fileConfig, inMemoryConfig, ApimlLogger.empty());
+    }
+
+    private void reopen() {
+        underTest.close();
+        underTest = open();
+    }
+
+    @Nested
+    class WhenStorageIsReopened {
+
+        @Test
+        void givenChangedRecords_thenTheLastStateIsLoaded() {
+            underTest.create(SERVICE_ID, new KeyValue("created", "value"));
+            underTest.create(SERVICE_ID, new KeyValue("updated", "value"));
+            underTest.update(SERVICE_ID, new KeyValue("updated", "new value"));
+            underTest.create(SERVICE_ID, new KeyValue("deleted", "value"));
+            underTest.delete(SERVICE_ID, "deleted");
+
+            reopen();
+
+            assertThat(underTest.read(SERVICE_ID, "created").getValue(), is("value"));
+            assertThat(underTest.read(SERVICE_ID, "updated").getValue(), is("new value"));
+            assertThat(underTest.read(SERVICE_ID, "updated").getServiceId(), is(SERVICE_ID));
+            assertThrows(StorageException.class, () -> underTest.read(SERVICE_ID, "deleted"));
+        }
+
+        @Test
+        void givenBatchesAndDeletedService_thenTheLastStateIsLoaded() {
+            underTest.storeBatch(SERVICE_ID, List.of(new KeyValue("key-1", "value-1"), new KeyValue("key-2", "value-2")));
+            underTest.deleteBatch(SERVICE_ID, List.of("key-1", "unknown"));
+            underTest.storeBatch("other", List.of(new KeyValue("key-1", "value-1")));
+            underTest.deleteForService("other");
+
+            reopen();
+
+            assertEquals(Map.of("key-2", "value-2"), values(underTest.readForService(SERVICE_ID)));
+            assertNull(underTest.readForService("other"));
+        }
+
+        @Test
+        void givenExpiredRecord_thenItIsNotLoaded() {
+            KeyValue expired = new KeyValue("expired", "value", String.valueOf(System.currentTimeMillis() - 10_000));
+            expired.setTtl(1L);
+            underTest.create(SERVICE_ID, expired);
+            KeyValue valid = new KeyValue("valid", "value");
+            valid.setTtl(60L);
+            underTest.create(SERVICE_ID, valid);
+
+            reopen();
+
+            assertThrows(StorageException.class, () -> underTest.read(SERVICE_ID, "expired"));
+            assertThat(underTest.read(SERVICE_ID, "valid").getTtl(), is(60L));
+        }
+
+        @Test
+        void givenMapItems_thenTheyAreLoadedAndClientsGetTheWholeMap() {
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("key-1", "value-1"));
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("key-2", "value-2"));
+            long version = underTest.getMapChanges(SERVICE_ID, MAP_KEY, 0).getVersion();
+
+            reopen();
+
+            assertEquals(Map.of("key-1", "value-1", "key-2", "value-2"), underTest.getAllMapItems(SERVICE_ID, MAP_KEY));
+            assertEquals(Map.of(MAP_KEY, Map.of("key-1", "value-1", "key-2", "value-2")), underTest.getAllMaps(SERVICE_ID));
+            MapChanges changes = underTest.getMapChanges(SERVICE_ID, MAP_KEY, version);
+            assertTrue(changes.isFull());
+            assertEquals(2, changes.getItems().size());
+        }
+
+    }
+
+    @Nested
+    class WhenLogIsDamaged {
+
+        @Test
+        void givenTornRecordAtTheEnd_thenPreviousRecordsAreLoadedAndNewOnesAppended() throws IOException {
+            underTest.create(SERVICE_ID, new KeyValue("first", "value"));
+            underTest.create(SERVICE_ID, new KeyValue("torn", "value"));
+            underTest.close();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 3);
+            }
+
+            underTest = open();
+            assertThat(underTest.read(SERVICE_ID, "first").getValue(), is("value"));
+            assertThrows(StorageException.class, () -> underTest.read(SERVICE_ID, "torn"));
+            underTest.create(SERVICE_ID, new KeyValue("next", "value"));
+
+            reopen();
+            assertThat(underTest.read(SERVICE_ID, "first").getValue(), is("value"));
+            assertThat(underTest.read(SERVICE_ID, "next").getValue(), is("value"));
+        }
+
+        @Test
+        void givenCorruptedRecord_thenRecordsFromItAreDropped() throws IOException {
+            underTest.create(SERVICE_ID, new KeyValue("first", "value"));
+            underTest.close();
+            long validSize = Files.size(path);
+            underTest = open();
+            underTest.create(SERVICE_ID, new KeyValue("corrupted", "value"));
+            underTest.close();
+
+            byte[] data = Files.readAllBytes(path);
+            data[data.length - 1] ^= 0x01;
+            Files.write(path, data);
+
+            underTest = open();
+            assertThat(underTest.read(SERVICE_ID, "first").getValue(), is("value"));
+            assertThrows(StorageException.class, () -> underTest.read(SERVICE_ID, "corrupted"));
+            assertEquals(validSize, Files.size(path));
+        }
+
+    }
+
+    @Nested
+    class WhenLogHasOutdatedRecords {
+
+        @Test
+        void givenEnoughRecords_thenTheLogIsCompacted() throws IOException {
+            fileConfig.setCompactionMinRecords(10);
+            reopen();
+
+            underTest.create(SERVICE_ID, new KeyValue("key", "value-0"));
+            long recordSize = Files.size(path);
+            for (int i = 1; i <= 100; i++) {
+                underTest.update(SERVICE_ID, new KeyValue("key", "value-" + i));
+            }
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("item", "value"));
+
+            assertThat(Files.size(path), lessThan(recordSize * 20));
+
+            reopen();
+            assertThat(underTest.read(SERVICE_ID, "key").getValue(), is("value-100"));
+            assertEquals(Map.of("item", "value"), underTest.getAllMapItems(SERVICE_ID, MAP_KEY));
+        }
+
+        @Test
+        void givenFewRecords_thenTheLogIsNotCompacted() throws IOException {
+            underTest.create(SERVICE_ID, new KeyValue("key", "value-0"));
+            long firstSize = Files.size(path);
+            for (int i = 1; i <= 100; i++) {
+                underTest.update(SERVICE_ID, new KeyValue("key", "value-" + i));
+            }
+
+            assertThat(firstSize * 100, lessThan(Files.size(path)));
+        }
+
+    }
+
+    @Nested
+    class WhenMapIsChanged {
+
+        @Test
+        void givenKnownVersion_thenReturnOnlyNewItems() {
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("key-1", "value-1"));
+            long version = underTest.getMapChanges(SERVICE_ID, MAP_KEY, 0).getVersion();
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("key-2", "value-2"));
+
+            MapChanges changes = underTest.getMapChanges(SERVICE_ID, MAP_KEY, version);
+            assertFalse(changes.isFull());
+            assertEquals(Map.of("key-2", "value-2"), changes.getItems());
+            assertEquals(Map.of("key-1", "value-1"), underTest.getMapItems(SERVICE_ID, MAP_KEY, List.of("key-1", "unknown")));
+        }
+
+        @Test
+        void givenOldRules_thenTheyAreRemovedPersistently() {
+            long now = System.currentTimeMillis();
+            String old = String.valueOf(now - TimeUnit.DAYS.toMillis(91));
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("old", old));
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("recent", String.valueOf(now)));
+            long version = underTest.getMapChanges(SERVICE_ID, MAP_KEY, 0).getVersion();
+
+            underTest.removeNonRelevantRules(SERVICE_ID, MAP_KEY);
+
+            assertTrue(underTest.getMapChanges(SERVICE_ID, MAP_KEY, version).isFull());
+            reopen();
+            assertEquals(Map.of("recent", String.valueOf(now)), underTest.getAllMapItems(SERVICE_ID, MAP_KEY));
+        }
+
+        @Test
+        void givenExpiredTokens_thenTheyAreRemovedPersistently() throws IOException {
+            ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+            AccessTokenContainer expired = new AccessTokenContainer();
+            expired.setExpiresAt(LocalDateTime.now().minusHours(1));
+            AccessTokenContainer valid = new AccessTokenContainer();
+            valid.setExpiresAt(LocalDateTime.now().plusHours(1));
+            String validJson = mapper.writeValueAsString(valid);
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("expired", mapper.writeValueAsString(expired)));
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("valid", validJson));
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("invalid", "not a json"));
+
+            underTest.removeNonRelevantTokens(SERVICE_ID, MAP_KEY);
+
+            reopen();
+            assertEquals(Map.of("valid", validJson, "invalid", "not a json"), underTest.getAllMapItems(SERVICE_ID, MAP_KEY));
+        }
+
+        @Test
+        void givenUnknownMap_thenNoItemsAreReturned() {
+            assertNull(underTest.getAllMapItems(SERVICE_ID, MAP_KEY));
+            assertTrue(underTest.getAllMaps(SERVICE_ID).isEmpty());
+            assertTrue(underTest.getMapChanges(SERVICE_ID, MAP_KEY, 0).getItems().isEmpty());
+        }
+
+    }
+
+    @Nested
+    class WhenRecordIsInvalid {
+
+        @Test
+        void givenDuplicateKey_thenNothingIsLogged() throws IOException {
+            underTest.create(SERVICE_ID, new KeyValue("key", "value"));
+            long size = Files.size(path);
+
+            StorageException exception = assertThrows(StorageException.class, () -> underTest.create(SERVICE_ID, new KeyValue("key", "other")));
+            assertEquals(Messages.DUPLICATE_KEY.getKey(), exception.getKey());
+            assertEquals(size, Files.size(path));
+        }
+
+        @Test
+        void givenTooLargeValue_thenPayloadIsRejected() {
+            KeyValue tooLarge = new KeyValue("key", "x".repeat(StorageLog.MAX_RECORD_SIZE / 4));
+
+            StorageException exception = assertThrows(StorageException.class, () -> underTest.create(SERVICE_ID, tooLarge));
+            assertEquals(Messages.PAYLOAD_TOO_LARGE.getKey(), exception.getKey());
+        }
+
+        @Test
+        void givenUnknownKey_thenNothingIsLogged() throws IOException {
+            long size = Files.size(path);
+
+            StorageException exception = assertThrows(StorageException.class, () -> underTest.update(SERVICE_ID, new KeyValue("key", "value")));
+            assertEquals(Messages.KEY_NOT_IN_CACHE.getKey(), exception.getKey());
+            assertThrows(StorageException.class, () -> underTest.delete(SERVICE_ID, "key"));
+            assertEquals(size, Files.size(path));
+        }
+
+        @Test
+        void givenRecordRejectedByEviction_thenItIsNotLoadedAfterRestart() {
+            inMemoryConfig.getGeneralConfig().setMaxDataSize(1);
+            reopen();
+            underTest.create(SERVICE_ID, new KeyValue("key", "value"));
+
+            StorageException exception = assertThrows(StorageException.class, () -> underTest.create(SERVICE_ID, new KeyValue("rejected", "value")));
+            assertEquals(Messages.INSUFFICIENT_STORAGE.getKey(), exception.getKey());
+
+            inMemoryConfig.getGeneralConfig().setMaxDataSize(1000);
+            reopen();
+            assertEquals(Map.of("key", "value"), values(underTest.readForService(SERVICE_ID)));
+        }
+
+        @Test
+        void givenRecordRemovedByEviction_thenItIsNotLoadedAfterRestart() {
+            inMemoryConfig.getGeneralConfig().setEvictionStrategy(Strategies.REMOVE_OLDEST.getKey());
+            inMemoryConfig.getGeneralConfig().setMaxDataSize(1);
+            reopen();
+            underTest.create(SERVICE_ID, new KeyValue("evicted", "value", "1"));
+            underTest.create(SERVICE_ID, new KeyValue("key", "value", "2"));
+            assertEquals(Map.of("key", "value"), values(underTest.readForService(SERVICE_ID)));
+
+            inMemoryConfig.getGeneralConfig().setMaxDataSize(1000);
+            reopen();
+            assertEquals(Map.of("key", "value"), values(underTest.readForService(SERVICE_ID)));
+        }
+
+    }
+
+    @Nested
+    class WhenLogCannotBeWritten {
+
+        @Test
+        void givenChange_thenItIsNotAppliedInMemory() {
+            underTest.create(SERVICE_ID, new KeyValue("key", "value"));
+            // the log is closed, so each append fails
+            underTest.close();
+
+            KeyValue created = new KeyValue("created", "value");
+            assertThrows(UncheckedIOException.class, () -> underTest.create(SERVICE_ID, created));
+            KeyValue updated = new KeyValue("key", "updated");
+            assertThrows(UncheckedIOException.class, () -> underTest.update(SERVICE_ID, updated));
+            assertThrows(UncheckedIOException.class, () -> underTest.delete(SERVICE_ID, "key"));
+            KeyValue item = new KeyValue("item", "value");
+            assertThrows(UncheckedIOException.class, () -> underTest.storeMapItem(SERVICE_ID, MAP_KEY, item));
+
+            assertEquals(Map.of("key", "value"), values(underTest.readForService(SERVICE_ID)));
+            assertNull(underTest.getAllMapItems(SERVICE_ID, MAP_KEY));
+        }
+
+    }
+
+    private static Map<String, String> values(Map<String, KeyValue> entries) {
+        Map<String, String> values = new HashMap<>();
+        entries.forEach((key, keyValue) -> values.put(key, keyValue.getValue()));
+        return values;
+    }
+
+}
@@ -13,19 +13,29 @@ package org.zowe.apiml.caching.service.infinispan.storage;
 import org.infinispan.AdvancedCache;
 import org.infinispan.Cache;
 import org.infinispan.lock.api.ClusteredLock;
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryExpiredEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
+import org.zowe.apiml.caching.model.MapVersion;
+import org.zowe.apiml.caching.service.EntityTag;
+import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.StorageException;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -36,6 +46,7 @@ class InfinispanStorageTest {
     public static final KeyValue TO_UPDATE = new KeyValue("key1", "val2");
     Cache<String, KeyValue> cache;
     AdvancedCache<String, Map<String,String>> tokenCache;
+    ConcurrentMap<String, MapVersion> versionCache;
     InfinispanStorage storage;
     String serviceId1 = "service1";
 
@@ -46,7 +57,8 @@ class InfinispanStorageTest {
     void setup() {
         cache = mock(Cache.class);
         tokenCache = mock(AdvancedCache.class);
-        storage = new InfinispanStorage(cache, tokenCache, lock);
+        versionCache = new ConcurrentHashMap<>();
+        storage = new InfinispanStorage(cache, tokenCache, versionCache, lock);
         lock = mock(ClusteredLock.class);
     }
 
@@ -124,7 +136,7 @@ class InfinispanStorageTest {
         @Test
         void itemIsDeleted() {
             ConcurrentMap<String, KeyValue> cache = new ConcurrentHashMap<>();
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
+            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, versionCache, lock);
             assertNull(storage.create(serviceId1, TO_CREATE));
             assertEquals(TO_CREATE, storage.delete(serviceId1, TO_CREATE.getKey()));
         }
@@ -132,7 +144,7 @@ class InfinispanStorageTest {
         @Test
         void returnAll() {
             ConcurrentMap<String, KeyValue> cache = new ConcurrentHashMap<>();
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
+            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, versionCache, lock);
             storage.create(serviceId1, new KeyValue("key", "value"));
             storage.create(serviceId1, new KeyValue("key2", "value2"));
             assertEquals(2, storage.readForService(serviceId1).size());
@@ -141,7 +153,7 @@ class InfinispanStorageTest {
         @Test
         void removeAll() {
             ConcurrentMap<String, KeyValue> cache = new ConcurrentHashMap<>();
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
+            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, versionCache, lock);
             storage.create(serviceId1, new KeyValue("key", "value"));
             storage.create(serviceId1, new KeyValue("key2", "value2"));
             assertEquals(2, storage.readForService(serviceId1).size());
@@ -151,6 +163,110 @@ class InfinispanStorageTest {
 
     }
 
+    @Nested
+    class WhenProcessingBatch {
+        InfinispanStorage underTest;
+
+        @BeforeEach
+        void createStorage() {
+            underTest = new InfinispanStorage(new ConcurrentHashMap<>(), tokenCache, versionCache, lock);
+        }
+
+        @Test
+        void givenStoredEntries_thenReadOnlyExisting() {
+            underTest.storeBatch(serviceId1, List.of(new KeyValue("key1", "value1"), new KeyValue("key2", "value2")));
+            underTest.storeBatch(serviceId2, List.of(new KeyValue("key3", "value3")));
+
+            Map<String, KeyValue> result = underTest.readBatch(serviceId1, List.of("key1", "key3"));
+            assertEquals(Set.of("key1"), result.keySet());
+            assertEquals("value1", result.get("key1").getValue());
+        }
+
+        @Test
+        void givenExistingEntry_thenItIsReplaced() {
+            underTest.create(serviceId1, new KeyValue("key1", "value1"));
+            underTest.storeBatch(serviceId1, List.of(new KeyValue("key1", "updated")));
+
+            assertEquals("updated", underTest.read(serviceId1, "key1").getValue());
+        }
+
+        @Test
+        void givenStoredEntries_thenDeleteOnlyExisting() {
+            underTest.storeBatch(serviceId1, List.of(new KeyValue("key1", "value1"), new KeyValue("key2", "value2")));
+
+            Map<String, KeyValue> result = underTest.deleteBatch(serviceId1, List.of("key1", "key3"));
+            assertEquals(Set.of("key1"), result.keySet());
+            assertEquals(Set.of("key2"), underTest.readForService(serviceId1).keySet());
+        }
+    }
+
+    @Nested
+    class WhenEntryHasTimeToLive {
+        KeyValue keyValue;
+
+        @BeforeEach
+        void createEntry() {
+            keyValue = new KeyValue("key2", "val1");
+            keyValue.setTtl(60L);
+        }
+
+        @Test
+        void whenCreate_thenLifespanIsSet() {
+            storage.create(serviceId1, keyValue);
+            verify(cache).putIfAbsent(eq(serviceId1 + "key2"), eq(keyValue), longThat(lifespan -> lifespan > 0 && lifespan <= 60_000), eq(TimeUnit.MILLISECONDS));
+            verify(cache, never()).putIfAbsent(any(), any());
+        }
+
+        @Test
+        void whenUpdate_thenLifespanIsSet() {
+            when(cache.put(eq(serviceId1 + "key2"), eq(keyValue), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(TO_CREATE);
+            storage.update(serviceId1, keyValue);
+            verify(cache, never()).put(any(), any());
+        }
+
+        @Test
+        void whenStoreBatch_thenOnlyExpiringEntriesHaveLifespan() {
+            storage.storeBatch(serviceId1, List.of(keyValue, TO_UPDATE));
+            verify(cache).put(eq(serviceId1 + "key2"), eq(keyValue), anyLong(), eq(TimeUnit.MILLISECONDS));
+            verify(cache).putAll(Map.of(serviceId1 + TO_UPDATE.getKey(), TO_UPDATE));
+        }
+    }
+
+    @Nested
+    class WhenUpdatingConditionally {
+        InfinispanStorage underTest;
+
+        @BeforeEach
+        void createStorage() {
+            underTest = new InfinispanStorage(new ConcurrentHashMap<>(), tokenCache, versionCache, lock);
+        }
+
+        @Test
+        void givenMatchingTag_thenValueIsReplaced() {
+            KeyValue stored = underTest.create(serviceId1, new KeyValue("key1", "value1"));
+            underTest.update(serviceId1, new KeyValue("key1", "updated"), EntityTag.of(stored));
+
+            assertEquals("updated", underTest.read(serviceId1, "key1").getValue());
+        }
+
+        @Test
+        void givenChangedValue_thenExceptionIsThrown() {
+            KeyValue stored = underTest.create(serviceId1, new KeyValue("key1", "value1"));
+            String tag = EntityTag.of(stored);
+            underTest.update(serviceId1, new KeyValue("key1", "value2"));
+
+            StorageException e = assertThrows(StorageException.class, () -> underTest.update(serviceId1, new KeyValue("key1", "value3"), tag));
+            assertEquals(Messages.VALUE_CHANGED.getKey(), e.getKey());
+            assertEquals("value2", underTest.read(serviceId1, "key1").getValue());
+        }
+
+        @Test
+        void givenMissingKey_thenExceptionIsThrown() {
+            StorageException e = assertThrows(StorageException.class, () -> underTest.update(serviceId1, new KeyValue("key1", "value1"), "tag"));
+            assertEquals(Messages.KEY_NOT_IN_CACHE.getKey(), e.getKey());
+        }
+    }
+
     @Nested
     class WhenStoreToken {
         KeyValue keyValue;
@@ -173,7 +289,7 @@ class InfinispanStorageTest {
         void addToken() {
             HashMap<String, String> hashMap = new HashMap<>();
             hashMap.put("key", "token");
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
+            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, versionCache, lock);
             when(tokenCache.get(anyString())).thenAnswer(invocation -> hashMap);
             assertNull(storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("newkey", "newvalue")));
             verify(tokenCache, times(1)).put(serviceId1 + "invalidTokens", hashMap);
@@ -183,7 +299,7 @@ class InfinispanStorageTest {
         void updateToken() {
             HashMap<String, String> hashMap = new HashMap();
             hashMap.put("key", "token");
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
+            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, versionCache, lock);
             when(tokenCache.get(serviceId1 + "invalidTokens")).thenReturn(hashMap);
             KeyValue keyValue = new KeyValue("key", "token2");
             assertNull(storage.storeMapItem(serviceId1, "invalidTokens", keyValue));
@@ -223,7 +339,7 @@ class InfinispanStorageTest {
             tokenCache.put(serviceId1 + "invalidTokens", tokensService1);
             tokenCache.put(serviceId1 + "invalidTokenRules", rulesService1);
             tokenCache.put(serviceId2 + "invalidTokens", tokensService2);
-            underTest = new InfinispanStorage(cache, tokenCache, lock);
+            underTest = new InfinispanStorage(cache, tokenCache, versionCache, lock);
         }
 
 
@@ -275,7 +391,7 @@ class InfinispanStorageTest {
             tokenCache.put(serviceId1 + "invalidTokens", tokensService);
             tokenCache.put(serviceId1 + "invalidScopes", rulesService);
             tokenCache.put(serviceId1 + "invalidUsers", rulesUsers);
-            underTest = new InfinispanStorage(cache, tokenCache, lock);
+            underTest = new InfinispanStorage(cache, tokenCache, versionCache, lock);
         }
         @Test
         void thenEvictItems() {
@@ -293,4 +409,207 @@ class InfinispanStorageTest {
 
     }
 
+    @Nested
+    class WhenLookupMapItems {
+
+        InfinispanStorage underTest;
+
+        @BeforeEach
+        void createStorage() {
+            ConcurrentMap<String, Map<String, String>> tokenCache = new ConcurrentHashMap<>();
+            tokenCache.put(serviceId1 + "invalidTokens", new HashMap<>(Map.of("key1", "token1", "key2", "token2")));
+            underTest = new InfinispanStorage(cache, tokenCache, versionCache, lock);
+        }
+
+        @Test
+        void thenReturnOnlyExistingItems() {
+            Map<String, String> result = underTest.getMapItems(serviceId1, "invalidTokens", List.of("key1", "key3"));
+            assertEquals(Map.of("key1", "token1"), result);
+        }
+
+        @Test
+        void givenUnknownMap_thenReturnEmpty() {
+            assertTrue(underTest.getMapItems(serviceId2, "invalidTokens", List.of("key1")).isEmpty());
+        }
+
+    }
+
+    @Nested
+    class WhenReadingMapChanges {
+
+        InfinispanStorage underTest;
+
+        @BeforeEach
+        void createStorage() {
+            CompletableFuture<Boolean> cmpl = new CompletableFuture<>();
+            cmpl.complete(true);
+            when(lock.tryLock(4, TimeUnit.SECONDS)).thenReturn(cmpl);
+            underTest = new InfinispanStorage(cache, new ConcurrentHashMap<>(), versionCache, lock);
+        }
+
+        @Test
+        void givenUnknownVersion_thenReturnWholeMap() {
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("key1", "1"));
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("key2", "2"));
+
+            MapChanges changes = underTest.getMapChanges(serviceId1, "invalidUsers", 0);
+            assertTrue(changes.isFull());
+            assertEquals(Map.of("key1", "1", "key2", "2"), changes.getItems());
+        }
+
+        @Test
+        void givenKnownVersion_thenReturnOnlyNewItems() {
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("key1", "1"));
+            long version = underTest.getMapChanges(serviceId1, "invalidUsers", 0).getVersion();
+
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("key2", "2"));
+            MapChanges changes = underTest.getMapChanges(serviceId1, "invalidUsers", version);
+            assertFalse(changes.isFull());
+            assertEquals(Map.of("key2", "2"), changes.getItems());
+            assertTrue(changes.getVersion() > version);
+
+            MapChanges noChanges = underTest.getMapChanges(serviceId1, "invalidUsers", changes.getVersion());
+            assertFalse(noChanges.isFull());
+            assertTrue(noChanges.getItems().isEmpty());
+        }
+
+        @Test
+        void givenItemsWereRemoved_thenReturnWholeMap() {
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("key1", "1595282400000"));
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("key2", String.valueOf(System.currentTimeMillis())));
+            long version = underTest.getMapChanges(serviceId1, "invalidUsers", 0).getVersion();
+
+            underTest.removeNonRelevantRules(serviceId1, "invalidUsers");
+            MapChanges changes = underTest.getMapChanges(serviceId1, "invalidUsers", version);
+            assertTrue(changes.isFull());
+            assertEquals(Set.of("key2"), changes.getItems().keySet());
+        }
+
+        @Test
+        void givenMapWithoutVersion_thenReturnWholeMap() {
+            ConcurrentMap<String, Map<String, String>> tokenCache = new ConcurrentHashMap<>();
+            tokenCache.put(serviceId1 + "invalidUsers", new HashMap<>(Map.of("key1", "1")));
+            underTest = new InfinispanStorage(cache, tokenCache, versionCache, lock);
+
+            MapChanges changes = underTest.getMapChanges(serviceId1, "invalidUsers", 0);
+            assertTrue(changes.isFull());
+            assertEquals(Map.of("key1", "1"), changes.getItems());
+        }
+
+    }
+
+    @Nested
+    class WhenAccessingAllEntriesOfService {
+        private static final int SERVICES = 50;
+        private static final int ENTRIES = 1_000;
+
+        ConcurrentMap<String, KeyValue> entries;
+        InfinispanStorage underTest;
+
+        @BeforeEach
+        void createStorage() {
+            // the whole cache must not be iterated
+            entries = new ConcurrentHashMap<>() {
+                @Override
+                public void forEach(BiConsumer<? super String, ? super KeyValue> action) {
+                    throw new UnsupportedOperationException("Full scan of the cache");
+                }
+            };
+            underTest = new InfinispanStorage(entries, tokenCache, versionCache, lock);
+            for (int service = 0; service < SERVICES; service++) {
+                List<KeyValue> batch = new ArrayList<>();
+                for (int entry = 0; entry < ENTRIES; entry++) {
+                    batch.add(new KeyValue("key" + entry, "value" + entry));
+                }
+                underTest.storeBatch("service" + service, batch);
+            }
+        }
+
+        @Test
+        void thenOnlyEntriesOfServiceAreRead() {
+            Map<String, KeyValue> result = underTest.readForService("service7");
+            assertEquals(ENTRIES, result.size());
+            assertTrue(result.values().stream().allMatch(keyValue -> "service7".equals(keyValue.getServiceId())));
+        }
+
+        @Test
+        void thenOnlyEntriesOfServiceAreDeleted() {
+            underTest.deleteForService("service7");
+
+            assertTrue(underTest.readForService("service7").isEmpty());
+            assertEquals(ENTRIES, underTest.readForService("service8").size());
+            assertEquals((SERVICES - 1) * ENTRIES, entries.size());
+        }
+
+        @Test
+        void givenSimilarServiceId_thenEntriesOfOtherServiceAreNotRead() {
+            // the cache key "service1" + "1key0" is the same as "service11" + "key0"
+            underTest.storeBatch("service1", List.of(new KeyValue("1key0", "other")));
+
+            Map<String, KeyValue> result = underTest.readForService("service11");
+            assertEquals(ENTRIES - 1, result.size());
+            assertTrue(result.values().stream().allMatch(keyValue -> "service11".equals(keyValue.getServiceId())));
+        }
+
+        @Test
+        void givenDeletedEntries_thenTheyAreNotRead() {
+            underTest.delete("service3", "key0");
+            underTest.deleteBatch("service3", List.of("key1", "key2"));
+
+            assertEquals(ENTRIES - 3, underTest.readForService("service3").size());
+        }
+
+    }
+
+    @Nested
+    class WhenCacheNotifiesChanges {
+        ServiceKeyIndex index;
+        ServiceKeyIndex.CacheListener listener;
+
+        @BeforeEach
+        void createListener() {
+            index = new ServiceKeyIndex();
+            listener = new ServiceKeyIndex.CacheListener(index);
+        }
+
+        private KeyValue entry(String key, String value) {
+            KeyValue keyValue = new KeyValue(key, value);
+            keyValue.setServiceId(serviceId1);
+            return keyValue;
+        }
+
+        @Test
+        void thenListenerIsRegistered() {
+            verify(cache).addListener(any(ServiceKeyIndex.CacheListener.class));
+        }
+
+        @Test
+        void givenCreatedEntry_thenItIsIndexed() {
+            KeyValue keyValue = entry("key1", "value1");
+            CacheEntryCreatedEvent<String, KeyValue> event = mock(CacheEntryCreatedEvent.class);
+            when(event.getValue()).thenReturn(keyValue);
+
+            listener.created(event);
+            assertEquals(Set.of("key1"), index.keys(serviceId1));
+        }
+
+        @Test
+        void givenRemovedOrExpiredEntry_thenItIsNotIndexed() {
+            KeyValue keyValue1 = entry("key1", "value1");
+            KeyValue keyValue2 = entry("key2", "value2");
+            index.added(keyValue1);
+            index.added(keyValue2);
+
+            CacheEntryRemovedEvent<String, KeyValue> removed = mock(CacheEntryRemovedEvent.class);
+            when(removed.getOldValue()).thenReturn(keyValue1);
+            CacheEntryExpiredEvent<String, KeyValue> expired = mock(CacheEntryExpiredEvent.class);
+            when(expired.getValue()).thenReturn(keyValue2);
+
+            listener.removed(removed);
+            listener.expired(expired);
+            assertTrue(index.keys(serviceId1).isEmpty());
+        }
+
+    }
+
 }
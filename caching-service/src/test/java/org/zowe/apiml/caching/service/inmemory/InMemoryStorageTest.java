@@ -10,19 +10,35 @@
 
 package org.zowe.apiml.caching.service.inmemory;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.caching.config.GeneralConfig;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.EntityTag;
+import org.zowe.apiml.caching.service.ExpiryWheel;
 import org.zowe.apiml.caching.service.StorageException;
+import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Strategies;
 import org.zowe.apiml.caching.service.inmemory.config.InMemoryConfig;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.message.log.ApimlLogger;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -109,6 +125,58 @@ class InMemoryStorageTest {
     }
 
 
+    @Nested
+    class WhenStorageIsFull {
+
+        private InMemoryStorage storageWithStrategy(Strategies strategy, int maxDataSize) {
+            GeneralConfig generalConfig = new GeneralConfig();
+            generalConfig.setEvictionStrategy(strategy.getKey());
+            generalConfig.setMaxDataSize(maxDataSize);
+            return new InMemoryStorage(new InMemoryConfig(generalConfig), testingStorage, ApimlLogger.empty());
+        }
+
+        @Test
+        void givenStrategyIsLeastRecentlyUsed_thenTheLeastRecentlyReadIsEvicted() {
+            underTest = storageWithStrategy(Strategies.LEAST_RECENTLY_USED, 2);
+            underTest.create(serviceId, new KeyValue("first", "value"));
+            underTest.create("anotherService", new KeyValue("second", "value"));
+            underTest.read(serviceId, "first");
+
+            underTest.create(serviceId, new KeyValue("third", "value"));
+
+            assertThat(underTest.read(serviceId, "first").getKey(), is("first"));
+            assertThat(underTest.read(serviceId, "third").getKey(), is("third"));
+            assertThrows(StorageException.class, () -> underTest.read("anotherService", "second"));
+        }
+
+        @Test
+        void givenValueIsDeleted_thenThereIsSpaceForNewValue() {
+            underTest = storageWithStrategy(Strategies.REJECT, 2);
+            underTest.create(serviceId, new KeyValue("first", "value"));
+            underTest.create(serviceId, new KeyValue("second", "value"));
+            underTest.delete(serviceId, "first");
+
+            underTest.create(serviceId, new KeyValue("third", "value"));
+
+            KeyValue fourth = new KeyValue("fourth", "value");
+            assertThrows(StorageException.class, () -> underTest.create(serviceId, fourth));
+        }
+
+        @Test
+        void givenServiceIsDeleted_thenThereIsSpaceForNewValues() {
+            underTest = storageWithStrategy(Strategies.REJECT, 2);
+            underTest.create("anotherService", new KeyValue("first", "value"));
+            underTest.create("anotherService", new KeyValue("second", "value"));
+            underTest.deleteForService("anotherService");
+
+            underTest.create(serviceId, new KeyValue("third", "value"));
+            underTest.create(serviceId, new KeyValue("fourth", "value"));
+
+            assertThat(testingStorage.get(serviceId).size(), is(2));
+        }
+
+    }
+
     @Nested
     class WhenValueIsUpdated {
         @Test
@@ -139,6 +207,91 @@ class InMemoryStorageTest {
                 underTest.update(serviceId, keyValue);
             });
         }
+
+        @Test
+        void givenMatchingTag_thenItIsReplaced() {
+            KeyValue original = underTest.create(serviceId, new KeyValue("username", "Name 1"));
+            underTest.update(serviceId, new KeyValue("username", "ValidName"), EntityTag.of(original));
+
+            assertThat(underTest.read(serviceId, "username").getValue(), is("ValidName"));
+        }
+
+        @Test
+        void givenValueWasChanged_thenItIsNotReplaced() {
+            KeyValue original = underTest.create(serviceId, new KeyValue("username", "Name 1"));
+            underTest.update(serviceId, new KeyValue("username", "Name 2"));
+
+            KeyValue keyValue = new KeyValue("username", "ValidName");
+            String tag = EntityTag.of(original);
+            StorageException e = assertThrows(StorageException.class, () -> underTest.update(serviceId, keyValue, tag));
+            assertThat(e.getKey(), is(Messages.VALUE_CHANGED.getKey()));
+            assertThat(underTest.read(serviceId, "username").getValue(), is("Name 2"));
+        }
+    }
+
+    @Nested
+    class WhenValueExpires {
+
+        @AfterEach
+        void tearDown() {
+            underTest.close();
+        }
+
+        private KeyValue expired(String key) {
+            KeyValue keyValue = new KeyValue(key, "value", String.valueOf(System.currentTimeMillis() - 120_000));
+            keyValue.setTtl(60L);
+            return keyValue;
+        }
+
+        @Test
+        void givenExpiredValue_thenItIsNotReturned() {
+            underTest.create(serviceId, expired("username"));
+
+            assertThrows(StorageException.class, () -> underTest.read(serviceId, "username"));
+            assertThat(underTest.readBatch(serviceId, List.of("username")).isEmpty(), is(true));
+            assertThat(underTest.readForService(serviceId).isEmpty(), is(true));
+        }
+
+        @Test
+        void givenExpiredValue_thenSweeperRemovesOnlyIt() {
+            underTest.create(serviceId, expired("username"));
+            KeyValue valid = new KeyValue("other", "value");
+            valid.setTtl(60L);
+            underTest.create(serviceId, valid);
+
+            underTest.sweep();
+            assertThat(testingStorage.get(serviceId).keySet(), is(Set.of("other")));
+            assertThat(((InMemoryIndex) Objects.requireNonNull(ReflectionTestUtils.getField(underTest, "index"))).size(), is(1));
+        }
+
+        @Test
+        void givenExpiredValueWasNotSwept_thenItCanBeCreatedAgain() {
+            underTest.create(serviceId, expired("username"));
+            underTest.create(serviceId, new KeyValue("username", "new"));
+
+            assertThat(underTest.read(serviceId, "username").getValue(), is("new"));
+        }
+
+        @Test
+        void givenExpiredValueWasNotSwept_thenItCannotBeUpdated() {
+            underTest.create(serviceId, expired("username"));
+            KeyValue toUpdate = new KeyValue("username", "new");
+
+            StorageException exception = assertThrows(StorageException.class, () -> underTest.update(serviceId, toUpdate));
+            assertThat(exception.getKey(), is(Messages.KEY_NOT_IN_CACHE.getKey()));
+            assertThrows(StorageException.class, () -> underTest.read(serviceId, "username"));
+        }
+
+        @Test
+        void givenValueIsUpdatedWithoutTimeToLive_thenItDoesNotExpire() {
+            KeyValue keyValue = new KeyValue("username", "value");
+            keyValue.setTtl(60L);
+            underTest.create(serviceId, keyValue);
+            underTest.update(serviceId, new KeyValue("username", "updated"));
+
+            assertThat(underTest.read(serviceId, "username").getValue(), is("updated"));
+            assertThat(((ExpiryWheel<?>) Objects.requireNonNull(ReflectionTestUtils.getField(underTest, "expiry"))).size(), is(0));
+        }
     }
 
     @Nested
@@ -217,6 +370,43 @@ class InMemoryStorageTest {
         }
     }
 
+    @Nested
+    class WhenProcessingBatch {
+        @Test
+        void givenExistingAndMissingKeys_thenOnlyExistingAreRead() {
+            underTest.create(serviceId, new KeyValue("key1", "value1"));
+
+            Map<String, KeyValue> result = underTest.readBatch(serviceId, List.of("key1", "key2"));
+            assertThat(result.size(), is(1));
+            assertThat(result.get("key1").getValue(), is("value1"));
+        }
+
+        @Test
+        void givenExistingAndNewKeys_thenAllAreStored() {
+            underTest.create(serviceId, new KeyValue("key1", "value1"));
+
+            underTest.storeBatch(serviceId, List.of(new KeyValue("key1", "updated"), new KeyValue("key2", "value2")));
+            assertThat(testingStorage.get(serviceId).get("key1").getValue(), is("updated"));
+            assertThat(testingStorage.get(serviceId).get("key2").getValue(), is("value2"));
+        }
+
+        @Test
+        void givenExistingAndMissingKeys_thenOnlyExistingAreDeleted() {
+            underTest.create(serviceId, new KeyValue("key1", "value1"));
+            underTest.create(serviceId, new KeyValue("key2", "value2"));
+
+            Map<String, KeyValue> result = underTest.deleteBatch(serviceId, List.of("key1", "key3"));
+            assertThat(result.keySet(), is(Set.of("key1")));
+            assertThat(testingStorage.get(serviceId).keySet(), is(Set.of("key2")));
+        }
+
+        @Test
+        void givenUnknownService_thenNothingIsReturned() {
+            assertThat(underTest.readBatch("unknown", List.of("key1")).isEmpty(), is(true));
+            assertThat(underTest.deleteBatch("unknown", List.of("key1")).isEmpty(), is(true));
+        }
+    }
+
     @Nested
     class WhenTryingToStoreToken {
         @Test
@@ -248,6 +438,26 @@ class InMemoryStorageTest {
         }
     }
 
+    @Nested
+    class WhenTryingToLookupMapItems {
+        @Test
+        void thenThrowException() {
+            assertThrows(StorageException.class, () -> {
+                underTest.getMapItems(serviceId, "key", List.of("item"));
+            });
+        }
+    }
+
+    @Nested
+    class WhenTryingToGetMapChanges {
+        @Test
+        void thenThrowException() {
+            assertThrows(StorageException.class, () -> {
+                underTest.getMapChanges(serviceId, "key", 0);
+            });
+        }
+    }
+
     @Nested
     class WhenTryingToDeleteTokens {
         @Test
@@ -267,4 +477,106 @@ class InMemoryStorageTest {
             });
         }
     }
+
+    @Nested
+    class WhenAccessedConcurrently {
+
+        private static final int THREADS = 8;
+        private static final int KEYS = 500;
+
+        private ExecutorService executor;
+
+        @BeforeEach
+        void setUp() {
+            executor = Executors.newFixedThreadPool(THREADS);
+        }
+
+        @AfterEach
+        void tearDown() {
+            executor.shutdownNow();
+        }
+
+        private InMemoryStorage createStorage(Strategies strategy, int maxDataSize) {
+            GeneralConfig generalConfig = new GeneralConfig();
+            generalConfig.setEvictionStrategy(strategy.getKey());
+            generalConfig.setMaxDataSize(maxDataSize);
+            return new InMemoryStorage(new InMemoryConfig(generalConfig), new ConcurrentHashMap<>(), ApimlLogger.empty());
+        }
+
+        private void runConcurrently(Runnable task) throws Exception {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        private int size(InMemoryStorage storage) {
+            return ((InMemoryIndex) ReflectionTestUtils.getField(storage, "index")).size();
+        }
+
+        @Test
+        void givenSameKeys_whenCreated_thenEachKeyIsCreatedOnce() throws Exception {
+            InMemoryStorage storage = createStorage(Strategies.REJECT, KEYS * THREADS);
+            AtomicInteger created = new AtomicInteger();
+            AtomicInteger duplicates = new AtomicInteger();
+
+            runConcurrently(() -> {
+                for (int i = 0; i < KEYS; i++) {
+                    try {
+                        storage.create(serviceId, new KeyValue("key" + i, Thread.currentThread().getName()));
+                        created.incrementAndGet();
+                    } catch (StorageException e) {
+                        assertThat(e.getKey(), is(Messages.DUPLICATE_KEY.getKey()));
+                        duplicates.incrementAndGet();
+                    }
+                }
+            });
+
+            assertThat(created.get(), is(KEYS));
+            assertThat(duplicates.get(), is(KEYS * (THREADS - 1)));
+            assertThat(storage.readForService(serviceId).size(), is(KEYS));
+            assertThat(size(storage), is(KEYS));
+        }
+
+        @Test
+        void givenMixedOperationsAndEviction_whenFinished_thenSizeMatchesStoredRecords() throws Exception {
+            InMemoryStorage storage = createStorage(Strategies.LEAST_RECENTLY_USED, KEYS);
+            Set<String> services = ConcurrentHashMap.newKeySet();
+
+            runConcurrently(() -> {
+                String service = Thread.currentThread().getName();
+                services.add(service);
+                for (int i = 0; i < KEYS; i++) {
+                    storage.create(service, new KeyValue("key" + i, "value"));
+                    try {
+                        storage.update(service, new KeyValue("key" + i, "updated"));
+                        if (i % 3 == 0) {
+                            storage.delete(service, "key" + i);
+                        }
+                    } catch (StorageException e) {
+                        // the record was evicted by another thread meanwhile
+                        assertThat(e.getKey(), is(Messages.KEY_NOT_IN_CACHE.getKey()));
+                    }
+                }
+            });
+
+            int stored = services.stream()
+                .map(storage::readForService)
+                .filter(Objects::nonNull)
+                .mapToInt(Map::size)
+                .sum();
+            assertThat(size(storage), is(stored));
+        }
+
+    }
+
 }
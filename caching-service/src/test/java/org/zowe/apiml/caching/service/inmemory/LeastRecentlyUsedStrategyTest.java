@@ -0,0 +1,74 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class LeastRecentlyUsedStrategyTest {
+    private LeastRecentlyUsedStrategy underTest;
+    private InMemoryIndex index;
+    private Map<String, KeyValue> dataForStorage;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Map<String, KeyValue>> storage = new ConcurrentHashMap<>();
+        dataForStorage = new ConcurrentHashMap<>();
+        storage.put("test-service", dataForStorage);
+        index = new InMemoryIndex(InMemoryIndex.Ordering.ACCESS);
+
+        KeyValue keyValue1 = new KeyValue("key1", "older", "1610965944035");
+        KeyValue keyValue2 = new KeyValue("key2", "newer", "1610965944036");
+        dataForStorage.put("key1", keyValue1);
+        index.added("test-service", keyValue1);
+        dataForStorage.put("key2", keyValue2);
+        index.added("test-service", keyValue2);
+
+        underTest = new LeastRecentlyUsedStrategy(storage, index);
+    }
+
+    @Test
+    void givenNoAccess_thenFirstStoredIsRemoved() {
+        underTest.evict("key3");
+
+        assertThat(dataForStorage.containsKey("key1"), is(false));
+        assertThat(dataForStorage.containsKey("key2"), is(true));
+        assertThat(index.size(), is(1));
+    }
+
+    @Test
+    void givenOlderEntryWasRead_thenLeastRecentlyUsedIsRemoved() {
+        index.accessed("test-service", "key1");
+
+        underTest.evict("key3");
+
+        assertThat(dataForStorage.containsKey("key1"), is(true));
+        assertThat(dataForStorage.containsKey("key2"), is(false));
+    }
+
+    @Test
+    void givenEntryWasRemovedFromIndex_thenItIsNotEvicted() {
+        dataForStorage.remove("key1");
+        index.removed("test-service", "key1");
+
+        underTest.evict("key3");
+
+        assertThat(dataForStorage.isEmpty(), is(true));
+        assertThat(index.size(), is(0));
+    }
+}
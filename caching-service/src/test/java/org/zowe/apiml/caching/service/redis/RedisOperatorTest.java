@@ -13,6 +13,7 @@ package org.zowe.apiml.caching.service.redis;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,9 +27,11 @@ import org.zowe.apiml.caching.service.redis.exceptions.RedisEntryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisOutOfMemoryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RetryableRedisException;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -36,6 +39,7 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -124,86 +128,117 @@ class RedisOperatorTest {
     }
 
     @Nested
-    class whenUpdating {
+    class whenCreatingWithTimeToLive {
 
         @Mock
-        private RedisFuture<Boolean> setFuture;
+        private RedisFuture<Long> evalFuture;
+
+        private final KeyValue keyValue = new KeyValue(KEY, VALUE);
+
+        @BeforeEach
+        void mockRedisCommand() {
+            keyValue.setTtl(60L);
+            when(redisCommands.eval(eq(RedisOperator.CREATE_SCRIPT), eq(ScriptOutputType.INTEGER), any(String[].class), any(String[].class))).thenReturn(evalFuture);
+        }
+
+        @Test
+        void givenNewEntry_thenEntryAndExpirationAreSetByScript() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            when(evalFuture.get()).thenReturn(1L);
+
+            assertTrue(underTest.create(new RedisEntry(SERVICE_ID, keyValue)));
+            verify(redisCommands).eval(eq(RedisOperator.CREATE_SCRIPT), eq(ScriptOutputType.INTEGER), eq(new String[] {SERVICE_ID}),
+                eq(KEY), anyString(), argThat((String ms) -> Long.parseLong(ms) > 0 && Long.parseLong(ms) <= 60_000));
+            verify(redisCommands, never()).hsetnx(any(), any(), any());
+        }
+
+        @Test
+        void givenExistingEntry_thenReturnFalse() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            when(evalFuture.get()).thenReturn(0L);
+
+            assertFalse(underTest.create(new RedisEntry(SERVICE_ID, keyValue)));
+        }
+    }
+
+    @Nested
+    class whenUpdating {
 
         @Mock
-        private RedisFuture<Boolean> existsFuture;
+        private RedisFuture<Long> evalFuture;
+
+        private void mockScript() {
+            when(redisCommands.eval(eq(RedisOperator.UPDATE_SCRIPT), eq(ScriptOutputType.INTEGER), any(String[].class), any(String[].class))).thenReturn(evalFuture);
+        }
 
         @Test
         void givenExistingEntry_thenUpdateEntry() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
-            when(redisCommands.hset(any(), any(), any())).thenReturn(setFuture);
-            when(setFuture.get()).thenReturn(false);
-
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(true);
+            mockScript();
+            when(evalFuture.get()).thenReturn(1L);
 
             boolean result = underTest.update(REDIS_ENTRY);
             assertTrue(result);
+            verify(redisCommands).eval(RedisOperator.UPDATE_SCRIPT, ScriptOutputType.INTEGER, new String[] {SERVICE_ID}, KEY, VALID_SERIALIZED_ENTRY, "", "");
         }
 
         @Test
-        void givenExistingEntryAndFailureUpdating_thenDontUpdateEntry() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
-            when(redisCommands.hset(any(), any(), any())).thenReturn(setFuture);
-            when(setFuture.get()).thenReturn(true);
-
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(true);
+        void givenNotExistingEntry_thenDontUpdateEntry() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            mockScript();
+            when(evalFuture.get()).thenReturn(0L);
 
             boolean result = underTest.update(REDIS_ENTRY);
             assertFalse(result);
         }
 
         @Test
-        void givenNotExistingEntry_thenDontUpdateEntry() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(false);
+        void givenMatchingTag_thenTagIsVerifiedByScript() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            mockScript();
+            when(evalFuture.get()).thenReturn(1L);
 
-            boolean result = underTest.update(REDIS_ENTRY);
-            assertFalse(result);
+            assertEquals(RedisOperator.UpdateResult.UPDATED, underTest.update(REDIS_ENTRY, "tag"));
+            verify(redisCommands).eval(RedisOperator.UPDATE_SCRIPT, ScriptOutputType.INTEGER, new String[] {SERVICE_ID}, KEY, VALID_SERIALIZED_ENTRY, "tag", "");
         }
 
         @Test
-        void givenRedisOutOfMemory_thenThrowOutOfMemoryException() throws ExecutionException, InterruptedException {
-            when(redisCommands.hset(any(), any(), any())).thenReturn(setFuture);
-            when(setFuture.get()).thenThrow(new ExecutionException(new RedisCommandExecutionException("maxmemory")));
+        void givenChangedValue_thenReturnValueChanged() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            mockScript();
+            when(evalFuture.get()).thenReturn(-1L);
+
+            assertEquals(RedisOperator.UpdateResult.VALUE_CHANGED, underTest.update(REDIS_ENTRY, "tag"));
+        }
 
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(true);
+        @Test
+        void givenRedisOutOfMemory_thenThrowOutOfMemoryException() throws ExecutionException, InterruptedException {
+            mockScript();
+            when(evalFuture.get()).thenThrow(new ExecutionException(new RedisCommandExecutionException("maxmemory")));
 
             assertThrows(RedisOutOfMemoryException.class, () -> underTest.update(REDIS_ENTRY));
         }
 
         @Test
         void givenInterruptedException_thenThrowRetryException() throws ExecutionException, InterruptedException {
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenThrow(new InterruptedException());
+            mockScript();
+            when(evalFuture.get()).thenThrow(new InterruptedException());
 
             assertThrows(RetryableRedisException.class, () -> underTest.update(REDIS_ENTRY));
         }
 
         @Test
         void givenExecutionException_thenThrowRetryException() throws ExecutionException, InterruptedException {
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenThrow(new ExecutionException(new Exception()));
+            mockScript();
+            when(evalFuture.get()).thenThrow(new ExecutionException(new Exception()));
 
             assertThrows(RetryableRedisException.class, () -> underTest.update(REDIS_ENTRY));
         }
 
         @Test
-        void givenRedisEntryException_thenReturnFalse() throws RedisEntryException, RedisOutOfMemoryException, ExecutionException, InterruptedException {
+        void givenRedisEntryException_thenReturnFalse() throws RedisEntryException, RedisOutOfMemoryException {
             RedisEntry entry = mock(RedisEntry.class);
             when(entry.getServiceId()).thenReturn(SERVICE_ID);
             when(entry.getEntry()).thenReturn(KEY_VALUE);
             when(entry.getEntryAsString()).thenThrow(new RedisEntryException("error"));
 
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(true);
-
             boolean result = underTest.update(entry);
             assertFalse(result);
+            verifyNoInteractions(redisCommands);
         }
     }
 
@@ -323,6 +358,85 @@ class RedisOperatorTest {
         }
     }
 
+    @Nested
+    class whenProcessingBatch {
+
+        @Mock
+        private RedisFuture<List<io.lettuce.core.KeyValue<String, String>>> getFuture;
+
+        @Mock
+        private RedisFuture<Long> longFuture;
+
+        @Test
+        void givenExistingAndMissingKeys_thenReturnExistingEntries() throws ExecutionException, InterruptedException {
+            when(redisCommands.hmget(SERVICE_ID, KEY, "missing")).thenReturn(getFuture);
+            when(getFuture.get()).thenReturn(List.of(io.lettuce.core.KeyValue.just(KEY, VALID_SERIALIZED_ENTRY), io.lettuce.core.KeyValue.empty("missing")));
+
+            List<RedisEntry> result = underTest.get(SERVICE_ID, List.of(KEY, "missing"));
+            assertThat(result.size(), is(1));
+            assertThat(result.get(0).getEntry(), is(KEY_VALUE));
+        }
+
+        @Test
+        void givenNoKeys_thenRedisIsNotCalled() {
+            assertTrue(underTest.get(SERVICE_ID, List.of()).isEmpty());
+            assertTrue(underTest.delete(SERVICE_ID, List.of()).isEmpty());
+            verifyNoInteractions(redisCommands);
+        }
+
+        @Test
+        void givenEntries_thenStoreThemInSingleCommand() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            when(redisCommands.hset(eq(SERVICE_ID), anyMap())).thenReturn(longFuture);
+            when(longFuture.get()).thenReturn(1L);
+
+            underTest.set(SERVICE_ID, List.of(REDIS_ENTRY, new RedisEntry(SERVICE_ID, new KeyValue("key2", "value2"))));
+            verify(redisCommands).hset(eq(SERVICE_ID), argThat((Map<String, String> fields) -> fields.keySet().equals(Set.of(KEY, "key2"))));
+        }
+
+        @Test
+        void givenEntryWithTimeToLive_thenStoreEntriesAndExpirationsByScript() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            KeyValue expiring = new KeyValue("key2", "value2");
+            expiring.setTtl(60L);
+            when(redisCommands.eval(eq(RedisOperator.STORE_SCRIPT), eq(ScriptOutputType.INTEGER), any(String[].class), any(String[].class))).thenReturn(longFuture);
+            when(longFuture.get()).thenReturn(1L);
+
+            underTest.set(SERVICE_ID, List.of(REDIS_ENTRY, new RedisEntry(SERVICE_ID, expiring)));
+            verify(redisCommands).eval(eq(RedisOperator.STORE_SCRIPT), eq(ScriptOutputType.INTEGER), eq(new String[] {SERVICE_ID}),
+                eq(KEY), eq(VALID_SERIALIZED_ENTRY), eq(""), eq("key2"), anyString(), argThat((String ms) -> !ms.isEmpty()));
+            verify(redisCommands, never()).hset(any(), anyMap());
+        }
+
+        @Test
+        void givenRedisOutOfMemory_thenThrowOutOfMemoryException() throws ExecutionException, InterruptedException {
+            when(redisCommands.hset(eq(SERVICE_ID), anyMap())).thenReturn(longFuture);
+            when(longFuture.get()).thenThrow(new ExecutionException(new RedisCommandExecutionException("maxmemory")));
+
+            List<RedisEntry> entries = List.of(REDIS_ENTRY);
+            assertThrows(RedisOutOfMemoryException.class, () -> underTest.set(SERVICE_ID, entries));
+        }
+
+        @Test
+        void givenKeysToDelete_thenReturnDeletedEntries() throws ExecutionException, InterruptedException {
+            when(redisCommands.hmget(SERVICE_ID, KEY)).thenReturn(getFuture);
+            when(redisCommands.hdel(SERVICE_ID, KEY)).thenReturn(longFuture);
+            when(getFuture.get()).thenReturn(List.of(io.lettuce.core.KeyValue.just(KEY, VALID_SERIALIZED_ENTRY)));
+            when(longFuture.get()).thenReturn(1L);
+
+            List<RedisEntry> result = underTest.delete(SERVICE_ID, List.of(KEY));
+            assertThat(result.size(), is(1));
+            assertThat(result.get(0).getEntry(), is(KEY_VALUE));
+        }
+
+        @Test
+        void givenExecutionException_thenThrowRetryException() throws ExecutionException, InterruptedException {
+            when(redisCommands.hmget(SERVICE_ID, KEY)).thenReturn(getFuture);
+            when(getFuture.get()).thenThrow(new ExecutionException(new Exception()));
+
+            List<String> keys = List.of(KEY);
+            assertThrows(RetryableRedisException.class, () -> underTest.get(SERVICE_ID, keys));
+        }
+    }
+
     @Nested
     class whenDeleting {
 
@@ -412,6 +526,39 @@ class RedisOperatorTest {
         assertThrows(RetryableRedisException.class, () -> underTest.create(REDIS_ENTRY));
     }
 
+    @Nested
+    class WhenDetectingExpirationSupport {
+
+        @Mock
+        private RedisFuture<List<Object>> commandFuture;
+
+        @BeforeEach
+        void mockRedisCommand() {
+            when(redisCommands.commandInfo("HPEXPIRE")).thenReturn(commandFuture);
+        }
+
+        @Test
+        void givenKnownCommand_thenExpirationIsSupported() throws ExecutionException, InterruptedException {
+            when(commandFuture.get()).thenReturn(List.of(List.of("hpexpire")));
+
+            assertTrue(underTest.detectExpirationSupport());
+        }
+
+        @Test
+        void givenUnknownCommand_thenExpirationIsNotSupported() throws ExecutionException, InterruptedException {
+            when(commandFuture.get()).thenReturn(Collections.singletonList(null));
+
+            assertFalse(underTest.detectExpirationSupport());
+        }
+
+        @Test
+        void givenExecutionException_thenExpirationIsNotSupported() throws ExecutionException, InterruptedException {
+            when(commandFuture.get()).thenThrow(new ExecutionException(new RedisCommandExecutionException("error")));
+
+            assertFalse(underTest.detectExpirationSupport());
+        }
+    }
+
     @Nested
     class WhenDestroying {
 
@@ -22,6 +22,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -29,6 +32,8 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 public class RedisStorageTest {
@@ -72,6 +77,92 @@ public class RedisStorageTest {
 
             assertThat(e.getKey(), is(Messages.INSUFFICIENT_STORAGE.getKey()));
         }
+
+        @Test
+        void givenTimeToLiveAndSupportedExpiration_thenCreateEntry() throws RedisOutOfMemoryException {
+            KeyValue expiring = new KeyValue(KEY, VALUE);
+            expiring.setTtl(60L);
+            when(redisOperator.isExpirationSupported()).thenReturn(true);
+            when(redisOperator.create(any())).thenReturn(true);
+
+            assertThat(underTest.create(SERVICE_ID, expiring), is(expiring));
+        }
+
+        @Test
+        void givenTimeToLiveAndUnsupportedExpiration_thenThrowException() throws RedisOutOfMemoryException {
+            KeyValue expiring = new KeyValue(KEY, VALUE);
+            expiring.setTtl(60L);
+            when(redisOperator.isExpirationSupported()).thenReturn(false);
+            StorageException e = assertThrows(StorageException.class, () -> underTest.create(SERVICE_ID, expiring));
+
+            assertThat(e.getKey(), is(Messages.EXPIRATION_NOT_SUPPORTED.getKey()));
+            verify(redisOperator, never()).create(any());
+        }
+    }
+
+    @Nested
+    class whenProcessingAsynchronously {
+        private StorageException failure(CompletionStage<?> stage) {
+            CompletionException e = assertThrows(CompletionException.class, () -> stage.toCompletableFuture().join());
+            return (StorageException) e.getCause();
+        }
+
+        @Test
+        void givenNewKey_thenCreateEntry() {
+            when(redisOperator.createAsync(any())).thenReturn(CompletableFuture.completedFuture(true));
+            assertThat(underTest.createAsync(SERVICE_ID, KEY_VALUE).toCompletableFuture().join(), is(KEY_VALUE));
+        }
+
+        @Test
+        void givenExistingKey_thenCompleteWithDuplicateKey() {
+            when(redisOperator.createAsync(any())).thenReturn(CompletableFuture.completedFuture(false));
+            assertThat(failure(underTest.createAsync(SERVICE_ID, KEY_VALUE)).getKey(), is(Messages.DUPLICATE_KEY.getKey()));
+        }
+
+        @Test
+        void givenRedisOutOfMemory_thenCompleteWithInsufficientStorage() {
+            when(redisOperator.updateAsync(any())).thenReturn(CompletableFuture.failedFuture(new RedisOutOfMemoryException(new Exception())));
+            assertThat(failure(underTest.updateAsync(SERVICE_ID, KEY_VALUE)).getKey(), is(Messages.INSUFFICIENT_STORAGE.getKey()));
+        }
+
+        @Test
+        void givenChangedValue_thenCompleteWithValueChanged() {
+            when(redisOperator.updateAsync(any(), eq("tag"))).thenReturn(CompletableFuture.completedFuture(RedisOperator.UpdateResult.VALUE_CHANGED));
+            assertThat(failure(underTest.updateAsync(SERVICE_ID, KEY_VALUE, "tag")).getKey(), is(Messages.VALUE_CHANGED.getKey()));
+        }
+
+        @Test
+        void givenTimeToLiveAndUnsupportedExpiration_thenCompleteWithExpirationNotSupported() {
+            KeyValue expiring = new KeyValue(KEY, VALUE);
+            expiring.setTtl(60L);
+            when(redisOperator.isExpirationSupported()).thenReturn(false);
+
+            assertThat(failure(underTest.createAsync(SERVICE_ID, expiring)).getKey(), is(Messages.EXPIRATION_NOT_SUPPORTED.getKey()));
+            assertThat(failure(underTest.updateAsync(SERVICE_ID, expiring)).getKey(), is(Messages.EXPIRATION_NOT_SUPPORTED.getKey()));
+            verify(redisOperator, never()).createAsync(any());
+        }
+
+        @Test
+        void givenExistingKey_thenReadEntry() {
+            when(redisOperator.getAsync(SERVICE_ID, KEY)).thenReturn(CompletableFuture.completedFuture(REDIS_ENTRY));
+            assertThat(underTest.readAsync(SERVICE_ID, KEY).toCompletableFuture().join(), is(KEY_VALUE));
+        }
+
+        @Test
+        void givenNotExistingKey_thenCompleteWithKeyNotInCache() {
+            when(redisOperator.getAsync(SERVICE_ID, KEY)).thenReturn(CompletableFuture.completedFuture(null));
+            when(redisOperator.deleteAsync(SERVICE_ID, KEY)).thenReturn(CompletableFuture.completedFuture(false));
+
+            assertThat(failure(underTest.readAsync(SERVICE_ID, KEY)).getKey(), is(Messages.KEY_NOT_IN_CACHE.getKey()));
+            assertThat(failure(underTest.deleteAsync(SERVICE_ID, KEY)).getKey(), is(Messages.KEY_NOT_IN_CACHE.getKey()));
+        }
+
+        @Test
+        void givenExistingKey_thenDeleteEntry() {
+            when(redisOperator.getAsync(SERVICE_ID, KEY)).thenReturn(CompletableFuture.completedFuture(REDIS_ENTRY));
+            when(redisOperator.deleteAsync(SERVICE_ID, KEY)).thenReturn(CompletableFuture.completedFuture(true));
+            assertThat(underTest.deleteAsync(SERVICE_ID, KEY).toCompletableFuture().join(), is(KEY_VALUE));
+        }
     }
 
     @Nested
@@ -96,14 +187,14 @@ public class RedisStorageTest {
     class whenUpdate {
         @Test
         void givenExistingKey_thenUpdateKeyPair() throws RedisOutOfMemoryException {
-            when(redisOperator.update(any())).thenReturn(true);
+            when(redisOperator.update(any(), isNull())).thenReturn(RedisOperator.UpdateResult.UPDATED);
             KeyValue result = underTest.update(SERVICE_ID, KEY_VALUE);
             assertThat(result, is(KEY_VALUE));
         }
 
         @Test
         void givenNewKey_thenThrowException() throws RedisOutOfMemoryException {
-            when(redisOperator.update(any())).thenReturn(false);
+            when(redisOperator.update(any(), isNull())).thenReturn(RedisOperator.UpdateResult.NOT_FOUND);
             StorageException e = assertThrows(StorageException.class, () -> underTest.update(SERVICE_ID, KEY_VALUE));
 
             assertThat(e.getKey(), is(Messages.KEY_NOT_IN_CACHE.getKey()));
@@ -111,11 +202,19 @@ public class RedisStorageTest {
 
         @Test
         void givenRedisOutOfMemory_thenThrowException() throws RedisOutOfMemoryException {
-            when(redisOperator.update(any())).thenThrow(new RedisOutOfMemoryException(new Exception()));
+            when(redisOperator.update(any(), isNull())).thenThrow(new RedisOutOfMemoryException(new Exception()));
             StorageException e = assertThrows(StorageException.class, () -> underTest.update(SERVICE_ID, KEY_VALUE));
 
             assertThat(e.getKey(), is(Messages.INSUFFICIENT_STORAGE.getKey()));
         }
+
+        @Test
+        void givenChangedValue_thenThrowException() throws RedisOutOfMemoryException {
+            when(redisOperator.update(any(), eq("tag"))).thenReturn(RedisOperator.UpdateResult.VALUE_CHANGED);
+            StorageException e = assertThrows(StorageException.class, () -> underTest.update(SERVICE_ID, KEY_VALUE, "tag"));
+
+            assertThat(e.getKey(), is(Messages.VALUE_CHANGED.getKey()));
+        }
     }
 
     @Nested
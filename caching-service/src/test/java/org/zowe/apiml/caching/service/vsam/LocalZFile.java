@@ -0,0 +1,167 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
+import org.zowe.apiml.zfile.ZFile;
+import org.zowe.apiml.zfile.ZFileConstants;
+import org.zowe.apiml.zfile.ZFileException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stand-in of a KSDS VSAM file stored in a local file. The records are loaded when the file is opened and stored back
+ * when it is closed. Only the operations used by {@link VsamFile} are supported: positioning by the key, sequential
+ * reading, and update or delete of the last read record.
+ */
+public class LocalZFile implements ZFile {
+
+    private final Path path;
+    private final int recordLength;
+    private final int keyLength;
+    private final TreeMap<byte[], byte[]> records = new TreeMap<>(Arrays::compareUnsigned);
+
+    private byte[] position;
+    private byte[] lastRead;
+
+    public LocalZFile(Path path, VsamConfig config) {
+        this.path = path;
+        this.recordLength = config.getRecordLength();
+        this.keyLength = config.getKeyLength();
+
+        try {
+            if (Files.exists(path)) {
+                byte[] data = Files.readAllBytes(path);
+                for (int offset = 0; offset + recordLength <= data.length; offset += recordLength) {
+                    byte[] recordData = Arrays.copyOfRange(data, offset, offset + recordLength);
+                    records.put(key(recordData), recordData);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    private byte[] key(byte[] buf) {
+        return Arrays.copyOf(buf, keyLength);
+    }
+
+    @Override
+    public void close() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        records.values().forEach(output::writeBytes);
+        try {
+            Files.write(path, output.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void delrec() throws ZFileException {
+        if (lastRead == null) {
+            throw exception("No record was read before delete");
+        }
+        records.remove(lastRead);
+        lastRead = null;
+    }
+
+    @Override
+    public boolean locate(byte[] key, int options) {
+        lastRead = null;
+        byte[] paddedKey = Arrays.copyOf(key, keyLength);
+        position = switch (options) {
+            case ZFileConstants.LOCATE_KEY_FIRST -> records.isEmpty() ? null : records.firstKey();
+            case ZFileConstants.LOCATE_KEY_EQ -> records.containsKey(paddedKey) ? paddedKey : null;
+            case ZFileConstants.LOCATE_KEY_GE -> records.ceilingKey(paddedKey);
+            default -> throw new UnsupportedOperationException("Unsupported locate option: " + options);
+        };
+        return position != null;
+    }
+
+    @Override
+    public boolean locate(byte[] key, int offset, int length, int options) {
+        return locate(Arrays.copyOfRange(key, offset, offset + length), options);
+    }
+
+    @Override
+    public boolean locate(long recordNumberOrRBA, int options) {
+        throw new UnsupportedOperationException("Locate by RBA is not supported");
+    }
+
+    @Override
+    public int read(byte[] buf) {
+        return read(buf, 0, buf.length);
+    }
+
+    @Override
+    public int read(byte[] buf, int offset, int len) {
+        Map.Entry<byte[], byte[]> entry = position == null ? null : records.ceilingEntry(position);
+        if (entry == null) {
+            position = null;
+            return -1;
+        }
+
+        int length = Math.min(len, entry.getValue().length);
+        System.arraycopy(entry.getValue(), 0, buf, offset, length);
+        lastRead = entry.getKey();
+        position = records.higherKey(entry.getKey());
+        return length;
+    }
+
+    @Override
+    public int update(byte[] buf) throws ZFileException {
+        return update(buf, 0, buf.length);
+    }
+
+    @Override
+    public int update(byte[] buf, int offset, int length) throws ZFileException {
+        if (lastRead == null) {
+            throw exception("No record was read before update");
+        }
+        records.put(lastRead, Arrays.copyOf(Arrays.copyOfRange(buf, offset, offset + length), recordLength));
+        return length;
+    }
+
+    @Override
+    public void write(byte[] buf) throws ZFileException {
+        write(buf, 0, buf.length);
+    }
+
+    @Override
+    public void write(byte[] buf, int offset, int len) throws ZFileException {
+        byte[] data = Arrays.copyOf(Arrays.copyOfRange(buf, offset, offset + len), recordLength);
+        if (records.putIfAbsent(key(data), data) != null) {
+            throw exception("Duplicate key");
+        }
+    }
+
+    @Override
+    public String getActualFilename() {
+        return path.toString();
+    }
+
+    private ZFileException exception(String message) {
+        return new ZFileException(path.toString(), message, "", 0, 0, 0, new byte[]{}, 0, 0, 0, 0, 0);
+    }
+
+}
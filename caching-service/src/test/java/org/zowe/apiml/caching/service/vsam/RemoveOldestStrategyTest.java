@@ -18,9 +18,7 @@ import org.zowe.apiml.caching.config.GeneralConfig;
 import org.zowe.apiml.caching.model.KeyValue;
 import org.zowe.apiml.caching.service.Strategies;
 import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
-import org.zowe.apiml.zfile.ZFile;
 import org.zowe.apiml.zfile.ZFileConstants;
-import org.zowe.apiml.zfile.ZFileException;
 
 import java.util.Optional;
 
@@ -33,6 +31,7 @@ class RemoveOldestStrategyTest {
 
     private VsamConfig vsamConfiguration;
     private VsamFile file;
+    private VsamRecordIndex index;
     private final ArgumentCaptor<VsamRecord> recordArgumentCaptor = ArgumentCaptor.forClass(VsamRecord.class);
 
     private final String VALID_SERVICE_ID = "test-service-id";
@@ -49,27 +48,28 @@ class RemoveOldestStrategyTest {
         vsamConfiguration.setEncoding(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
 
         file = mock(VsamFile.class);
-        when(file.getZfile()).thenReturn(mock(ZFile.class));
-        underTest = new RemoveOldestStrategy(vsamConfiguration, file);
+        index = new VsamRecordIndex();
+        underTest = new RemoveOldestStrategy(vsamConfiguration, file, index);
+    }
+
+    private VsamRecord store(String key, String created) {
+        KeyValue keyValue = new KeyValue(key, "value", created);
+        keyValue.setServiceId(VALID_SERVICE_ID);
+        index.stored(VALID_SERVICE_ID, keyValue);
+        return new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, keyValue);
     }
 
     @Nested
     class WhenEvictIsCalled {
         @Test
-        void givenThereAreNoItems_thenNothingIsRemoved() throws ZFileException {
-            when(file.readBytes(any())).thenReturn(Optional.empty());
-
+        void givenThereAreNoItems_thenNothingIsRemoved() {
             underTest.evict("new-key");
-            verify(file, times(0)).delete(recordArgumentCaptor.capture());
+            verify(file, times(0)).delete(any());
         }
 
         @Test
-        void givenThereIsOneItem_thenItIsRemoved() throws ZFileException, VsamRecordException {
-            KeyValue record1 = new KeyValue("key-1", "value-1", "1");
-            record1.setServiceId(VALID_SERVICE_ID);
-
-            VsamRecord fullRecord1 = new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record1);
-            when(file.readBytes(any())).thenReturn(Optional.of(fullRecord1.getBytes()));
+        void givenThereIsOneItem_thenItIsRemoved() {
+            VsamRecord fullRecord1 = store("key-1", "1");
             when(file.delete(any())).thenReturn(Optional.of(fullRecord1));
 
             underTest.evict("new-key");
@@ -77,27 +77,47 @@ class RemoveOldestStrategyTest {
 
             VsamRecord deleted = recordArgumentCaptor.getValue();
             assertThat(deleted.getKeyValue().getKey(), is("key-1"));
+            assertThat(index.size(), is(0));
         }
 
         @Test
-        void givenThereIsMoreItems_thenTheOlderOneIsRemoved() throws ZFileException, VsamRecordException {
-            KeyValue record1 = new KeyValue("key-1", "value-1", "1");
-            record1.setServiceId(VALID_SERVICE_ID);
-            KeyValue record2 = new KeyValue("key-2", "value-2", "2");
-            record2.setServiceId(VALID_SERVICE_ID);
-
-            VsamRecord fullRecord1 = new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record1);
-            VsamRecord fullRecord2 = new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record2);
-            when(file.readBytes(any()))
-                .thenReturn(Optional.of(fullRecord2.getBytes()))
-                .thenReturn(Optional.of(fullRecord1.getBytes()));
+        void givenThereIsMoreItems_thenTheOlderOneIsRemoved() {
+            store("key-2", "2");
+            VsamRecord fullRecord1 = store("key-1", "1");
+            when(file.delete(any())).thenReturn(Optional.of(fullRecord1));
 
             underTest.evict("new-key");
             verify(file).delete(recordArgumentCaptor.capture());
 
             VsamRecord deleted = recordArgumentCaptor.getValue();
             assertThat(deleted.getKeyValue().getKey(), is("key-1"));
+            assertThat(index.size(), is(1));
+        }
+
+        @Test
+        void givenTheOldestRecordIsMissingInFile_thenTheNextOneIsRemoved() {
+            store("key-1", "1");
+            VsamRecord fullRecord2 = store("key-2", "2");
+            when(file.delete(any())).thenReturn(Optional.empty(), Optional.of(fullRecord2));
+
+            underTest.evict("new-key");
+            verify(file, times(2)).delete(recordArgumentCaptor.capture());
+
+            assertThat(recordArgumentCaptor.getAllValues().get(1).getKeyValue().getKey(), is("key-2"));
+            assertThat(index.size(), is(0));
+        }
+
+        @Test
+        void givenRecordWasUpdated_thenItsNewCreationTimeIsUsed() {
+            store("key-1", "1");
+            VsamRecord fullRecord2 = store("key-2", "2");
+            store("key-1", "3");
+            when(file.delete(any())).thenReturn(Optional.of(fullRecord2));
+
+            underTest.evict("new-key");
+            verify(file).delete(recordArgumentCaptor.capture());
 
+            assertThat(recordArgumentCaptor.getValue().getKeyValue().getKey(), is("key-2"));
         }
     }
 }
@@ -327,29 +327,24 @@ class VsamFileTest {
     }
 
     @Nested
-    class whenCountingRecords {
+    class whenReadingAllRecords {
         @Test
-        void givenExceptionReadingFile_thenReturnZero() throws ZFileException {
+        void givenExceptionReadingFile_thenNoRecordIsReturned() throws ZFileException {
             when(zFile.read(any())).thenThrow(new ZFileException("", "", "", 0, 0, 0, new byte[]{}, 0, 0, 0, 0, 0));
-            int result = underTest.countAllRecords();
+            List<VsamRecord> result = new ArrayList<>();
+            underTest.forEachRecord(result::add);
 
-            assertThat(result, is(0));
+            assertThat(result, hasSize(0));
         }
 
         @Test
-        void givenNoFileContent_thenReturnZero() throws ZFileException {
-            when(zFile.read(any())).thenReturn(-1);
-            int result = underTest.countAllRecords();
+        void givenRecords_thenAllAreReturned() throws ZFileException, UnsupportedEncodingException {
+            when(zFile.read(any())).thenAnswer(prepareAnswer(3));
+            List<VsamRecord> result = new ArrayList<>();
+            underTest.forEachRecord(result::add);
 
-            assertThat(result, is(0));
-        }
-
-        @Test
-        void givenRecords_thenReturnCount() throws ZFileException {
-            when(zFile.read(any())).thenReturn(1).thenReturn(-1);
-            int result = underTest.countAllRecords();
-
-            assertThat(result, is(1));
+            assertThat(result, hasSize(3));
+            verify(zFile).locate(" ".getBytes(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE), ZFileConstants.LOCATE_KEY_FIRST);
         }
     }
 
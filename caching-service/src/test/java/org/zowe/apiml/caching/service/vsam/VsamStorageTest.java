@@ -10,9 +10,11 @@
 
 package org.zowe.apiml.caching.service.vsam;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.zowe.apiml.caching.config.GeneralConfig;
 import org.zowe.apiml.caching.model.KeyValue;
 import org.zowe.apiml.caching.service.RejectStrategy;
@@ -21,10 +23,13 @@ import org.zowe.apiml.caching.service.Strategies;
 import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
 import org.zowe.apiml.message.log.ApimlLogger;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -54,7 +59,7 @@ class VsamStorageTest {
         producer = mock(VsamFileProducer.class);
 
         EvictionStrategyProducer evictionStrategyProducer = mock(EvictionStrategyProducer.class);
-        when(evictionStrategyProducer.evictionStrategy(any())).thenReturn(new RejectStrategy(apimlLogger));
+        when(evictionStrategyProducer.evictionStrategy(any(), any())).thenReturn(new RejectStrategy(apimlLogger));
         underTest = new VsamStorage(vsamConfiguration, initializer, producer, apimlLogger, evictionStrategyProducer);
     }
 
@@ -62,7 +67,7 @@ class VsamStorageTest {
     void givenNoInvalidFilename_whenCreateVsamStorage_thenThrowException() {
         VsamInitializer initializer = mock(VsamInitializer.class);
         EvictionStrategyProducer evictionStrategyProducer = mock(EvictionStrategyProducer.class);
-        when(evictionStrategyProducer.evictionStrategy(any())).thenReturn(new RejectStrategy(apimlLogger));
+        when(evictionStrategyProducer.evictionStrategy(any(), any())).thenReturn(new RejectStrategy(apimlLogger));
         VsamConfig vsamConfig = new VsamConfig(new GeneralConfig());
 
         vsamConfig.setFileName(null);
@@ -79,7 +84,6 @@ class VsamStorageTest {
             KeyValue record = new KeyValue("key-1", "value-1", "1");
             record.setServiceId(VALID_SERVICE_ID);
             VsamFile returnedFile = mock(VsamFile.class);
-            when(returnedFile.countAllRecords()).thenReturn(60);
             when(returnedFile.create(any())).thenReturn(
                 Optional.of(new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record))
             );
@@ -94,7 +98,6 @@ class VsamStorageTest {
             KeyValue record = new KeyValue("key-1", "value-1", "1");
             record.setServiceId(VALID_SERVICE_ID);
             VsamFile returnedFile = mock(VsamFile.class);
-            when(returnedFile.countAllRecords()).thenReturn(60);
             when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
 
             assertThrows(StorageException.class, () -> {
@@ -108,7 +111,13 @@ class VsamStorageTest {
             record.setServiceId(VALID_SERVICE_ID);
 
             VsamFile returnedFile = mock(VsamFile.class);
-            when(returnedFile.countAllRecords()).thenReturn(200);
+            doAnswer(invocation -> {
+                Consumer<VsamRecord> consumer = invocation.getArgument(0);
+                for (int i = 0; i < 200; i++) {
+                    consumer.accept(new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, new KeyValue("stored-" + i, "value", String.valueOf(i))));
+                }
+                return null;
+            }).when(returnedFile).forEachRecord(any());
             when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
 
             assertThrows(StorageException.class, () -> {
@@ -146,6 +155,50 @@ class VsamStorageTest {
                 underTest.read(VALID_SERVICE_ID, "non-existing-key");
             });
         }
+
+        @Test
+        void givenKeyIsExpired_thenExceptionIsThrown() {
+            KeyValue record = new KeyValue("key-1", "value-1", "1");
+            record.setServiceId(VALID_SERVICE_ID);
+            record.setTtl(60L);
+            VsamFile returnedFile = mock(VsamFile.class);
+            when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
+
+            when(returnedFile.read(any())).thenReturn(
+                Optional.of(new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record))
+            );
+            assertThrows(StorageException.class, () -> underTest.read(VALID_SERVICE_ID, "key-1"));
+        }
+    }
+
+    @Nested
+    class WhenItemExpires {
+        @Test
+        void givenRecordIsStillExpired_thenItIsDeleted() {
+            KeyValue record = new KeyValue("key-1", "value-1", "1");
+            record.setTtl(60L);
+            VsamFile returnedFile = mock(VsamFile.class);
+            when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
+            when(returnedFile.read(any())).thenReturn(
+                Optional.of(new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record))
+            );
+
+            underTest.removeExpired(List.of(new VsamStorage.EntryKey(VALID_SERVICE_ID, "key-1")));
+            verify(returnedFile).delete(any());
+        }
+
+        @Test
+        void givenRecordWasUpdatedWithoutExpiration_thenItIsKept() {
+            KeyValue record = new KeyValue("key-1", "value-1", "1");
+            VsamFile returnedFile = mock(VsamFile.class);
+            when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
+            when(returnedFile.read(any())).thenReturn(
+                Optional.of(new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record))
+            );
+
+            underTest.removeExpired(List.of(new VsamStorage.EntryKey(VALID_SERVICE_ID, "key-1")));
+            verify(returnedFile, never()).delete(any());
+        }
     }
 
     @Nested
@@ -252,6 +305,134 @@ class VsamStorageTest {
         }
     }
 
+    @Nested
+    class GivenLocalFile {
+        @TempDir
+        Path directory;
+
+        private VsamConfig localConfiguration;
+        private ZFileProducer zFileProducer;
+        private VsamStorage localStorage;
+        private EvictionStrategyProducer evictionStrategyProducer;
+
+        @BeforeEach
+        void setUp() throws VsamRecordException {
+            localConfiguration = DefaultVsamConfiguration.defaultConfiguration();
+            localConfiguration.getGeneralConfig().setMaxDataSize(20_000);
+
+            Path path = directory.resolve("vsam.data");
+            zFileProducer = mock(ZFileProducer.class);
+            when(zFileProducer.openZfile()).thenAnswer(invocation -> new LocalZFile(path, localConfiguration));
+
+            VsamFileProducer localProducer = new VsamFileProducer() {
+                @Override
+                public VsamFile newVsamFile(VsamConfig config, VsamConfig.VsamOptions options, ApimlLogger apimlLogger) {
+                    return new VsamFile(config, options, false, zFileProducer, mock(VsamInitializer.class), apimlLogger);
+                }
+            };
+            evictionStrategyProducer = mock(EvictionStrategyProducer.class);
+            when(evictionStrategyProducer.evictionStrategy(any(), any())).thenReturn(new RejectStrategy(apimlLogger));
+            localStorage = new VsamStorage(localConfiguration, mock(VsamInitializer.class), localProducer, apimlLogger, evictionStrategyProducer);
+        }
+
+        @AfterEach
+        void tearDown() {
+            localStorage.close();
+        }
+
+        private List<KeyValue> entries(int count) {
+            List<KeyValue> entries = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                entries.add(new KeyValue("key-" + i, "value-" + i));
+            }
+            return entries;
+        }
+
+        @Test
+        void whenOperationsAreCalled_thenFileIsOpenedOnce() throws VsamRecordException {
+            localStorage.create(VALID_SERVICE_ID, new KeyValue("key-1", "value-1"));
+            localStorage.update(VALID_SERVICE_ID, new KeyValue("key-1", "value-2"));
+            assertThat(localStorage.read(VALID_SERVICE_ID, "key-1").getValue(), is("value-2"));
+            assertThat(localStorage.delete(VALID_SERVICE_ID, "key-1").getValue(), is("value-2"));
+            assertThrows(StorageException.class, () -> localStorage.read(VALID_SERVICE_ID, "key-1"));
+
+            verify(zFileProducer, times(1)).openZfile();
+        }
+
+        @Test
+        void whenStorageIsClosed_thenRecordsArePersisted() {
+            localStorage.storeBatch(VALID_SERVICE_ID, entries(10));
+            localStorage.close();
+
+            assertThat(localStorage.readForService(VALID_SERVICE_ID).size(), is(10));
+        }
+
+        @Test
+        void whenServiceHasMoreThan10000Records_thenAllAreRead() {
+            localStorage.storeBatch(VALID_SERVICE_ID, entries(10_500));
+
+            assertThat(localStorage.readForService(VALID_SERVICE_ID).size(), is(10_500));
+        }
+
+        @Test
+        void givenRemoveOldestStrategy_whenSizeIsExceeded_thenTheOldestRecordIsRemoved() {
+            localConfiguration.getGeneralConfig().setMaxDataSize(3);
+            when(evictionStrategyProducer.evictionStrategy(any(), any()))
+                .thenAnswer(invocation -> new RemoveOldestStrategy(localConfiguration, invocation.getArgument(0), invocation.getArgument(1)));
+
+            localStorage.create(VALID_SERVICE_ID, new KeyValue("key-2", "value-2", "2"));
+            localStorage.create(VALID_SERVICE_ID, new KeyValue("key-1", "value-1", "1"));
+            localStorage.create(VALID_SERVICE_ID, new KeyValue("key-3", "value-3", "3"));
+            localStorage.create(VALID_SERVICE_ID, new KeyValue("key-4", "value-4", "4"));
+
+            assertThat(localStorage.readForService(VALID_SERVICE_ID).keySet(), is(Set.of("key-2", "key-3", "key-4")));
+        }
+
+        @Test
+        void givenExistingRecords_whenFileIsOpened_thenTheyAreCounted() {
+            localStorage.storeBatch(VALID_SERVICE_ID, entries(5));
+            localStorage.close();
+
+            localConfiguration.getGeneralConfig().setMaxDataSize(5);
+            KeyValue keyValue = new KeyValue("new-key", "value");
+            assertThrows(StorageException.class, () -> localStorage.create(VALID_SERVICE_ID, keyValue));
+            assertThat(localStorage.readForService(VALID_SERVICE_ID).size(), is(5));
+        }
+
+        @Test
+        void whenDeletingForService_thenOtherServicesAreKept() {
+            // the hash codes of the service IDs are 123 and 1234
+            localStorage.storeBatch("{", entries(20));
+            localStorage.storeBatch("&8", entries(30));
+
+            assertThat(localStorage.readForService("{").size(), is(20));
+            localStorage.deleteForService("{");
+
+            assertThat(localStorage.readForService("{").size(), is(0));
+            assertThat(localStorage.readForService("&8").size(), is(30));
+        }
+    }
+
+    @Nested
+    class WhenFileOperationFails {
+        @Test
+        void thenTheFileIsReopenedByNextAttempt() {
+            VsamFile brokenFile = mock(VsamFile.class);
+            when(brokenFile.read(any())).thenThrow(new RetryableVsamException(new VsamRecordException("error")));
+            VsamFile validFile = mock(VsamFile.class);
+            when(validFile.read(any())).thenReturn(Optional.empty());
+            when(producer.newVsamFile(any(), any(), any())).thenReturn(brokenFile, validFile);
+
+            assertThrows(RetryableVsamException.class, () -> underTest.read(VALID_SERVICE_ID, "key-1"));
+            verify(brokenFile).close();
+
+            assertThrows(StorageException.class, () -> underTest.read(VALID_SERVICE_ID, "key-1"));
+            assertThrows(StorageException.class, () -> underTest.read(VALID_SERVICE_ID, "key-1"));
+            verify(validFile, never()).close();
+            verify(producer, times(2)).newVsamFile(any(), any(), any());
+        }
+    }
+
     @Nested
     class WhenTryingToStoreToken {
         @Test
@@ -0,0 +1,31 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class HashUtilsTest {
+
+    @Test
+    void givenValue_whenSha256_thenReturnBase64OfDigest() {
+        // echo -n abc | sha256sum | xxd -r -p | base64
+        assertEquals("ungWv48Bz+pBQUDeXa4iI7ADYaOWF3qctBD/YfIAFa0=", HashUtils.sha256("abc"));
+    }
+
+    @Test
+    void givenDifferentValues_whenSha256_thenReturnDifferentHashes() {
+        assertNotEquals(HashUtils.sha256("token1"), HashUtils.sha256("token2"));
+    }
+
+}
@@ -31,7 +31,6 @@ import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.regex.Pattern;
 
 /**
  * This implementation of instance registry is solving known problem in Eureka. Discovery service notify about change
@@ -56,7 +55,7 @@ public class ApimlInstanceRegistry extends InstanceRegistry {
     private MethodHandle cancelMethodHandle;
 
     private final ApplicationContext appCntx;
-    private final EurekaConfig.Tuple tuple;
+    private final ServiceIdPrefixReplacer prefixReplacer;
 
     public ApimlInstanceRegistry(
         EurekaServerConfig serverConfig,
@@ -74,7 +73,7 @@ public class ApimlInstanceRegistry extends InstanceRegistry {
             instanceRegistryProperties.getDefaultOpenForTrafficCount()
         );
         this.appCntx = appCntx;
-        this.tuple = tuple;
+        this.prefixReplacer = new ServiceIdPrefixReplacer(tuple);
         init();
     }
 
@@ -213,21 +212,7 @@ public class ApimlInstanceRegistry extends InstanceRegistry {
     }
 
     private String[] replaceValues(String appName, String instanceId) {
-        if (tuple.isValid()) {
-            String appNameRegex = "(?i)^" + tuple.getOldPrefix();
-            String instanceIdRegex = "(?i):" + tuple.getOldPrefix();
-            String targetValue = tuple.getNewPrefix();
-            if (targetValue.contains("*")) {
-                targetValue = targetValue.replace("*", "");
-            }
-            appName = appName.replaceAll(appNameRegex, targetValue).toUpperCase();
-            if (instanceId.contains(":")) {
-                instanceId = instanceId.replaceAll(instanceIdRegex, ":" + targetValue);
-            } else {
-                instanceId = instanceId.replaceAll(appNameRegex, targetValue);
-            }
-        }
-        return new String[]{appName,instanceId};
+        return new String[]{prefixReplacer.appName(appName), prefixReplacer.instanceId(instanceId)};
     }
 
     /**
@@ -236,25 +221,15 @@ public class ApimlInstanceRegistry extends InstanceRegistry {
      * @return instance info with the modified service ID
      */
     protected InstanceInfo changeServiceId(final InstanceInfo info) {
-        if (tuple.isValid()) {
-            String servicePrefix = tuple.getOldPrefix();
-            if (!servicePrefix.contains("*")) {
-                servicePrefix = servicePrefix + "*";
-            }
-            String instanceId = info.getInstanceId();
-            String appName = info.getAppName();
-            Pattern p = Pattern.compile("(?i)^" + servicePrefix);
-            if (p.matcher(appName).find()) {
-                String[] updatedValues = replaceValues(appName, instanceId);
-                log.debug("The instance ID of {} service has been changed to {}.", info.getAppName(), updatedValues[1]);
-                return new InstanceInfo.Builder(info)
-                    .setInstanceId(updatedValues[1])
-                    .setAppGroupName(updatedValues[0])
-                    .setAppName(updatedValues[0])
-                    .setVIPAddress(updatedValues[0].toLowerCase())
-                    .build();
-            }
-            return info;
+        if (prefixReplacer.matches(info.getAppName())) {
+            String[] updatedValues = replaceValues(info.getAppName(), info.getInstanceId());
+            log.debug("The instance ID of {} service has been changed to {}.", info.getAppName(), updatedValues[1]);
+            return new InstanceInfo.Builder(info)
+                .setInstanceId(updatedValues[1])
+                .setAppGroupName(updatedValues[0])
+                .setAppName(updatedValues[0])
+                .setVIPAddress(updatedValues[0].toLowerCase())
+                .build();
         }
         return info;
     }
@@ -0,0 +1,98 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.discovery;
+
+import org.zowe.apiml.discovery.config.EurekaConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Replacement of the service ID prefix configured by {@link EurekaConfig.Tuple}. The translation is called on each
+ * heartbeat of each instance, so the patterns are compiled once and the translated values are remembered. The tuple
+ * cannot change, a new configuration means a new instance with empty translation tables.
+ */
+class ServiceIdPrefixReplacer {
+
+    /**
+     * The translation tables are dropped once they reach this size, to not keep IDs of instances which are gone.
+     */
+    static final int MAX_TRANSLATIONS = 10_000;
+
+    private final boolean enabled;
+    private final Pattern servicePattern;
+    private final Pattern appNamePattern;
+    private final Pattern instanceIdPattern;
+    private final String targetValue;
+
+    private final Map<String, String> appNames = new ConcurrentHashMap<>();
+    private final Map<String, String> instanceIds = new ConcurrentHashMap<>();
+
+    ServiceIdPrefixReplacer(EurekaConfig.Tuple tuple) {
+        enabled = tuple.isValid();
+        if (enabled) {
+            String servicePrefix = tuple.getOldPrefix();
+            if (!servicePrefix.contains("*")) {
+                servicePrefix = servicePrefix + "*";
+            }
+            servicePattern = Pattern.compile("(?i)^" + servicePrefix);
+            appNamePattern = Pattern.compile("(?i)^" + tuple.getOldPrefix());
+            instanceIdPattern = Pattern.compile("(?i):" + tuple.getOldPrefix());
+            targetValue = tuple.getNewPrefix().replace("*", "");
+        } else {
+            servicePattern = null;
+            appNamePattern = null;
+            instanceIdPattern = null;
+            targetValue = null;
+        }
+    }
+
+    /**
+     * @return true if the prefix of the service should be replaced
+     */
+    boolean matches(String appName) {
+        return enabled && servicePattern.matcher(appName).find();
+    }
+
+    String appName(String appName) {
+        if (!enabled) {
+            return appName;
+        }
+        return translate(appNames, appName, value -> appNamePattern.matcher(value).replaceAll(targetValue).toUpperCase());
+    }
+
+    String instanceId(String instanceId) {
+        if (!enabled) {
+            return instanceId;
+        }
+        return translate(instanceIds, instanceId, value -> {
+            if (value.contains(":")) {
+                return instanceIdPattern.matcher(value).replaceAll(":" + targetValue);
+            }
+            return appNamePattern.matcher(value).replaceAll(targetValue);
+        });
+    }
+
+    private static String translate(Map<String, String> translations, String value, UnaryOperator<String> translation) {
+        String translated = translations.get(value);
+        if (translated == null) {
+            translated = translation.apply(value);
+            if (translations.size() >= MAX_TRANSLATIONS) {
+                translations.clear();
+            }
+            translations.put(value, translated);
+        }
+        return translated;
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.discovery;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.zowe.apiml.discovery.config.EurekaConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceIdPrefixReplacerTest {
+
+    @Nested
+    class GivenValidTuple {
+
+        private final ServiceIdPrefixReplacer underTest = new ServiceIdPrefixReplacer(new EurekaConfig.Tuple("service*,hello"));
+
+        @ParameterizedTest
+        @CsvSource({
+            "SERVICECLIENT,HELLOCLIENT",
+            "serviceclient,HELLOCLIENT",
+            "HELLOCLIENT,HELLOCLIENT",
+            "OTHERSERVICE,OTHERSERVICE"
+        })
+        void whenTranslateAppName_thenPrefixIsReplaced(String appName, String expected) {
+            assertEquals(expected, underTest.appName(appName));
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "localhost:serviceclient:10012,localhost:helloclient:10012",
+            "localhost:SERVICECLIENT:10012,localhost:helloCLIENT:10012",
+            "serviceclient,helloclient",
+            "localhost:otherservice:10012,localhost:otherservice:10012"
+        })
+        void whenTranslateInstanceId_thenPrefixIsReplaced(String instanceId, String expected) {
+            assertEquals(expected, underTest.instanceId(instanceId));
+        }
+
+        @Test
+        void whenMatchingAppName_thenOnlyServicesWithPrefixMatch() {
+            assertTrue(underTest.matches("SERVICECLIENT"));
+            assertFalse(underTest.matches("HELLOCLIENT"));
+        }
+
+        @Test
+        void whenTranslatedRepeatedly_thenTheSameValueIsReturned() {
+            String first = underTest.instanceId("localhost:serviceclient:10012");
+            assertSame(first, underTest.instanceId("localhost:serviceclient:10012"));
+            assertSame(underTest.appName("SERVICECLIENT"), underTest.appName("SERVICECLIENT"));
+        }
+
+        @Test
+        void whenManyInstancesAreTranslated_thenTheTranslationsAreStillCorrect() {
+            for (int i = 0; i < ServiceIdPrefixReplacer.MAX_TRANSLATIONS * 2; i++) {
+                assertEquals("localhost:helloclient:" + i, underTest.instanceId("localhost:serviceclient:" + i));
+            }
+        }
+
+    }
+
+    @Nested
+    class GivenPrefixWithoutWildcard {
+
+        private final ServiceIdPrefixReplacer underTest = new ServiceIdPrefixReplacer(new EurekaConfig.Tuple("service,hello*"));
+
+        @Test
+        void whenTranslate_thenWildcardIsNotPartOfTheResult() {
+            assertTrue(underTest.matches("serviceclient"));
+            assertEquals("HELLOCLIENT", underTest.appName("serviceclient"));
+            assertEquals("localhost:helloclient:10012", underTest.instanceId("localhost:serviceclient:10012"));
+        }
+
+    }
+
+    @Nested
+    class GivenInvalidTuple {
+
+        private final ServiceIdPrefixReplacer underTest = new ServiceIdPrefixReplacer(new EurekaConfig.Tuple("service*"));
+
+        @Test
+        void whenTranslate_thenValuesAreNotChanged() {
+            assertFalse(underTest.matches("SERVICECLIENT"));
+            assertEquals("serviceclient", underTest.appName("serviceclient"));
+            assertEquals("localhost:serviceclient:10012", underTest.instanceId("localhost:serviceclient:10012"));
+        }
+
+    }
+
+}
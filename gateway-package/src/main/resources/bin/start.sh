@@ -60,6 +60,16 @@
 # - ZWE_configs_apiml_gateway_registry_maxSimultaneousRequests
 # - ZWE_configs_apiml_gateway_registry_metadataKeyAllowList
 # - ZWE_configs_apiml_gateway_registry_refreshIntervalMs
+# - ZWE_configs_apiml_gateway_zaasCache_schemes
+# - ZWE_configs_apiml_gateway_zaasCache_maxEntries
+# - ZWE_configs_apiml_gateway_zaasCache_timeToLive
+# - ZWE_configs_apiml_gateway_zaasCoalescing_schemes
+# - ZWE_configs_apiml_gateway_zaasSelector_type
+# - ZWE_configs_apiml_gateway_zaasSelector_failuresToEject
+# - ZWE_configs_apiml_gateway_zaasSelector_ejectionSec
+# - ZWE_configs_apiml_gateway_loadBalancer_mode
+# - ZWE_configs_apiml_gateway_loadBalancer_nearCache_maxEntries
+# - ZWE_configs_apiml_gateway_loadBalancer_nearCache_timeToLiveSec
 # - ZWE_configs_certificate_keystore_alias / ZWE_zowe_certificate_keystore_alias - The alias of the key within the keystore
 # - ZWE_configs_certificate_keystore_file / ZWE_zowe_certificate_keystore_file - The keystore to use for SSL certificates
 # - ZWE_configs_certificate_keystore_password / ZWE_zowe_certificate_keystore_password - The password to access the keystore supplied by KEYSTORE
@@ -320,6 +330,16 @@ _BPX_JOBNAME=${ZWE_zowe_job_prefix}${GATEWAY_CODE} ${JAVA_BIN_DIR}java \
     -Dapiml.gateway.maxSimultaneousRequests=${ZWE_configs_gateway_registry_maxSimultaneousRequests:-20} \
     -Dapiml.gateway.registry.metadata-key-allow-list=${ZWE_configs_gateway_registry_metadataKeyAllowList:-} \
     -Dapiml.gateway.refresh-interval-ms=${ZWE_configs_gateway_registry_refreshIntervalMs:-30000} \
+    -Dapiml.gateway.zaasCache.schemes=${ZWE_configs_apiml_gateway_zaasCache_schemes:-} \
+    -Dapiml.gateway.zaasCache.maxEntries=${ZWE_configs_apiml_gateway_zaasCache_maxEntries:-10000} \
+    -Dapiml.gateway.zaasCache.timeToLive=${ZWE_configs_apiml_gateway_zaasCache_timeToLive:-60} \
+    -Dapiml.gateway.zaasCoalescing.schemes=${ZWE_configs_apiml_gateway_zaasCoalescing_schemes:-} \
+    -Dapiml.gateway.zaasSelector.type=${ZWE_configs_apiml_gateway_zaasSelector_type:-roundRobin} \
+    -Dapiml.gateway.zaasSelector.failuresToEject=${ZWE_configs_apiml_gateway_zaasSelector_failuresToEject:-3} \
+    -Dapiml.gateway.zaasSelector.ejectionSec=${ZWE_configs_apiml_gateway_zaasSelector_ejectionSec:-30} \
+    -Dapiml.gateway.loadBalancer.mode=${ZWE_configs_apiml_gateway_loadBalancer_mode:-cache} \
+    -Dapiml.gateway.loadBalancer.nearCache.maxEntries=${ZWE_configs_apiml_gateway_loadBalancer_nearCache_maxEntries:-10000} \
+    -Dapiml.gateway.loadBalancer.nearCache.timeToLiveSec=${ZWE_configs_apiml_gateway_loadBalancer_nearCache_timeToLiveSec:-60} \
     -Dserver.address=${ZWE_configs_zowe_network_server_listenAddresses_0:-${ZWE_zowe_network_server_listenAddresses_0:-"0.0.0.0"}} \
     -Deureka.client.serviceUrl.defaultZone=${ZWE_DISCOVERY_SERVICES_LIST} \
     -Dserver.maxConnectionsPerRoute=${ZWE_configs_server_maxConnectionsPerRoute:-100} \
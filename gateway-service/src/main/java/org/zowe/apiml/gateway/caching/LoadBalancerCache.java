@@ -15,18 +15,28 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.CacheRefreshedEvent;
 import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.core5.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
 import org.zowe.apiml.gateway.caching.CachingServiceClient.KeyValue;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import static reactor.core.publisher.Mono.empty;
 import static reactor.core.publisher.Mono.error;
@@ -43,15 +53,69 @@ public class LoadBalancerCache {
     private final EurekaClient eurekaClient;
     private final ObjectMapper mapper = new ObjectMapper();
 
+    /**
+     * Near-cache in front of the remote cache. It contains recently used records (write-through) to avoid a call of
+     * the Caching Service on each request. It is null if it is disabled.
+     */
+    private final Cache<String, LoadBalancerCacheRecord> nearCache;
+
     public static final String LOAD_BALANCER_KEY_PREFIX = "lb.";
 
     public LoadBalancerCache(
         EurekaClient eurekaClient,
-        CachingServiceClient cachingServiceClient) {
+        CachingServiceClient cachingServiceClient,
+        @Value("${apiml.gateway.loadBalancer.nearCache.maxEntries:10000}") long nearCacheMaxEntries,
+        @Value("${apiml.gateway.loadBalancer.nearCache.timeToLiveSec:60}") long nearCacheTimeToLiveSec) {
         this.remoteCache = cachingServiceClient;
         this.eurekaClient = eurekaClient;
         localCache = new ConcurrentHashMap<>();
         mapper.registerModule(new JavaTimeModule());
+
+        if ((nearCacheMaxEntries > 0) && (nearCacheTimeToLiveSec > 0)) {
+            nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaxEntries)
+                .expireAfterWrite(Duration.ofSeconds(nearCacheTimeToLiveSec))
+                .build();
+            eurekaClient.registerEventListener(event -> {
+                if (event instanceof CacheRefreshedEvent) {
+                    evictUnknownInstances();
+                }
+            });
+        } else {
+            nearCache = null;
+        }
+    }
+
+    /**
+     * Remove records from the near-cache that are bound to an instance which is not registered anymore.
+     */
+    void evictUnknownInstances() {
+        if ((nearCache == null) || (nearCache.estimatedSize() == 0) || (eurekaClient.getApplications() == null)) {
+            return;
+        }
+
+        Set<String> instanceIds = eurekaClient.getApplications().getRegisteredApplications().stream()
+            .map(Application::getInstances)
+            .flatMap(List::stream)
+            .map(InstanceInfo::getInstanceId)
+            .collect(Collectors.toSet());
+        nearCache.asMap().values().removeIf(cacheRecord -> !instanceIds.contains(cacheRecord.getInstanceId()));
+    }
+
+    private void putToNearCache(String key, LoadBalancerCacheRecord loadBalancerCacheRecord) {
+        if (nearCache != null) {
+            nearCache.put(key, loadBalancerCacheRecord);
+        }
+    }
+
+    private LoadBalancerCacheRecord getFromNearCache(String key) {
+        return nearCache == null ? null : nearCache.getIfPresent(key);
+    }
+
+    private void removeFromNearCache(String key) {
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+        }
     }
 
     @Cacheable
@@ -71,6 +135,7 @@ public class LoadBalancerCache {
      * @return Mono success / error
      */
     public Mono<Void> store(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord) {
+        putToNearCache(getKey(user, service), loadBalancerCacheRecord);
         return cachingServiceAvailavility()
             .flatMap(available -> {
                 if (Boolean.TRUE.equals(available)) {
@@ -125,10 +190,17 @@ public class LoadBalancerCache {
      * @return Retrieved record containing the instance to use for this user and its creation time.
      */
     public Mono<LoadBalancerCacheRecord> retrieve(String user, String service) {
+        String key = getKey(user, service);
+        LoadBalancerCacheRecord nearCacheRecord = getFromNearCache(key);
+        if (nearCacheRecord != null) {
+            log.debug("Retrieved record from near cache for user: {}, service: {}, record: {}", user, service, nearCacheRecord);
+            return just(nearCacheRecord);
+        }
+
         return cachingServiceAvailavility()
             .flatMap(available -> {
                 if (Boolean.TRUE.equals(available)) {
-                    return remoteCache.read(getKey(user, service))
+                    return remoteCache.read(key)
                     .map(kv -> {
                         LoadBalancerCacheRecord loadBalancerCacheRecord;
                         try {
@@ -137,10 +209,11 @@ public class LoadBalancerCache {
                             throw new LoadBalancerCacheException(e);
                         }
                         log.debug("Retrieved record from remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
+                        putToNearCache(key, loadBalancerCacheRecord);
                         return loadBalancerCacheRecord;
                     });
                 } else {
-                    LoadBalancerCacheRecord loadBalancerCacheRecord = localCache.get(getKey(user, service));
+                    LoadBalancerCacheRecord loadBalancerCacheRecord = localCache.get(key);
                     log.debug("Retrieved record from local cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
                     return loadBalancerCacheRecord == null ? empty() : just(loadBalancerCacheRecord);
                 }
@@ -154,6 +227,7 @@ public class LoadBalancerCache {
      * @param service Service towards which is the user routed
      */
     public Mono<Void> delete(String user, String service) {
+        removeFromNearCache(getKey(user, service));
         return cachingServiceAvailavility()
             .flatMap(available -> {
                 if (Boolean.TRUE.equals(available)) {
@@ -0,0 +1,113 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.caching;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight of ZAAS requests. If there are multiple concurrent requests with the same {@link ZaasRequestKey} (the
+ * same credentials, service and scheme), only the first one calls the ZAAS and the others share its result. The call
+ * is removed as soon as it is finished, the result is not stored (see {@link ZaasSchemeResponseCache}).
+ * <p>
+ * The coalescing is opt-in per scheme (see {@code apiml.gateway.zaasCoalescing.schemes}), no scheme is enabled by
+ * default. It should not be enabled for schemes with one-time credentials (i.e. PassTicket with replay protection).
+ */
+@Component
+public class ZaasRequestCoalescer {
+
+    static final String METRIC_NAME = "apiml.gateway.zaas.requests";
+
+    private final Set<String> schemes = new HashSet<>();
+    private final Map<ZaasRequestKey, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter sentCounter;
+    private final Counter joinedCounter;
+
+    public ZaasRequestCoalescer(
+        @Value("${apiml.gateway.zaasCoalescing.schemes:}") String[] schemes,
+        ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        Arrays.stream(schemes)
+            .map(StringUtils::trimToNull)
+            .filter(Objects::nonNull)
+            .map(s -> s.toLowerCase(Locale.ROOT))
+            .forEach(this.schemes::add);
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.sentCounter = Counter.builder(METRIC_NAME).tag("result", "sent")
+            .description("Requests to ZAAS sent by the Gateway")
+            .register(registry);
+        this.joinedCounter = Counter.builder(METRIC_NAME).tag("result", "joined")
+            .description("Requests to ZAAS that joined another in-flight request with the same credentials")
+            .register(registry);
+    }
+
+    /**
+     * @param scheme name of the scheme (name of the filter factory)
+     * @return true if concurrent requests of the scheme could share the result
+     */
+    public boolean isEnabled(String scheme) {
+        return scheme != null && schemes.contains(scheme.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Return the result of the in-flight call with the same key, or make a new call.
+     *
+     * @param key  key of the request, if it is null or the scheme is not enabled the call is always made
+     * @param call supplier of the call to the ZAAS
+     * @return result of the call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(ZaasRequestKey key, Supplier<Mono<T>> call) {
+        if ((key == null) || !isEnabled(key.scheme())) {
+            return call.get();
+        }
+
+        return Mono.defer(() -> {
+            AtomicBoolean created = new AtomicBoolean();
+            Mono<T> shared = (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+                created.set(true);
+                return share(k, call.get());
+            });
+            (created.get() ? sentCounter : joinedCounter).increment();
+            return shared;
+        });
+    }
+
+    private <T> Mono<T> share(ZaasRequestKey key, Mono<T> call) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        // the call is removed before the result is propagated to avoid joining an already finished call
+        Mono<T> shared = call
+            .doOnTerminate(() -> inFlight.remove(key, self.get()))
+            .doOnCancel(() -> inFlight.remove(key, self.get()))
+            .cache();
+        self.set(shared);
+        return shared;
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+}
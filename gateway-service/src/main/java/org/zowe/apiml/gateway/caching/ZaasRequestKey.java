@@ -0,0 +1,156 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.caching;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.zowe.apiml.constants.ApimlConstants;
+import org.zowe.apiml.gateway.x509.X509Util;
+import org.zowe.apiml.util.CookieUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.util.*;
+
+import static org.zowe.apiml.constants.ApimlConstants.PAT_COOKIE_AUTH_NAME;
+import static org.zowe.apiml.constants.ApimlConstants.PAT_HEADER_NAME;
+import static org.zowe.apiml.security.SecurityUtils.COOKIE_AUTH_NAME;
+
+/**
+ * Identification of a request to a ZAAS authentication scheme endpoint. Two requests with the same key get the same
+ * response from the ZAAS. The credentials are stored just as hashes.
+ *
+ * @param fingerprint      hash of all credentials in the request
+ * @param serviceId        ID of the target service
+ * @param scheme           name of the authentication scheme (lowercase name of the filter factory)
+ * @param data             scheme specific data (i.e. application ID)
+ * @param credentialHashes hashes of each credential, it is used for invalidation
+ */
+@Slf4j
+public record ZaasRequestKey(String fingerprint, String serviceId, String scheme, String data, Set<String> credentialHashes) {
+
+    /**
+     * Create a key for the request. The key is null if the request does not contain any credentials, or they cannot
+     * be read.
+     *
+     * @param scheme    name of the scheme (name of the filter factory)
+     * @param serviceId ID of the service which is the target of the routing
+     * @param data      scheme specific data sent to the ZAAS (i.e. application ID)
+     * @param request   user's request
+     * @return key of the request or null
+     */
+    public static ZaasRequestKey create(String scheme, String serviceId, Object data, ServerHttpRequest request) {
+        Map<String, String> credentials = readCredentials(request);
+        if (credentials == null || credentials.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        Set<String> credentialHashes = new HashSet<>();
+        credentials.forEach((name, value) -> {
+            fingerprint.append(name).append('=').append(value).append('\n');
+            credentialHashes.add(hash(value));
+        });
+
+        return new ZaasRequestKey(hash(fingerprint.toString()), serviceId, scheme.toLowerCase(Locale.ROOT), Objects.toString(data, ""), credentialHashes);
+    }
+
+    /**
+     * @param request request with credentials
+     * @return hashes of all credentials in the request, empty set if there is no credentials
+     */
+    public static Set<String> getCredentialHashes(ServerHttpRequest request) {
+        Map<String, String> credentials = readCredentials(request);
+        if (credentials == null) {
+            return Collections.emptySet();
+        }
+
+        Set<String> credentialHashes = new HashSet<>();
+        credentials.values().forEach(value -> credentialHashes.add(hash(value)));
+        return credentialHashes;
+    }
+
+    /**
+     * Read all credentials that are sent to the ZAAS (see {@code AbstractAuthSchemeFactory#createRequest}).
+     *
+     * @param request the user's request
+     * @return sorted map of credential names and values, null if credentials cannot be read
+     */
+    static Map<String, String> readCredentials(ServerHttpRequest request) {
+        Map<String, String> credentials = new TreeMap<>();
+        HttpHeaders headers = request.getHeaders();
+
+        putHeaderValues(credentials, HttpHeaders.AUTHORIZATION, headers);
+        putHeaderValues(credentials, PAT_HEADER_NAME, headers);
+        CookieUtil.readCookies(headers)
+            .filter(cookie ->
+                StringUtils.equalsIgnoreCase(cookie.getName(), PAT_COOKIE_AUTH_NAME) ||
+                StringUtils.equalsIgnoreCase(cookie.getName(), COOKIE_AUTH_NAME) ||
+                StringUtils.startsWithIgnoreCase(cookie.getName(), COOKIE_AUTH_NAME + ".")
+            )
+            .forEach(cookie -> credentials.put("cookie:" + cookie.getName(), cookie.getValue()));
+
+        try {
+            String certificate = X509Util.getEncodedClientCertificate(request.getSslInfo());
+            if (certificate != null) {
+                credentials.put("certificate", certificate);
+            }
+        } catch (CertificateEncodingException e) {
+            log.debug("Cannot read client certificate", e);
+            return null;
+        }
+
+        return credentials;
+    }
+
+    private static void putHeaderValues(Map<String, String> credentials, String headerName, HttpHeaders headers) {
+        List<String> values = Optional.ofNullable(headers.get(headerName)).orElse(Collections.emptyList());
+        for (int i = 0; i < values.size(); i++) {
+            credentials.put("header:" + headerName + ":" + i, stripBearer(values.get(i)));
+        }
+    }
+
+    private static String stripBearer(String value) {
+        if (StringUtils.startsWithIgnoreCase(value, ApimlConstants.BEARER_AUTHENTICATION_PREFIX)) {
+            return value.substring(ApimlConstants.BEARER_AUTHENTICATION_PREFIX.length()).trim();
+        }
+        return value;
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ZaasRequestKey key)) return false;
+        return Objects.equals(fingerprint, key.fingerprint) &&
+            Objects.equals(serviceId, key.serviceId) &&
+            Objects.equals(scheme, key.scheme) &&
+            Objects.equals(data, key.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fingerprint, serviceId, scheme, data);
+    }
+
+}
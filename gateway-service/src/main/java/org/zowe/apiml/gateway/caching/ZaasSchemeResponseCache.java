@@ -0,0 +1,224 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.caching;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.zowe.apiml.constants.ApimlConstants;
+import org.zowe.apiml.gateway.filters.AbstractAuthSchemeFactory.AuthorizationResponse;
+import org.zowe.apiml.ticket.TicketResponse;
+import org.zowe.apiml.zaas.ZaasTokenResponse;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Short-lived cache of the successful responses of ZAAS authentication scheme endpoints. The cache is opt-in per
+ * scheme (see {@code apiml.gateway.zaasCache.schemes}) and allows to skip the call to ZAAS if the same credentials were
+ * already translated for the same service and application ID.
+ * <p>
+ * The lifetime of each entry is limited by the configured time to live, and also by the lifetime of the issued
+ * credentials (the expiration of JWT or the validity of PassTicket). Entries related to the credentials are removed
+ * on logout via this Gateway instance. Hits and misses are published as the cache metrics {@code zaasSchemeResponses}.
+ * <p>
+ * A cached PassTicket is sent to the service repeatedly. RACF rejects a PassTicket used again unless the replay
+ * protection is disabled for the application (the PTKTDATA profile is defined with {@code NO REPLAY PROTECTION}), so
+ * the scheme passticket should be listed only for such applications.
+ */
+@Slf4j
+@Component
+public class ZaasSchemeResponseCache {
+
+    static final String CACHE_NAME = "zaasSchemeResponses";
+
+    // PassTicket is valid 10 minutes around the time of generation, the half is used to be on the safe side, it could be
+    // reused only if the application has the replay protection disabled
+    static final Duration PASSTICKET_LIFETIME = Duration.ofMinutes(5);
+
+    // the minimal remaining lifetime of the token to be still provided from the cache
+    static final Duration EXPIRATION_MARGIN = Duration.ofSeconds(5);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Set<String> schemes;
+    private final Duration timeToLive;
+    private final Cache<ZaasRequestKey, Entry> cache;
+
+    public ZaasSchemeResponseCache(
+        @Value("${apiml.gateway.zaasCache.schemes:}") String[] schemes,
+        @Value("${apiml.gateway.zaasCache.maxEntries:10000}") long maxEntries,
+        @Value("${apiml.gateway.zaasCache.timeToLive:60}") long timeToLiveSeconds,
+        ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this.schemes = new HashSet<>();
+        Arrays.stream(schemes)
+            .map(StringUtils::trimToNull)
+            .filter(Objects::nonNull)
+            .map(s -> s.toLowerCase(Locale.ROOT))
+            .forEach(this.schemes::add);
+        this.timeToLive = Duration.ofSeconds(timeToLiveSeconds);
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfter(new EntryExpiry())
+            .recordStats()
+            .build();
+
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+    }
+
+    /**
+     * @param scheme name of the scheme (name of the filter factory)
+     * @return true if the responses of the scheme could be cached
+     */
+    public boolean isEnabled(String scheme) {
+        return !timeToLive.isZero() && !timeToLive.isNegative() && scheme != null && schemes.contains(scheme.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @param key the key of entry (see {@link ZaasRequestKey#create(String, String, Object, ServerHttpRequest)})
+     * @return the cached response or null if there is no valid entry
+     */
+    @SuppressWarnings("unchecked")
+    public <R> AuthorizationResponse<R> get(ZaasRequestKey key) {
+        if ((key == null) || !isEnabled(key.scheme())) {
+            return null;
+        }
+
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        return (AuthorizationResponse<R>) entry.response();
+    }
+
+    /**
+     * Store the response into the cache. Only successful response without any authentication failure could be stored.
+     *
+     * @param key      the key of entry (see {@link ZaasRequestKey#create(String, String, Object, ServerHttpRequest)})
+     * @param response the response from the ZAAS
+     */
+    public void put(ZaasRequestKey key, AuthorizationResponse<?> response) {
+        if ((key == null) || !isEnabled(key.scheme()) || (response == null) || (response.getBody() == null)) {
+            return;
+        }
+
+        if ((response.getHeaders() != null) && !response.getHeaders().header(ApimlConstants.AUTH_FAIL_HEADER).isEmpty()) {
+            return;
+        }
+
+        Duration ttl = getTimeToLive(response.getBody());
+        if (ttl.compareTo(EXPIRATION_MARGIN) <= 0) {
+            return;
+        }
+
+        // headers are not stored, they are used just in case of failure
+        cache.put(key, new Entry(new AuthorizationResponse<>(null, response.getBody()), ttl.minus(EXPIRATION_MARGIN).toNanos()));
+    }
+
+    /**
+     * Remove all entries which were created by any credentials in the request. It is called on logout.
+     *
+     * @param request request with the credentials
+     */
+    public void invalidate(ServerHttpRequest request) {
+        if (cache.estimatedSize() == 0) {
+            return;
+        }
+
+        Set<String> credentialHashes = ZaasRequestKey.getCredentialHashes(request);
+        if (!credentialHashes.isEmpty()) {
+            cache.asMap().keySet().removeIf(key -> !Collections.disjoint(key.credentialHashes(), credentialHashes));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    Duration getTimeToLive(Object body) {
+        Duration ttl = timeToLive;
+        if (body instanceof TicketResponse) {
+            ttl = min(ttl, PASSTICKET_LIFETIME);
+        } else if (body instanceof ZaasTokenResponse tokenResponse) {
+            Long expiration = getExpiration(tokenResponse.getToken());
+            if (expiration != null) {
+                ttl = min(ttl, Duration.ofSeconds(expiration - System.currentTimeMillis() / 1000));
+            }
+        }
+        return ttl;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    /**
+     * Read the claim exp of a JWT token without verification. The value is used just to limit the time of caching,
+     * the token itself was already verified by ZAAS.
+     *
+     * @param token the token (JWT or any other)
+     * @return value of claim exp (in seconds) or null if it is not a JWT with exp claim
+     */
+    static Long getExpiration(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if ((firstDot < 0) || (firstDot >= lastDot)) {
+            return null;
+        }
+
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(firstDot + 1, lastDot));
+            JsonNode exp = MAPPER.readTree(payload).get("exp");
+            return (exp != null) && exp.canConvertToLong() ? exp.asLong() : null;
+        } catch (Exception e) {
+            log.debug("Cannot read expiration of the token", e);
+            return null;
+        }
+    }
+
+    record Entry(AuthorizationResponse<?> response, long timeToLiveNanos) {
+    }
+
+    private static class EntryExpiry implements Expiry<ZaasRequestKey, Entry> {
+
+        @Override
+        public long expireAfterCreate(ZaasRequestKey key, Entry value, long currentTime) {
+            return value.timeToLiveNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(ZaasRequestKey key, Entry value, long currentTime, long currentDuration) {
+            return value.timeToLiveNanos();
+        }
+
+        @Override
+        public long expireAfterRead(ZaasRequestKey key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
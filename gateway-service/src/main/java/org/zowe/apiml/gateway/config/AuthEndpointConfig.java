@@ -24,6 +24,7 @@ import org.springframework.web.reactive.function.server.HandlerFunction;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.zowe.apiml.gateway.caching.ZaasSchemeResponseCache;
 import org.zowe.apiml.gateway.x509.X509Util;
 import reactor.core.publisher.Mono;
 
@@ -59,14 +60,17 @@ public class AuthEndpointConfig {
 
     private final WebClient webClient;
     private final WebClient webClientClientCert;
+    private final ZaasSchemeResponseCache zaasSchemeResponseCache;
 
     public AuthEndpointConfig(
         WebClient webClient,
         @Qualifier("webClientClientCert") WebClient webClientClientCert,
-        ReactiveLoadBalancer.Factory<ServiceInstance> serviceInstanceFactory
+        ReactiveLoadBalancer.Factory<ServiceInstance> serviceInstanceFactory,
+        ZaasSchemeResponseCache zaasSchemeResponseCache
     ) {
         this.webClient = createLoadBalanced(webClient, serviceInstanceFactory);
         this.webClientClientCert = createLoadBalanced(webClientClientCert, serviceInstanceFactory);
+        this.zaasSchemeResponseCache = zaasSchemeResponseCache;
     }
 
     private WebClient createLoadBalanced(WebClient webClient, ReactiveLoadBalancer.Factory<ServiceInstance> serviceInstanceFactory) {
@@ -123,10 +127,19 @@ public class AuthEndpointConfig {
             .doOnError(e -> log.debug("Cannot resend authentication call to the ZAAS", e));
     }
 
+    private HandlerFunction<ServerResponse> logout(String path) {
+        HandlerFunction<ServerResponse> resend = resendTo(path);
+        return request -> {
+            // credentials are not valid anymore, the translated ones must not be provided from the cache
+            zaasSchemeResponseCache.invalidate(request.exchange().getRequest());
+            return resend.handle(request);
+        };
+    }
+
     @Bean
     public RouterFunction<ServerResponse> routes() {
         return route(path("/gateway/api/v1/auth/login"), resendTo("/api/v1/auth/login"))
-            .andRoute(path("/gateway/api/v1/auth/logout"), resendTo("/api/v1/auth/logout"))
+            .andRoute(path("/gateway/api/v1/auth/logout"), logout("/api/v1/auth/logout"))
             .andRoute(path("/gateway/api/v1/auth/query"), resendTo("/api/v1/auth/query"))
             .andRoute(path("/gateway/api/v1/auth/refresh"), resendTo("/api/v1/auth/refresh"))
             .andRoute(path("/gateway/api/v1/auth/ticket"), resendTo("/api/v1/auth/ticket"))
@@ -0,0 +1,50 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zowe.apiml.gateway.filters.LatencyAwareZaasInstanceSelector;
+import org.zowe.apiml.gateway.filters.RoundRobinZaasInstanceSelector;
+import org.zowe.apiml.gateway.filters.ZaasInstanceSelector;
+
+import java.time.Duration;
+
+/**
+ * Selection of ZAAS instance for the authentication schemes. The strategy is defined by the property
+ * {@code apiml.gateway.zaasSelector.type}:
+ * - roundRobin - (default) each request starts with the next instance
+ * - latencyAware - the instance is selected by the observed latency and errors
+ */
+@Configuration
+public class ZaasInstanceSelectorConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "apiml.gateway.zaasSelector.type", havingValue = "latencyAware")
+    public ZaasInstanceSelector latencyAwareZaasInstanceSelector(
+        @Value("${apiml.gateway.zaasSelector.failuresToEject:3}") int failuresToEject,
+        @Value("${apiml.gateway.zaasSelector.ejectionSec:30}") int ejectionSec,
+        ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        return new LatencyAwareZaasInstanceSelector(failuresToEject, Duration.ofSeconds(ejectionSec), meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "apiml.gateway.zaasSelector.type", havingValue = "roundRobin", matchIfMissing = true)
+    public ZaasInstanceSelector roundRobinZaasInstanceSelector() {
+        return new RoundRobinZaasInstanceSelector();
+    }
+
+}
@@ -13,7 +13,9 @@ package org.zowe.apiml.gateway.filters;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -25,6 +27,9 @@ import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import org.zowe.apiml.constants.ApimlConstants;
+import org.zowe.apiml.gateway.caching.ZaasRequestCoalescer;
+import org.zowe.apiml.gateway.caching.ZaasRequestKey;
+import org.zowe.apiml.gateway.caching.ZaasSchemeResponseCache;
 import org.zowe.apiml.gateway.service.InstanceInfoService;
 import org.zowe.apiml.gateway.x509.X509Util;
 import org.zowe.apiml.message.core.MessageService;
@@ -37,6 +42,7 @@ import java.security.cert.CertificateEncodingException;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static org.apache.hc.core5.http.HttpStatus.SC_OK;
@@ -111,6 +117,7 @@ import static org.zowe.apiml.security.SecurityUtils.COOKIE_AUTH_NAME;
  * private String token;
  * }
  */
+@Slf4j
 public abstract class AbstractAuthSchemeFactory<T extends AbstractAuthSchemeFactory.AbstractConfig, R, D> extends AbstractGatewayFilterFactory<T> {
 
     private static final String HEADER_SERVICE_ID = "X-Service-Id";
@@ -145,12 +152,16 @@ public abstract class AbstractAuthSchemeFactory<T extends AbstractAuthSchemeFact
         StringUtils.equalsIgnoreCase(headerName, CLIENT_CERT_HEADER) ||
         StringUtils.equalsIgnoreCase(headerName, HttpHeaders.COOKIE);
 
-    private static final RobinRoundIterator<ServiceInstance> robinRound = new RobinRoundIterator<>();
+    private static final ZaasInstanceSelector DEFAULT_INSTANCE_SELECTOR = new RoundRobinZaasInstanceSelector();
 
     protected final WebClient webClient;
     protected final InstanceInfoService instanceInfoService;
     protected final MessageService messageService;
 
+    private ZaasSchemeResponseCache responseCache;
+    private ZaasRequestCoalescer requestCoalescer;
+    private ZaasInstanceSelector instanceSelector = DEFAULT_INSTANCE_SELECTOR;
+
     protected AbstractAuthSchemeFactory(Class<T> configClazz, WebClient webClient, InstanceInfoService instanceInfoService, MessageService messageService) {
         super(configClazz);
         this.webClient = webClient;
@@ -158,6 +169,38 @@ public abstract class AbstractAuthSchemeFactory<T extends AbstractAuthSchemeFact
         this.messageService = messageService;
     }
 
+    /**
+     * Set the cache of ZAAS responses. If the cache is not set or the scheme is not enabled in the cache, each request
+     * is sent to the ZAAS.
+     *
+     * @param responseCache cache of responses from ZAAS
+     */
+    @Autowired(required = false)
+    public void setResponseCache(ZaasSchemeResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Set the single-flight of ZAAS requests. If it is not set or the scheme is not enabled, concurrent requests with
+     * the same credentials are sent to the ZAAS separately.
+     *
+     * @param requestCoalescer single-flight of requests to ZAAS
+     */
+    @Autowired(required = false)
+    public void setRequestCoalescer(ZaasRequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Set the strategy of ZAAS instance selection. The round-robin is used by default.
+     *
+     * @param instanceSelector strategy to select instance of ZAAS
+     */
+    @Autowired(required = false)
+    public void setInstanceSelector(ZaasInstanceSelector instanceSelector) {
+        this.instanceSelector = instanceSelector;
+    }
+
     /**
      * @return class of response body from ZAAS
      */
@@ -171,28 +214,35 @@ public abstract class AbstractAuthSchemeFactory<T extends AbstractAuthSchemeFact
         Iterator<ServiceInstance> serviceInstanceIterator,
         Function<ServiceInstance, WebClient.RequestHeadersSpec<?>> requestCreator
     ) {
-        return requestCreator.apply(serviceInstanceIterator.next())
+        ServiceInstance instance = serviceInstanceIterator.next();
+        Mono<AuthorizationResponse<R>> call = Mono.defer(() -> requestCreator.apply(instance)
             .exchangeToMono(clientResp -> switch (clientResp.statusCode().value()) {
                 case SC_UNAUTHORIZED -> Mono.just(new AuthorizationResponse<R>(clientResp.headers(), null));
                 case SC_OK -> clientResp.bodyToMono(getResponseClass()).map(b -> new AuthorizationResponse<R>(clientResp.headers(), b));
                 default -> Mono.empty();
             })
-            .switchIfEmpty(serviceInstanceIterator.hasNext() ?
+        );
+        return instanceSelector.track(instance, call)
+            .onErrorResume(e -> {
+                log.debug("Cannot call ZAAS instance {}", instance.getInstanceId(), e);
+                // the last instance propagates the error, otherwise try the next one
+                return serviceInstanceIterator.hasNext() ? Mono.empty() : Mono.error(e);
+            })
+            .switchIfEmpty(Mono.defer(() -> serviceInstanceIterator.hasNext() ?
                 requestWithHa(serviceInstanceIterator, requestCreator) : Mono.empty()
-            );
+            ));
     }
 
-    protected Mono<Void> invoke(
+    protected Mono<AuthorizationResponse<R>> requestZaas(
         List<ServiceInstance> serviceInstances,
-        Function<ServiceInstance, WebClient.RequestHeadersSpec<?>> requestCreator,
-        Function<? super AuthorizationResponse<R>, ? extends Mono<Void>> responseProcessor
+        Function<ServiceInstance, WebClient.RequestHeadersSpec<?>> requestCreator
     ) {
-        Iterator<ServiceInstance> i = robinRound.getIterator(serviceInstances);
+        Iterator<ServiceInstance> i = instanceSelector.getIterator(serviceInstances);
         if (!i.hasNext()) {
             throw new ServiceNotAccessibleException("There are no instance of ZAAS available");
         }
 
-        return requestWithHa(i, requestCreator).flatMap(responseProcessor);
+        return requestWithHa(i, requestCreator);
     }
 
     /**
@@ -300,17 +350,42 @@ public abstract class AbstractAuthSchemeFactory<T extends AbstractAuthSchemeFact
         }).build();
     }
 
+    private ZaasRequestKey createRequestKey(AbstractConfig config, D data, ServerHttpRequest request) {
+        String scheme = name();
+        boolean cached = (responseCache != null) && responseCache.isEnabled(scheme);
+        boolean coalesced = (requestCoalescer != null) && requestCoalescer.isEnabled(scheme);
+        if (!cached && !coalesced) {
+            return null;
+        }
+
+        return ZaasRequestKey.create(scheme, config.getServiceId(), data, request);
+    }
+
     protected GatewayFilter createGatewayFilter(AbstractConfig config, D data) {
-        return (exchange, chain) -> getZaasInstances().flatMap(
-            instances -> {
-                ServerHttpRequest.Builder clientCallBuilder = exchange.getRequest().mutate();
-                return invoke(
-                    instances,
-                    instance -> createRequest(config, clientCallBuilder, instance, data, exchange.getRequest()),
-                    response -> processResponse(exchange.mutate().request(clientCallBuilder.build()).build(), chain, response)
-                );
+        return (exchange, chain) -> {
+            ZaasRequestKey requestKey = createRequestKey(config, data, exchange.getRequest());
+            if (responseCache != null) {
+                AuthorizationResponse<R> cachedResponse = responseCache.get(requestKey);
+                if (cachedResponse != null) {
+                    return processResponse(exchange, chain, cachedResponse);
+                }
             }
-        );
+
+            ServerHttpRequest.Builder clientCallBuilder = exchange.getRequest().mutate();
+            Supplier<Mono<AuthorizationResponse<R>>> zaasCall = () -> getZaasInstances()
+                .flatMap(instances -> requestZaas(
+                    instances,
+                    instance -> createRequest(config, clientCallBuilder, instance, data, exchange.getRequest())
+                ))
+                .doOnNext(response -> {
+                    if (responseCache != null) {
+                        responseCache.put(requestKey, response);
+                    }
+                });
+
+            Mono<AuthorizationResponse<R>> response = requestCoalescer == null ? zaasCall.get() : requestCoalescer.coalesce(requestKey, zaasCall);
+            return response.flatMap(r -> processResponse(exchange.mutate().request(clientCallBuilder.build()).build(), chain, r));
+        };
     }
 
     protected ServerHttpRequest addRequestHeader(ServerWebExchange exchange, String key, String value) {
@@ -0,0 +1,273 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Selection of ZAAS instances based on the observed latency and errors. The first instance is chosen by the power of
+ * two choices - two random instances are compared, and the one with the lower score (exponentially weighted moving
+ * average of latency multiplied by the number of outstanding requests) is used. The rest of the instances are ordered
+ * by the score as a fallback. An instance without any latency sample is scored by the mean latency of the other
+ * instances, and a failed request counts as a sample of at least {@link #FAILURE_LATENCY}, so an instance that does
+ * not succeed is not preferred just because it was never measured.
+ * <p>
+ * An instance that fails repeatedly is ejected for a period of time. Ejected instances are used only as the last
+ * fallback. After the period, the instance gets a new request and its first success resets the state.
+ * <p>
+ * Statistics of each instance are published as gauges {@code apiml.gateway.zaas.instance.*} with the tag instance.
+ * The statistics of the instances which are not registered anymore are removed.
+ */
+@Slf4j
+public class LatencyAwareZaasInstanceSelector implements ZaasInstanceSelector {
+
+    static final String METRIC_PREFIX = "apiml.gateway.zaas.instance.";
+
+    // weight of the latest sample in the moving averages
+    private static final double ALPHA = 0.3;
+
+    // the minimal latency sample of a failed request, a fast failure (ie. refused connection) must not look fast
+    static final Duration FAILURE_LATENCY = Duration.ofSeconds(1);
+
+    private final Map<String, InstanceStats> statistics = new ConcurrentHashMap<>();
+
+    private final int failuresToEject;
+    private final long ejectionNanos;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier ticker;
+
+    public LatencyAwareZaasInstanceSelector(int failuresToEject, Duration ejectionDuration, MeterRegistry meterRegistry) {
+        this(failuresToEject, ejectionDuration, meterRegistry, System::nanoTime);
+    }
+
+    LatencyAwareZaasInstanceSelector(int failuresToEject, Duration ejectionDuration, MeterRegistry meterRegistry, LongSupplier ticker) {
+        this.failuresToEject = Math.max(1, failuresToEject);
+        this.ejectionNanos = ejectionDuration.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.ticker = ticker;
+    }
+
+    @Override
+    public Iterator<ServiceInstance> getIterator(List<ServiceInstance> instances) {
+        prune(instances);
+        if (instances.size() <= 1) {
+            return instances.iterator();
+        }
+
+        // snapshot of the scores, the statistics could be changed concurrently
+        long now = ticker.getAsLong();
+        List<InstanceStats> stats = instances.stream().map(this::getStats).toList();
+        double meanLatency = stats.stream()
+            .filter(InstanceStats::hasLatency)
+            .mapToDouble(InstanceStats::getLatencyNanos)
+            .average().orElse(0);
+
+        List<Candidate> available = new ArrayList<>(instances.size());
+        List<Candidate> ejected = new ArrayList<>();
+        for (int i = 0; i < instances.size(); i++) {
+            InstanceStats instanceStats = stats.get(i);
+            if (instanceStats.isEjected(now)) {
+                ejected.add(new Candidate(instances.get(i), instanceStats.ejectedUntil()));
+            } else {
+                available.add(new Candidate(instances.get(i), instanceStats.score(meanLatency)));
+            }
+        }
+
+        List<ServiceInstance> ordered = new ArrayList<>(instances.size());
+        if (!available.isEmpty()) {
+            Candidate preferred = powerOfTwoChoices(available);
+            available.remove(preferred);
+            available.sort(Comparator.comparingDouble(Candidate::score));
+            ordered.add(preferred.instance());
+            available.forEach(candidate -> ordered.add(candidate.instance()));
+        }
+        ejected.sort(Comparator.comparingDouble(Candidate::score));
+        ejected.forEach(candidate -> ordered.add(candidate.instance()));
+
+        return ordered.iterator();
+    }
+
+    private Candidate powerOfTwoChoices(List<Candidate> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) second++;
+
+        Candidate a = candidates.get(first);
+        Candidate b = candidates.get(second);
+        return a.score() <= b.score() ? a : b;
+    }
+
+    @Override
+    public <T> Mono<T> track(ServiceInstance instance, Mono<T> call) {
+        InstanceStats stats = getStats(instance);
+        return Mono.defer(() -> {
+            long start = ticker.getAsLong();
+            AtomicBoolean success = new AtomicBoolean();
+            stats.outstanding.incrementAndGet();
+            return call
+                .doOnNext(value -> success.set(true))
+                .doFinally(signal -> {
+                    stats.outstanding.decrementAndGet();
+                    if (signal != SignalType.CANCEL) {
+                        long now = ticker.getAsLong();
+                        stats.record(now - start, success.get(), now);
+                    }
+                });
+        });
+    }
+
+    /**
+     * @return snapshot of statistics of all known instances
+     */
+    public Map<String, InstanceStats> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    InstanceStats getStats(ServiceInstance instance) {
+        return statistics.computeIfAbsent(getInstanceId(instance), this::createStats);
+    }
+
+    private static String getInstanceId(ServiceInstance instance) {
+        return Optional.ofNullable(instance.getInstanceId())
+            .orElseGet(() -> instance.getHost() + ":" + instance.getPort());
+    }
+
+    /**
+     * Remove the statistics and gauges of the instances which are not in the current list of instances.
+     */
+    private void prune(List<ServiceInstance> instances) {
+        if (statistics.size() <= instances.size()) {
+            return;
+        }
+
+        Set<String> instanceIds = new HashSet<>();
+        instances.forEach(instance -> instanceIds.add(getInstanceId(instance)));
+        statistics.entrySet().removeIf(entry -> {
+            if (instanceIds.contains(entry.getKey())) {
+                return false;
+            }
+            log.debug("Removing statistics of ZAAS instance {}", entry.getKey());
+            if (meterRegistry != null) {
+                entry.getValue().meters.forEach(meterRegistry::remove);
+            }
+            return true;
+        });
+    }
+
+    private InstanceStats createStats(String instanceId) {
+        InstanceStats stats = new InstanceStats();
+        if (meterRegistry != null) {
+            stats.meters.add(Gauge.builder(METRIC_PREFIX + "latency", stats, s -> s.getLatencyNanos() / 1_000_000)
+                .tag("instance", instanceId).baseUnit("milliseconds").register(meterRegistry));
+            stats.meters.add(Gauge.builder(METRIC_PREFIX + "errorRate", stats, InstanceStats::getErrorRate)
+                .tag("instance", instanceId).register(meterRegistry));
+            stats.meters.add(Gauge.builder(METRIC_PREFIX + "outstanding", stats, s -> s.outstanding.get())
+                .tag("instance", instanceId).register(meterRegistry));
+            stats.meters.add(Gauge.builder(METRIC_PREFIX + "ejected", stats, s -> s.isEjected(ticker.getAsLong()) ? 1 : 0)
+                .tag("instance", instanceId).register(meterRegistry));
+        }
+        return stats;
+    }
+
+    private record Candidate(ServiceInstance instance, double score) {
+    }
+
+    public class InstanceStats {
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final List<Meter> meters = new ArrayList<>();
+
+        private boolean sampled;
+        private double latencyNanos;
+        private double errorRate;
+        private int consecutiveFailures;
+        private long ejectedUntil;
+        private boolean ejected;
+
+        synchronized void record(long durationNanos, boolean success, long now) {
+            addLatency(success ? durationNanos : Math.max(durationNanos, FAILURE_LATENCY.toNanos()));
+            if (success) {
+                errorRate = (1 - ALPHA) * errorRate;
+                consecutiveFailures = 0;
+                ejected = false;
+            } else {
+                errorRate = ALPHA + (1 - ALPHA) * errorRate;
+                // an instance after the ejection is ejected again on the first failure
+                if (ejected || (++consecutiveFailures >= failuresToEject)) {
+                    log.debug("ZAAS instance is ejected for {} ms", ejectionNanos / 1_000_000);
+                    consecutiveFailures = 0;
+                    ejected = true;
+                    ejectedUntil = now + ejectionNanos;
+                }
+            }
+        }
+
+        private void addLatency(long sampleNanos) {
+            latencyNanos = sampled ? (ALPHA * sampleNanos + (1 - ALPHA) * latencyNanos) : sampleNanos;
+            sampled = true;
+        }
+
+        synchronized boolean isEjected(long now) {
+            return ejected && (now - ejectedUntil < 0);
+        }
+
+        synchronized long ejectedUntil() {
+            return ejectedUntil;
+        }
+
+        /**
+         * The lower score is better.
+         *
+         * @param defaultLatencyNanos latency used if the instance has no sample yet
+         */
+        synchronized double score(double defaultLatencyNanos) {
+            double latency = sampled ? latencyNanos : defaultLatencyNanos;
+            return latency * (outstanding.get() + 1) / Math.max(1 - errorRate, 0.1);
+        }
+
+        synchronized boolean hasLatency() {
+            return sampled;
+        }
+
+        public synchronized double getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        public synchronized double getErrorRate() {
+            return errorRate;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+    }
+
+}
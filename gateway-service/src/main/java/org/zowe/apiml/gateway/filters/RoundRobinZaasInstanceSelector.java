@@ -0,0 +1,31 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The default selection of ZAAS instances. Each request starts with the next instance and the others are used as
+ * a fallback.
+ */
+public class RoundRobinZaasInstanceSelector implements ZaasInstanceSelector {
+
+    private final RobinRoundIterator<ServiceInstance> robinRound = new RobinRoundIterator<>();
+
+    @Override
+    public Iterator<ServiceInstance> getIterator(List<ServiceInstance> instances) {
+        return robinRound.getIterator(instances);
+    }
+
+}
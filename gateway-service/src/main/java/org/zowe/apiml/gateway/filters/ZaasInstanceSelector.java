@@ -0,0 +1,43 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import org.springframework.cloud.client.ServiceInstance;
+import reactor.core.publisher.Mono;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Strategy to select an instance of ZAAS for the authentication scheme requests. The instances are tried in the
+ * order provided by the iterator until one of them returns a valid response.
+ */
+public interface ZaasInstanceSelector {
+
+    /**
+     * @param instances all available instances of ZAAS
+     * @return iterator over the instances in the order they should be tried
+     */
+    Iterator<ServiceInstance> getIterator(List<ServiceInstance> instances);
+
+    /**
+     * Decorate a call to an instance to collect the statistics. The call is successful if it emits a value. An empty
+     * result means the instance could not handle the request, and the next instance is used.
+     *
+     * @param instance the instance which is called
+     * @param call     the call to the instance
+     * @return the decorated call
+     */
+    default <T> Mono<T> track(ServiceInstance instance, Mono<T> call) {
+        return call;
+    }
+
+}
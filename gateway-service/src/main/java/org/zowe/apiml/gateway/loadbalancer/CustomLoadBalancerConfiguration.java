@@ -32,10 +32,11 @@ public class CustomLoadBalancerConfiguration {
     @Bean
     public ServiceInstanceListSupplier stickySessionServiceInstanceListSupplier(
         ConfigurableApplicationContext context, LoadBalancerCache cache,
-        @Value("${instance.metadata.apiml.lb.cacheRecordExpirationTimeInHours:8}") int expirationTime) {
+        @Value("${instance.metadata.apiml.lb.cacheRecordExpirationTimeInHours:8}") int expirationTime,
+        @Value("${apiml.gateway.loadBalancer.mode:cache}") String mode) {
         return new DeterministicRoutingListSupplierBuilder(ServiceInstanceListSupplier.builder()
             .withDiscoveryClient())
-            .withStickySessionRouting(cache, expirationTime, new DefaultClock())
+            .withStickySessionRouting(cache, expirationTime, new DefaultClock(), DeterministicLoadBalancer.Mode.fromConfiguration(mode))
             .build(context);
     }
 
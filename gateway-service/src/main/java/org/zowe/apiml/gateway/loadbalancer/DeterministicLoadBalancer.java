@@ -10,10 +10,7 @@
 
 package org.zowe.apiml.gateway.loadbalancer;
 
-import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Clock;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.cloud.client.ServiceInstance;
@@ -30,9 +27,7 @@ import org.zowe.apiml.gateway.caching.LoadBalancerCache.LoadBalancerCacheRecord;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -47,26 +42,39 @@ import static reactor.core.publisher.Mono.empty;
 
 /**
  * A sticky session load balancer that ensures requests from the same user are routed to the same service instance.
+ * <p>
+ * The selected instance is either stored in the {@link LoadBalancerCache} (mode {@link Mode#CACHE}), or computed by
+ * {@link RendezvousHashing} from the user ID and available instances (mode {@link Mode#CONSISTENT_HASHING}). The second
+ * mode does not require any shared state, but a user could be moved to another instance when instances are changed.
  */
 @Slf4j
 public class DeterministicLoadBalancer extends SameInstancePreferenceServiceInstanceListSupplier {
 
-    private static final String HEADER_NONE_SIGNATURE = Base64.getEncoder().encodeToString("{\"typ\":\"JWT\",\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
-
     private final LoadBalancerCache cache;
-    private final Clock clock;
+    private final JwtSubjectExtractor subjectExtractor;
     private final int expirationTime;
+    private final Mode mode;
 
     public DeterministicLoadBalancer(ServiceInstanceListSupplier delegate,
                                      ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancerClientFactory,
                                      LoadBalancerCache cache,
                                      Clock clock,
                                      int expirationTime) {
+        this(delegate, loadBalancerClientFactory, cache, clock, expirationTime, Mode.CACHE);
+    }
+
+    public DeterministicLoadBalancer(ServiceInstanceListSupplier delegate,
+                                     ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancerClientFactory,
+                                     LoadBalancerCache cache,
+                                     Clock clock,
+                                     int expirationTime,
+                                     Mode mode) {
         super(delegate, loadBalancerClientFactory);
         this.cache = cache;
-        this.clock = clock;
+        this.subjectExtractor = new JwtSubjectExtractor(clock);
         this.expirationTime = expirationTime;
-        log.debug("StickySessionLoadBalancer instantiated");
+        this.mode = mode;
+        log.debug("StickySessionLoadBalancer instantiated in mode {}", mode);
     }
 
     /**
@@ -92,6 +100,9 @@ public class DeterministicLoadBalancer extends SameInstancePreferenceServiceInst
                         return empty();
                     } else {
                         principal.set(user);
+                        if (mode == Mode.CONSISTENT_HASHING) {
+                            return empty();
+                        }
                         return cache.retrieve(user, serviceId).onErrorResume(t -> Mono.empty());
                     }
                 })
@@ -115,7 +126,7 @@ public class DeterministicLoadBalancer extends SameInstancePreferenceServiceInst
     private Mono<String> getSub(Object requestContext) {
         if (requestContext instanceof RequestDataContext ctx) {
             var token = Optional.ofNullable(ctx.getClientRequest().getCookies().get("apimlAuthenticationToken")).map(list -> list.get(0)).orElse("");
-            return Mono.just(extractSubFromToken(token));
+            return Mono.just(subjectExtractor.getSubject(token));
         }
         return Mono.just("");
     }
@@ -146,6 +157,9 @@ public class DeterministicLoadBalancer extends SameInstancePreferenceServiceInst
                 return Flux.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Service instance not found for the provided instance ID"));
             }
         }
+        if (mode == Mode.CONSISTENT_HASHING) {
+            return just(Collections.singletonList(RendezvousHashing.select(user, serviceInstances)));
+        }
         if (isNotBlank(cacheRecord.getInstanceId()) && isTooOld(cacheRecord.getCreationTime())) {
             result = cache.delete(user, serviceId)
                 .thenMany(chooseOne(user, serviceInstances));
@@ -243,42 +257,32 @@ public class DeterministicLoadBalancer extends SameInstancePreferenceServiceInst
         return false;
     }
 
-    private String removeJwtSign(String jwtToken) {
-        if (jwtToken == null) return null;
-
-        int firstDot = jwtToken.indexOf('.');
-        int lastDot = jwtToken.lastIndexOf('.');
-        if ((firstDot < 0) || (firstDot >= lastDot)) throw new MalformedJwtException("Invalid JWT format");
+    /**
+     * The way how the instance selected for the user is remembered.
+     */
+    public enum Mode {
 
-        return HEADER_NONE_SIGNATURE + jwtToken.substring(firstDot, lastDot + 1);
-    }
+        /**
+         * The selection is stored in the {@link LoadBalancerCache} and expires after the configured time.
+         */
+        CACHE,
 
-    private Claims getJwtClaims(String jwt) {
-        /*
-         * Removes signature, because we don't have key to verify z/OS tokens, and we just need to read claim.
-         * Verification is done by SAF itself. JWT library doesn't parse signed key without verification.
+        /**
+         * The instance is computed from the user ID and the list of available instances, no state is stored.
          */
-        try {
-            String withoutSign = removeJwtSign(jwt);
-            return Jwts.parser()
-                .unsecured()
-                .clock(clock)
-                .build()
-                .parseUnsecuredClaims(withoutSign)
-                .getPayload();
-        } catch (RuntimeException exception) {
-            log.debug("Exception when trying to parse the JWT token {}", jwt);
-            return null; // NOSONAR
-        }
-    }
+        CONSISTENT_HASHING;
 
-    private String extractSubFromToken(String token) {
-        if (!token.isEmpty()) {
-            Claims claims = getJwtClaims(token);
-            if (claims != null) {
-                return claims.getSubject();
+        /**
+         * @param value name of the mode in the configuration (cache or consistentHashing), case-insensitive
+         * @return the mode, {@link #CACHE} if the value is not recognized
+         */
+        public static Mode fromConfiguration(String value) {
+            if (StringUtils.equalsIgnoreCase(value, "consistentHashing")) {
+                return CONSISTENT_HASHING;
             }
+            return CACHE;
         }
-        return "";
+
     }
+
 }
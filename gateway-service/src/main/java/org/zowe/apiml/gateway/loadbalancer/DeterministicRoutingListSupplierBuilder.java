@@ -22,9 +22,13 @@ public class DeterministicRoutingListSupplierBuilder {
     private final ServiceInstanceListSupplierBuilder builder;
 
     public ServiceInstanceListSupplierBuilder withStickySessionRouting(LoadBalancerCache cache, int expirationTime, Clock clock) {
+        return withStickySessionRouting(cache, expirationTime, clock, DeterministicLoadBalancer.Mode.CACHE);
+    }
+
+    public ServiceInstanceListSupplierBuilder withStickySessionRouting(LoadBalancerCache cache, int expirationTime, Clock clock, DeterministicLoadBalancer.Mode mode) {
         ServiceInstanceListSupplierBuilder.DelegateCreator creator = (context, delegate) -> {
             LoadBalancerClientFactory loadBalancerClientFactory = context.getBean(LoadBalancerClientFactory.class);
-            return new DeterministicLoadBalancer(delegate, loadBalancerClientFactory, cache, clock, expirationTime);
+            return new DeterministicLoadBalancer(delegate, loadBalancerClientFactory, cache, clock, expirationTime, mode);
         };
         builder.with(creator);
         return builder;
@@ -0,0 +1,151 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.loadbalancer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Clock;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.zowe.apiml.util.HashUtils;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Reads the claim sub of a JWT token without verification of the signature (the token is verified by the
+ * authentication service). Only the payload is decoded and the claims are read by a streaming parser. The results are
+ * stored in a bounded cache, so repeated requests with the same token do not decode it at all. The cache is keyed by
+ * the SHA-256 hash of the token, so the tokens are not held in the memory, and only the valid tokens are stored.
+ * <p>
+ * The claims exp and nbf are checked against the clock on each call, the subject of an expired token is not returned.
+ */
+@Slf4j
+class JwtSubjectExtractor {
+
+    static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Cache<String, TokenSubject> cache;
+    private final Clock clock;
+
+    JwtSubjectExtractor(Clock clock) {
+        this(clock, DEFAULT_MAX_ENTRIES);
+    }
+
+    JwtSubjectExtractor(Clock clock, int maxEntries) {
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .build();
+    }
+
+    /**
+     * @param token JWT token
+     * @return value of the claim sub, or empty string if the token is not valid or expired
+     */
+    String getSubject(String token) {
+        if (StringUtils.isEmpty(token)) {
+            return "";
+        }
+
+        String key = HashUtils.sha256(token);
+        TokenSubject tokenSubject = cache.getIfPresent(key);
+        if (tokenSubject == null) {
+            tokenSubject = parse(token);
+            if (tokenSubject.subject() != null) {
+                cache.put(key, tokenSubject);
+            }
+        }
+
+        if ((tokenSubject.subject() == null) || !tokenSubject.isValidAt(clock.now().getTime())) {
+            log.debug("The token is not valid or it is expired");
+            return "";
+        }
+        return tokenSubject.subject();
+    }
+
+    static TokenSubject parse(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if ((firstDot < 0) || (firstDot >= lastDot)) {
+            return TokenSubject.INVALID;
+        }
+
+        // the payload is Base64URL (ASCII), it is copied directly to bytes to avoid a temporary String
+        byte[] encoded = new byte[lastDot - firstDot - 1];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = (byte) token.charAt(firstDot + 1 + i);
+        }
+
+        try (JsonParser parser = JSON_FACTORY.createParser(Base64.getUrlDecoder().decode(encoded))) {
+            return readClaims(parser);
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Exception when trying to parse the JWT token: {}", e.getMessage());
+            return TokenSubject.INVALID;
+        }
+    }
+
+    private static TokenSubject readClaims(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return TokenSubject.INVALID;
+        }
+
+        String subject = null;
+        long expiration = Long.MAX_VALUE;
+        long notBefore = Long.MIN_VALUE;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "sub" -> subject = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "exp" -> expiration = readTimeMillis(parser, value, expiration);
+                case "nbf" -> notBefore = readTimeMillis(parser, value, notBefore);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (subject == null) {
+            return TokenSubject.INVALID;
+        }
+        return new TokenSubject(subject, expiration, notBefore);
+    }
+
+    private static long readTimeMillis(JsonParser parser, JsonToken value, long defaultValue) throws IOException {
+        if ((value == JsonToken.VALUE_NUMBER_INT) || (value == JsonToken.VALUE_NUMBER_FLOAT)) {
+            return (long) (parser.getDoubleValue() * 1000);
+        }
+        parser.skipChildren();
+        return defaultValue;
+    }
+
+    /**
+     * Claims of the token which are necessary to get the subject.
+     *
+     * @param subject    value of the claim sub, null if the token is not valid
+     * @param expiration value of the claim exp in milliseconds
+     * @param notBefore  value of the claim nbf in milliseconds
+     */
+    record TokenSubject(String subject, long expiration, long notBefore) {
+
+        static final TokenSubject INVALID = new TokenSubject(null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+        boolean isValidAt(long timeMillis) {
+            return (timeMillis <= expiration) && (timeMillis >= notBefore);
+        }
+
+    }
+
+}
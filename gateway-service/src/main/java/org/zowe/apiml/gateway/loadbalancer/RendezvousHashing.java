@@ -0,0 +1,85 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.loadbalancer;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+
+/**
+ * Rendezvous (highest random weight) hashing of a key over service instances. Each pair of key and instance gets
+ * a pseudo-random weight and the instance with the highest weight is selected. The selection depends only on the key
+ * and IDs of the instances, so all Gateways choose the same instance without sharing any state. If an instance is
+ * added or removed, only the keys which are mapped to this instance are moved (about 1/N of keys).
+ */
+@UtilityClass
+public class RendezvousHashing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * @param key       key to distribute (i.e. user ID)
+     * @param instances available instances, it cannot be empty
+     * @return instance selected for the key
+     */
+    public ServiceInstance select(String key, List<ServiceInstance> instances) {
+        long keyHash = hash(FNV_OFFSET_BASIS, key);
+
+        ServiceInstance selected = null;
+        long maxWeight = 0;
+        for (ServiceInstance instance : instances) {
+            long weight = weight(keyHash, getId(instance));
+            // ties are broken by the instance ID to be independent of the order of instances
+            if ((selected == null) || (Long.compareUnsigned(weight, maxWeight) > 0) ||
+                ((weight == maxWeight) && (getId(instance).compareTo(getId(selected)) < 0))
+            ) {
+                selected = instance;
+                maxWeight = weight;
+            }
+        }
+        return selected;
+    }
+
+    long weight(long keyHash, String instanceId) {
+        return mix(hash(keyHash, instanceId));
+    }
+
+    private String getId(ServiceInstance instance) {
+        String instanceId = instance.getInstanceId();
+        return instanceId != null ? instanceId : instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * FNV-1a hash of the characters of the value, starting from the given hash.
+     */
+    private long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Finalization step of MurmurHash3 to avalanche all bits of the FNV hash.
+     */
+    private long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
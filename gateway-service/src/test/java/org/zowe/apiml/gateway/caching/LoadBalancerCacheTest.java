@@ -14,13 +14,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.CacheRefreshedEvent;
 import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.EurekaEventListener;
 import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -34,7 +38,10 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static reactor.core.publisher.Mono.empty;
@@ -59,7 +66,7 @@ class LoadBalancerCacheTest {
 
     @BeforeEach
     void setUp() {
-        loadBalancerCache = new LoadBalancerCache(eurekaClient, cachingServiceClient);
+        loadBalancerCache = new LoadBalancerCache(eurekaClient, cachingServiceClient, 0, 0);
         ReflectionTestUtils.setField(loadBalancerCache, "localCache", map);
     }
 
@@ -264,4 +271,107 @@ class LoadBalancerCacheTest {
 
     }
 
+    @Nested
+    class GivenNearCache {
+
+        private static final String KEY = "lb.anuser:aserviceid";
+
+        private LoadBalancerCache nearCachedLoadBalancerCache;
+        private EurekaEventListener eurekaEventListener;
+
+        @BeforeEach
+        void setUp() {
+            nearCachedLoadBalancerCache = new LoadBalancerCache(eurekaClient, cachingServiceClient, 100, 60);
+            var listenerCaptor = ArgumentCaptor.forClass(EurekaEventListener.class);
+            verify(eurekaClient).registerEventListener(listenerCaptor.capture());
+            eurekaEventListener = listenerCaptor.getValue();
+
+            var application = mock(Application.class);
+            var instanceInfo = mock(InstanceInfo.class);
+            when(eurekaClient.getApplication("cachingservice")).thenReturn(application);
+            when(application.getInstances()).thenReturn(Collections.singletonList(instanceInfo));
+        }
+
+        private void storeRecord(String instanceId) throws JsonProcessingException {
+            var cacheRecord = new LoadBalancerCacheRecord(instanceId);
+            when(cachingServiceClient.create(new KeyValue(KEY, mapper.writeValueAsString(cacheRecord)))).thenReturn(empty());
+            StepVerifier.create(nearCachedLoadBalancerCache.store("anuser", "aserviceid", cacheRecord))
+                .verifyComplete();
+        }
+
+        private void registerInstances(String...instanceIds) {
+            var application = new Application("aserviceid");
+            for (String instanceId : instanceIds) {
+                application.addInstance(InstanceInfo.Builder.newBuilder()
+                    .setAppName("aserviceid").setInstanceId(instanceId).build());
+            }
+            var applications = new Applications();
+            applications.addApplication(application);
+            when(eurekaClient.getApplications()).thenReturn(applications);
+        }
+
+        @Test
+        void whenRecordIsStored_thenRetrieveDoesNotCallRemoteCache() throws JsonProcessingException {
+            storeRecord("instance1");
+
+            StepVerifier.create(nearCachedLoadBalancerCache.retrieve("anuser", "aserviceid"))
+                .assertNext(cacheRecord -> assertEquals("instance1", cacheRecord.getInstanceId()))
+                .verifyComplete();
+            verify(cachingServiceClient, times(0)).read(any());
+        }
+
+        @Test
+        void whenRecordIsRetrievedFromRemote_thenNextRetrieveIsLocal() throws JsonProcessingException {
+            var cacheRecord = new LoadBalancerCacheRecord("instance1");
+            when(cachingServiceClient.read(KEY)).thenReturn(just(new KeyValue(KEY, mapper.writeValueAsString(cacheRecord))));
+
+            for (int i = 0; i < 3; i++) {
+                StepVerifier.create(nearCachedLoadBalancerCache.retrieve("anuser", "aserviceid"))
+                    .expectNext(cacheRecord)
+                    .verifyComplete();
+            }
+            verify(cachingServiceClient, times(1)).read(KEY);
+        }
+
+        @Test
+        void whenRecordIsDeleted_thenRemoteCacheIsCalled() throws JsonProcessingException {
+            storeRecord("instance1");
+            when(cachingServiceClient.delete(KEY)).thenReturn(empty());
+            when(cachingServiceClient.read(KEY)).thenReturn(empty());
+
+            StepVerifier.create(nearCachedLoadBalancerCache.delete("anuser", "aserviceid"))
+                .verifyComplete();
+            StepVerifier.create(nearCachedLoadBalancerCache.retrieve("anuser", "aserviceid"))
+                .verifyComplete();
+            verify(cachingServiceClient).read(KEY);
+        }
+
+        @Test
+        void whenInstanceIsUnregistered_thenRecordIsEvicted() throws JsonProcessingException {
+            storeRecord("instance1");
+            registerInstances("instance2");
+            when(cachingServiceClient.read(KEY)).thenReturn(empty());
+
+            eurekaEventListener.onEvent(new CacheRefreshedEvent());
+
+            StepVerifier.create(nearCachedLoadBalancerCache.retrieve("anuser", "aserviceid"))
+                .verifyComplete();
+            verify(cachingServiceClient).read(KEY);
+        }
+
+        @Test
+        void whenInstanceIsStillRegistered_thenRecordIsKept() throws JsonProcessingException {
+            storeRecord("instance1");
+            registerInstances("instance1", "instance2");
+
+            eurekaEventListener.onEvent(new CacheRefreshedEvent());
+
+            StepVerifier.create(nearCachedLoadBalancerCache.retrieve("anuser", "aserviceid"))
+                .assertNext(cacheRecord -> assertEquals("instance1", cacheRecord.getInstanceId()))
+                .verifyComplete();
+            verify(cachingServiceClient, times(0)).read(any());
+        }
+
+    }
+
 }
@@ -0,0 +1,144 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.caching;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ZaasRequestCoalescerTest {
+
+    private static final int PARALLEL_REQUESTS = 30;
+
+    private MeterRegistry meterRegistry;
+    private ZaasRequestCoalescer coalescer;
+    private AtomicInteger zaasCalls;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(meterRegistry);
+        coalescer = new ZaasRequestCoalescer(new String[] {"zowe", "zosmf"}, provider);
+        zaasCalls = new AtomicInteger();
+    }
+
+    private ZaasRequestKey key(String scheme, String jwt) {
+        return ZaasRequestKey.create(scheme, "service", null,
+            MockServerHttpRequest.get("/service/api/v1").header(HttpHeaders.COOKIE, "apimlAuthenticationToken=" + jwt).build());
+    }
+
+    private Supplier<Mono<String>> zaasCall(String response) {
+        return () -> Mono.fromCallable(() -> {
+                zaasCalls.incrementAndGet();
+                return response;
+            })
+            .delayElement(Duration.ofMillis(200));
+    }
+
+    private List<String> fanOut(Supplier<ZaasRequestKey> keySupplier) {
+        return Flux.range(0, PARALLEL_REQUESTS)
+            .parallel(PARALLEL_REQUESTS)
+            .runOn(Schedulers.parallel())
+            .flatMap(i -> coalescer.coalesce(keySupplier.get(), zaasCall("token")))
+            .sequential()
+            .collectList()
+            .block(Duration.ofSeconds(10));
+    }
+
+    private double counter(String result) {
+        return meterRegistry.get(ZaasRequestCoalescer.METRIC_NAME).tag("result", result).counter().count();
+    }
+
+    @Nested
+    class GivenParallelRequestsWithSameCredentials {
+
+        @Test
+        void whenSchemeIsEnabled_thenZaasIsCalledOnce() {
+            List<String> responses = fanOut(() -> key("zowe", "jwt"));
+
+            assertEquals(PARALLEL_REQUESTS, responses.size());
+            assertTrue(responses.stream().allMatch("token"::equals));
+            assertEquals(1, zaasCalls.get());
+            assertEquals(1, counter("sent"));
+            assertEquals(PARALLEL_REQUESTS - 1, counter("joined"));
+            assertEquals(0, coalescer.inFlightCount());
+        }
+
+        @Test
+        void whenSchemeIsNotEnabled_thenEachRequestCallsZaas() {
+            List<String> responses = fanOut(() -> key("passticket", "jwt"));
+
+            assertEquals(PARALLEL_REQUESTS, responses.size());
+            assertEquals(PARALLEL_REQUESTS, zaasCalls.get());
+        }
+
+        @Test
+        void whenRequestIsFinished_thenNextRequestCallsZaasAgain() {
+            coalescer.coalesce(key("zowe", "jwt"), zaasCall("first")).block();
+            String second = coalescer.coalesce(key("zowe", "jwt"), zaasCall("second")).block();
+
+            assertEquals("second", second);
+            assertEquals(2, zaasCalls.get());
+        }
+
+    }
+
+    @Nested
+    class GivenParallelRequestsWithDifferentCredentials {
+
+        @Test
+        void thenZaasCallsScaleWithUsers() {
+            AtomicInteger user = new AtomicInteger();
+            fanOut(() -> key("zowe", "jwt" + (user.getAndIncrement() % 3)));
+
+            assertEquals(3, zaasCalls.get());
+        }
+
+    }
+
+    @Test
+    void givenFailingCall_whenShared_thenAllGetErrorAndCallIsRemoved() {
+        var key = key("zosmf", "jwt");
+        Mono<String> first = coalescer.coalesce(key, () -> Mono.<String>error(new IllegalStateException("failed")).delaySubscription(Duration.ofMillis(100)));
+        Mono<String> second = coalescer.coalesce(key, zaasCall("token"));
+
+        List<String> results = Flux.merge(
+            first.onErrorReturn("error"),
+            second.onErrorReturn("error")
+        ).collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("error", "error"), results);
+        assertEquals(0, zaasCalls.get());
+        assertEquals(0, coalescer.inFlightCount());
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.caching;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.zowe.apiml.constants.ApimlConstants;
+import org.zowe.apiml.gateway.filters.AbstractAuthSchemeFactory.AuthorizationResponse;
+import org.zowe.apiml.ticket.TicketResponse;
+import org.zowe.apiml.zaas.ZaasTokenResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ZaasSchemeResponseCacheTest {
+
+    private static final String JWT_COOKIE = "apimlAuthenticationToken=jwtValue";
+
+    private MeterRegistry meterRegistry;
+    private ZaasSchemeResponseCache cache;
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<MeterRegistry> meterRegistryProvider() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<MeterRegistry>>getArgument(0).accept(meterRegistry);
+            return null;
+        }).when(provider).ifAvailable(any());
+        return provider;
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ZaasSchemeResponseCache(new String[] {"Passticket", " zowe "}, 100, 60, meterRegistryProvider());
+    }
+
+    private MockServerHttpRequest requestWithCookie(String cookie) {
+        return MockServerHttpRequest.get("/service/api/v1").header(HttpHeaders.COOKIE, cookie).build();
+    }
+
+    private String jwt(long exp) {
+        String payload = "{\"sub\":\"USER\",\"exp\":" + exp + "}";
+        return "eyJhbGciOiJub25lIn0." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    @Nested
+    class GivenConfiguration {
+
+        @Test
+        void whenSchemeIsNotListed_thenIsDisabled() {
+            var key = ZaasRequestKey.create("Zosmf", "service", null, requestWithCookie(JWT_COOKIE));
+            cache.put(key, new AuthorizationResponse<>(null, ZaasTokenResponse.builder().token("token").build()));
+
+            assertFalse(cache.isEnabled("Zosmf"));
+            assertNull(cache.get(key));
+        }
+
+        @Test
+        void whenSchemeIsListed_thenIsEnabledCaseInsensitive() {
+            assertTrue(cache.isEnabled("passticket"));
+            assertTrue(cache.isEnabled("Zowe"));
+        }
+
+        @Test
+        void whenTimeToLiveIsZero_thenIsDisabled() {
+            var disabled = new ZaasSchemeResponseCache(new String[] {"zowe"}, 100, 0, meterRegistryProvider());
+            assertFalse(disabled.isEnabled("zowe"));
+        }
+
+    }
+
+    @Nested
+    class GivenRequest {
+
+        @Test
+        void whenNoCredentials_thenNoKey() {
+            assertNull(ZaasRequestKey.create("zowe", "service", null, MockServerHttpRequest.get("/").build()));
+        }
+
+        @Test
+        void whenSameCredentialsInBearerAndCookie_thenDifferentKeysButSameCredentialHash() {
+            var keyCookie = ZaasRequestKey.create("zowe", "service", null, requestWithCookie(JWT_COOKIE));
+            var keyBearer = ZaasRequestKey.create("zowe", "service", null,
+                MockServerHttpRequest.get("/").header(HttpHeaders.AUTHORIZATION, "Bearer jwtValue").build());
+
+            assertNotEquals(keyCookie, keyBearer);
+            assertEquals(keyCookie.credentialHashes(), keyBearer.credentialHashes());
+        }
+
+        @Test
+        void whenDifferentApplId_thenDifferentKeys() {
+            var key1 = ZaasRequestKey.create("passticket", "service", "{\"applicationName\":\"APPL1\"}", requestWithCookie(JWT_COOKIE));
+            var key2 = ZaasRequestKey.create("passticket", "service", "{\"applicationName\":\"APPL2\"}", requestWithCookie(JWT_COOKIE));
+            assertNotEquals(key1, key2);
+        }
+
+    }
+
+    @Nested
+    class GivenResponse {
+
+        private ZaasRequestKey key;
+
+        @BeforeEach
+        void setUp() {
+            key = ZaasRequestKey.create("zowe", "service", null, requestWithCookie(JWT_COOKIE));
+        }
+
+        @Test
+        void whenSuccess_thenIsCachedAndCounted() {
+            var body = ZaasTokenResponse.builder().cookieName("apimlAuthenticationToken").token("LtpaToken").build();
+            assertNull(cache.get(key));
+
+            cache.put(key, new AuthorizationResponse<>(null, body));
+            AuthorizationResponse<ZaasTokenResponse> cached = cache.get(key);
+
+            assertSame(body, cached.getBody());
+            assertEquals(1, meterRegistry.get("cache.gets").tag("cache", ZaasSchemeResponseCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+            assertEquals(1, meterRegistry.get("cache.gets").tag("cache", ZaasSchemeResponseCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+        }
+
+        @Test
+        void whenUnauthorized_thenIsNotCached() {
+            cache.put(key, new AuthorizationResponse<>(null, null));
+            assertNull(cache.get(key));
+        }
+
+        @Test
+        void whenAuthFailureHeader_thenIsNotCached() {
+            var headers = mock(ClientResponse.Headers.class);
+            when(headers.header(ApimlConstants.AUTH_FAIL_HEADER)).thenReturn(Collections.singletonList("failure"));
+
+            cache.put(key, new AuthorizationResponse<>(headers, ZaasTokenResponse.builder().token("token").build()));
+            assertNull(cache.get(key));
+        }
+
+        @Test
+        void whenTokenIsAboutToExpire_thenIsNotCached() {
+            var body = ZaasTokenResponse.builder().token(jwt(System.currentTimeMillis() / 1000 + 2)).build();
+            cache.put(key, new AuthorizationResponse<>(null, body));
+            assertNull(cache.get(key));
+        }
+
+        @Test
+        void whenLogout_thenEntriesOfTheCredentialsAreRemoved() {
+            var otherKey = ZaasRequestKey.create("zowe", "service", null, requestWithCookie("apimlAuthenticationToken=otherJwt"));
+            cache.put(key, new AuthorizationResponse<>(null, ZaasTokenResponse.builder().token("a").build()));
+            cache.put(otherKey, new AuthorizationResponse<>(null, ZaasTokenResponse.builder().token("b").build()));
+
+            cache.invalidate(MockServerHttpRequest.post("/gateway/api/v1/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer jwtValue").build());
+
+            assertNull(cache.get(key));
+            assertNotNull(cache.get(otherKey));
+        }
+
+    }
+
+    @Nested
+    class GivenTimeToLive {
+
+        @Test
+        void whenPassTicket_thenLimitedByPassTicketLifetime() {
+            var longLived = new ZaasSchemeResponseCache(new String[] {"passticket"}, 100, 3600, meterRegistryProvider());
+            assertEquals(ZaasSchemeResponseCache.PASSTICKET_LIFETIME, longLived.getTimeToLive(new TicketResponse()));
+        }
+
+        @Test
+        void whenJwt_thenLimitedByExpiration() {
+            Duration ttl = cache.getTimeToLive(ZaasTokenResponse.builder().token(jwt(System.currentTimeMillis() / 1000 + 30)).build());
+            assertTrue(ttl.getSeconds() <= 30);
+            assertTrue(ttl.getSeconds() >= 28);
+        }
+
+        @Test
+        void whenNonJwtToken_thenConfiguredTimeToLive() {
+            assertEquals(Duration.ofSeconds(60), cache.getTimeToLive(ZaasTokenResponse.builder().token("LtpaToken").build()));
+        }
+
+        @Test
+        void whenExpirationIsNotReadable_thenNull() {
+            assertNull(ZaasSchemeResponseCache.getExpiration("a.b.c"));
+            assertNull(ZaasSchemeResponseCache.getExpiration(null));
+        }
+
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.zowe.apiml.constants.ApimlConstants;
+import org.zowe.apiml.gateway.caching.ZaasRequestCoalescer;
+import org.zowe.apiml.gateway.caching.ZaasSchemeResponseCache;
+import org.zowe.apiml.gateway.service.InstanceInfoService;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AbstractAuthSchemeFactoryTest {
+
+    private static final String JWT_COOKIE = "apimlAuthenticationToken=jwtValue";
+    private static final String ZOSMF_RESPONSE = "{\"cookieName\":\"jwtToken\",\"token\":\"zosmfToken\"}";
+
+    private final ServiceInstance zaas1 = new DefaultServiceInstance("zaas1", "zaas", "host1", 10023, true);
+    private final ServiceInstance zaas2 = new DefaultServiceInstance("zaas2", "zaas", "host2", 10023, true);
+
+    private InstanceInfoService instanceInfoService;
+    private AtomicInteger zaasCalls;
+    private Queue<ServerWebExchange> forwarded;
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        instanceInfoService = mock(InstanceInfoService.class);
+        zaasCalls = new AtomicInteger();
+        forwarded = new ConcurrentLinkedQueue<>();
+        chain = exchange -> {
+            forwarded.add(exchange);
+            return Mono.empty();
+        };
+    }
+
+    private WebClient webClient(Function<ClientRequest, Mono<ClientResponse>> zaas, ServiceInstance... instances) {
+        when(instanceInfoService.getServiceInstance("zaas")).thenReturn(Mono.just(List.of(instances)));
+        return WebClient.builder()
+            .exchangeFunction(request -> {
+                zaasCalls.incrementAndGet();
+                return zaas.apply(request);
+            })
+            .build();
+    }
+
+    private ZosmfFilterFactory zosmfFactory(Function<ClientRequest, Mono<ClientResponse>> zaas, ServiceInstance... instances) {
+        return new ZosmfFilterFactory(webClient(zaas, instances), instanceInfoService, null);
+    }
+
+    private static GatewayFilter filter(AbstractTokenFilterFactory<AbstractTokenFilterFactory.Config, ?> factory) {
+        AbstractTokenFilterFactory.Config config = new AbstractTokenFilterFactory.Config();
+        config.setServiceId("service");
+        return factory.apply(config);
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/service/api/v1").header(HttpHeaders.COOKIE, JWT_COOKIE));
+    }
+
+    private static ClientResponse ok(String body) {
+        return ClientResponse.create(HttpStatus.OK)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(body)
+            .build();
+    }
+
+    private void assertForwardedWithZosmfToken(int requests) {
+        assertEquals(requests, forwarded.size());
+        forwarded.forEach(exchange -> assertEquals("jwtToken=zosmfToken", exchange.getRequest().getHeaders().getFirst(HttpHeaders.COOKIE)));
+    }
+
+    @Nested
+    class GivenMoreZaasInstances {
+
+        @Test
+        void whenFirstInstanceFails_thenNextOneIsCalled() {
+            ZosmfFilterFactory factory = zosmfFactory(request -> zaasCalls.get() == 1 ?
+                Mono.error(new IllegalStateException("connection refused")) : Mono.just(ok(ZOSMF_RESPONSE)), zaas1, zaas2);
+
+            filter(factory).filter(exchange(), chain).block(Duration.ofSeconds(10));
+
+            assertEquals(2, zaasCalls.get());
+            assertForwardedWithZosmfToken(1);
+        }
+
+        @Test
+        void whenAllInstancesFail_thenErrorOfTheLastIsPropagated() {
+            ZosmfFilterFactory factory = zosmfFactory(request -> Mono.error(new IllegalStateException("connection refused " + zaasCalls.get())), zaas1, zaas2);
+            Mono<Void> result = filter(factory).filter(exchange(), chain);
+
+            // the WebClient could wrap the exception, the message is kept
+            RuntimeException exception = assertThrows(RuntimeException.class, () -> result.block(Duration.ofSeconds(10)));
+            assertTrue(exception.getMessage().contains("connection refused 2"));
+            assertEquals(2, zaasCalls.get());
+            assertEquals(0, forwarded.size());
+        }
+
+    }
+
+    @Nested
+    class GivenCoalescing {
+
+        private static final int PARALLEL_REQUESTS = 30;
+
+        @SuppressWarnings("unchecked")
+        private ZaasRequestCoalescer coalescer(String... schemes) {
+            ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+            when(provider.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+            return new ZaasRequestCoalescer(schemes, provider);
+        }
+
+        private void fanOut(GatewayFilter filter, Sinks.One<ClientResponse> zaasResponse) {
+            List<CompletableFuture<Void>> results = IntStream.range(0, PARALLEL_REQUESTS)
+                .mapToObj(i -> filter.filter(exchange(), chain).toFuture())
+                .toList();
+            // all the requests are waiting for ZAAS
+            assertEquals(0, forwarded.size());
+
+            zaasResponse.tryEmitValue(ok(ZOSMF_RESPONSE));
+            results.forEach(CompletableFuture::join);
+        }
+
+        @Test
+        void whenConcurrentIdenticalRequests_thenZaasIsCalledOnce() {
+            Sinks.One<ClientResponse> zaasResponse = Sinks.one();
+            ZosmfFilterFactory factory = zosmfFactory(request -> zaasResponse.asMono(), zaas1);
+            factory.setRequestCoalescer(coalescer("zosmf"));
+
+            fanOut(filter(factory), zaasResponse);
+
+            assertEquals(1, zaasCalls.get());
+            assertForwardedWithZosmfToken(PARALLEL_REQUESTS);
+        }
+
+        @Test
+        void whenSchemeIsNotEnabled_thenEachRequestCallsZaas() {
+            ZosmfFilterFactory factory = zosmfFactory(request -> Mono.just(ok(ZOSMF_RESPONSE)), zaas1);
+            factory.setRequestCoalescer(coalescer());
+
+            GatewayFilter filter = filter(factory);
+            IntStream.range(0, PARALLEL_REQUESTS).forEach(i -> filter.filter(exchange(), chain).block(Duration.ofSeconds(10)));
+
+            assertEquals(PARALLEL_REQUESTS, zaasCalls.get());
+            assertForwardedWithZosmfToken(PARALLEL_REQUESTS);
+        }
+
+    }
+
+    @Nested
+    class GivenResponseCache {
+
+        private ZaasSchemeResponseCache cache;
+
+        @BeforeEach
+        @SuppressWarnings("unchecked")
+        void setUp() {
+            cache = new ZaasSchemeResponseCache(new String[] {"zosmf", "zowe", "safIdt", "passticket"}, 100, 60, mock(ObjectProvider.class));
+        }
+
+        private WebClient webClient(String zaasResponse) {
+            return AbstractAuthSchemeFactoryTest.this.webClient(request -> Mono.just(ok(zaasResponse)), zaas1);
+        }
+
+        private void assertCacheHit(AbstractAuthSchemeFactory<?, ?, ?> factory, GatewayFilter filter, Consumer<HttpHeaders> forwardedHeaders) {
+            factory.setResponseCache(cache);
+
+            filter.filter(exchange(), chain).block(Duration.ofSeconds(10));
+            filter.filter(exchange(), chain).block(Duration.ofSeconds(10));
+
+            // the second request is served from the cache, the response has no headers then
+            assertEquals(1, zaasCalls.get());
+            assertEquals(2, forwarded.size());
+            forwarded.forEach(exchange -> {
+                HttpHeaders headers = exchange.getRequest().getHeaders();
+                forwardedHeaders.accept(headers);
+                assertFalse(headers.containsKey(ApimlConstants.AUTH_FAIL_HEADER));
+                assertFalse(exchange.getResponse().getHeaders().containsKey(ApimlConstants.AUTH_FAIL_HEADER));
+            });
+        }
+
+        @Test
+        void whenZosmfResponseIsCached_thenCookieIsSet() {
+            ZosmfFilterFactory factory = new ZosmfFilterFactory(webClient(ZOSMF_RESPONSE), instanceInfoService, null);
+
+            assertCacheHit(factory, filter(factory), headers ->
+                assertEquals("jwtToken=zosmfToken", headers.getFirst(HttpHeaders.COOKIE)));
+        }
+
+        @Test
+        void whenZoweResponseIsCached_thenCookieIsSet() {
+            ZoweFilterFactory factory = new ZoweFilterFactory(webClient("{\"cookieName\":\"apimlAuthenticationToken\",\"token\":\"zoweToken\"}"), instanceInfoService, null);
+
+            assertCacheHit(factory, filter(factory), headers ->
+                assertEquals("apimlAuthenticationToken=zoweToken", headers.getFirst(HttpHeaders.COOKIE)));
+        }
+
+        @Test
+        void whenSafIdtResponseIsCached_thenHeaderIsSet() {
+            SafIdtFilterFactory factory = new SafIdtFilterFactory(webClient("{\"headerName\":\"X-SAF-Token\",\"token\":\"safIdt\"}"), instanceInfoService, null);
+            SafIdtFilterFactory.Config config = new SafIdtFilterFactory.Config();
+            config.setServiceId("service");
+            config.setApplicationName("APPL");
+
+            assertCacheHit(factory, factory.apply(config), headers -> {
+                assertEquals("safIdt", headers.getFirst("X-SAF-Token"));
+                assertNull(headers.getFirst(HttpHeaders.COOKIE));
+            });
+        }
+
+        @Test
+        void whenPassticketResponseIsCached_thenAuthorizationIsSet() {
+            PassticketFilterFactory factory = new PassticketFilterFactory(webClient("{\"userId\":\"USER\",\"ticket\":\"PASSTICKET\",\"applicationName\":\"APPL\"}"), instanceInfoService, null);
+            PassticketFilterFactory.Config config = new PassticketFilterFactory.Config();
+            config.setServiceId("service");
+            config.setApplicationName("APPL");
+
+            String basic = "Basic " + Base64.getEncoder().encodeToString("USER:PASSTICKET".getBytes(StandardCharsets.UTF_8));
+            assertCacheHit(factory, factory.apply(config), headers -> {
+                assertEquals(basic, headers.getFirst(HttpHeaders.AUTHORIZATION));
+                assertNull(headers.getFirst(HttpHeaders.COOKIE));
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyAwareZaasInstanceSelectorTest {
+
+    private static final long MS = 1_000_000;
+
+    private final ServiceInstance zaas1 = new DefaultServiceInstance("zaas1", "zaas", "host1", 10023, true);
+    private final ServiceInstance zaas2 = new DefaultServiceInstance("zaas2", "zaas", "host2", 10023, true);
+    private final ServiceInstance zaas3 = new DefaultServiceInstance("zaas3", "zaas", "host3", 10023, true);
+    private final List<ServiceInstance> instances = List.of(zaas1, zaas2, zaas3);
+
+    private AtomicLong time;
+    private MeterRegistry meterRegistry;
+    private LatencyAwareZaasInstanceSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        time = new AtomicLong(1_000 * MS);
+        meterRegistry = new SimpleMeterRegistry();
+        selector = new LatencyAwareZaasInstanceSelector(2, Duration.ofSeconds(30), meterRegistry, time::get);
+    }
+
+    private List<ServiceInstance> order() {
+        List<ServiceInstance> output = new ArrayList<>();
+        Iterator<ServiceInstance> iterator = selector.getIterator(instances);
+        iterator.forEachRemaining(output::add);
+        return output;
+    }
+
+    private void call(ServiceInstance instance, long durationMs, boolean success) {
+        Mono<String> call = Mono.defer(() -> {
+            time.addAndGet(durationMs * MS);
+            return success ? Mono.just("ok") : Mono.empty();
+        });
+        selector.track(instance, call).block();
+    }
+
+    @Nested
+    class GivenLatencies {
+
+        @Test
+        void whenAllInstancesAreKnown_thenSlowestIsNeverPreferred() {
+            call(zaas1, 10, true);
+            call(zaas2, 500, true);
+            call(zaas3, 20, true);
+
+            for (int i = 0; i < 100; i++) {
+                List<ServiceInstance> order = order();
+                assertEquals(3, order.size());
+                assertEquals(zaas2, order.get(2));
+            }
+        }
+
+        @Test
+        void whenInstanceHasNoSample_thenItIsScoredByMeanOfOthers() {
+            call(zaas1, 10, true);
+            call(zaas2, 20, true);
+
+            for (int i = 0; i < 20; i++) {
+                List<ServiceInstance> order = order();
+                assertTrue(order.indexOf(zaas3) <= 1);
+                assertEquals(zaas2, order.get(2));
+            }
+        }
+
+        @Test
+        void whenSingleInstance_thenItIsReturned() {
+            Iterator<ServiceInstance> iterator = selector.getIterator(List.of(zaas1));
+            assertEquals(zaas1, iterator.next());
+        }
+
+    }
+
+    @Nested
+    class GivenFailures {
+
+        @Test
+        void whenFailuresReachLimit_thenInstanceIsEjected() {
+            call(zaas1, 10, true);
+            call(zaas2, 10, true);
+            call(zaas3, 1, false);
+            call(zaas3, 1, false);
+
+            for (int i = 0; i < 20; i++) {
+                assertEquals(zaas3, order().get(2));
+            }
+            assertEquals(1, meterRegistry.get(LatencyAwareZaasInstanceSelector.METRIC_PREFIX + "ejected").tag("instance", "zaas3").gauge().value());
+        }
+
+        @Test
+        void whenInstanceNeverSucceeded_thenItIsNotPreferred() {
+            call(zaas1, 10, true);
+            call(zaas2, 20, true);
+            call(zaas3, 1, false);
+
+            for (int i = 0; i < 100; i++) {
+                List<ServiceInstance> order = order();
+                assertNotEquals(zaas3, order.get(0));
+                assertEquals(zaas3, order.get(2));
+            }
+        }
+
+        @Test
+        void whenEjectionOfNeverSuccessfulInstanceExpires_thenItIsNotPreferred() {
+            call(zaas1, 10, true);
+            call(zaas2, 20, true);
+            call(zaas3, 1, false);
+            call(zaas3, 1, false);
+            time.addAndGet(31_000 * MS);
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(zaas3, order().get(2));
+            }
+        }
+
+        @Test
+        void whenEjectionExpires_thenInstanceIsAvailableAndEjectedOnFirstFailure() {
+            call(zaas3, 1, false);
+            call(zaas3, 1, false);
+            time.addAndGet(31_000 * MS);
+
+            assertEquals(0, meterRegistry.get(LatencyAwareZaasInstanceSelector.METRIC_PREFIX + "ejected").tag("instance", "zaas3").gauge().value());
+
+            call(zaas3, 1, false);
+            assertEquals(1, meterRegistry.get(LatencyAwareZaasInstanceSelector.METRIC_PREFIX + "ejected").tag("instance", "zaas3").gauge().value());
+        }
+
+        @Test
+        void whenSuccessAfterEjection_thenStateIsReset() {
+            call(zaas3, 1, false);
+            call(zaas3, 1, false);
+            time.addAndGet(31_000 * MS);
+            call(zaas3, 5, true);
+            call(zaas3, 1, false);
+
+            assertEquals(0, meterRegistry.get(LatencyAwareZaasInstanceSelector.METRIC_PREFIX + "ejected").tag("instance", "zaas3").gauge().value());
+        }
+
+    }
+
+    @Nested
+    class GivenInstanceLeft {
+
+        @Test
+        void thenItsStatisticsAndGaugesAreRemoved() {
+            call(zaas1, 10, true);
+            call(zaas2, 20, true);
+            call(zaas3, 30, true);
+
+            selector.getIterator(List.of(zaas1, zaas2));
+
+            assertFalse(selector.getStatistics().containsKey("zaas3"));
+            assertTrue(selector.getStatistics().containsKey("zaas1"));
+            assertNull(meterRegistry.find(LatencyAwareZaasInstanceSelector.METRIC_PREFIX + "latency").tag("instance", "zaas3").gauge());
+            assertEquals(10, meterRegistry.get(LatencyAwareZaasInstanceSelector.METRIC_PREFIX + "latency").tag("instance", "zaas1").gauge().value(), 0.001);
+        }
+
+    }
+
+    @Nested
+    class GivenTracking {
+
+        @Test
+        void whenCallIsInProgress_thenOutstandingIsCounted() {
+            var stats = selector.getStats(zaas1);
+            StepVerifier.create(selector.track(zaas1, Mono.never()))
+                .then(() -> assertEquals(1, stats.getOutstanding()))
+                .thenCancel()
+                .verify();
+
+            assertEquals(0, stats.getOutstanding());
+            assertEquals(0, stats.getErrorRate());
+        }
+
+        @Test
+        void whenCallSucceeds_thenLatencyIsRecorded() {
+            call(zaas1, 100, true);
+            call(zaas1, 200, true);
+
+            assertEquals(130, selector.getStats(zaas1).getLatencyNanos() / MS, 0.001);
+            assertEquals(130, meterRegistry.get(LatencyAwareZaasInstanceSelector.METRIC_PREFIX + "latency").tag("instance", "zaas1").gauge().value(), 0.001);
+        }
+
+    }
+
+}
@@ -51,6 +51,7 @@ import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -272,6 +273,35 @@ class DeterministicLoadBalancerTest {
                             .verify();
                     }
 
+                    @Nested
+                    class GivenConsistentHashingMode {
+
+                        private DeterministicLoadBalancer hashingLoadBalancer;
+
+                        @BeforeEach
+                        void setUp() {
+                            hashingLoadBalancer = new DeterministicLoadBalancer(delegate, factory, lbCache, clock, DEFAULT_EXPIRATION_HS, DeterministicLoadBalancer.Mode.CONSISTENT_HASHING);
+                        }
+
+                        @Test
+                        void whenRequest_thenInstanceIsSelectedWithoutCache() {
+                            var expectedInstanceId = RendezvousHashing.select("USER", defaultServiceInstancesList).getInstanceId();
+
+                            for (int i = 0; i < 3; i++) {
+                                StepVerifier.create(hashingLoadBalancer.get(request))
+                                    .assertNext(chosenInstances -> {
+                                        assertEquals(1, chosenInstances.size());
+                                        assertEquals(expectedInstanceId, chosenInstances.get(0).getInstanceId());
+                                    })
+                                    .expectComplete()
+                                    .verify();
+                            }
+
+                            verifyNoInteractions(lbCache);
+                        }
+
+                    }
+
                 }
 
             }
@@ -0,0 +1,116 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.loadbalancer;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RendezvousHashingTest {
+
+    private static final int USERS = 20_000;
+
+    private static ServiceInstance instance(int index) {
+        return new DefaultServiceInstance("service:" + index, "service", "host" + index, 10010, true);
+    }
+
+    private static List<ServiceInstance> instances(int count) {
+        return IntStream.range(0, count).mapToObj(RendezvousHashingTest::instance).toList();
+    }
+
+    private static Map<String, ServiceInstance> assign(List<ServiceInstance> instances) {
+        Map<String, ServiceInstance> output = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            String user = "USER" + i;
+            output.put(user, RendezvousHashing.select(user, instances));
+        }
+        return output;
+    }
+
+    @Nested
+    class GivenInstances {
+
+        @Test
+        void whenUsersAreDistributed_thenEachInstanceGetsFairShare() {
+            List<ServiceInstance> instances = instances(5);
+            Map<ServiceInstance, Integer> counts = new HashMap<>();
+            assign(instances).values().forEach(instance -> counts.merge(instance, 1, Integer::sum));
+
+            double expected = (double) USERS / instances.size();
+            assertEquals(instances.size(), counts.size());
+            counts.values().forEach(count ->
+                assertTrue(Math.abs(count - expected) < expected * 0.1, "Unbalanced distribution: " + counts)
+            );
+        }
+
+        @Test
+        void whenOrderOfInstancesIsDifferent_thenSelectionIsSame() {
+            List<ServiceInstance> instances = instances(4);
+            List<ServiceInstance> shuffled = new ArrayList<>(instances);
+            Collections.reverse(shuffled);
+
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(RendezvousHashing.select("USER" + i, instances), RendezvousHashing.select("USER" + i, shuffled));
+            }
+        }
+
+        @Test
+        void whenSingleInstance_thenItIsSelected() {
+            ServiceInstance instance = instance(0);
+            assertEquals(instance, RendezvousHashing.select("USER", List.of(instance)));
+        }
+
+    }
+
+    @Nested
+    class GivenChangeOfInstances {
+
+        @Test
+        void whenInstanceIsAdded_thenOnlyUsersMovedToNewInstanceAreChanged() {
+            Map<String, ServiceInstance> before = assign(instances(5));
+            List<ServiceInstance> extended = instances(6);
+            Map<String, ServiceInstance> after = assign(extended);
+
+            long moved = before.keySet().stream().filter(user -> !before.get(user).equals(after.get(user))).count();
+            before.keySet().stream()
+                .filter(user -> !before.get(user).equals(after.get(user)))
+                .forEach(user -> assertEquals(extended.get(5), after.get(user)));
+            // about 1/6 of users should be moved
+            assertTrue(moved > USERS * 0.13 && moved < USERS * 0.2, "Moved users: " + moved);
+        }
+
+        @Test
+        void whenInstanceIsRemoved_thenOnlyItsUsersAreMoved() {
+            List<ServiceInstance> instances = instances(5);
+            Map<String, ServiceInstance> before = assign(instances);
+            Map<String, ServiceInstance> after = assign(instances.subList(0, 4));
+
+            before.forEach((user, instance) -> {
+                if (!instance.equals(instances.get(4))) {
+                    assertEquals(instance, after.get(user));
+                }
+            });
+        }
+
+    }
+
+}
@@ -29,6 +29,10 @@
 # - ZWE_components_discovery_port - the port the discovery service will use
 # - ZWE_configs_heap_max
 # - ZWE_configs_heap_init
+# - ZWE_configs_apiml_cache_heap_entries
+# - ZWE_configs_apiml_cache_offHeap_sizeMB
+# - ZWE_configs_apiml_cache_profile
+# - ZWE_configs_apiml_cache_statistics_enabled
 # - ZWE_configs_apiml_security_auth_provider
 # - ZWE_configs_apiml_security_allowtokenrefresh
 # - ZWE_configs_apiml_security_auth_zosmf_jwtAutoconfiguration
@@ -38,8 +42,16 @@
 # - ZWE_configs_apiml_security_authorization_provider
 # - ZWE_configs_apiml_security_authorization_resourceClass
 # - ZWE_configs_apiml_security_authorization_resourceNamePrefix
+# - ZWE_configs_apiml_security_invalidation_distribution_retries
+# - ZWE_configs_apiml_security_invalidation_distribution_retryDelayMs
+# - ZWE_configs_apiml_security_invalidation_distribution_retryIntervalMs
+# - ZWE_configs_apiml_security_invalidation_distribution_threads
 # - ZWE_configs_apiml_security_jwtInitializerTimeout
+# - ZWE_configs_apiml_security_tokenReuse_enabled
+# - ZWE_configs_apiml_security_tokenReuse_refreshAheadSeconds
+# - ZWE_configs_apiml_security_tokenReuse_safetyMarginSeconds
 # - ZWE_configs_apiml_security_useInternalMapper
+# - ZWE_configs_apiml_security_personalAccessToken_revocation_maxStalenessMs
 # - ZWE_configs_apiml_security_x509_enabled
 # - ZWE_configs_apiml_security_x509_externalMapperUrl
 # - ZWE_configs_apiml_security_x509_externalMapperUser
@@ -302,6 +314,10 @@ _BPX_JOBNAME=${ZWE_zowe_job_prefix}${ZAAS_CODE} ${JAVA_BIN_DIR}java \
     -Dapiml.connection.timeToLive=${ZWE_configs_apiml_connection_timeToLive:-60000} \
     -Dapiml.connection.idleConnectionTimeoutSeconds=${ZWE_configs_apiml_connection_idleConnectionTimeoutSeconds:-5} \
     -Dapiml.cache.storage.location=${ZWE_zowe_workspaceDirectory}/api-mediation/${ZWE_haInstance_id:-localhost} \
+    -Dapiml.cache.profile=${ZWE_configs_apiml_cache_profile:-default} \
+    -Dapiml.cache.heap.entries=${ZWE_configs_apiml_cache_heap_entries:-10000} \
+    -Dapiml.cache.offHeap.sizeMB=${ZWE_configs_apiml_cache_offHeap_sizeMB:-0} \
+    -Dapiml.cache.statistics.enabled=${ZWE_configs_apiml_cache_statistics_enabled:-true} \
     -Dapiml.logs.location=${ZWE_zowe_logDirectory} \
     -Dapiml.security.ssl.verifySslCertificatesOfServices=${verifySslCertificatesOfServices:-true} \
     -Dapiml.security.ssl.nonStrictVerifySslCertificatesOfServices=${nonStrictVerifySslCertificatesOfServices:-false} \
@@ -309,6 +325,7 @@ _BPX_JOBNAME=${ZWE_zowe_job_prefix}${ZAAS_CODE} ${JAVA_BIN_DIR}java \
     -Dapiml.security.auth.provider=${ZWE_configs_apiml_security_auth_provider:-${ZWE_components_gateway_apiml_security_auth_provider:-zosmf}} \
     -Dapiml.security.auth.cookieProperties.cookieName=${cookieName:-apimlAuthenticationToken} \
     -Dapiml.security.personalAccessToken.enabled=${ZWE_configs_apiml_security_personalAccessToken_enabled:-${ZWE_components_gateway_apiml_security_personalAccessToken_enabled:-false}} \
+    -Dapiml.security.personalAccessToken.revocation.maxStalenessMs=${ZWE_configs_apiml_security_personalAccessToken_revocation_maxStalenessMs:-5000} \
     -Dapiml.zoweManifest=${ZWE_zowe_runtimeDirectory}/manifest.json \
     -Dserver.address=${ZWE_configs_zowe_network_server_listenAddresses_0:-${ZWE_zowe_network_server_listenAddresses_0:-"0.0.0.0"}} \
     -Dserver.ssl.enabled=${ZWE_configs_server_ssl_enabled:-true} \
@@ -352,6 +369,13 @@ _BPX_JOBNAME=${ZWE_zowe_job_prefix}${ZAAS_CODE} ${JAVA_BIN_DIR}java \
     -Dapiml.security.oidc.userInfo.uri=${ZWE_configs_apiml_security_oidc_userInfo_uri:-${ZWE_components_gateway_apiml_security_oidc_userInfo_uri:-}} \
     -Dapiml.security.oidc.validationType=${ZWE_configs_apiml_security_oidc_validationType:-${ZWE_components_gateway_apiml_security_oidc_validationType:-"JWK"}} \
     -Dapiml.security.allowTokenRefresh=${ZWE_configs_apiml_security_allowtokenrefresh:-${ZWE_components_gateway_apiml_security_allowtokenrefresh:-false}} \
+    -Dapiml.security.tokenReuse.enabled=${ZWE_configs_apiml_security_tokenReuse_enabled:-false} \
+    -Dapiml.security.tokenReuse.safetyMarginSeconds=${ZWE_configs_apiml_security_tokenReuse_safetyMarginSeconds:-60} \
+    -Dapiml.security.tokenReuse.refreshAheadSeconds=${ZWE_configs_apiml_security_tokenReuse_refreshAheadSeconds:-300} \
+    -Dapiml.security.invalidation.distribution.threads=${ZWE_configs_apiml_security_invalidation_distribution_threads:-4} \
+    -Dapiml.security.invalidation.distribution.retries=${ZWE_configs_apiml_security_invalidation_distribution_retries:-3} \
+    -Dapiml.security.invalidation.distribution.retryDelayMs=${ZWE_configs_apiml_security_invalidation_distribution_retryDelayMs:-500} \
+    -Dapiml.security.invalidation.distribution.retryIntervalMs=${ZWE_configs_apiml_security_invalidation_distribution_retryIntervalMs:-30000} \
     -Djava.protocol.handler.pkgs=com.ibm.crypto.provider \
     -Dloader.path=${ZAAS_LOADER_PATH} \
     -Djava.library.path=${LIBPATH} \
@@ -12,7 +12,9 @@ package org.zowe.apiml.zaas.cache;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -115,6 +117,29 @@ public class CachingServiceClient {
         }
     }
 
+    /**
+     * Reads the items of the map changed since the given version
+     *
+     * @param mapKey       the map key
+     * @param sinceVersion version of the map known by the client, 0 to read the whole map
+     * @return {@link MapChanges} with the current version of the map
+     * @throws CachingServiceClientException when http response from caching is not 2xx, ie. the storage does not support
+     *                                       the versions of the maps
+     */
+    public MapChanges readMapChanges(String mapKey, long sinceVersion) throws CachingServiceClientException {
+        try {
+            var url = getGatewayAddress() + CACHING_LIST_API_PATH + mapKey + "/changes?since=" + sinceVersion;
+            log.debug("readMapChanges url: {}", url);
+            var response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(null, defaultHeaders), MapChanges.class);
+            if (response.getStatusCode().is2xxSuccessful() && (response.getBody() != null)) {
+                return response.getBody();
+            }
+            throw new CachingServiceClientException("Unable to read changes of the map under " + mapKey + " key, caused by response from caching service is null or has no body");
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to read changes of the map under " + mapKey + " key, caused by: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Evict the non-relevant invalidated tokens by deleting the entries in the specified map
      *
@@ -207,4 +232,17 @@ public class CachingServiceClient {
         }
     }
 
+    /**
+     * Data POJO that represents changes of a map in caching service. If the flag full is set, the items are the whole
+     * map, otherwise just the items changed since the requested version.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MapChanges {
+        private long version;
+        private boolean full;
+        private Map<String, String> items;
+    }
+
 }
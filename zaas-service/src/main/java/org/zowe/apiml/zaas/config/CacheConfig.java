@@ -44,6 +44,7 @@ import org.zowe.apiml.product.gateway.GatewayClient;
 import org.zowe.apiml.security.common.token.TokenAuthentication;
 import org.zowe.apiml.util.CacheUtils;
 import org.zowe.apiml.zaas.cache.CachingServiceClient;
+import org.zowe.apiml.zaas.security.mapping.UserMappingKeyGenerator;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 
 import javax.cache.Caching;
@@ -63,6 +64,17 @@ public class CacheConfig {
 
     public static final String COMPOSITE_KEY_GENERATOR = "compositeKeyGenerator";
     public static final String COMPOSITE_KEY_GENERATOR_WITHOUT_LAST = "compositeKeyGeneratorWithoutLast";
+    public static final String USER_MAPPING_KEY_GENERATOR = "userMappingKeyGenerator";
+    /**
+     * The user mapping is cached only for the sources identified by {@link UserMappingKeyGenerator}
+     */
+    public static final String USER_MAPPING_CONDITION = "T(org.zowe.apiml.zaas.security.mapping.UserMappingKeyGenerator).hasKey(#root.target, #p0)";
+    public static final String CACHE_USER_MAPPING = "userMapping";
+
+    /**
+     * The validation caches are held only in the memory (heap and optionally off-heap), their size is set in entries
+     */
+    public static final String HEAP_CACHE_PROFILE = "heap";
 
     private static final String EHCACHE_STORAGE_ENV_PARAM_NAME = "ehcache.disk.store.dir";
     private static final String APIML_CACHE_STORAGE_LOCATION_ENV_PARAM_NAME = "apiml.cache.storage.location";
@@ -73,6 +85,18 @@ public class CacheConfig {
     @Value("${apiml.cache.storage.location:./ehcache}")
     private String cacheDirectory;
 
+    @Value("${apiml.cache.profile:default}")
+    private String cacheProfile;
+
+    @Value("${apiml.cache.heap.entries:10000}")
+    private long heapEntries;
+
+    @Value("${apiml.cache.offHeap.sizeMB:0}")
+    private long offHeapSizeMb;
+
+    @Value("${apiml.cache.statistics.enabled:true}")
+    private boolean statisticsEnabled;
+
     @PostConstruct
     public void afterPropertiesSet() {
         if (cacheEnabled) {
@@ -93,10 +117,15 @@ public class CacheConfig {
     @ConditionalOnProperty(value = "apiml.caching.enabled", havingValue = "true", matchIfMissing = true)
     public CacheManager cacheManager() {
         var caches = new HashMap<String, CacheConfiguration<?, ?>>();
+        boolean heapProfile = HEAP_CACHE_PROFILE.equalsIgnoreCase(cacheProfile);
+        log.debug("ZAAS uses the {} cache profile", heapProfile ? HEAP_CACHE_PROFILE : "default");
 
-        var invalidatedJwtTokensConf = CacheConfigurationBuilder.newCacheConfigurationBuilder(
+        var invalidatedJwtTokensBuilder = heapProfile ?
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Boolean.class, memoryResourcePools()) :
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(
                 String.class, Boolean.class, ResourcePoolsBuilder.newResourcePoolsBuilder().disk(10, MemoryUnit.MB).heap(1, MemoryUnit.MB)
-            ).withService(new OffHeapDiskStoreConfiguration("pool1", 1, 1))
+            ).withService(new OffHeapDiskStoreConfiguration("pool1", 1, 1));
+        var invalidatedJwtTokensConf = invalidatedJwtTokensBuilder
             .withKeyCopier(IdentityCopier.identityCopier())
             .withValueCopier(IdentityCopier.identityCopier())
             .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofDays(1)))
@@ -105,10 +134,12 @@ public class CacheConfig {
         caches.put("invalidatedJwtTokens", invalidatedJwtTokensConf);
 
         var validationJwtTokenConf = CacheConfigurationBuilder.newCacheConfigurationBuilder(
-                String.class, TokenAuthentication.class, ResourcePoolsBuilder.newResourcePoolsBuilder().heap(1000, EntryUnit.ENTRIES)
+                String.class, TokenAuthentication.class,
+                heapProfile ? memoryResourcePools() : ResourcePoolsBuilder.newResourcePoolsBuilder().heap(1000, EntryUnit.ENTRIES)
             )
             .withKeyCopier(IdentityCopier.identityCopier())
-            .withValueCopier(SerializingCopier.asCopierClass())
+            .withValueCopier(new TokenAuthenticationCopier())
+            .withValueSerializer(new TokenAuthenticationSerializer())
             .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofDays(1))).build();
         caches.put("validationJwtToken", validationJwtTokenConf);
 
@@ -160,6 +191,15 @@ public class CacheConfig {
             .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofHours(1))).build();
         caches.put("trustedCertificates", trustedCertificatesConf);
 
+        // the missing mappings are cached too, the short expiration limits how long a new mapping is not visible
+        var userMappingConf = CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                Object.class, Object.class, ResourcePoolsBuilder.newResourcePoolsBuilder().heap(1000, EntryUnit.ENTRIES)
+            )
+            .withKeyCopier(IdentityCopier.identityCopier())
+            .withValueCopier(IdentityCopier.identityCopier())
+            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofMinutes(1))).build();
+        caches.put(CACHE_USER_MAPPING, userMappingConf);
+
         EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider("org.ehcache.jsr107.EhcacheCachingProvider");
         var serviceProvider = new OffHeapDiskStoreProviderConfiguration("pool1");
         var localPersStore = new DefaultPersistenceConfiguration(new File(cacheDirectory));
@@ -167,10 +207,22 @@ public class CacheConfig {
         org.ehcache.config.Configuration configuration = new DefaultConfiguration(caches, provider.getDefaultClassLoader(), serviceProvider, localPersStore);
 
         var cacheManager = provider.getCacheManager(provider.getDefaultURI(), configuration);
+        if (statisticsEnabled) {
+            // the statistics are read by the Micrometer metrics of the caches
+            caches.keySet().forEach(cacheName -> cacheManager.enableStatistics(cacheName, true));
+        }
 
         return new JCacheCacheManager(cacheManager);
     }
 
+    private ResourcePoolsBuilder memoryResourcePools() {
+        var resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder().heap(heapEntries, EntryUnit.ENTRIES);
+        if (offHeapSizeMb > 0) {
+            resourcePools = resourcePools.offheap(offHeapSizeMb, MemoryUnit.MB);
+        }
+        return resourcePools;
+    }
+
 
     @ConditionalOnProperty(value = "apiml.caching.enabled", havingValue = "false")
     @Bean("cacheManager")
@@ -188,6 +240,11 @@ public class CacheConfig {
         return new CompositeKeyGeneratorWithoutLast();
     }
 
+    @Bean(CacheConfig.USER_MAPPING_KEY_GENERATOR)
+    public KeyGenerator getUserMappingKeyGenerator() {
+        return new UserMappingKeyGenerator();
+    }
+
     @Bean
     public CacheUtils cacheUtils() {
         return new CacheUtils();
@@ -0,0 +1,34 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.config;
+
+import org.ehcache.impl.copy.ReadWriteCopier;
+import org.zowe.apiml.security.common.token.TokenAuthentication;
+
+/**
+ * Copier of the cached results of the token validation. The cache cannot return the stored instance, because
+ * {@link TokenAuthentication} is mutable and it is put into the security context. The copy contains all fields set by
+ * the validation, it is much cheaper than the Java serialization.
+ */
+class TokenAuthenticationCopier extends ReadWriteCopier<TokenAuthentication> {
+
+    @Override
+    public TokenAuthentication copy(TokenAuthentication tokenAuthentication) {
+        if (tokenAuthentication == null) {
+            return null;
+        }
+
+        TokenAuthentication copy = new TokenAuthentication(tokenAuthentication.getPrincipal(), tokenAuthentication.getCredentials());
+        copy.setAuthenticated(tokenAuthentication.isAuthenticated());
+        return copy;
+    }
+
+}
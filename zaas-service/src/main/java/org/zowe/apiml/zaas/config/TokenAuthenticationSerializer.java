@@ -0,0 +1,91 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.config;
+
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+import org.zowe.apiml.security.common.token.TokenAuthentication;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary form of the cached results of the token validation in the off-heap tier. The record contains only the flag of
+ * the authentication, the username and the token: {@code [byte authenticated][int length][username][int length][token]},
+ * the length -1 stands for null.
+ */
+class TokenAuthenticationSerializer implements Serializer<TokenAuthentication> {
+
+    @Override
+    public ByteBuffer serialize(TokenAuthentication tokenAuthentication) {
+        byte[] username = encode(tokenAuthentication.getPrincipal());
+        byte[] token = encode(tokenAuthentication.getCredentials());
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + size(username) + size(token));
+        buffer.put((byte) (tokenAuthentication.isAuthenticated() ? 1 : 0));
+        put(buffer, username);
+        put(buffer, token);
+        return buffer.flip();
+    }
+
+    @Override
+    public TokenAuthentication read(ByteBuffer binary) {
+        try {
+            boolean authenticated = binary.get() != 0;
+            String username = get(binary);
+            String token = get(binary);
+
+            TokenAuthentication tokenAuthentication = new TokenAuthentication(username, token);
+            tokenAuthentication.setAuthenticated(authenticated);
+            return tokenAuthentication;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new SerializerException("Invalid record of the token validation", e);
+        }
+    }
+
+    @Override
+    public boolean equals(TokenAuthentication tokenAuthentication, ByteBuffer binary) {
+        TokenAuthentication stored = read(binary);
+        return (stored.isAuthenticated() == tokenAuthentication.isAuthenticated()) && stored.equals(tokenAuthentication);
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void put(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String get(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+}
@@ -10,7 +10,10 @@
 
 package org.zowe.apiml.zaas.controllers;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.nimbusds.jose.JOSEException;
@@ -81,15 +84,18 @@ public class AuthController {
 
     private static final String TOKEN_KEY = "token";
     private static final ObjectWriter writer = new ObjectMapper().writer();
+    private static final JsonFactory jsonFactory = new JsonFactory();
 
     public static final String CONTROLLER_PATH = "/zaas/api/v1/auth";  // NOSONAR: URL is always using / to separate path segments
     public static final String INVALIDATE_PATH = "/invalidate/**";  // NOSONAR
+    public static final String INVALIDATE_BATCH_PATH = "/invalidate/batch";  // NOSONAR
     public static final String DISTRIBUTE_PATH = "/distribute/**";  // NOSONAR
     public static final String PUBLIC_KEYS_PATH = "/keys/public";  // NOSONAR
     public static final String ACCESS_TOKEN_REVOKE = "/access-token/revoke"; // NOSONAR
     public static final String ACCESS_TOKEN_REVOKE_MULTIPLE = "/access-token/revoke/tokens"; // NOSONAR
     public static final String ACCESS_TOKEN_VALIDATE = "/access-token/validate"; // NOSONAR
     public static final String ACCESS_TOKEN_EVICT = "/access-token/evict"; // NOSONAR
+    public static final String USER_MAPPING_EVICT = "/user-mapping/evict";
     public static final String ALL_PUBLIC_KEYS_PATH = PUBLIC_KEYS_PATH + "/all";
     public static final String CURRENT_PUBLIC_KEYS_PATH = PUBLIC_KEYS_PATH + "/current";
     public static final String OIDC_TOKEN_VALIDATE = "/oidc-token/validate"; // NOSONAR
@@ -123,6 +129,37 @@ public class AuthController {
         }
     }
 
+    @PostMapping(path = INVALIDATE_BATCH_PATH, consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Hidden
+    @Operation(summary = "Logout JWT tokens invalidated on another instance.",
+        tags = {"Security"},
+        operationId = "invalidateJwtTokens",
+        description = "Use the `/auth/invalidate/batch` API to mark the JSON array of tokens as invalidated on specific instance of Gateway.",
+        security = {
+            @SecurityRequirement(name = "ClientCert")
+    })
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Successfully invalidated"),
+        @ApiResponse(responseCode = "400", description = "The body is not an array of tokens")
+    })
+    public void invalidateJwtTokens(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // the body is read as a stream, the whole set of the invalidated tokens could be sent at once
+        try (JsonParser parser = jsonFactory.createParser(request.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                response.setStatus(SC_BAD_REQUEST);
+                return;
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.VALUE_STRING) {
+                authenticationService.markInvalidated(parser.getText());
+            }
+            response.setStatus(token == JsonToken.END_ARRAY ? SC_NO_CONTENT : SC_BAD_REQUEST);
+        } catch (JsonProcessingException e) {
+            response.setStatus(SC_BAD_REQUEST);
+        }
+    }
+
     @DeleteMapping(path = ACCESS_TOKEN_REVOKE)
     @ResponseBody
     @Operation(summary = "Invalidate personal access token.",
@@ -284,6 +321,28 @@ public class AuthController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @DeleteMapping(value = USER_MAPPING_EVICT)
+    @Operation(summary = "Remove the cached results of the mapping of the identities to the mainframe user IDs.",
+        tags = {"Security"},
+        description = "Will evict all the cached results of the user mapping, so the next mapping of each certificate or distributed ID is resolved again. Use it after the mapping was changed in the ESM.\n\n**Request:**\n\nThe evict requires the user credentials in one of the following formats:\n\n* Basic authentication\n* Client certificate  \n\n**Response:**\n\nThe response is no content.",
+        operationId = "userMappingEvictDELETE",
+        security = {
+            @SecurityRequirement(name = "Bearer"),
+            @SecurityRequirement(name = "CookieAuth"),
+            @SecurityRequirement(name = "LoginBasicAuth"),
+            @SecurityRequirement(name = "ClientCert")
+        }
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Successfully evicted")
+    })
+    @ResponseBody
+    @PreAuthorize("@safMethodSecurityExpressionRoot.hasSafServiceResourceAccess('SERVICES', 'UPDATE',#root)")
+    public ResponseEntity<Void> evictUserMapping() {
+        authenticationService.evictUserMapping();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
     @PostMapping(path = ACCESS_TOKEN_VALIDATE)
     @ResponseBody
     @Operation(summary = "Validate personal access token.",
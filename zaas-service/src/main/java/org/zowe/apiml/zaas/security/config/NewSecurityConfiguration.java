@@ -256,7 +256,8 @@ public class NewSecurityConfiguration {
             public SecurityFilterChain authProtectedEndpointsFilterChain(HttpSecurity http) throws Exception {
                 baseConfigure(http.securityMatchers(matchers -> matchers.requestMatchers( // no http method to catch all attempts to login and handle them here. Otherwise it falls to default filterchain and tries to route the calls, which doesnt make sense
                         authConfigurationProperties.getZaasRevokeMultipleAccessTokens() + "/**",
-                        authConfigurationProperties.getZaasEvictAccessTokensAndRules()
+                        authConfigurationProperties.getZaasEvictAccessTokensAndRules(),
+                        authConfigurationProperties.getZaasEvictUserMapping()
                 )))
                         .authorizeHttpRequests(requests -> requests
                                 .anyRequest().authenticated())
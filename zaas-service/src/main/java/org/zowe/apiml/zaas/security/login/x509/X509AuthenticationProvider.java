@@ -65,7 +65,7 @@ public class X509AuthenticationProvider implements AuthenticationProvider {
                 return null;
             }
             log.debug("Successfully mapped user to certificate: {}", username);
-            String jwtToken = tokenCreationService.createJwtTokenWithoutCredentials(username);
+            String jwtToken = tokenCreationService.createNewJwtTokenWithoutCredentials(username);
             Authentication tokenAuthentication = new TokenAuthentication(username, jwtToken);
             tokenAuthentication.setAuthenticated(true);
             log.debug("Successfully authenticated user {} by X509 certificate.", username);
@@ -11,8 +11,10 @@
 package org.zowe.apiml.zaas.security.mapping;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
@@ -20,7 +22,9 @@ import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.message.BasicHeader;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationContext;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -29,11 +33,13 @@ import org.zowe.apiml.product.logging.annotations.InjectApimlLogger;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 import org.zowe.apiml.zaas.security.mapping.model.MapperResponse;
 import org.zowe.apiml.zaas.security.service.TokenCreationService;
+import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
 
 /**
  * Common implementation of an external mapper to call identity mapping API in the ZSS on mainframe.
@@ -51,17 +57,59 @@ public abstract class ExternalMapper {
     private final AuthConfigurationProperties authConfigurationProperties;
     protected static final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * The result of the mapping is not cached if the mapper did not answer, see {@link MappingResult#isUnavailable()}
+     */
+    static final String UNLESS_MAPPER_UNAVAILABLE = "#result == null || #result.unavailable";
+
     @InjectApimlLogger
     protected ApimlLogger apimlLog = ApimlLogger.empty();
 
-    MapperResponse callExternalMapper(@NotNull HttpEntity payload) {
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    // to force calling inside methods with aspects - ie. the cache of the mapping
+    private ExternalMapper meAsProxy;
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        meAsProxy = applicationContext.getBean(getClass());
+    }
+
+    /**
+     * Maps the authentication source to the mainframe user id. The result is cached by the implementation.
+     *
+     * @param authSource source to map
+     * @return the result of the mapping, it is never null
+     */
+    public abstract MappingResult map(AuthSource authSource);
+
+    /**
+     * Maps the authentication source to the mainframe user id, see {@link #map(AuthSource)}.
+     *
+     * @param authSource source to map
+     * @return the user id or null if there is no mapping or the mapper is not available
+     */
+    public String mapToMainframeUserId(AuthSource authSource) {
+        return meAsProxy.map(authSource).getUserId();
+    }
+
+    /**
+     * Call the mapper with the payload.
+     *
+     * @param payload      the request of mapping
+     * @param userIdMapper function to get the user id from the answer of the mapper
+     * @return the user id returned by the function (null if the mapper answered without any content), or
+     * {@link MappingResult#UNAVAILABLE} if the mapper did not answer (it was not reachable, or it failed)
+     */
+    MappingResult callExternalMapper(@NotNull HttpEntity payload, Function<MapperResponse, String> userIdMapper) {
         if (StringUtils.isBlank(mapperUrl)) {
             log.warn("Configuration error: External identity mapper URL is not set.");
-            return null;
+            return MappingResult.of(null);
         }
         if (StringUtils.isBlank(mapperUser)) {
             log.warn("Configuration error: External identity mapper user is not set.");
-            return null;
+            return MappingResult.of(null);
         }
         try {
             HttpPost httpPost = new HttpPost(new URI(mapperUrl));
@@ -90,16 +138,38 @@ public abstract class ExternalMapper {
                 return null;
             });
 
+            if (response == null) {
+                return MappingResult.UNAVAILABLE;
+            }
             if (StringUtils.isNotEmpty(response)) {
-                return objectMapper.readValue(response, MapperResponse.class);
+                return MappingResult.of(userIdMapper.apply(objectMapper.readValue(response, MapperResponse.class)));
             }
+            return MappingResult.of(null);
         } catch (IOException e) {
             apimlLog.log("org.zowe.apiml.zaas.security.InvalidMappingResponse", e);
         } catch (URISyntaxException e) {
             apimlLog.log("org.zowe.apiml.zaas.security.InvalidMapperUrl", e);
         }
 
-        return null;
+        return MappingResult.UNAVAILABLE;
+    }
+
+    /**
+     * The result of the mapping. The null user id does not mean that the user has no mapping if the mapper did not
+     * answer, such a result must not be cached.
+     */
+    @Value
+    public static class MappingResult {
+
+        public static final MappingResult UNAVAILABLE = new MappingResult(null, true);
+
+        String userId;
+        boolean unavailable;
+
+        public static MappingResult of(String userId) {
+            return new MappingResult(userId, false);
+        }
+
     }
 
 }
@@ -18,12 +18,13 @@ import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
 import org.zowe.apiml.message.core.MessageType;
 import org.zowe.apiml.message.log.ApimlLogger;
 import org.zowe.apiml.product.logging.annotations.InjectApimlLogger;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
-import org.zowe.apiml.zaas.security.mapping.model.MapperResponse;
+import org.zowe.apiml.zaas.config.CacheConfig;
 import org.zowe.apiml.zaas.security.mapping.model.OIDCRequest;
 import org.zowe.apiml.zaas.security.service.TokenCreationService;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
@@ -59,15 +60,18 @@ public class OIDCExternalMapper extends ExternalMapper implements Authentication
         super(mapperUrl, mapperUser, secureHttpClientWithoutKeystore, tokenCreationService, authConfigurationProperties);
     }
 
-    public String mapToMainframeUserId(AuthSource authSource) {
+    @Cacheable(value = CacheConfig.CACHE_USER_MAPPING, keyGenerator = CacheConfig.USER_MAPPING_KEY_GENERATOR,
+        condition = CacheConfig.USER_MAPPING_CONDITION, unless = UNLESS_MAPPER_UNAVAILABLE)
+    @Override
+    public MappingResult map(AuthSource authSource) {
         if (isConfigError) {
             apimlLog.log("org.zowe.apiml.security.common.OIDCConfigError");
-            return null;
+            return MappingResult.of(null);
         }
 
         if (!(authSource instanceof OIDCAuthSource)) {
             apimlLog.log(MessageType.DEBUG,"The used authentication source type is {} and not OIDC", authSource.getType());
-            return null;
+            return MappingResult.of(null);
         }
 
         final String distributedId = ((OIDCAuthSource) authSource).getDistributedId();
@@ -75,25 +79,25 @@ public class OIDCExternalMapper extends ExternalMapper implements Authentication
             apimlLog.log(OIDC_FAILED_MESSAGE_KEY,
                 "OIDC token is missing the distributed ID. Make sure your distributed identity provider is" +
                     " properly configured.");
-            return null;
+            return MappingResult.of(null);
         }
         OIDCRequest oidcRequest = new OIDCRequest(distributedId, registry);
         try {
             StringEntity payload = new StringEntity(objectMapper.writeValueAsString(oidcRequest));
-            MapperResponse mapperResponse = callExternalMapper(payload);
-
-            if (mapperResponse != null && mapperResponse.isOIDCResultValid()) {
-                String userId = mapperResponse.getUserId().trim();
-                return StringUtils.isNotEmpty(userId) ? userId : null;
-            }
-
+            return callExternalMapper(payload, mapperResponse -> {
+                if (mapperResponse.isOIDCResultValid()) {
+                    String userId = mapperResponse.getUserId().trim();
+                    return StringUtils.isNotEmpty(userId) ? userId : null;
+                }
+                return null;
+            });
         } catch (JsonProcessingException e) {
             apimlLog.log("org.zowe.apiml.security.common.OIDCMappingError",
                 "Unable to generate JSON payload for identity mapping request",
                 e.getMessage());
         }
 
-        return null;
+        return MappingResult.of(null);
     }
 
 }
@@ -14,7 +14,9 @@ import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
+import org.zowe.apiml.zaas.config.CacheConfig;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 import org.zowe.apiml.zaas.security.service.schema.source.OIDCAuthSource;
 import org.zowe.apiml.message.core.MessageType;
@@ -49,6 +51,8 @@ public class OIDCNativeMapper implements AuthenticationMapper {
         }
     }
 
+    @Cacheable(value = CacheConfig.CACHE_USER_MAPPING, keyGenerator = CacheConfig.USER_MAPPING_KEY_GENERATOR,
+        condition = CacheConfig.USER_MAPPING_CONDITION)
     @Override
     public String mapToMainframeUserId(AuthSource authSource) {
         if (isConfigError) {
@@ -0,0 +1,85 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.mapping;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.zowe.apiml.zaas.security.service.schema.source.OIDCAuthSource;
+import org.zowe.apiml.zaas.security.service.schema.source.X509AuthSource;
+
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.HexFormat;
+
+/**
+ * Key of the cached results of {@link AuthenticationMapper}. A certificate is identified by its SHA-256 fingerprint,
+ * an OIDC identity by the distributed ID and the registry. There is no key for any other source, the result for such
+ * a source is not cached (see {@link org.zowe.apiml.zaas.config.CacheConfig#USER_MAPPING_CONDITION}).
+ */
+@Slf4j
+public class UserMappingKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        Object key = key(target, params.length > 0 ? params[0] : null);
+        if (key == null) {
+            throw new IllegalStateException("There is no key of the user mapping, the caching has to be skipped by the condition");
+        }
+        return key;
+    }
+
+    /**
+     * @param target     the mapper
+     * @param authSource source to map
+     * @return true if the result of the mapping can be cached
+     */
+    public static boolean hasKey(Object target, Object authSource) {
+        return key(target, authSource) != null;
+    }
+
+    private static Object key(Object target, Object authSource) {
+        if (authSource instanceof X509AuthSource x509AuthSource && (x509AuthSource.getRawSource() != null)) {
+            String fingerprint = fingerprint(x509AuthSource.getRawSource());
+            if (fingerprint != null) {
+                return new SimpleKey(X509AuthSource.type, fingerprint);
+            }
+        }
+        if (authSource instanceof OIDCAuthSource oidcAuthSource && (oidcAuthSource.getDistributedId() != null)) {
+            return new SimpleKey(OIDCAuthSource.type, oidcAuthSource.getDistributedId(), registry(target));
+        }
+        return null;
+    }
+
+    private static String fingerprint(X509Certificate certificate) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(certificate.getEncoded()));
+        } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+            log.debug("Cannot compute fingerprint of the certificate", e);
+            return null;
+        }
+    }
+
+    private static String registry(Object mapper) {
+        if (mapper instanceof OIDCNativeMapper nativeMapper) {
+            return nativeMapper.registry;
+        }
+        if (mapper instanceof OIDCExternalMapper externalMapper) {
+            return externalMapper.registry;
+        }
+        return null;
+    }
+
+}
@@ -18,8 +18,9 @@ import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
-import org.zowe.apiml.zaas.security.mapping.model.MapperResponse;
+import org.zowe.apiml.zaas.config.CacheConfig;
 import org.zowe.apiml.zaas.security.service.TokenCreationService;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 import org.zowe.apiml.zaas.security.service.schema.source.X509AuthSource;
@@ -52,19 +53,18 @@ public class X509ExternalMapper extends ExternalMapper implements Authentication
      * Maps certificate to the mainframe user id.
      *
      * @param authSource Certificate to get mapping for.
-     * @return the user id or null if there is either no mapping or problem with certificate
+     * @return the result of the mapping, the user id is null if there is either no mapping or problem with certificate
      */
+    @Cacheable(value = CacheConfig.CACHE_USER_MAPPING, keyGenerator = CacheConfig.USER_MAPPING_KEY_GENERATOR,
+        condition = CacheConfig.USER_MAPPING_CONDITION, unless = UNLESS_MAPPER_UNAVAILABLE)
     @Override
-    public String mapToMainframeUserId(AuthSource authSource) {
+    public MappingResult map(AuthSource authSource) {
         if (authSource instanceof X509AuthSource) {
             X509Certificate certificate = (X509Certificate) authSource.getRawSource();
             if (certificate != null) {
                 try {
                     HttpEntity payload = new ByteArrayEntity(certificate.getEncoded(), ContentType.TEXT_PLAIN);
-                    MapperResponse mapperResponse = callExternalMapper(payload);
-                    if (mapperResponse != null) {
-                        return mapperResponse.getUserId().trim();
-                    }
+                    return callExternalMapper(payload, mapperResponse -> mapperResponse.getUserId().trim());
                 } catch (CertificateEncodingException e) {
                     log.error("Can`t get encoded data from certificate", e);
                 }
@@ -74,7 +74,7 @@ public class X509ExternalMapper extends ExternalMapper implements Authentication
         } else {
             log.debug("The used authentication source type is {} and not X509", authSource.getType());
         }
-        return null;
+        return MappingResult.of(null);
     }
 
 }
@@ -14,7 +14,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
+import org.zowe.apiml.zaas.config.CacheConfig;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 import org.zowe.apiml.zaas.security.service.schema.source.X509AuthSource;
 import org.zowe.commons.usermap.CertificateResponse;
@@ -30,6 +32,8 @@ public class X509NativeMapper implements AuthenticationMapper {
 
     private final NativeMapperWrapper nativeMapper;
 
+    @Cacheable(value = CacheConfig.CACHE_USER_MAPPING, keyGenerator = CacheConfig.USER_MAPPING_KEY_GENERATOR,
+        condition = CacheConfig.USER_MAPPING_CONDITION)
     @Override
     public String mapToMainframeUserId(AuthSource authSource) {
         if (authSource instanceof X509AuthSource) {
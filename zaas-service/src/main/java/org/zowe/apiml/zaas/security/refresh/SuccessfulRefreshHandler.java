@@ -46,7 +46,7 @@ public class SuccessfulRefreshHandler implements AuthenticationSuccessHandler {
             TokenAuthentication tokenAuth = (TokenAuthentication) authentication;
 
             authenticationService.invalidateJwtToken(tokenAuth.getCredentials(), true);
-            String jwtToken = tokenCreationService.createJwtTokenWithoutCredentials(tokenAuth.getPrincipal());
+            String jwtToken = tokenCreationService.createNewJwtTokenWithoutCredentials(tokenAuth.getPrincipal());
             setCookie(jwtToken, response);
         }
         response.setStatus(HttpStatus.NO_CONTENT.value());
@@ -10,6 +10,8 @@
 
 package org.zowe.apiml.zaas.security.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.EurekaClient;
 import com.netflix.discovery.shared.Application;
@@ -36,15 +38,13 @@ import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.constants.ApimlConstants;
 import org.zowe.apiml.product.constants.CoreService;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 import org.zowe.apiml.security.common.token.*;
 import org.zowe.apiml.util.CacheUtils;
-import org.zowe.apiml.util.EurekaUtils;
-import org.zowe.apiml.zaas.controllers.AuthController;
+import org.zowe.apiml.util.HashUtils;
+import org.zowe.apiml.zaas.config.CacheConfig;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 import org.zowe.apiml.zaas.security.service.zosmf.ZosmfService;
 
@@ -72,18 +72,24 @@ public class AuthenticationService {
     private static final String CACHE_VALIDATION_JWT_TOKEN = "validationJwtToken";
     private static final String CACHE_INVALIDATED_JWT_TOKENS = "invalidatedJwtTokens";
 
+    static final int PARSED_TOKENS_SIZE = 10_000;
+
     private final ApplicationContext applicationContext;
     private final AuthConfigurationProperties authConfigurationProperties;
     private final JwtSecurity jwtSecurityInitializer;
     private final ZosmfService zosmfService;
     private final EurekaClient eurekaClient;
-    private final RestTemplate restTemplate;
+    private final TokenInvalidationDistributor tokenInvalidationDistributor;
     private final CacheManager cacheManager;
     private final CacheUtils cacheUtils;
 
     // to force calling inside methods with aspects - ie. ehCache aspect
     private AuthenticationService meAsProxy;
 
+    // claims of the recently used tokens by the hash of the token, so each token is decoded and its signature verified
+    // only once, and the tokens are not held in the memory
+    private final Cache<String, ParsedToken> parsedTokens = Caffeine.newBuilder().maximumSize(PARSED_TOKENS_SIZE).build();
+
     @PostConstruct
     public void afterPropertiesSet() {
         meAsProxy = applicationContext.getBean(AuthenticationService.class);
@@ -129,20 +135,54 @@ public class AuthenticationService {
             .signWith(jwtSecurityInitializer.getJwtSecret(), jwtSecurityInitializer.getSignatureAlgorithm()).compact();
     }
 
-    @SuppressWarnings("java:S5659") // It is checking the signature securely - https://github.com/zowe/api-layer/issues/3191
     public QueryResponse parseJwtWithSignature(String jwt) throws SignatureException {
+        return getParsedToken(jwt, true).toQueryResponse();
+    }
+
+    @SuppressWarnings("java:S5659") // It is checking the signature securely - https://github.com/zowe/api-layer/issues/3191
+    private Claims parseJwtClaimsWithSignature(String jwt) {
         try {
             Jwt<JwsHeader, Claims> parsedJwt = (Jwt<JwsHeader, Claims>) Jwts.parser()
                 .verifyWith(jwtSecurityInitializer.getJwtPublicKey())
                 .build()
                 .parse(jwt);
 
-            return parseQueryResponse(parsedJwt.getPayload());
+            return parsedJwt.getPayload();
         } catch (RuntimeException exception) {
             throw handleJwtParserException(exception);
         }
     }
 
+    /**
+     * Returns the claims of the token. The claims are cached, so the token is decoded, and its signature verified, only
+     * once. The expiration is checked on each call.
+     *
+     * @param jwt             the JWT token
+     * @param verifySignature true if the signature has to be verified with the APIML key
+     * @return the claims of the token
+     * @throws TokenExpireException   if the token is expired
+     * @throws TokenNotValidException if the token is not valid
+     */
+    private ParsedToken getParsedToken(String jwt, boolean verifySignature) {
+        String key = jwt == null ? null : HashUtils.sha256(jwt);
+        ParsedToken parsedToken = key == null ? null : parsedTokens.getIfPresent(key);
+        if ((parsedToken != null) && (parsedToken.signatureVerified() || !verifySignature)) {
+            if (parsedToken.isExpired()) {
+                log.debug("Token for user '{}' is expired.", parsedToken.userId());
+                throw new TokenExpireException("Token is expired.");
+            }
+            return parsedToken;
+        }
+
+        Claims claims = verifySignature ? parseJwtClaimsWithSignature(jwt) : getJwtClaims(jwt);
+        parsedToken = new ParsedToken(parseQueryResponse(claims), claims.get(LTPA_CLAIM_NAME, String.class), verifySignature);
+        if (claims.getNotBefore() == null) {
+            // the token not valid yet is parsed again to check the time
+            parsedTokens.put(key, parsedToken);
+        }
+        return parsedToken;
+    }
+
     /**
      * Method will invalidate jwtToken. It could be called from two reasons:
      * - on logout phase (distribute = true)
@@ -198,18 +238,25 @@ public class AuthenticationService {
         }
 
         final String myInstanceId = eurekaClient.getApplicationInfoManager().getInfo().getInstanceId();
-        for (final InstanceInfo instanceInfo : application.getInstances()) {
-            if (StringUtils.equals(myInstanceId, instanceInfo.getInstanceId())) continue;
-
-            final String url = EurekaUtils.getUrl(instanceInfo) + AuthController.CONTROLLER_PATH + "/invalidate/" + jwtToken;
-            try {
-                restTemplate.delete(url);
-            } catch (HttpClientErrorException e) {
-                log.debug("Problem invalidating token on another instance url " + url, e);
-            }
+        final List<InstanceInfo> otherInstances = application.getInstances().stream()
+            .filter(instanceInfo -> !StringUtils.equals(myInstanceId, instanceInfo.getInstanceId()))
+            .toList();
+        // the logout does not wait for the other instances, the token is sent to them in the background
+        tokenInvalidationDistributor.distribute(otherInstances, jwtToken);
 
-        }
+        return Boolean.TRUE;
+    }
 
+    /**
+     * Marks the token as invalidated on this instance only. It is used for the tokens distributed by another instance
+     * of ZAAS, which has already invalidated them in z/OSMF.
+     *
+     * @param jwtToken token invalidated by another instance
+     * @return always true
+     */
+    @CacheEvict(value = CACHE_VALIDATION_JWT_TOKEN, key = "#jwtToken")
+    @Cacheable(value = CACHE_INVALIDATED_JWT_TOKENS, key = "#jwtToken", condition = "#jwtToken != null")
+    public Boolean markInvalidated(String jwtToken) {
         return Boolean.TRUE;
     }
 
@@ -225,18 +272,6 @@ public class AuthenticationService {
     }
 
 
-    private Claims validateAndParseLocalJwtToken(String jwtToken) {
-        try {
-            return Jwts.parser()
-                .verifyWith(jwtSecurityInitializer.getJwtPublicKey())
-                .build()
-                .parseSignedClaims(jwtToken)
-                .getPayload();
-        } catch (RuntimeException exception) {
-            throw handleJwtParserException(exception);
-        }
-    }
-
     /**
      * Method validate if jwtToken is valid or not. This method contains two types of verification:
      * - Zowe
@@ -258,7 +293,7 @@ public class AuthenticationService {
         boolean isValid;
         switch (queryResponse.getSource()) {
             case ZOWE:
-                validateAndParseLocalJwtToken(jwtToken);
+                getParsedToken(jwtToken, true);
                 isValid = true;
                 break;
             case ZOSMF:
@@ -295,8 +330,8 @@ public class AuthenticationService {
 
     /**
      * This method get all invalidated JWT token in the cache and distributes them to instance of ZAAS with name
-     * in argument toInstanceId. If instance cannot be find it return false. A notification can throw an runtime
-     * exception. In all other cases all invalidated token are distributed and method returns true.
+     * in argument toInstanceId. The tokens are sent in a single request. If instance cannot be find it return false.
+     * A notification can throw an runtime exception. In all other cases all invalidated token are distributed and method returns true.
      *
      * @param toInstanceId instanceId of ZAAS where invalidated JWT token should be sent
      * @return true if all token were sent, otherwise false
@@ -308,16 +343,21 @@ public class AuthenticationService {
         final InstanceInfo instanceInfo = application.getByInstanceId(toInstanceId);
         if (instanceInfo == null) return false;
 
-        final String url = EurekaUtils.getUrl(instanceInfo) + AuthController.CONTROLLER_PATH + "/invalidate/{}";
-
         final Collection<String> invalidated = cacheUtils.getAllRecords(cacheManager, CACHE_INVALIDATED_JWT_TOKENS);
-        for (final String invalidatedToken : invalidated) {
-            restTemplate.delete(url, invalidatedToken);
-        }
+        tokenInvalidationDistributor.synchronize(instanceInfo, invalidated);
 
         return true;
     }
 
+    /**
+     * Remove all cached results of the mapping of certificates and distributed IDs to the mainframe user IDs. The next
+     * mapping of each identity is resolved by the mapper again.
+     */
+    @CacheEvict(value = CacheConfig.CACHE_USER_MAPPING, allEntries = true)
+    public void evictUserMapping() {
+        log.debug("The cached results of the user mapping were evicted");
+    }
+
     /**
      * Validate the JWT token
      *
@@ -342,8 +382,7 @@ public class AuthenticationService {
      * @return the query response
      */
     public QueryResponse parseJwtToken(String jwtToken) {
-        Claims claims = getJwtClaims(jwtToken);
-        return parseQueryResponse(claims);
+        return getParsedToken(jwtToken, false).toQueryResponse();
     }
 
     public QueryResponse parseQueryResponse(Claims claims) {
@@ -369,8 +408,7 @@ public class AuthenticationService {
      * @return AuthSource.Origin value based on the iss token claim.
      */
     public AuthSource.Origin getTokenOrigin(String jwtToken) {
-        Claims claims = getJwtClaims(jwtToken);
-        QueryResponse.Source source = QueryResponse.Source.valueByIssuer(claims.getIssuer());
+        QueryResponse.Source source = getParsedToken(jwtToken, false).source();
         return AuthSource.Origin.valueByTokenSource(source);
     }
 
@@ -382,7 +420,7 @@ public class AuthenticationService {
      * @return LTPA token extracted from JWT
      */
     public String getLtpaTokenWithValidation(String jwtToken) {
-        return validateAndParseLocalJwtToken(jwtToken).get(LTPA_CLAIM_NAME, String.class);
+        return getParsedToken(jwtToken, true).ltpaToken();
     }
 
     /**
@@ -393,9 +431,7 @@ public class AuthenticationService {
      * @throws TokenNotValidException if the JWT token is not valid
      */
     public String getLtpaToken(String jwtToken) {
-        Claims claims = getJwtClaims(jwtToken);
-
-        return claims.get(LTPA_CLAIM_NAME, String.class);
+        return getParsedToken(jwtToken, false).ltpaToken();
     }
 
     /**
@@ -473,4 +509,52 @@ public class AuthenticationService {
         return expiration;
     }
 
+    /**
+     * Immutable claims of a token, see {@link #getParsedToken(String, boolean)}
+     */
+    private record ParsedToken(
+        String domain,
+        String userId,
+        Date creation,
+        Date expiration,
+        String issuer,
+        List<String> scopes,
+        QueryResponse.Source source,
+        String ltpaToken,
+        boolean signatureVerified
+    ) {
+
+        ParsedToken(QueryResponse queryResponse, String ltpaToken, boolean signatureVerified) {
+            this(
+                queryResponse.getDomain(),
+                queryResponse.getUserId(),
+                copy(queryResponse.getCreation()),
+                copy(queryResponse.getExpiration()),
+                queryResponse.getIssuer(),
+                queryResponse.getScopes() == null ? null : Collections.unmodifiableList(new ArrayList<>(queryResponse.getScopes())),
+                queryResponse.getSource(),
+                ltpaToken,
+                signatureVerified
+            );
+        }
+
+        private static Date copy(Date date) {
+            return date == null ? null : new Date(date.getTime());
+        }
+
+        boolean isExpired() {
+            return (expiration != null) && (expiration.getTime() < System.currentTimeMillis());
+        }
+
+        /**
+         * @return a new instance, the caller can modify it
+         */
+        QueryResponse toQueryResponse() {
+            return new QueryResponse(
+                domain, userId, copy(creation), copy(expiration), issuer, scopes == null ? null : new ArrayList<>(scopes), source
+            );
+        }
+
+    }
+
 }
@@ -10,6 +10,11 @@
 
 package org.zowe.apiml.zaas.security.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,12 +28,20 @@ import org.zowe.apiml.zaas.security.service.zosmf.ZosmfService;
 import org.zowe.apiml.passticket.IRRPassTicketGenerationException;
 import org.zowe.apiml.passticket.PassTicketService;
 import org.zowe.apiml.security.common.error.AuthenticationTokenException;
+import org.zowe.apiml.security.common.token.QueryResponse;
 import org.zowe.apiml.security.common.token.TokenAuthentication;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RequiredArgsConstructor
 @Service
@@ -42,17 +55,101 @@ public class TokenCreationService {
     private final AuthenticationService authenticationService;
     private final SafIdtProvider safIdtProvider;
 
+    /**
+     * Limit of the users with a remembered token, the least recently used are removed once it is reached
+     */
+    static final int MAX_ISSUED_TOKENS = 10_000;
+
     @Value("${apiml.security.zosmf.applid:IZUDFLT}")
     protected String zosmfApplId;
 
+    @Value("${apiml.security.tokenReuse.enabled:false}")
+    protected boolean tokenReuseEnabled;
+
+    @Value("${apiml.security.tokenReuse.safetyMarginSeconds:60}")
+    protected long safetyMarginSeconds;
+
+    @Value("${apiml.security.tokenReuse.refreshAheadSeconds:300}")
+    protected long refreshAheadSeconds;
+
+    protected ExecutorService refreshExecutor;
+
+    // the tokens expire from the cache the safety margin before the token itself expires
+    private final Cache<String, IssuedToken> issuedTokens = Caffeine.newBuilder()
+        .maximumSize(MAX_ISSUED_TOKENS)
+        .expireAfter(new Expiry<String, IssuedToken>() {
+            @Override
+            public long expireAfterCreate(String user, IssuedToken issuedToken, long currentTime) {
+                long reusableMillis = issuedToken.expiration() - System.currentTimeMillis() - safetyMarginSeconds * 1000;
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, reusableMillis));
+            }
+
+            @Override
+            public long expireAfterUpdate(String user, IssuedToken issuedToken, long currentTime, long currentDuration) {
+                return expireAfterCreate(user, issuedToken, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String user, IssuedToken issuedToken, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        })
+        .build();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "JWT Token Refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
     /**
-     * Creates valid JWT token without using any credentials. The token will be valid for zOSMF as well as for southbound
-     * services
+     * Returns valid JWT token without using any credentials. The token will be valid for zOSMF as well as for southbound
+     * services.
+     * <p>
+     * If the reuse is enabled (apiml.security.tokenReuse.enabled), the token issued for the user before is reused until
+     * it is close to the expiration, a new one is issued in the background before that happens. The token is then shared
+     * by all the clients and the services which get a token for the user in this way (x509, PAT, OIDC and the external
+     * mappers), and it is forwarded to the southbound services. A logout with the token by any of them invalidates it
+     * for all of them, the next call issues a new one, but the requests in progress with the invalidated token fail.
      *
      * @param user Username to create the JWT token for.
      * @return Valid JWT token or null
      */
     public String createJwtTokenWithoutCredentials(String user) {
+        if (!tokenReuseEnabled) {
+            return createNewJwtTokenWithoutCredentials(user);
+        }
+
+        long now = System.currentTimeMillis();
+        IssuedToken issuedToken = issuedTokens.getIfPresent(user);
+        if ((issuedToken != null) && !isInvalidated(issuedToken)) {
+            if (issuedToken.expiration() - now < refreshAheadSeconds * 1000) {
+                refreshInBackground(user);
+            }
+            log.debug("Reusing the JWT token issued for user: {}", user);
+            return issuedToken.token();
+        }
+
+        return issue(user);
+    }
+
+    /**
+     * Creates new valid JWT token without using any credentials, the token issued before is not reused. It is meant
+     * for the login and the refresh, where the client gets its own token which could be invalidated by a logout.
+     *
+     * @param user Username to create the JWT token for.
+     * @return Valid JWT token or null
+     */
+    public String createNewJwtTokenWithoutCredentials(String user) {
         if (isZosmfAvailable()) {
             log.debug("ZOSMF is available and used. Attempt to authenticate with PassTicket");
             final String passTicket = generatePassTicket(user);
@@ -89,6 +186,54 @@ public class TokenCreationService {
         }
     }
 
+    private boolean isInvalidated(IssuedToken issuedToken) {
+        return Boolean.TRUE.equals(authenticationService.isInvalidated(issuedToken.token()));
+    }
+
+    private String issue(String user) {
+        String token = createNewJwtTokenWithoutCredentials(user);
+        Date expiration = getExpiration(token);
+        if (expiration == null) {
+            issuedTokens.invalidate(user);
+            return token;
+        }
+
+        issuedTokens.put(user, new IssuedToken(token, expiration.getTime()));
+        return token;
+    }
+
+    private Date getExpiration(String token) {
+        try {
+            QueryResponse queryResponse = authenticationService.parseJwtToken(token);
+            return queryResponse == null ? null : queryResponse.getExpiration();
+        } catch (RuntimeException e) {
+            log.debug("The expiration of the JWT token cannot be read, the token will not be reused: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void refreshInBackground(String user) {
+        if (!refreshing.add(user)) {
+            // the refresh is already in progress
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    log.debug("Refreshing the JWT token issued for user: {}", user);
+                    issue(user);
+                } catch (RuntimeException e) {
+                    log.debug("The JWT token for user {} cannot be refreshed: {}", user, e.getMessage());
+                } finally {
+                    refreshing.remove(user);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(user);
+        }
+    }
+
     private boolean isZosmfAvailable() {
         try {
             return providers.isZosfmUsed() && providers.isZosmfAvailable();
@@ -112,4 +257,7 @@ public class TokenCreationService {
 
     }
 
+    private record IssuedToken(String token, long expiration) {
+    }
+
 }
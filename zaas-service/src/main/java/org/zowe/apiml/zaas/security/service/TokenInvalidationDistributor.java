@@ -0,0 +1,322 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.zowe.apiml.product.constants.CoreService;
+import org.zowe.apiml.util.EurekaUtils;
+import org.zowe.apiml.zaas.controllers.AuthController;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Distributes the invalidated JWT tokens to the other instances of ZAAS. The logout does not wait for them, the tokens
+ * are queued per instance and sent on a thread pool, so the instances are notified in parallel and all tokens queued
+ * for an instance meanwhile are sent in a single request. A failed request is retried after a delay, the retry is
+ * scheduled, so an unavailable instance does not block the threads.
+ * <p>
+ * The tokens which could not be sent even after the retries stay queued for the instance, they are sent with the next
+ * token or by a periodic retry. The queue is dropped once the instance is not registered in Eureka anymore.
+ * <p>
+ * The tokens are streamed as a JSON array to {@link AuthController#INVALIDATE_BATCH_PATH}. An instance without this
+ * endpoint (an older version) gets the tokens one by one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenInvalidationDistributor {
+
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+
+    private final RestTemplate restTemplate;
+    private final EurekaClient eurekaClient;
+
+    @Value("${apiml.security.invalidation.distribution.threads:4}")
+    protected int threads;
+
+    @Value("${apiml.security.invalidation.distribution.retries:3}")
+    protected int retries;
+
+    @Value("${apiml.security.invalidation.distribution.retryDelayMs:500}")
+    protected long retryDelayMs;
+
+    @Value("${apiml.security.invalidation.distribution.retryIntervalMs:30000}")
+    protected long retryIntervalMs;
+
+    protected ExecutorService executor;
+    protected ScheduledExecutorService scheduler;
+
+    // tokens waiting to be sent, by the URL of the instance
+    private final Map<String, Queue<String>> pending = new ConcurrentHashMap<>();
+    // URLs of the instances with a running or scheduled flush
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "Token Invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Token Invalidation Retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::retryPending, retryIntervalMs, retryIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue the token to be invalidated on the instances. The method does not wait for the requests.
+     *
+     * @param instances instances of ZAAS to notify
+     * @param jwtToken  invalidated token
+     */
+    public void distribute(Collection<InstanceInfo> instances, String jwtToken) {
+        // the instances missing in the list left, their tokens are not sent anymore
+        retain(instances.stream().map(EurekaUtils::getUrl).collect(Collectors.toSet()));
+        for (InstanceInfo instanceInfo : instances) {
+            final String url = EurekaUtils.getUrl(instanceInfo);
+            pending.computeIfAbsent(url, k -> new ConcurrentLinkedQueue<>()).add(jwtToken);
+            schedule(url);
+        }
+    }
+
+    /**
+     * Send all the tokens to the instance in a single request and wait for the result. The retries are made in the
+     * calling thread.
+     *
+     * @param instanceInfo instance of ZAAS to notify
+     * @param jwtTokens    invalidated tokens
+     * @throws RestClientException if the tokens could not be sent even after the retries
+     */
+    public void synchronize(InstanceInfo instanceInfo, Collection<String> jwtTokens) {
+        if (!jwtTokens.isEmpty()) {
+            send(EurekaUtils.getUrl(instanceInfo), jwtTokens);
+        }
+    }
+
+    /**
+     * Send the tokens which were not sent because of a failure. The queues of the instances which are not registered in
+     * Eureka are dropped.
+     */
+    void retryPending() {
+        try {
+            final Application application = eurekaClient.getApplication(CoreService.ZAAS.getServiceId());
+            if (application == null) {
+                // wrong state, at least this instance is registered, nothing is dropped
+                return;
+            }
+
+            retain(application.getInstances().stream().map(EurekaUtils::getUrl).collect(Collectors.toSet()));
+            pending.forEach((url, queue) -> {
+                if (!queue.isEmpty()) {
+                    schedule(url);
+                }
+            });
+        } catch (RuntimeException e) {
+            // an exception would stop the periodic retry
+            log.debug("The retry of the invalidation distribution failed", e);
+        }
+    }
+
+    private void retain(Set<String> urls) {
+        // a running flush finds out the queue was dropped, only the flush itself marks the instance as not scheduled
+        pending.keySet().forEach(url -> {
+            if (!urls.contains(url) && (pending.remove(url) != null)) {
+                log.debug("The instance {} is not registered anymore, the tokens queued for it are dropped", url);
+            }
+        });
+    }
+
+    private void schedule(String url) {
+        if (!scheduled.add(url)) {
+            // the running flush sends the token
+            return;
+        }
+
+        execute(url, 1);
+    }
+
+    private void execute(String url, int attempt) {
+        try {
+            executor.execute(() -> flush(url, attempt));
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(url);
+            log.debug("The invalidation of tokens on {} could not be scheduled", url, e);
+        }
+    }
+
+    private boolean retry(String url, int attempt) {
+        try {
+            scheduler.schedule(() -> execute(url, attempt), retryDelayMs * (attempt - 1), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.debug("The retry of the invalidation of tokens on {} could not be scheduled", url, e);
+            return false;
+        }
+    }
+
+    private void flush(String url, int attempt) {
+        final Queue<String> queue = pending.get(url);
+        if (queue == null) {
+            // the instance left meanwhile
+            scheduled.remove(url);
+            return;
+        }
+
+        boolean failed = false;
+        boolean retrying = false;
+        try {
+            List<String> batch;
+            while (!failed && (pending.get(url) == queue) && !(batch = poll(queue)).isEmpty()) {
+                try {
+                    sendOnce(url, batch);
+                } catch (HttpClientErrorException e) {
+                    // the request is rejected, it would be rejected again
+                    log.warn("The invalidation of {} tokens was rejected by {}: {}", batch.size(), url, e.getMessage());
+                } catch (RestClientException e) {
+                    queue.addAll(batch);
+                    failed = true;
+                    if (attempt <= retries) {
+                        log.debug("Attempt {} to distribute the invalidation to {} failed: {}", attempt, url, e.getMessage());
+                        // the retry takes over the flush, the instance stays scheduled
+                        retrying = retry(url, attempt + 1);
+                    } else {
+                        log.warn("The invalidation of {} tokens could not be distributed to {}, it is retried later: {}", batch.size(), url, e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            if (!retrying) {
+                scheduled.remove(url);
+            }
+        }
+
+        // a token could be queued after the last poll, but before the flush was marked as finished, or the instance
+        // registered again with a new queue
+        final Queue<String> current = pending.get(url);
+        if (!failed && (current != null) && !current.isEmpty()) {
+            schedule(url);
+        }
+    }
+
+    private static List<String> poll(Queue<String> queue) {
+        final List<String> batch = new ArrayList<>();
+        String jwtToken;
+        while ((batch.size() < MAX_BATCH_SIZE) && ((jwtToken = queue.poll()) != null)) {
+            batch.add(jwtToken);
+        }
+        return batch;
+    }
+
+    private void send(String url, Collection<String> jwtTokens) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sendOnce(url, jwtTokens);
+                return;
+            } catch (HttpClientErrorException e) {
+                throw e;
+            } catch (RestClientException e) {
+                if (attempt > retries) {
+                    throw e;
+                }
+                log.debug("Attempt {} to distribute the invalidation to {} failed: {}", attempt, url, e.getMessage());
+                sleep(retryDelayMs * attempt);
+            }
+        }
+    }
+
+    private void sendOnce(String url, Collection<String> jwtTokens) {
+        try {
+            sendBatch(url, jwtTokens);
+        } catch (HttpClientErrorException e) {
+            if ((e.getStatusCode() != HttpStatus.NOT_FOUND) && (e.getStatusCode() != HttpStatus.METHOD_NOT_ALLOWED)) {
+                throw e;
+            }
+            sendOneByOne(url, jwtTokens);
+        }
+    }
+
+    private void sendBatch(String url, Collection<String> jwtTokens) {
+        restTemplate.execute(url + AuthController.CONTROLLER_PATH + AuthController.INVALIDATE_BATCH_PATH, HttpMethod.POST, request -> {
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(request.getBody())) {
+                generator.writeStartArray();
+                for (String jwtToken : jwtTokens) {
+                    generator.writeString(jwtToken);
+                }
+                generator.writeEndArray();
+            }
+        }, null);
+    }
+
+    private void sendOneByOne(String url, Collection<String> jwtTokens) {
+        log.debug("The instance {} does not support the batch invalidation, the tokens are sent one by one", url);
+        for (String jwtToken : jwtTokens) {
+            try {
+                restTemplate.delete(url + AuthController.CONTROLLER_PATH + "/invalidate/{}", jwtToken);
+            } catch (HttpClientErrorException e) {
+                log.debug("Problem invalidating token on another instance url " + url, e);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The distribution of the invalidation was interrupted", e);
+        }
+    }
+
+}
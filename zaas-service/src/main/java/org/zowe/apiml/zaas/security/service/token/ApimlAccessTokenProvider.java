@@ -12,9 +12,9 @@ package org.zowe.apiml.zaas.security.service.token;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.zowe.apiml.models.AccessTokenContainer;
 import org.zowe.apiml.security.common.token.AccessTokenProvider;
@@ -29,13 +29,10 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.HexFormat;
 import java.util.Set;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ApimlAccessTokenProvider implements AccessTokenProvider {
 
@@ -43,12 +40,39 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
     static final String INVALID_USERS_KEY = "invalidUsers";
     static final String INVALID_SCOPES_KEY = "invalidScopes";
 
+    private static final ThreadLocal<MessageDigest> SHA_512 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Could not generate hash", e);
+            return null;
+        }
+    });
+
     private final CachingServiceClient cachingServiceClient;
     private final AuthenticationService authenticationService;
-    @Qualifier("oidcJwkMapper")
     private final ObjectMapper objectMapper;
-
-    private byte[] salt;
+    private final RevocationIndex revocationIndex;
+
+    /**
+     * Maximal age of the local copy of invalidated tokens and rules. Invalidations made by other instances are visible
+     * after this time at the latest. The value 0 means the data are read from the Caching Service on each validation.
+     */
+    @Value("${apiml.security.personalAccessToken.revocation.maxStalenessMs:5000}")
+    private long revocationMaxStalenessMs;
+
+    private volatile byte[] salt;
+
+    public ApimlAccessTokenProvider(
+        CachingServiceClient cachingServiceClient,
+        AuthenticationService authenticationService,
+        @Qualifier("oidcJwkMapper") ObjectMapper objectMapper
+    ) {
+        this.cachingServiceClient = cachingServiceClient;
+        this.authenticationService = authenticationService;
+        this.objectMapper = objectMapper;
+        this.revocationIndex = new RevocationIndex(objectMapper);
+    }
 
     public void invalidateToken(String token) throws CachingServiceClientException, JsonProcessingException {
         String hashedValue = getHash(token);
@@ -60,6 +84,7 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
 
         String json = objectMapper.writeValueAsString(container);
         cachingServiceClient.appendList(INVALID_TOKENS_KEY, new CachingServiceClient.KeyValue(hashedValue, json));
+        revocationIndex.addToken(hashedValue);
     }
 
     public void invalidateAllTokensForUser(String userId, long timestamp) throws CachingServiceClientException {
@@ -69,6 +94,7 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
         }
         log.debug("hashedUserId {}, timestamp {}", hashedUserId, timestamp);
         cachingServiceClient.appendList(INVALID_USERS_KEY, new CachingServiceClient.KeyValue(hashedUserId, Long.toString(timestamp)));
+        revocationIndex.addUserRule(hashedUserId, timestamp);
     }
 
     public void invalidateAllTokensForService(String serviceId, long timestamp) throws CachingServiceClientException {
@@ -78,65 +104,30 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
         }
         log.debug("serviceIdHash {}, timestamp {}", hashedServiceId, timestamp);
         cachingServiceClient.appendList(INVALID_SCOPES_KEY, new CachingServiceClient.KeyValue(hashedServiceId, Long.toString(timestamp)));
+        revocationIndex.addScopeRule(hashedServiceId, timestamp);
     }
 
     public boolean isInvalidated(String token) throws CachingServiceClientException {
         QueryResponse parsedToken = authenticationService.parseJwtWithSignature(token);
-        String hashedToken = getHash(token);
-        String hashedUserId = getHash(parsedToken.getUserId());
-        List<String> hashedServiceIds = parsedToken.getScopes().stream().map(this::getHash).toList();
-
-        Map<String, Map<String, String>> cacheMap = cachingServiceClient.readAllMaps();
-        if (cacheMap != null && !cacheMap.isEmpty()) {
-            Map<String, String> invalidTokens = cacheMap.get(INVALID_TOKENS_KEY);
-            Map<String, String> invalidUsers = cacheMap.get(INVALID_USERS_KEY);
-            Map<String, String> invalidScopes = cacheMap.get(INVALID_SCOPES_KEY);
-            Optional<Boolean> isInvalidated = checkInvalidToken(invalidTokens, hashedToken);
-            if (isInvalidated.isEmpty()) {
-                isInvalidated = checkRule(invalidUsers, hashedUserId, parsedToken);
-            }
-            for (String hashedServiceId : hashedServiceIds) {
-                if (isInvalidated.isEmpty()) {
-                    isInvalidated = checkRule(invalidScopes, hashedServiceId, parsedToken);
-                } else {
-                    break;
-                }
-            }
-            if (isInvalidated.isPresent()) {
-                return isInvalidated.get();
-            }
-        }
-        return false;
-    }
 
-    private Optional<Boolean> checkInvalidToken(Map<String, String> invalidTokens, String tokenId) {
-        if (invalidTokens != null && !invalidTokens.isEmpty() && invalidTokens.containsKey(tokenId)) {
-            String s = invalidTokens.get(tokenId);
-            try {
-                AccessTokenContainer c = objectMapper.readValue(s, AccessTokenContainer.class);
-                return Optional.of(c != null);
-            } catch (JsonProcessingException e) {
-                log.error("Not able to parse invalidToken json value.", e);
-            }
+        RevocationIndex.Snapshot index = revocationIndex.get(cachingServiceClient, revocationMaxStalenessMs);
+        if (index.isEmpty()) {
+            return false;
         }
-        return Optional.empty();
-    }
 
-    private Optional<Boolean> checkRule(Map<String, String> tokenRules, String ruleId, QueryResponse parsedToken) {
-        if (tokenRules != null && !tokenRules.isEmpty() && tokenRules.containsKey(ruleId)) {
-            String timestampStr = tokenRules.get(ruleId);
-            try {
-                long timestamp = Long.parseLong(timestampStr);
-                var tokenTime = parsedToken.getCreation().getTime();
-                boolean result = tokenTime <= timestamp;
-                if (result) {
-                    return Optional.of(true);
-                }
-            } catch (NumberFormatException e) {
-                log.error("Not able to convert timestamp value to number.", e);
+        if (index.isTokenInvalidated(getHash(token))) {
+            return true;
+        }
+        long tokenCreation = parsedToken.getCreation().getTime();
+        if (index.isUserInvalidated(getHash(parsedToken.getUserId()), tokenCreation)) {
+            return true;
+        }
+        for (String serviceId : parsedToken.getScopes()) {
+            if (index.isScopeInvalidated(getHash(serviceId), tokenCreation)) {
+                return true;
             }
         }
-        return Optional.empty();
+        return false;
     }
 
     public void evictNonRelevantTokensAndRules() {
@@ -182,11 +173,24 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
     }
 
     public byte[] getSalt() throws CachingServiceClientException {
-        if (this.salt != null) {
-            return this.salt;
+        byte[] current = salt;
+        if (current == null) {
+            synchronized (this) {
+                current = salt;
+                if (current == null) {
+                    current = initializeSalt().getBytes();
+                    salt = current;
+                }
+            }
         }
-        this.salt = initializeSalt().getBytes();
-        return this.salt;
+        return current;
+    }
+
+    /**
+     * Forget the salt. The salt is read again from the Caching Service on the next use.
+     */
+    public void refreshSalt() {
+        salt = null;
     }
 
     private void storeSalt(byte[] salt) throws CachingServiceClientException {
@@ -204,20 +208,13 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
     }
 
     public static String getSecurePassword(String password, byte[] salt) {
-        String generatedPassword = null;
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-512");
-            md.update(salt);
-            byte[] bytes = md.digest(password.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte aByte : bytes) {
-                sb.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
-            }
-            generatedPassword = sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            log.error("Could not generate hash", e);
+        MessageDigest md = SHA_512.get();
+        if (md == null) {
+            return null;
         }
-        return generatedPassword;
+        md.reset();
+        md.update(salt);
+        return HexFormat.of().formatHex(md.digest(password.getBytes(StandardCharsets.UTF_8)));
     }
-}
 
+}
@@ -0,0 +1,244 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.token;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.models.AccessTokenContainer;
+import org.zowe.apiml.zaas.cache.CachingServiceClient;
+import org.zowe.apiml.zaas.cache.CachingServiceClientException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import static org.zowe.apiml.zaas.security.service.token.ApimlAccessTokenProvider.INVALID_SCOPES_KEY;
+import static org.zowe.apiml.zaas.security.service.token.ApimlAccessTokenProvider.INVALID_TOKENS_KEY;
+import static org.zowe.apiml.zaas.security.service.token.ApimlAccessTokenProvider.INVALID_USERS_KEY;
+
+/**
+ * Local replica of invalidated personal access tokens and invalidation rules stored in the Caching Service. The values
+ * are parsed once during the load, and each check is just a lookup in a hash map.
+ * <p>
+ * The replica is refreshed when it is older than the allowed staleness. The refresh reads only the items changed since
+ * the versions of the maps known by the replica. The whole maps are read if the Caching Service does not provide the
+ * changes (ie. the storage does not support versions of the maps). If a refresh is already running, other threads use
+ * the previous replica instead of waiting. Invalidations made by this instance are applied locally at once.
+ */
+@Slf4j
+class RevocationIndex {
+
+    private final ObjectMapper objectMapper;
+    private final LongSupplier clock;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    RevocationIndex(ObjectMapper objectMapper) {
+        this(objectMapper, System::currentTimeMillis);
+    }
+
+    RevocationIndex(ObjectMapper objectMapper, LongSupplier clock) {
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /**
+     * Return the replica, it is refreshed if it is older than maxStalenessMs.
+     *
+     * @param client         client of the Caching Service
+     * @param maxStalenessMs allowed age of the replica in milliseconds, 0 means to refresh it on each call
+     * @return the current replica
+     * @throws CachingServiceClientException if the replica cannot be loaded
+     */
+    Snapshot get(CachingServiceClient client, long maxStalenessMs) throws CachingServiceClientException {
+        Snapshot current = snapshot;
+        if (isFresh(current, maxStalenessMs)) {
+            return current;
+        }
+
+        if (current == null) {
+            reloadLock.lock();
+        } else if (!reloadLock.tryLock()) {
+            // another thread is reloading the data, the previous version is used meanwhile
+            return current;
+        }
+        try {
+            // the data could be reloaded by another thread meanwhile
+            current = snapshot;
+            if (isFresh(current, maxStalenessMs)) {
+                return current;
+            }
+            snapshot = refresh(client, current);
+            return snapshot;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot current, long maxStalenessMs) {
+        return (current != null) && (clock.getAsLong() - current.loadedAt < maxStalenessMs);
+    }
+
+    void addToken(String hashedToken) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.tokens.add(hashedToken);
+        }
+    }
+
+    void addUserRule(String hashedUserId, long timestamp) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.users.put(hashedUserId, timestamp);
+        }
+    }
+
+    void addScopeRule(String hashedServiceId, long timestamp) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.scopes.put(hashedServiceId, timestamp);
+        }
+    }
+
+    private Snapshot refresh(CachingServiceClient client, Snapshot current) {
+        try {
+            return loadChanges(client, current);
+        } catch (CachingServiceClientException e) {
+            log.debug("Changes of the invalidation maps are not available, all maps are read: {}", e.getMessage());
+            return load(client.readAllMaps());
+        }
+    }
+
+    /**
+     * Read the changes of each map. The collections of the current replica are updated in place, a map is replaced
+     * only if the Caching Service returns it whole (the version of the replica is unknown or too old).
+     */
+    private Snapshot loadChanges(CachingServiceClient client, Snapshot current) {
+        long loadedAt = clock.getAsLong();
+        Map<String, Long> versions = new HashMap<>();
+
+        CachingServiceClient.MapChanges tokenChanges = readChanges(client, current, INVALID_TOKENS_KEY, versions);
+        Set<String> tokens = tokenChanges.isFull() ? ConcurrentHashMap.newKeySet() : current.tokens;
+        loadTokens(getItems(tokenChanges), tokens);
+
+        CachingServiceClient.MapChanges userChanges = readChanges(client, current, INVALID_USERS_KEY, versions);
+        Map<String, Long> users = userChanges.isFull() ? new ConcurrentHashMap<>() : current.users;
+        loadRules(getItems(userChanges), users);
+
+        CachingServiceClient.MapChanges scopeChanges = readChanges(client, current, INVALID_SCOPES_KEY, versions);
+        Map<String, Long> scopes = scopeChanges.isFull() ? new ConcurrentHashMap<>() : current.scopes;
+        loadRules(getItems(scopeChanges), scopes);
+
+        log.debug("Revocation index refreshed: {} tokens, {} user rules, {} scope rules", tokens.size(), users.size(), scopes.size());
+        return new Snapshot(tokens, users, scopes, versions, loadedAt);
+    }
+
+    private static CachingServiceClient.MapChanges readChanges(CachingServiceClient client, Snapshot current, String mapKey, Map<String, Long> versions) {
+        Long since = current == null ? null : current.versions.get(mapKey);
+        CachingServiceClient.MapChanges changes = client.readMapChanges(mapKey, since == null ? 0 : since);
+        if (changes == null) {
+            throw new CachingServiceClientException("No changes of the map under " + mapKey + " key");
+        }
+        if (since == null) {
+            // the replica does not know the version, the items cannot be merged
+            changes.setFull(true);
+        }
+        versions.put(mapKey, changes.getVersion());
+        return changes;
+    }
+
+    private static Map<String, String> getItems(CachingServiceClient.MapChanges changes) {
+        return changes.getItems() == null ? Collections.emptyMap() : changes.getItems();
+    }
+
+    private Snapshot load(Map<String, Map<String, String>> cacheMap) {
+        long loadedAt = clock.getAsLong();
+        // the versions are not known, the next refresh reads the whole maps
+        Snapshot loaded = new Snapshot(ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), Collections.emptyMap(), loadedAt);
+        if (cacheMap == null) {
+            return loaded;
+        }
+
+        loadTokens(getMap(cacheMap, INVALID_TOKENS_KEY), loaded.tokens);
+        loadRules(getMap(cacheMap, INVALID_USERS_KEY), loaded.users);
+        loadRules(getMap(cacheMap, INVALID_SCOPES_KEY), loaded.scopes);
+        log.debug("Revocation index loaded: {} tokens, {} user rules, {} scope rules", loaded.tokens.size(), loaded.users.size(), loaded.scopes.size());
+        return loaded;
+    }
+
+    private void loadTokens(Map<String, String> source, Set<String> target) {
+        source.forEach((hashedToken, json) -> {
+            try {
+                if (objectMapper.readValue(json, AccessTokenContainer.class) != null) {
+                    target.add(hashedToken);
+                }
+            } catch (JsonProcessingException e) {
+                log.error("Not able to parse invalidToken json value.", e);
+            }
+        });
+    }
+
+    private static Map<String, String> getMap(Map<String, Map<String, String>> cacheMap, String key) {
+        Map<String, String> map = cacheMap.get(key);
+        return map == null ? Collections.emptyMap() : map;
+    }
+
+    private static void loadRules(Map<String, String> source, Map<String, Long> target) {
+        source.forEach((ruleId, timestamp) -> {
+            try {
+                target.put(ruleId, Long.parseLong(timestamp));
+            } catch (NumberFormatException e) {
+                log.error("Not able to convert timestamp value to number.", e);
+            }
+        });
+    }
+
+    /**
+     * A loaded version of the invalidation data.
+     *
+     * @param tokens   hashes of invalidated tokens
+     * @param users    hashes of user IDs and timestamps, tokens issued before are invalidated
+     * @param scopes   hashes of service IDs and timestamps, tokens issued before are invalidated
+     * @param versions versions of the maps in the Caching Service, empty if they are not known
+     * @param loadedAt time of loading in milliseconds
+     */
+    record Snapshot(Set<String> tokens, Map<String, Long> users, Map<String, Long> scopes, Map<String, Long> versions, long loadedAt) {
+
+        boolean isEmpty() {
+            return tokens.isEmpty() && users.isEmpty() && scopes.isEmpty();
+        }
+
+        boolean isTokenInvalidated(String hashedToken) {
+            return tokens.contains(hashedToken);
+        }
+
+        boolean isUserInvalidated(String hashedUserId, long tokenCreation) {
+            return isRuleMatching(users, hashedUserId, tokenCreation);
+        }
+
+        boolean isScopeInvalidated(String hashedServiceId, long tokenCreation) {
+            return isRuleMatching(scopes, hashedServiceId, tokenCreation);
+        }
+
+        private static boolean isRuleMatching(Map<String, Long> rules, String ruleId, long tokenCreation) {
+            Long timestamp = rules.get(ruleId);
+            return (timestamp != null) && (tokenCreation <= timestamp);
+        }
+
+    }
+
+}
@@ -180,6 +180,38 @@ class CachingServiceClientTest {
         }
     }
 
+    @Nested
+    class GivenReadMapChangesTest {
+
+        private static final String URL = "https://localhost:10010/cachingservice/api/v1/cache-list/invalidTokens/changes?since=5";
+
+        @Test
+        void whenClientReturnsBody_thenReturnChanges() {
+            CachingServiceClient.MapChanges changes = new CachingServiceClient.MapChanges(6, false, Map.of("token", "{}"));
+            when(restTemplate.exchange(eq(URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(CachingServiceClient.MapChanges.class)))
+                .thenReturn(new ResponseEntity<>(changes, HttpStatus.OK));
+
+            assertEquals(changes, underTest.readMapChanges("invalidTokens", 5));
+        }
+
+        @Test
+        void whenClientReturnsNoBody_thenThrowException() {
+            when(restTemplate.exchange(eq(URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(CachingServiceClient.MapChanges.class)))
+                .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+
+            assertThrows(CachingServiceClientException.class, () -> underTest.readMapChanges("invalidTokens", 5));
+        }
+
+        @Test
+        void whenClientThrowsException_thenTranslateException() {
+            when(restTemplate.exchange(eq(URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(CachingServiceClient.MapChanges.class)))
+                .thenThrow(new RestClientException("error"));
+
+            assertThrows(CachingServiceClientException.class, () -> underTest.readMapChanges("invalidTokens", 5));
+        }
+
+    }
+
     @Test
     void whenClientThrowsException_thenTranslateException() {
         when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class))).thenThrow(new RestClientException("error"));
@@ -21,8 +21,13 @@ import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.product.gateway.GatewayClient;
+import org.zowe.apiml.security.common.token.TokenAuthentication;
 
+import javax.cache.configuration.CompleteConfiguration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -44,6 +49,27 @@ class CacheConfigTest {
             assertTrue(cacheManager instanceof JCacheCacheManager);
         }
 
+        @Test
+        void givenValidationCache_thenReturnCopyOfTokenAuthentication() {
+            TokenAuthentication tokenAuthentication = TokenAuthentication.createAuthenticated("user", "cacheConfigTestToken");
+            cacheManager.getCache("validationJwtToken").put("cacheConfigTestToken", tokenAuthentication);
+
+            TokenAuthentication cached = cacheManager.getCache("validationJwtToken").get("cacheConfigTestToken", TokenAuthentication.class);
+
+            assertNotSame(tokenAuthentication, cached);
+            assertEquals(tokenAuthentication, cached);
+            assertTrue(cached.isAuthenticated());
+        }
+
+        @Test
+        void givenStatisticsEnabled_thenAllCachesCollectStatistics() {
+            var jCacheManager = ((JCacheCacheManager) cacheManager).getCacheManager();
+            for (String cacheName : jCacheManager.getCacheNames()) {
+                var configuration = jCacheManager.getCache(cacheName).getConfiguration(CompleteConfiguration.class);
+                assertTrue(configuration.isStatisticsEnabled(), cacheName);
+            }
+        }
+
     }
 
     @Nested
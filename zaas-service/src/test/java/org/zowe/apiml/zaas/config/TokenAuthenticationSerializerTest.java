@@ -0,0 +1,88 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.config;
+
+import org.ehcache.spi.serialization.SerializerException;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.security.common.token.TokenAuthentication;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenAuthenticationSerializerTest {
+
+    private final TokenAuthenticationSerializer serializer = new TokenAuthenticationSerializer();
+
+    private static TokenAuthentication tokenAuthentication(String username, String token, boolean authenticated) {
+        TokenAuthentication tokenAuthentication = new TokenAuthentication(username, token);
+        tokenAuthentication.setAuthenticated(authenticated);
+        return tokenAuthentication;
+    }
+
+    @Nested
+    class GivenTokenAuthentication {
+
+        @Test
+        void whenSerialized_thenReadTheSame() {
+            TokenAuthentication original = tokenAuthentication("user", "token", true);
+
+            TokenAuthentication read = serializer.read(serializer.serialize(original));
+
+            assertEquals(original, read);
+            assertTrue(read.isAuthenticated());
+            assertTrue(serializer.equals(original, serializer.serialize(original)));
+        }
+
+        @Test
+        void whenUsernameIsNull_thenReadNull() {
+            TokenAuthentication read = serializer.read(serializer.serialize(tokenAuthentication(null, "token", false)));
+
+            assertNull(read.getPrincipal());
+            assertEquals("token", read.getCredentials());
+            assertFalse(read.isAuthenticated());
+        }
+
+        @Test
+        void whenAuthenticationDiffers_thenNotEqual() {
+            ByteBuffer binary = serializer.serialize(tokenAuthentication("user", "token", true));
+
+            assertFalse(serializer.equals(tokenAuthentication("user", "token", false), binary));
+        }
+
+        @Test
+        void whenCopied_thenNewInstanceWithSameValues() {
+            TokenAuthentication original = tokenAuthentication("user", "token", true);
+
+            TokenAuthentication copy = new TokenAuthenticationCopier().copyForRead(original);
+
+            assertNotSame(original, copy);
+            assertEquals(original, copy);
+            assertTrue(copy.isAuthenticated());
+        }
+
+    }
+
+    @Test
+    void givenTruncatedRecord_whenRead_thenThrowException() {
+        ByteBuffer binary = serializer.serialize(tokenAuthentication("user", "token", true));
+        binary.limit(binary.limit() - 1);
+
+        assertThrows(SerializerException.class, () -> serializer.read(binary));
+    }
+
+}
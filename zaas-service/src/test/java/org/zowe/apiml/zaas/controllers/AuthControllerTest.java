@@ -57,7 +57,10 @@ import static org.apache.http.HttpStatus.SC_SERVICE_UNAVAILABLE;
 import static org.apache.http.HttpStatus.SC_UNAUTHORIZED;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -124,6 +127,27 @@ class AuthControllerTest {
         verify(authenticationService, times(1)).invalidateJwtToken("a/b", false);
     }
 
+    @Test
+    void invalidateJwtTokens() throws Exception {
+        this.mockMvc.perform(post("/zaas/api/v1/auth/invalidate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"a\", \"b\"]"))
+            .andExpect(status().is(SC_NO_CONTENT));
+
+        verify(authenticationService, times(1)).markInvalidated("a");
+        verify(authenticationService, times(1)).markInvalidated("b");
+        verify(authenticationService, never()).invalidateJwtToken(any(), anyBoolean());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"token\": \"a\"}", "[\"a\", 1]", "[\"a\""})
+    void invalidateJwtTokens_whenInvalidBody_thenBadRequest(String body) throws Exception {
+        this.mockMvc.perform(post("/zaas/api/v1/auth/invalidate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andExpect(status().is(SC_BAD_REQUEST));
+    }
+
     @Test
     void distributeInvalidate() throws Exception {
         when(authenticationService.distributeInvalidate("instance/1")).thenReturn(true);
@@ -385,6 +409,14 @@ class AuthControllerTest {
                     .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().is(SC_NO_CONTENT));
         }
+
+        @Test
+        void thenRemoveCachedUserMapping() throws Exception {
+            mockMvc.perform(delete("/zaas/api/v1/auth/user-mapping/evict"))
+                .andExpect(status().is(SC_NO_CONTENT));
+
+            verify(authenticationService).evictUserMapping();
+        }
     }
 
     @Nested
@@ -74,7 +74,7 @@ class X509AuthenticationProviderTest {
         String validUsername = "validUsername";
 
         when(mapper.mapToMainframeUserId(x509AuthSource)).thenReturn(validUsername);
-        when(tokenCreationService.createJwtTokenWithoutCredentials(validUsername)).thenReturn("validJwtToken");
+        when(tokenCreationService.createNewJwtTokenWithoutCredentials(validUsername)).thenReturn("validJwtToken");
 
         Authentication result = x509AuthenticationProvider.authenticate(new X509AuthenticationToken(x509Certificate));
         assertThat(result.isAuthenticated(), is(true));
@@ -22,15 +22,21 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EmptySource;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 import org.zowe.apiml.util.HttpClientMockHelper;
 import org.zowe.apiml.zaas.security.mapping.model.MapperResponse;
 import org.zowe.apiml.zaas.security.service.TokenCreationService;
+import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -40,6 +46,11 @@ class ExternalMapperTest {
         public TestExternalMapper(String mapperUrl, String mapperUser, CloseableHttpClient httpClientProxy, TokenCreationService tokenCreationService) {
             super(mapperUrl, mapperUser, httpClientProxy, tokenCreationService, authConfigurationProperties);
         }
+
+        @Override
+        public MappingResult map(AuthSource authSource) {
+            return MappingResult.of(null);
+        }
     }
 
     private TestExternalMapper mapper;
@@ -66,6 +77,17 @@ class ExternalMapperTest {
         mapper = new TestExternalMapper("http://localhost/test", "mapper_user", closeableHttpClient, tokenCreationService);
     }
 
+    private ExternalMapper.MappingResult call(AtomicReference<MapperResponse> response) {
+        return mapper.callExternalMapper(NullEntity.INSTANCE, mapperResponse -> {
+            response.set(mapperResponse);
+            return mapperResponse.getUserId();
+        });
+    }
+
+    private ExternalMapper.MappingResult call() {
+        return call(new AtomicReference<>());
+    }
+
     @Nested
     class GivenValidMapperResponse {
         @Nested
@@ -79,10 +101,12 @@ class ExternalMapperTest {
 
             @Test
             void thenMFUserIsReturned() {
-                HttpEntity payload = NullEntity.INSTANCE;
-                MapperResponse response = mapper.callExternalMapper(payload);
+                AtomicReference<MapperResponse> responseRef = new AtomicReference<>();
+                ExternalMapper.MappingResult result = call(responseRef);
+                assertEquals("ZOSUSER", result.getUserId());
+                assertFalse(result.isUnavailable());
+                MapperResponse response = responseRef.get();
                 assertNotNull(response);
-                assertEquals("ZOSUSER", response.getUserId());
                 assertEquals(0, response.getRc());
                 assertEquals(0, response.getSafRc());
                 assertEquals(0, response.getRacfRc());
@@ -101,10 +125,13 @@ class ExternalMapperTest {
 
             @Test
             void thenMFUserIsEmpty() {
-                HttpEntity payload = NullEntity.INSTANCE;
-                MapperResponse response = mapper.callExternalMapper(payload);
+                AtomicReference<MapperResponse> responseRef = new AtomicReference<>();
+                ExternalMapper.MappingResult result = call(responseRef);
+                assertEquals("", result.getUserId());
+                // the mapper answered, the missing mapping can be cached
+                assertFalse(result.isUnavailable());
+                MapperResponse response = responseRef.get();
                 assertNotNull(response);
-                assertEquals("", response.getUserId());
                 assertEquals(0, response.getRc());
                 assertEquals(8, response.getSafRc());
                 assertEquals(8, response.getRacfRc());
@@ -122,10 +149,40 @@ class ExternalMapperTest {
                 when(httpResponse.getCode()).thenReturn(HttpStatus.SC_BAD_REQUEST);
             }
             @Test
-            void thenResponseIsNull() {
-                HttpEntity payload = NullEntity.INSTANCE;
-                MapperResponse response = mapper.callExternalMapper(payload);
-                assertNull(response);
+            void thenResponseIsNullAndMapperIsUnavailable() {
+                ExternalMapper.MappingResult result = call();
+                assertNull(result.getUserId());
+                assertTrue(result.isUnavailable());
+            }
+        }
+
+        @Nested
+        class WhenStatusCode500 {
+            @BeforeEach
+            void setup() {
+                when(httpResponse.getCode()).thenReturn(HttpStatus.SC_SERVICE_UNAVAILABLE);
+            }
+            @Test
+            void thenResponseIsNullAndMapperIsUnavailable() {
+                ExternalMapper.MappingResult result = call();
+                assertNull(result.getUserId());
+                assertTrue(result.isUnavailable());
+            }
+        }
+
+        @Nested
+        class WhenMapperIsNotReachable {
+            @BeforeEach
+            void setup() {
+                // the answer of the previous stubbing would be invoked by the new one
+                reset(closeableHttpClient);
+                HttpClientMockHelper.whenExecuteThenThrow(closeableHttpClient, new IOException("Connection refused"));
+            }
+            @Test
+            void thenResponseIsNullAndMapperIsUnavailable() {
+                ExternalMapper.MappingResult result = call();
+                assertNull(result.getUserId());
+                assertTrue(result.isUnavailable());
             }
         }
 
@@ -136,10 +193,10 @@ class ExternalMapperTest {
                 when(httpResponse.getCode()).thenReturn(HttpStatus.SC_PROCESSING);
             }
             @Test
-            void thenResponseIsNull() {
-                HttpEntity payload = NullEntity.INSTANCE;
-                MapperResponse response = mapper.callExternalMapper(payload);
-                assertNull(response);
+            void thenResponseIsNullAndMapperIsUnavailable() {
+                ExternalMapper.MappingResult result = call();
+                assertNull(result.getUserId());
+                assertTrue(result.isUnavailable());
             }
         }
 
@@ -150,10 +207,10 @@ class ExternalMapperTest {
                 when(responseEntity.getContent()).thenReturn(new ByteArrayInputStream("invalid content".getBytes()));
             }
             @Test
-            void thenResponseIsNull() {
-                HttpEntity payload = NullEntity.INSTANCE;
-                MapperResponse response = mapper.callExternalMapper(payload);
-                assertNull(response);
+            void thenResponseIsNullAndMapperIsUnavailable() {
+                ExternalMapper.MappingResult result = call();
+                assertNull(result.getUserId());
+                assertTrue(result.isUnavailable());
             }
         }
 
@@ -165,9 +222,9 @@ class ExternalMapperTest {
             }
             @Test
             void thenResponseIsNull() {
-                HttpEntity payload = NullEntity.INSTANCE;
-                MapperResponse response = mapper.callExternalMapper(payload);
-                assertNull(response);
+                ExternalMapper.MappingResult result = call();
+                assertNull(result.getUserId());
+                assertFalse(result.isUnavailable());
             }
         }
     }
@@ -181,9 +238,7 @@ class ExternalMapperTest {
         @EmptySource
         void whenMapperUrlInvalid_thenResponseIsNull(String url) {
             mapper = new TestExternalMapper(url, "mapper_user", closeableHttpClient, tokenCreationService);
-            HttpEntity payload = NullEntity.INSTANCE;
-            MapperResponse response = mapper.callExternalMapper(payload);
-            assertNull(response);
+            assertNull(call().getUserId());
             verify(tokenCreationService, times(0)).createJwtTokenWithoutCredentials(anyString());
         }
 
@@ -192,11 +247,43 @@ class ExternalMapperTest {
         @EmptySource
         void whenMapperUserInvalid_thenResponseIsNull(String user) {
             mapper = new TestExternalMapper("http://localhost/test", user, closeableHttpClient, tokenCreationService);
-            HttpEntity payload = NullEntity.INSTANCE;
-            MapperResponse response = mapper.callExternalMapper(payload);
-            assertNull(response);
+            assertNull(call().getUserId());
             verify(tokenCreationService, times(0)).createJwtTokenWithoutCredentials(anyString());
         }
     }
-}
 
+    @Nested
+    class GivenMappingResult {
+
+        private final SpelExpressionParser parser = new SpelExpressionParser();
+
+        private boolean unless(ExternalMapper.MappingResult result) {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("result", result);
+            return Boolean.TRUE.equals(parser.parseExpression(ExternalMapper.UNLESS_MAPPER_UNAVAILABLE).getValue(context, Boolean.class));
+        }
+
+        @Test
+        void whenMapperAnswered_thenResultIsCached() {
+            assertFalse(unless(ExternalMapper.MappingResult.of("ZOSUSER")));
+            assertFalse(unless(ExternalMapper.MappingResult.of(null)));
+        }
+
+        @Test
+        void whenMapperIsUnavailable_thenResultIsNotCached() {
+            assertTrue(unless(ExternalMapper.MappingResult.UNAVAILABLE));
+            assertTrue(unless(null));
+        }
+
+        @Test
+        void whenUserIdIsRequested_thenProxyIsUsed() {
+            ExternalMapper proxy = mock(ExternalMapper.class);
+            when(proxy.map(any())).thenReturn(ExternalMapper.MappingResult.of("ZOSUSER"));
+            ReflectionTestUtils.setField(mapper, "meAsProxy", proxy);
+
+            assertEquals("ZOSUSER", mapper.mapToMainframeUserId(mock(AuthSource.class)));
+        }
+
+    }
+
+}
@@ -25,6 +25,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.util.HttpClientMockHelper;
 import org.zowe.apiml.zaas.security.service.TokenCreationService;
 import org.zowe.apiml.zaas.security.service.schema.source.JwtAuthSource;
@@ -90,6 +91,7 @@ class OIDCExternalMapperTest {
         authSource.setDistributedId("distributed_ID");
         oidcExternalMapper = new OIDCExternalMapper("https://domain.com/mapper", "mapper_user", httpClient, tokenCreationService, authConfigurationProperties);
         oidcExternalMapper.registry = "test_registry";
+        ReflectionTestUtils.setField(oidcExternalMapper, "meAsProxy", oidcExternalMapper);
 
         responseEntity = new BasicHttpEntity(IOUtils.toInputStream(SUCCESS_MAPPER_RESPONSE, StandardCharsets.UTF_8), ContentType.APPLICATION_JSON);
     }
@@ -0,0 +1,151 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.mapping;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.zowe.apiml.zaas.security.service.schema.source.JwtAuthSource;
+import org.zowe.apiml.zaas.security.service.schema.source.OIDCAuthSource;
+import org.zowe.apiml.zaas.security.service.schema.source.X509AuthSource;
+
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserMappingKeyGeneratorTest {
+
+    private final UserMappingKeyGenerator keyGenerator = new UserMappingKeyGenerator();
+
+    private static X509Certificate certificate(byte[] encoded) throws CertificateEncodingException {
+        X509Certificate certificate = mock(X509Certificate.class);
+        when(certificate.getEncoded()).thenReturn(encoded);
+        return certificate;
+    }
+
+    private static OIDCAuthSource oidcAuthSource(String token, String distributedId) {
+        OIDCAuthSource authSource = new OIDCAuthSource(token);
+        authSource.setDistributedId(distributedId);
+        return authSource;
+    }
+
+    private static OIDCNativeMapper oidcMapper(String registry) {
+        OIDCNativeMapper mapper = new OIDCNativeMapper(mock(NativeMapperWrapper.class));
+        mapper.registry = registry;
+        return mapper;
+    }
+
+    private Object generate(Object target, Object authSource) {
+        return keyGenerator.generate(target, null, authSource);
+    }
+
+    @Nested
+    class GivenX509AuthSource {
+
+        private final X509NativeMapper mapper = new X509NativeMapper(mock(NativeMapperWrapper.class));
+
+        @Test
+        void whenSameCertificate_thenSameKey() throws CertificateEncodingException {
+            Object key1 = generate(mapper, new X509AuthSource(certificate(new byte[] {1, 2, 3})));
+            Object key2 = generate(mapper, new X509AuthSource(certificate(new byte[] {1, 2, 3})));
+
+            assertEquals(key1, key2);
+            assertEquals(
+                new SimpleKey(X509AuthSource.type, "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81"),
+                key1
+            );
+        }
+
+        @Test
+        void whenDifferentCertificate_thenDifferentKey() throws CertificateEncodingException {
+            Object key1 = generate(mapper, new X509AuthSource(certificate(new byte[] {1, 2, 3})));
+            Object key2 = generate(mapper, new X509AuthSource(certificate(new byte[] {1, 2, 4})));
+
+            assertNotEquals(key1, key2);
+        }
+
+        @Test
+        void whenCertificateCannotBeEncoded_thenNoKey() throws CertificateEncodingException {
+            X509Certificate certificate = mock(X509Certificate.class);
+            when(certificate.getEncoded()).thenThrow(new CertificateEncodingException("invalid"));
+            X509AuthSource authSource = new X509AuthSource(certificate);
+
+            assertFalse(UserMappingKeyGenerator.hasKey(mapper, authSource));
+            assertThrows(IllegalStateException.class, () -> generate(mapper, authSource));
+        }
+
+        @Test
+        void whenNoCertificate_thenNoKey() {
+            assertFalse(UserMappingKeyGenerator.hasKey(mapper, new X509AuthSource(null)));
+        }
+
+        @Test
+        void whenCertificate_thenHasKey() throws CertificateEncodingException {
+            assertTrue(UserMappingKeyGenerator.hasKey(mapper, new X509AuthSource(certificate(new byte[] {1, 2, 3}))));
+        }
+
+    }
+
+    @Nested
+    class GivenOIDCAuthSource {
+
+        @Test
+        void whenSameDistributedIdAndRegistry_thenSameKeyForDifferentTokens() {
+            OIDCNativeMapper mapper = oidcMapper("ICANON");
+
+            Object key1 = generate(mapper, oidcAuthSource("token1", "user@domain"));
+            Object key2 = generate(mapper, oidcAuthSource("token2", "user@domain"));
+
+            assertEquals(key1, key2);
+            assertEquals(new SimpleKey(OIDCAuthSource.type, "user@domain", "ICANON"), key1);
+        }
+
+        @Test
+        void whenDifferentDistributedId_thenDifferentKey() {
+            OIDCNativeMapper mapper = oidcMapper("ICANON");
+
+            assertNotEquals(
+                generate(mapper, oidcAuthSource("token", "user1@domain")),
+                generate(mapper, oidcAuthSource("token", "user2@domain"))
+            );
+        }
+
+        @Test
+        void whenDifferentRegistry_thenDifferentKey() {
+            OIDCAuthSource authSource = oidcAuthSource("token", "user@domain");
+
+            assertNotEquals(
+                generate(oidcMapper("ICANON"), authSource),
+                generate(oidcMapper("OTHER"), authSource)
+            );
+        }
+
+        @Test
+        void whenNoDistributedId_thenNoKey() {
+            assertFalse(UserMappingKeyGenerator.hasKey(oidcMapper("ICANON"), new OIDCAuthSource("token")));
+        }
+
+    }
+
+    @Test
+    void givenOtherAuthSource_thenNoKey() {
+        assertFalse(UserMappingKeyGenerator.hasKey(oidcMapper("ICANON"), new JwtAuthSource("token")));
+        assertFalse(UserMappingKeyGenerator.hasKey(oidcMapper("ICANON"), null));
+    }
+
+}
@@ -14,7 +14,7 @@ import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-import org.zowe.apiml.zaas.security.mapping.model.MapperResponse;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.zaas.security.service.TokenCreationService;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 import org.zowe.apiml.zaas.security.service.schema.source.JwtAuthSource;
@@ -41,13 +41,14 @@ class X509ExternalMapperTest {
         when(x509Certificate.getEncoded()).thenReturn(new byte[2]);
         x509AuthSource = new X509AuthSource(x509Certificate);
         x509ExternalMapper = spy(new X509ExternalMapper("https://domain.com/mapper", "mapper_user", mock(CloseableHttpClient.class), mock(TokenCreationService.class), mock(AuthConfigurationProperties.class)));
+        ReflectionTestUtils.setField(x509ExternalMapper, "meAsProxy", x509ExternalMapper);
     }
 
     @Nested
     class GivenValidMapperResponse {
         @BeforeEach
         void setup() {
-            doReturn(new MapperResponse("ZOSUSER", 0, 0 ,0 ,0)).when(x509ExternalMapper).callExternalMapper(any());
+            doReturn(ExternalMapper.MappingResult.of("ZOSUSER")).when(x509ExternalMapper).callExternalMapper(any(), any());
         }
         @Test
         void thenReturnMappedUserId() {
@@ -60,7 +61,7 @@ class X509ExternalMapperTest {
     class GivenNullMapperResponse {
         @BeforeEach
         void setup() {
-            doReturn(null).when(x509ExternalMapper).callExternalMapper(any());
+            doReturn(ExternalMapper.MappingResult.of(null)).when(x509ExternalMapper).callExternalMapper(any(), any());
         }
         @Test
         void thenNullReturned() {
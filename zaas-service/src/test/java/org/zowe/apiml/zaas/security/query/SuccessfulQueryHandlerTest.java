@@ -34,6 +34,7 @@ import org.zowe.apiml.util.CacheUtils;
 import org.zowe.apiml.zaas.security.service.AuthenticationService;
 import org.zowe.apiml.zaas.security.service.JwtSecurity;
 import org.zowe.apiml.zaas.security.service.TokenCreationService;
+import org.zowe.apiml.zaas.security.service.TokenInvalidationDistributor;
 import org.zowe.apiml.zaas.security.service.zosmf.ZosmfService;
 
 import java.security.KeyPair;
@@ -66,6 +67,9 @@ class SuccessfulQueryHandlerTest {
     @Mock
     private EurekaClient eurekaClient;
 
+    @Mock
+    private TokenInvalidationDistributor tokenInvalidationDistributor;
+
     @Mock
     private DiscoveryClient discoveryClient;
 
@@ -100,7 +104,7 @@ class SuccessfulQueryHandlerTest {
             new ArrayList<>());
         AuthenticationService authService = new AuthenticationService(
             applicationContext, authConfigurationProperties, jwtSecurityInitializer, zosmfService,
-            eurekaClient, restTemplate, cacheManager, new CacheUtils()
+            eurekaClient, tokenInvalidationDistributor, cacheManager, new CacheUtils()
         );
         when(jwtSecurityInitializer.getSignatureAlgorithm()).thenReturn(algorithm);
         when(jwtSecurityInitializer.getJwtSecret()).thenReturn(privateKey);
@@ -46,7 +46,7 @@ class SuccessfulRefreshHandlerTest {
     void setUp() {
         request = new MockHttpServletRequest();
         response = new MockHttpServletResponse();
-        when(tokenCreationService.createJwtTokenWithoutCredentials(anyString())).thenReturn("NEWTOKEN");
+        when(tokenCreationService.createNewJwtTokenWithoutCredentials(anyString())).thenReturn("NEWTOKEN");
     }
 
     @Nested
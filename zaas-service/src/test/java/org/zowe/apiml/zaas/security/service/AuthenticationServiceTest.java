@@ -10,6 +10,7 @@
 
 package org.zowe.apiml.zaas.security.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.netflix.appinfo.ApplicationInfoManager;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.EurekaClient;
@@ -49,7 +50,7 @@ import org.zowe.apiml.security.common.token.TokenAuthentication;
 import org.zowe.apiml.security.common.token.TokenExpireException;
 import org.zowe.apiml.security.common.token.TokenNotValidException;
 import org.zowe.apiml.util.CacheUtils;
-import org.zowe.apiml.util.EurekaUtils;
+import org.zowe.apiml.util.HashUtils;
 import org.zowe.apiml.zaas.config.CacheConfig;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 import org.zowe.apiml.zaas.security.service.zosmf.ZosmfService;
@@ -87,7 +88,7 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
     @Mock
     private JwtSecurity jwtSecurityInitializer;
     @Mock
-    private RestTemplate restTemplate;
+    private TokenInvalidationDistributor tokenInvalidationDistributor;
 
     @Mock
     private ZosmfService zosmfService;
@@ -115,7 +116,7 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
 
         authService = new AuthenticationService(
             applicationContext, authConfigurationProperties, jwtSecurityInitializer,
-            zosmfService, eurekaClient, restTemplate, cacheManager, cacheUtils
+            zosmfService, eurekaClient, tokenInvalidationDistributor, cacheManager, cacheUtils
         );
         scopes = new HashSet<>();
         scopes.add("Service1");
@@ -439,16 +440,14 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
             when(instanceInfo.getInstanceId()).thenReturn("instanceId");
             when(application.getInstances()).thenReturn(Collections.singletonList(instanceInfo2));
             when(instanceInfo2.getInstanceId()).thenReturn("insncId2");
-            when(instanceInfo2.getSecurePort()).thenReturn(100);
-            when(instanceInfo2.getHostName()).thenReturn("localhost");
 
             stubJWTSecurityForSign();
             authConfigurationProperties.getTokenProperties().setIssuer(ZOSMF);
             String token = authService.createJwtToken("user", DOMAIN, null);
-            doNothing().when(restTemplate).delete("http://localhost:0/zaas/api/v1/auth/invalidate/" + token);
             Mockito.doThrow(new BadCredentialsException("Invalid Credentials")).when(zosmfService).invalidate(ZosmfService.TokenType.JWT, token);
 
             assertTrue(authService.invalidateJwtToken(token, true));
+            verify(tokenInvalidationDistributor).distribute(Collections.singletonList(instanceInfo2), token);
         }
 
         @Test
@@ -525,6 +524,81 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
         }
     }
 
+    @Nested
+    class GivenParsedTokenCacheTest {
+
+        private static final String TOKEN = "some_token";
+
+        @Test
+        void whenTokenIsParsedAgain_thenSignatureIsVerifiedOnce() {
+            stubJWTSecurityForSignAndVerify();
+            String jwtToken = authService.createJwtToken(USER, DOMAIN, LTPA);
+
+            assertEquals(USER, authService.parseJwtWithSignature(jwtToken).getUserId());
+            assertEquals(USER, authService.parseJwtWithSignature(jwtToken).getUserId());
+            assertEquals(LTPA, authService.getLtpaTokenWithValidation(jwtToken));
+
+            verify(jwtSecurityInitializer, times(1)).getJwtPublicKey();
+        }
+
+        @Test
+        void whenTokenWasParsedWithoutSignature_thenSignatureIsVerified() {
+            stubJWTSecurityForSign();
+            String jwtToken = authService.createJwtToken(USER, DOMAIN, LTPA);
+
+            assertEquals(USER, authService.parseJwtToken(jwtToken).getUserId());
+            verify(jwtSecurityInitializer, never()).getJwtPublicKey();
+
+            when(jwtSecurityInitializer.getJwtPublicKey()).thenReturn(publicKey);
+            assertEquals(USER, authService.parseJwtWithSignature(jwtToken).getUserId());
+            assertEquals(LTPA, authService.getLtpaToken(jwtToken));
+            verify(jwtSecurityInitializer, times(1)).getJwtPublicKey();
+        }
+
+        @Test
+        void whenParsedTokenIsModified_thenCachedClaimsAreNotChanged() {
+            stubJWTSecurityForSign();
+            String jwtToken = authService.createJwtToken(USER, DOMAIN, LTPA);
+
+            QueryResponse queryResponse = authService.parseJwtToken(jwtToken);
+            queryResponse.setUserId("anotherUser");
+            queryResponse.getExpiration().setTime(0);
+
+            QueryResponse parsedAgain = authService.parseJwtToken(jwtToken);
+            assertEquals(USER, parsedAgain.getUserId());
+            assertTrue(parsedAgain.getExpiration().after(new Date()));
+        }
+
+        @Test
+        void whenTokenIsParsed_thenTokenIsNotRetained() {
+            stubJWTSecurityForSign();
+            String jwtToken = authService.createJwtToken(USER, DOMAIN, LTPA);
+
+            authService.parseJwtToken(jwtToken);
+
+            Cache<String, ?> parsedTokens = (Cache<String, ?>) ReflectionTestUtils.getField(authService, "parsedTokens");
+            assertEquals(Collections.singleton(HashUtils.sha256(jwtToken)), parsedTokens.asMap().keySet());
+            assertFalse(parsedTokens.asMap().values().iterator().next().toString().contains(jwtToken));
+        }
+
+        @Test
+        void whenCachedTokenExpires_thenThrowTokenExpireException() {
+            Claims claims = Jwts.claims()
+                .subject(USER)
+                .issuer("APIML")
+                .expiration(new Date(System.currentTimeMillis() - 1000))
+                .build();
+
+            try (MockedStatic<JwtUtils> jwtUtilsMock = Mockito.mockStatic(JwtUtils.class)) {
+                jwtUtilsMock.when(() -> JwtUtils.getJwtClaims(TOKEN)).thenReturn(claims);
+                assertEquals(USER, authService.parseJwtToken(TOKEN).getUserId());
+                assertThrows(TokenExpireException.class, () -> authService.parseJwtToken(TOKEN));
+                jwtUtilsMock.verify(() -> JwtUtils.getJwtClaims(TOKEN), times(1));
+            }
+        }
+
+    }
+
     void stubJWTSecurityForSignAndVerify() {
         stubJWTSecurityForSign();
         when(jwtSecurityInitializer.getJwtPublicKey()).thenReturn(publicKey);
@@ -538,7 +612,7 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
     @Nested
     @ExtendWith(SpringExtension.class)
     @ContextConfiguration(classes = { CacheConfig.class, AuthenticationService.class, AuthConfigurationProperties.class })
-    @MockBean({ JwtSecurity.class, ZosmfService.class, EurekaClient.class, GatewayClient.class })
+    @MockBean({ JwtSecurity.class, ZosmfService.class, EurekaClient.class, GatewayClient.class, TokenInvalidationDistributor.class })
     @MockBean(name = "restTemplateWithKeystore", value = RestTemplate.class)
     class GivenCacheJWTTest {
 
@@ -573,7 +647,23 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
             assertTrue(authService.validateJwtToken(jwtToken02).isAuthenticated());
             verify(jwtSecurityInitializer, times(2)).getJwtPublicKey();
             assertFalse(authService.validateJwtToken(jwtToken01).isAuthenticated());
-            verify(jwtSecurityInitializer, times(3)).getJwtPublicKey();
+            // the signature of the token was already verified
+            verify(jwtSecurityInitializer, times(2)).getJwtPublicKey();
+        }
+
+        @Test
+        void whenMarkedInvalidated_thenTokenIsNotValidWithoutCallingZosmf(@Autowired ZosmfService zosmfService) {
+            when(jwtSecurityInitializer.getSignatureAlgorithm()).thenReturn(ALGORITHM);
+            when(jwtSecurityInitializer.getJwtSecret()).thenReturn(privateKey);
+            when(jwtSecurityInitializer.getJwtPublicKey()).thenReturn(publicKey);
+            String jwtToken = authService.createJwtToken("user03", "domain03", "ltpa03");
+            assertTrue(authService.validateJwtToken(jwtToken).isAuthenticated());
+
+            assertTrue(authService.markInvalidated(jwtToken));
+
+            assertTrue(authService.isInvalidated(jwtToken));
+            assertFalse(authService.validateJwtToken(jwtToken).isAuthenticated());
+            verifyNoInteractions(zosmfService);
         }
 
     }
@@ -628,8 +718,7 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
 
             authService.distributeInvalidate(instanceInfo.getInstanceId());
 
-            verify(restTemplate, times(1)).delete(EurekaUtils.getUrl(instanceInfo) + "/zaas/api/v1/auth/invalidate/{}", "a");
-            verify(restTemplate, times(1)).delete(EurekaUtils.getUrl(instanceInfo) + "/zaas/api/v1/auth/invalidate/{}", "b");
+            verify(tokenInvalidationDistributor, times(1)).synchronize(instanceInfo, List.of("a", "b"));
         }
 
     }
@@ -10,7 +10,9 @@
 
 package org.zowe.apiml.zaas.security.service;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -25,8 +27,11 @@ import org.zowe.apiml.zaas.security.service.zosmf.ZosmfService;
 import org.zowe.apiml.passticket.IRRPassTicketGenerationException;
 import org.zowe.apiml.passticket.PassTicketService;
 import org.zowe.apiml.security.common.error.AuthenticationTokenException;
+import org.zowe.apiml.security.common.token.QueryResponse;
 import org.zowe.apiml.security.common.token.TokenAuthentication;
+import org.zowe.apiml.security.common.token.TokenNotValidException;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -36,6 +41,9 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.zowe.apiml.zaas.security.service.zosmf.ZosmfService.TokenType.JWT;
 import static org.zowe.apiml.zaas.security.service.zosmf.ZosmfService.TokenType.LTPA;
@@ -178,4 +186,117 @@ class TokenCreationServiceTest {
 
         assertEquals("Test exception", e.getMessage());
     }
+
+    @Test
+    void givenTokenReuseDisabled_whenTokenIsRequestedAgain_thenNewTokenIsIssued() {
+        when(providers.isZosfmUsed()).thenReturn(false);
+        when(authenticationService.createJwtToken(eq(VALID_USER_ID), any(), any())).thenReturn(VALID_APIML_TOKEN);
+        when(authenticationService.createTokenAuthentication(VALID_USER_ID, VALID_APIML_TOKEN)).thenReturn(new TokenAuthentication(VALID_USER_ID, VALID_APIML_TOKEN));
+
+        underTest.createJwtTokenWithoutCredentials(VALID_USER_ID);
+        underTest.createJwtTokenWithoutCredentials(VALID_USER_ID);
+
+        verify(authenticationService, times(2)).createJwtToken(eq(VALID_USER_ID), any(), any());
+        verify(authenticationService, never()).parseJwtToken(any());
+    }
+
+    @Test
+    void givenServiceIsDestroyed_thenRefreshExecutorIsShutDown() {
+        underTest.afterPropertiesSet();
+        underTest.shutdown();
+
+        assertTrue(underTest.refreshExecutor.isShutdown());
+    }
+
+    @Nested
+    class GivenTokenReuseEnabled {
+
+        private static final String NEW_APIML_TOKEN = "newApimlToken";
+
+        @BeforeEach
+        void setUp() {
+            underTest.tokenReuseEnabled = true;
+            underTest.safetyMarginSeconds = 60;
+            underTest.refreshAheadSeconds = 300;
+            underTest.refreshExecutor = MoreExecutors.newDirectExecutorService();
+
+            when(providers.isZosfmUsed()).thenReturn(false);
+            when(authenticationService.createTokenAuthentication(eq(VALID_USER_ID), any()))
+                .thenAnswer(invocation -> new TokenAuthentication(VALID_USER_ID, invocation.getArgument(1)));
+        }
+
+        private void expiresIn(String token, long seconds) {
+            QueryResponse queryResponse = new QueryResponse();
+            queryResponse.setExpiration(new Date(System.currentTimeMillis() + seconds * 1000));
+            when(authenticationService.parseJwtToken(token)).thenReturn(queryResponse);
+        }
+
+        @Test
+        void whenTokenIsRequestedAgain_thenIssuedTokenIsReused() {
+            when(authenticationService.createJwtToken(eq(VALID_USER_ID), any(), any())).thenReturn(VALID_APIML_TOKEN);
+            expiresIn(VALID_APIML_TOKEN, 3600);
+
+            assertEquals(VALID_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+            assertEquals(VALID_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+
+            verify(authenticationService, times(1)).createJwtToken(eq(VALID_USER_ID), any(), any());
+        }
+
+        @Test
+        void whenTokenIsCloseToExpiration_thenNewTokenIsIssued() {
+            when(authenticationService.createJwtToken(eq(VALID_USER_ID), any(), any())).thenReturn(VALID_APIML_TOKEN, NEW_APIML_TOKEN);
+            expiresIn(VALID_APIML_TOKEN, 30);
+            expiresIn(NEW_APIML_TOKEN, 3600);
+
+            assertEquals(VALID_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+            assertEquals(NEW_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+        }
+
+        @Test
+        void whenTokenIsInRefreshPeriod_thenItIsReturnedAndRefreshed() {
+            when(authenticationService.createJwtToken(eq(VALID_USER_ID), any(), any())).thenReturn(VALID_APIML_TOKEN, NEW_APIML_TOKEN);
+            expiresIn(VALID_APIML_TOKEN, 120);
+            expiresIn(NEW_APIML_TOKEN, 3600);
+
+            assertEquals(VALID_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+            assertEquals(VALID_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+            assertEquals(NEW_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+
+            verify(authenticationService, times(2)).createJwtToken(eq(VALID_USER_ID), any(), any());
+        }
+
+        @Test
+        void whenTokenIsInvalidated_thenNewTokenIsIssued() {
+            when(authenticationService.createJwtToken(eq(VALID_USER_ID), any(), any())).thenReturn(VALID_APIML_TOKEN, NEW_APIML_TOKEN);
+            expiresIn(VALID_APIML_TOKEN, 3600);
+            expiresIn(NEW_APIML_TOKEN, 3600);
+            when(authenticationService.isInvalidated(VALID_APIML_TOKEN)).thenReturn(true);
+
+            assertEquals(VALID_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+            assertEquals(NEW_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+        }
+
+        @Test
+        void whenExpirationCannotBeRead_thenTokenIsNotReused() {
+            when(authenticationService.createJwtToken(eq(VALID_USER_ID), any(), any())).thenReturn(VALID_APIML_TOKEN, NEW_APIML_TOKEN);
+            when(authenticationService.parseJwtToken(any())).thenThrow(new TokenNotValidException("invalid"));
+
+            assertEquals(VALID_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+            assertEquals(NEW_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+        }
+
+        @Test
+        void whenNewTokenIsRequested_thenIssuedTokenIsNotReused() {
+            when(authenticationService.createJwtToken(eq(VALID_USER_ID), any(), any())).thenReturn(VALID_APIML_TOKEN, NEW_APIML_TOKEN);
+            expiresIn(VALID_APIML_TOKEN, 3600);
+
+            assertEquals(VALID_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+            assertEquals(NEW_APIML_TOKEN, underTest.createNewJwtTokenWithoutCredentials(VALID_USER_ID));
+            assertEquals(VALID_APIML_TOKEN, underTest.createJwtTokenWithoutCredentials(VALID_USER_ID));
+
+            verify(authenticationService, never()).parseJwtToken(NEW_APIML_TOKEN);
+        }
+
+    }
+
 }
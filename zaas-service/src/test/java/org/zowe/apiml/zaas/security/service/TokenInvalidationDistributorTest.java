@@ -0,0 +1,373 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.zowe.apiml.product.constants.CoreService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenInvalidationDistributorTest {
+
+    private static final String BATCH_URL = "https://host1:10023/zaas/api/v1/auth/invalidate/batch";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private EurekaClient eurekaClient;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private TokenInvalidationDistributor distributor;
+
+    private final InstanceInfo instance1 = createInstanceInfo("instance1", "host1");
+    private final InstanceInfo instance2 = createInstanceInfo("instance2", "host2");
+
+    @BeforeEach
+    void setUp() {
+        distributor = new TokenInvalidationDistributor(restTemplate, eurekaClient);
+        distributor.retries = 2;
+        distributor.retryDelayMs = 0;
+        // run the distribution and the retries in the calling thread
+        distributor.executor = MoreExecutors.newDirectExecutorService();
+        distributor.scheduler = scheduler;
+        lenient().when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        });
+    }
+
+    private List<Runnable> collectTasks() {
+        List<Runnable> tasks = new ArrayList<>();
+        ExecutorService executor = mock(ExecutorService.class);
+        doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(executor).execute(any(Runnable.class));
+        distributor.executor = executor;
+        return tasks;
+    }
+
+    private static InstanceInfo createInstanceInfo(String instanceId, String hostName) {
+        return InstanceInfo.Builder.newBuilder()
+            .setAppName("zaas")
+            .setInstanceId(instanceId)
+            .setHostName(hostName)
+            .setSecurePort(10023)
+            .enablePort(InstanceInfo.PortType.SECURE, true)
+            .build();
+    }
+
+    private void registered(InstanceInfo... instances) {
+        Application application = mock(Application.class);
+        when(application.getInstances()).thenReturn(List.of(instances));
+        when(eurekaClient.getApplication(CoreService.ZAAS.getServiceId())).thenReturn(application);
+    }
+
+    private String lastBody(int requests) throws IOException {
+        ArgumentCaptor<RequestCallback> requestCallback = ArgumentCaptor.forClass(RequestCallback.class);
+        verify(restTemplate, times(requests)).execute(eq(BATCH_URL), eq(HttpMethod.POST), requestCallback.capture(), isNull());
+        return body(requestCallback.getValue());
+    }
+
+    private String body(RequestCallback requestCallback) throws IOException {
+        MockClientHttpRequest request = new MockClientHttpRequest();
+        requestCallback.doWithRequest(request);
+        assertThat(request.getHeaders().getContentType(), is(MediaType.APPLICATION_JSON));
+        return request.getBodyAsString();
+    }
+
+    @Nested
+    class GivenInstances {
+
+        @Test
+        void whenDistribute_thenTokenIsSentToEachInstance() throws IOException {
+            distributor.distribute(List.of(instance1, instance2), "token");
+
+            ArgumentCaptor<RequestCallback> requestCallback = ArgumentCaptor.forClass(RequestCallback.class);
+            verify(restTemplate).execute(eq(BATCH_URL), eq(HttpMethod.POST), requestCallback.capture(), isNull());
+            verify(restTemplate).execute(eq("https://host2:10023/zaas/api/v1/auth/invalidate/batch"), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+            assertThat(body(requestCallback.getValue()), is("[\"token\"]"));
+        }
+
+        @Test
+        void whenNoInstance_thenNothingIsSent() {
+            distributor.distribute(Collections.emptyList(), "token");
+
+            verify(restTemplate, never()).execute(anyString(), any(HttpMethod.class), any(RequestCallback.class), isNull());
+        }
+
+        @Test
+        void whenSynchronize_thenAllTokensAreSentInSingleRequest() throws IOException {
+            List<String> tokens = IntStream.range(0, TokenInvalidationDistributor.MAX_BATCH_SIZE + 1).mapToObj(i -> "t" + i).toList();
+
+            distributor.synchronize(instance1, tokens);
+
+            ArgumentCaptor<RequestCallback> requestCallback = ArgumentCaptor.forClass(RequestCallback.class);
+            verify(restTemplate, times(1)).execute(eq(BATCH_URL), eq(HttpMethod.POST), requestCallback.capture(), isNull());
+            assertThat(body(requestCallback.getValue()).split(",").length, is(tokens.size()));
+        }
+
+        @Test
+        void whenSynchronizeNoToken_thenNothingIsSent() {
+            distributor.synchronize(instance1, Collections.emptyList());
+
+            verify(restTemplate, never()).execute(anyString(), any(HttpMethod.class), any(RequestCallback.class), isNull());
+        }
+
+    }
+
+    @Nested
+    class GivenTokensQueuedDuringDistribution {
+
+        @Test
+        void thenTheyAreSentInNextBatch() throws IOException {
+            List<Runnable> tasks = collectTasks();
+
+            distributor.distribute(List.of(instance1), "token1");
+            distributor.distribute(List.of(instance1), "token2");
+            // the first flush was not finished yet, so it sends both tokens
+            assertThat(tasks.size(), is(1));
+            tasks.get(0).run();
+
+            ArgumentCaptor<RequestCallback> requestCallback = ArgumentCaptor.forClass(RequestCallback.class);
+            verify(restTemplate, times(1)).execute(eq(BATCH_URL), eq(HttpMethod.POST), requestCallback.capture(), isNull());
+            assertThat(body(requestCallback.getValue()), is("[\"token1\",\"token2\"]"));
+
+            distributor.distribute(List.of(instance1), "token3");
+            assertThat(tasks.size(), is(2));
+        }
+
+        @Test
+        void whenInstanceLeavesAndRegistersAgain_thenOnlyOneFlushRuns() throws IOException {
+            List<Runnable> tasks = collectTasks();
+
+            distributor.distribute(List.of(instance1), "token1");
+            // the instance left, its queue is dropped, but its flush was not finished yet
+            distributor.distribute(List.of(instance2), "token2");
+            distributor.distribute(List.of(instance1), "token3");
+            assertThat(tasks.size(), is(2));
+
+            tasks.get(0).run();
+            assertThat(lastBody(1), is("[\"token3\"]"));
+            assertThat(tasks.size(), is(2));
+        }
+
+    }
+
+    @Nested
+    class GivenFailingInstance {
+
+        @Test
+        void whenTemporaryFailure_thenRetry() {
+            when(restTemplate.execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull()))
+                .thenThrow(new ResourceAccessException("timeout"))
+                .thenReturn(null);
+
+            distributor.synchronize(instance1, List.of("token"));
+
+            verify(restTemplate, times(2)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+        }
+
+        @Test
+        void whenTemporaryFailureOnDistribute_thenRetryIsScheduled() {
+            distributor.retryDelayMs = 100;
+            when(restTemplate.execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull()))
+                .thenThrow(new ResourceAccessException("timeout"), new ResourceAccessException("timeout"))
+                .thenReturn(null);
+
+            distributor.distribute(List.of(instance1), "token");
+
+            // the thread does not wait for the retry
+            verify(scheduler).schedule(any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+            verify(scheduler).schedule(any(Runnable.class), eq(200L), eq(TimeUnit.MILLISECONDS));
+            verify(restTemplate, times(3)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+        }
+
+        @Test
+        void whenRetriesExhaustedOnSynchronize_thenThrow() {
+            when(restTemplate.execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull()))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+            List<String> tokens = List.of("token");
+            assertThrows(ResourceAccessException.class, () -> distributor.synchronize(instance1, tokens));
+            verify(restTemplate, times(3)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+        }
+
+        @Test
+        void whenRetriesExhaustedOnDistribute_thenDoNotThrow() {
+            when(restTemplate.execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull()))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+            List<InstanceInfo> instances = List.of(instance1);
+            assertDoesNotThrow(() -> distributor.distribute(instances, "token"));
+            verify(restTemplate, times(3)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+        }
+
+        @Test
+        void whenRetriesExhaustedOnDistribute_thenTokenIsSentWithNextToken() throws IOException {
+            when(restTemplate.execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull()))
+                .thenThrow(new ResourceAccessException("timeout"), new ResourceAccessException("timeout"), new ResourceAccessException("timeout"))
+                .thenReturn(null);
+
+            distributor.distribute(List.of(instance1), "token1");
+            distributor.distribute(List.of(instance1), "token2");
+
+            assertThat(lastBody(4), is("[\"token1\",\"token2\"]"));
+        }
+
+        @Test
+        void whenRetriesExhaustedOnDistribute_thenTokenIsSentByPeriodicRetry() throws IOException {
+            when(restTemplate.execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull()))
+                .thenThrow(new ResourceAccessException("timeout"), new ResourceAccessException("timeout"), new ResourceAccessException("timeout"))
+                .thenReturn(null);
+            registered(instance1, instance2);
+
+            distributor.distribute(List.of(instance1), "token");
+            distributor.retryPending();
+            assertThat(lastBody(4), is("[\"token\"]"));
+
+            // nothing is left to retry
+            distributor.retryPending();
+            verify(restTemplate, times(4)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+        }
+
+        @Test
+        void whenClientError_thenDoNotRetry() {
+            when(restTemplate.execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull()))
+                .thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN));
+
+            List<String> tokens = List.of("token");
+            assertThrows(HttpClientErrorException.class, () -> distributor.synchronize(instance1, tokens));
+            verify(restTemplate, times(1)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+        }
+
+    }
+
+    @Nested
+    class GivenInstanceLeft {
+
+        @BeforeEach
+        void setUp() {
+            when(restTemplate.execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull()))
+                .thenThrow(new ResourceAccessException("timeout"));
+            distributor.distribute(List.of(instance1), "token");
+        }
+
+        @Test
+        void whenPeriodicRetry_thenQueuedTokensAreDropped() {
+            registered(instance2);
+
+            distributor.retryPending();
+
+            registered(instance1);
+            distributor.retryPending();
+            verify(restTemplate, times(3)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+        }
+
+        @Test
+        void whenNextTokenIsDistributed_thenQueuedTokensAreDropped() {
+            distributor.distribute(List.of(instance2), "token2");
+
+            registered(instance1);
+            distributor.retryPending();
+            verify(restTemplate, times(3)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+        }
+
+        @Test
+        void whenZaasIsNotFound_thenQueuedTokensAreKept() {
+            when(eurekaClient.getApplication(CoreService.ZAAS.getServiceId())).thenReturn(null);
+            distributor.retryPending();
+            verify(restTemplate, times(3)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+
+            registered(instance1);
+            distributor.retryPending();
+            verify(restTemplate, times(6)).execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull());
+        }
+
+    }
+
+    @Nested
+    class GivenInstanceWithoutBatchEndpoint {
+
+        @Test
+        void thenTokensAreSentOneByOne() {
+            when(restTemplate.execute(eq(BATCH_URL), eq(HttpMethod.POST), any(RequestCallback.class), isNull()))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+            distributor.synchronize(instance1, List.of("a", "b"));
+
+            verify(restTemplate).delete("https://host1:10023/zaas/api/v1/auth/invalidate/{}", "a");
+            verify(restTemplate).delete("https://host1:10023/zaas/api/v1/auth/invalidate/{}", "b");
+        }
+
+    }
+
+    @Nested
+    class GivenDestroyedBean {
+
+        @Test
+        void thenExecutorsAreShutDown() {
+            distributor.threads = 1;
+            distributor.retryIntervalMs = 1000;
+            distributor.afterPropertiesSet();
+
+            distributor.shutdown();
+
+            assertThat(distributor.executor.isShutdown(), is(true));
+            assertThat(distributor.scheduler.isShutdown(), is(true));
+        }
+
+    }
+
+}
@@ -22,12 +22,15 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.models.AccessTokenContainer;
 import org.zowe.apiml.security.common.token.QueryResponse;
 import org.zowe.apiml.zaas.cache.CachingServiceClient;
 import org.zowe.apiml.zaas.cache.CachingServiceClientException;
 import org.zowe.apiml.zaas.security.service.AuthenticationService;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.*;
@@ -254,6 +257,134 @@ class ApimlAccessTokenProviderTest {
         }
     }
 
+    @Nested
+    class GivenHashing {
+
+        @Test
+        void whenHashIsComputedRepeatedly_thenSaltIsReadOnce() {
+            String hash = accessTokenProvider.getHash("user");
+            for (int i = 0; i < 5; i++) {
+                assertEquals(hash, accessTokenProvider.getHash("user"));
+            }
+            verify(cachingServiceClient, times(1)).read("salt");
+        }
+
+        @Test
+        void whenSaltIsRefreshed_thenItIsReadAgain() {
+            String hash = accessTokenProvider.getHash("user");
+            when(cachingServiceClient.read("salt")).thenReturn(new CachingServiceClient.KeyValue("salt", "anotherSalt"));
+
+            accessTokenProvider.refreshSalt();
+
+            assertNotEquals(hash, accessTokenProvider.getHash("user"));
+            verify(cachingServiceClient, times(2)).read("salt");
+        }
+
+        @Test
+        void thenHashIsHexOfSaltedSha512() throws Exception {
+            byte[] salt = "salt".getBytes(StandardCharsets.UTF_8);
+            MessageDigest md = MessageDigest.getInstance("SHA-512");
+            md.update(salt);
+            StringBuilder expected = new StringBuilder();
+            for (byte aByte : md.digest("password".getBytes(StandardCharsets.UTF_8))) {
+                expected.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
+            }
+
+            assertEquals(expected.toString(), ApimlAccessTokenProvider.getSecurePassword("password", salt));
+            assertEquals(expected.toString(), ApimlAccessTokenProvider.getSecurePassword("password", salt));
+        }
+
+    }
+
+    @Nested
+    class GivenRevocationIndex {
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(accessTokenProvider, "revocationMaxStalenessMs", 60_000L);
+            when(as.parseJwtWithSignature(TOKEN_WITHOUT_SCOPES)).thenReturn(queryResponseWithoutScopes);
+        }
+
+        @Test
+        void whenValidatedRepeatedly_thenCachingServiceIsReadOnce() {
+            Map<String, String> invalidUsers = new HashMap<>();
+            invalidUsers.put(accessTokenProvider.getHash("user"), String.valueOf(System.currentTimeMillis()));
+            when(cachingServiceClient.readAllMaps()).thenReturn(Collections.singletonMap(ApimlAccessTokenProvider.INVALID_USERS_KEY, invalidUsers));
+
+            for (int i = 0; i < 5; i++) {
+                assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+            }
+            verify(cachingServiceClient, times(1)).readAllMaps();
+        }
+
+        @Test
+        void whenTokenIsInvalidatedLocally_thenItIsVisibleWithoutReload() throws Exception {
+            Map<String, String> invalidScopes = new HashMap<>();
+            invalidScopes.put(accessTokenProvider.getHash("service"), "1");
+            when(cachingServiceClient.readAllMaps()).thenReturn(Collections.singletonMap(ApimlAccessTokenProvider.INVALID_SCOPES_KEY, invalidScopes));
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+
+            accessTokenProvider.invalidateToken(TOKEN_WITHOUT_SCOPES);
+
+            assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+            verify(cachingServiceClient, times(1)).readAllMaps();
+        }
+
+        @Test
+        void whenIndexIsStale_thenItIsReloaded() {
+            ReflectionTestUtils.setField(accessTokenProvider, "revocationMaxStalenessMs", 0L);
+            when(cachingServiceClient.readAllMaps())
+                .thenReturn(Collections.emptyMap())
+                .thenReturn(Collections.singletonMap(ApimlAccessTokenProvider.INVALID_USERS_KEY,
+                    Collections.singletonMap(accessTokenProvider.getHash("user"), String.valueOf(System.currentTimeMillis()))));
+
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+            assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+        }
+
+        @Test
+        void whenChangesAreAvailable_thenOnlyChangesAreRead() {
+            ReflectionTestUtils.setField(accessTokenProvider, "revocationMaxStalenessMs", 0L);
+            when(cachingServiceClient.readMapChanges(anyString(), eq(0L)))
+                .thenReturn(new CachingServiceClient.MapChanges(10, true, Collections.emptyMap()));
+            when(cachingServiceClient.readMapChanges(anyString(), eq(10L)))
+                .thenReturn(new CachingServiceClient.MapChanges(10, false, Collections.emptyMap()));
+            when(cachingServiceClient.readMapChanges(ApimlAccessTokenProvider.INVALID_USERS_KEY, 10L))
+                .thenReturn(new CachingServiceClient.MapChanges(11, false,
+                    Collections.singletonMap(accessTokenProvider.getHash("user"), String.valueOf(System.currentTimeMillis()))));
+
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+            assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+
+            verify(cachingServiceClient, times(1)).readMapChanges(ApimlAccessTokenProvider.INVALID_USERS_KEY, 10L);
+            verify(cachingServiceClient, never()).readAllMaps();
+        }
+
+        @Test
+        void whenWholeMapIsReturned_thenItReplacesTheReplica() {
+            ReflectionTestUtils.setField(accessTokenProvider, "revocationMaxStalenessMs", 0L);
+            when(cachingServiceClient.readMapChanges(anyString(), eq(0L)))
+                .thenReturn(new CachingServiceClient.MapChanges(10, true, Collections.emptyMap()));
+            when(cachingServiceClient.readMapChanges(ApimlAccessTokenProvider.INVALID_USERS_KEY, 0L))
+                .thenReturn(new CachingServiceClient.MapChanges(10, true,
+                    Collections.singletonMap(accessTokenProvider.getHash("user"), String.valueOf(System.currentTimeMillis()))));
+            when(cachingServiceClient.readMapChanges(anyString(), eq(10L)))
+                .thenReturn(new CachingServiceClient.MapChanges(12, true, Collections.emptyMap()));
+
+            assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+            // the rule was evicted in the Caching Service
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+        }
+
+        @Test
+        void whenCachingServiceIsNotAvailable_thenThrowException() {
+            when(cachingServiceClient.readAllMaps()).thenThrow(new CachingServiceClientException("error"));
+
+            assertThrows(CachingServiceClientException.class, () -> accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+        }
+
+    }
+
     static String createTestToken(String username, Map<String, Object> claims) {
         return Jwts.builder()
             .setSubject(username)